@@ -16,6 +16,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 import FoodSeer.security.JwtAuthenticationFilter;
 import FoodSeer.service.impl.JwtAccessDeniedHandler;
 import FoodSeer.service.impl.JwtAuthenticationEntryPoint;
+import jakarta.servlet.DispatcherType;
 import lombok.AllArgsConstructor;
 
 /**
@@ -59,6 +60,8 @@ public class SpringSecurityConfig {
                 .accessDeniedHandler(accessDeniedHandler))
             .authorizeHttpRequests( ( authorize ) -> {
                 authorize.requestMatchers( "/auth/**" ).permitAll();
+                // streamed responses finish on an async dispatch of a request that was already authorized
+                authorize.dispatcherTypeMatchers( DispatcherType.ASYNC ).permitAll();
                 authorize.requestMatchers( HttpMethod.OPTIONS, "/**" ).permitAll(); // allows preflight
                 authorize.requestMatchers( HttpMethod.GET, "/api/locations/{id:[0-9]+}" ).permitAll();
                 authorize.anyRequest().authenticated();
@@ -1,10 +1,15 @@
 package FoodSeer.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,10 +17,25 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import FoodSeer.dto.FoodBulkUpdateResultDto;
+import FoodSeer.dto.FoodCacheStatsDto;
 import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.FoodImportResultDto;
+import FoodSeer.dto.FoodPageDto;
+import FoodSeer.dto.FoodSearchHitDto;
+import FoodSeer.dto.FoodUpdateDto;
 import FoodSeer.service.FoodService;
+import jakarta.servlet.http.HttpServletRequest;
 
 /**
  * Controller class for food
@@ -31,6 +51,12 @@ public class FoodController {
     @Autowired
     private FoodService foodService;
 
+    /**
+     * Object mapper used to write the streamed food list
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Gets the food based on the ID parameter
      *
@@ -67,13 +93,141 @@ public class FoodController {
     }
 
     /**
-     * REST API method to provide GET access to all foods in the system
+     * POST mapping to import many foods at once. The body is read as it
+     * arrives: CSV (text/csv, columns foodName,amount,price,allergies with
+     * allergies separated by ';') or JSON lines (application/x-ndjson, one
+     * food object per line). Rejected rows are listed in the result.
      *
-     * @return JSON representation of all foods
+     * @param request
+     *            the request carrying the rows
+     * @return the import summary
+     * @throws IOException
+     *             if the body cannot be read
+     */
+    @PreAuthorize ( "hasAnyRole('ADMIN', 'STAFF')" )
+    @PostMapping ( value = "/import", consumes = { "text/csv", "application/x-ndjson", "application/jsonl" } )
+    public ResponseEntity<FoodImportResultDto> importFoods ( final HttpServletRequest request ) throws IOException {
+        final String contentType = request.getContentType();
+        final String format = contentType != null && contentType.contains( "csv" ) ? "csv" : "jsonl";
+        return ResponseEntity.ok( foodService.importFoods( request.getInputStream(), format ) );
+    }
+
+    /**
+     * REST API method to provide GET access to all foods in the system. The
+     * response carries an ETag for the catalog version; a request whose
+     * If-None-Match still matches gets a 304 without the foods being loaded.
+     *
+     * @param request
+     *            the current request
+     * @return JSON representation of all foods, or null once a 304 has been
+     *         sent
      */
     @GetMapping
-    public List<FoodDto> getFoods () {
-        return foodService.getAllFoods();
+    public ResponseEntity<List<FoodDto>> getFoods ( final WebRequest request ) {
+        final String eTag = foodService.getCatalogETag();
+        if ( request.checkNotModified( eTag ) ) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag( eTag ).cacheControl( CacheControl.noCache() )
+                .body( foodService.getAllFoods() );
+    }
+
+    /**
+     * REST API method to view the hit and miss counts of the food cache
+     *
+     * @return the cache statistics
+     */
+    @PreAuthorize ( "hasRole('ADMIN')" )
+    @GetMapping ( "/cache/stats" )
+    public ResponseEntity<FoodCacheStatsDto> getCacheStats () {
+        return ResponseEntity.ok( foodService.getCacheStats() );
+    }
+
+    /**
+     * REST API method to page through the foods in the system using an id
+     * cursor. Pass the returned nextCursor as "after" to get the next page.
+     *
+     * @param after
+     *            id of the last food already seen, omitted for the first page
+     * @param limit
+     *            maximum number of foods to return
+     * @param minPrice
+     *            optional minimum price
+     * @param maxPrice
+     *            optional maximum price
+     * @param name
+     *            optional name prefix
+     * @param exclude
+     *            optional comma-separated allergens the foods must not
+     *            contain
+     * @return the page of foods, or 400 if the limit or an allergen is
+     *         invalid
+     */
+    @GetMapping ( "/page" )
+    public ResponseEntity<FoodPageDto> getFoodsPage ( @RequestParam ( value = "after", required = false ) final Long after,
+            @RequestParam ( value = "limit", defaultValue = "50" ) final int limit,
+            @RequestParam ( value = "minPrice", required = false ) final Integer minPrice,
+            @RequestParam ( value = "maxPrice", required = false ) final Integer maxPrice,
+            @RequestParam ( value = "name", required = false ) final String name,
+            @RequestParam ( value = "exclude", required = false ) final List<String> exclude ) {
+        try {
+            return ResponseEntity.ok( foodService.getFoodsPage( after, limit, minPrice, maxPrice, name, exclude ) );
+        }
+        catch ( final IllegalArgumentException e ) {
+            return new ResponseEntity<>( HttpStatus.BAD_REQUEST );
+        }
+    }
+
+    /**
+     * REST API method to search foods by name, for autocomplete. Matches on
+     * the start of the name or of a word rank first, then names close to
+     * the query allowing for typos.
+     *
+     * @param query
+     *            the text typed so far
+     * @param limit
+     *            maximum number of results
+     * @return the best matches, or 400 if the limit is invalid
+     */
+    @GetMapping ( "/search" )
+    public ResponseEntity<List<FoodSearchHitDto>> searchFoods (
+            @RequestParam ( value = "q", defaultValue = "" ) final String query,
+            @RequestParam ( value = "limit", defaultValue = "10" ) final int limit ) {
+        try {
+            return ResponseEntity.ok( foodService.searchFoods( query, limit ) );
+        }
+        catch ( final IllegalArgumentException e ) {
+            return new ResponseEntity<>( HttpStatus.BAD_REQUEST );
+        }
+    }
+
+    /**
+     * REST API method that streams every food as a JSON array. Foods are
+     * written as they are read from the database, so memory use does not
+     * grow with the size of the catalog.
+     *
+     * @return streaming JSON array of all foods
+     */
+    @GetMapping ( "/stream" )
+    public ResponseEntity<StreamingResponseBody> streamFoods () {
+        final ObjectWriter writer = objectMapper.writerFor( FoodDto.class )
+                .without( SerializationFeature.FLUSH_AFTER_WRITE_VALUE );
+
+        final StreamingResponseBody body = out -> {
+            try ( JsonGenerator generator = objectMapper.getFactory().createGenerator( out ) ) {
+                generator.writeStartArray();
+                foodService.forEachFood( food -> {
+                    try {
+                        writer.writeValue( generator, food );
+                    }
+                    catch ( final IOException e ) {
+                        throw new UncheckedIOException( e );
+                    }
+                } );
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType( MediaType.APPLICATION_JSON ).body( body );
     }
 
     /**
@@ -130,5 +284,21 @@ public class FoodController {
         return ResponseEntity.ok(updatedFood);
     }
 
-
+    /**
+     * POST mapping to change many foods at once, e.g. for nightly
+     * repricing. Each change picks a food by id or name; null amount,
+     * price or allergies keep the current value.
+     *
+     * @param updates
+     *            the changes
+     * @return the outcome of each change, or 400 if no list was sent
+     */
+    @PreAuthorize ( "hasAnyRole('ADMIN', 'STAFF')" )
+    @PostMapping ( "/bulkUpdate" )
+    public ResponseEntity<FoodBulkUpdateResultDto> updateFoods ( @RequestBody final List<FoodUpdateDto> updates ) {
+        if ( updates == null ) {
+            return new ResponseEntity<>( HttpStatus.BAD_REQUEST );
+        }
+        return ResponseEntity.ok( foodService.updateFoods( updates ) );
+    }
 }
@@ -0,0 +1,58 @@
+package FoodSeer.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import FoodSeer.dto.DemandForecastDto;
+import FoodSeer.exception.ResourceNotFoundException;
+import FoodSeer.service.ForecastService;
+
+/**
+ * Controller for demand forecasts and reorder suggestions.
+ */
+@CrossOrigin("*")
+@RestController
+@RequestMapping("/api/forecast")
+public class ForecastController {
+
+    /** Connection to ForecastService */
+    @Autowired
+    private ForecastService forecastService;
+
+    /**
+     * REST API endpoint for the reorder suggestions of every food that has
+     * been ordered.
+     *
+     * @return the forecasts, largest suggested reorder first
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @GetMapping("/reorders")
+    public ResponseEntity<List<DemandForecastDto>> getReorderSuggestions() {
+        return ResponseEntity.ok(forecastService.getReorderSuggestions());
+    }
+
+    /**
+     * REST API endpoint for the demand forecast of one food.
+     *
+     * @param foodId id of the food
+     * @return the forecast, or 404 if the food does not exist
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @GetMapping("/{foodId}")
+    public ResponseEntity<DemandForecastDto> getForecast(@PathVariable("foodId") final Long foodId) {
+        try {
+            return ResponseEntity.ok(forecastService.getForecast(foodId));
+        } catch (final ResourceNotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+}
@@ -1,17 +1,40 @@
 package FoodSeer.controller;
 
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import FoodSeer.dto.InventoryDto;
+import FoodSeer.dto.RestockResultDto;
+import FoodSeer.dto.StockAdjustmentDto;
+import FoodSeer.dto.StockAdjustmentResultDto;
+import FoodSeer.dto.StockAlertDto;
+import FoodSeer.dto.StockLedgerLevelDto;
+import FoodSeer.dto.StockMovementDto;
+import FoodSeer.dto.StockThresholdDto;
+import FoodSeer.exception.ResourceNotFoundException;
 import FoodSeer.service.InventoryService;
+import jakarta.servlet.http.HttpServletRequest;
 
 /**
  * Controller for FoodSeer's inventory.
@@ -31,14 +54,42 @@ public class InventoryController {
 
     /**
      * REST API endpoint to provide GET access to the FoodSeer inventory.
+     * The response carries an ETag for the catalog version; a request whose
+     * If-None-Match still matches gets a 304 without the inventory being
+     * loaded.
      *
-     * @return ResponseEntity containing the current inventory
+     * @param request
+     *            the current request
+     * @return ResponseEntity containing the current inventory, or null once
+     *         a 304 has been sent
      */
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
     @GetMapping
-    public ResponseEntity<InventoryDto> getInventory() {
+    public ResponseEntity<InventoryDto> getInventory(final WebRequest request) {
+        final String eTag = inventoryService.getCatalogETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
         final InventoryDto inventoryDto = inventoryService.getInventory();
-        return ResponseEntity.ok(inventoryDto);
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(inventoryDto);
+    }
+
+    /**
+     * REST API endpoint that streams stock levels as server-sent events, so
+     * screens can stay current without polling. The stream starts with a
+     * "snapshot" event listing every food's stock, followed by "stock" and
+     * "removed" events as foods change.
+     *
+     * @return the event stream, or 503 if too many streams are open
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamStockLevels() {
+        try {
+            return ResponseEntity.ok(inventoryService.streamStockLevels());
+        } catch (final IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
     }
 
     /**
@@ -54,4 +105,155 @@ public class InventoryController {
         final InventoryDto savedInventoryDto = inventoryService.updateInventory(inventoryDto);
         return ResponseEntity.ok(savedInventoryDto);
     }
+
+    /**
+     * REST API endpoint to add or remove stock of individual foods, e.g.
+     * restocks posted from the receiving dock. Each adjustment is applied
+     * relative to the current amount, so concurrent posts do not overwrite
+     * each other.
+     *
+     * @param adjustments
+     *            the adjustments, each with a food id and a signed quantity
+     * @return the outcome of each adjustment, or 400 if no list or too many
+     *         adjustments were sent
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @PatchMapping
+    public ResponseEntity<StockAdjustmentResultDto> adjustStock(
+            @RequestBody final List<StockAdjustmentDto> adjustments) {
+        if (adjustments == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return ResponseEntity.ok(inventoryService.adjustStock(adjustments));
+        } catch (final IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * REST API endpoint to apply a supplier restock manifest: plain text with
+     * one "foodId,quantity" line per delivery and an optional header. Lines
+     * are totalled per food and applied as one batch; the result reports
+     * throughput and the rejected lines.
+     *
+     * @param request
+     *            the request carrying the manifest
+     * @return the summary, or 413 if the manifest is too large
+     * @throws IOException
+     *             if the body cannot be read
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/restock", consumes = { "text/csv", "text/plain", "application/octet-stream" })
+    public ResponseEntity<RestockResultDto> restock(final HttpServletRequest request) throws IOException {
+        try {
+            return ResponseEntity.ok(inventoryService.restockFromManifest(request.getInputStream()));
+        } catch (final IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+    }
+
+    /**
+     * REST API endpoint for the stock of a food at a point in time, read
+     * from the stock ledger.
+     *
+     * @param foodId
+     *            id of the food
+     * @param at
+     *            ISO-8601 instant, or now if absent
+     * @return the level
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @GetMapping("/ledger/{foodId}")
+    public ResponseEntity<StockLedgerLevelDto> getStockLevelAt(@PathVariable("foodId") final Long foodId,
+            @RequestParam(name = "at", required = false) final Instant at) {
+        return ResponseEntity.ok(inventoryService.getStockLevelAt(foodId, at));
+    }
+
+    /**
+     * REST API endpoint for the latest stock movements of a food.
+     *
+     * @param foodId
+     *            id of the food
+     * @param limit
+     *            largest number of movements to return
+     * @return the movements, newest first, or 400 if the limit is out of
+     *         range
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @GetMapping("/ledger/{foodId}/movements")
+    public ResponseEntity<List<StockMovementDto>> getStockMovements(@PathVariable("foodId") final Long foodId,
+            @RequestParam(name = "limit", defaultValue = "50") final int limit) {
+        try {
+            return ResponseEntity.ok(inventoryService.getStockMovements(foodId, limit));
+        } catch (final IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * REST API endpoint for the low-stock alerts raised after a given one.
+     * Clients poll with the sequence number of the last alert they saw.
+     *
+     * @param after
+     *            sequence number of the last alert already seen
+     * @return the alerts, oldest first
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @GetMapping("/alerts")
+    public ResponseEntity<List<StockAlertDto>> getStockAlerts(
+            @RequestParam(name = "after", defaultValue = "0") final long after) {
+        return ResponseEntity.ok(inventoryService.getStockAlerts(after));
+    }
+
+    /**
+     * REST API endpoint for the reorder thresholds of all foods that have
+     * one.
+     *
+     * @return the thresholds
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @GetMapping("/thresholds")
+    public ResponseEntity<List<StockThresholdDto>> getStockThresholds() {
+        return ResponseEntity.ok(inventoryService.getStockThresholds());
+    }
+
+    /**
+     * REST API endpoint to set the reorder threshold of a food.
+     *
+     * @param thresholdDto
+     *            the food id and its threshold; 0 alerts when the food runs
+     *            out
+     * @return the saved threshold, 400 with the reason if it is invalid, or
+     *         404 if the food does not exist
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @PutMapping("/thresholds")
+    public ResponseEntity<?> setStockThreshold(@RequestBody final StockThresholdDto thresholdDto) {
+        try {
+            return ResponseEntity.ok(inventoryService.setStockThreshold(thresholdDto));
+        } catch (final IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (final ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    /**
+     * REST API endpoint to remove the reorder threshold of a food.
+     *
+     * @param foodId
+     *            id of the food
+     * @return 204 once removed, or 404 if the food has no threshold
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @DeleteMapping("/thresholds/{foodId}")
+    public ResponseEntity<?> removeStockThreshold(@PathVariable("foodId") final Long foodId) {
+        try {
+            inventoryService.removeStockThreshold(foodId);
+            return ResponseEntity.noContent().build();
+        } catch (final ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
 }
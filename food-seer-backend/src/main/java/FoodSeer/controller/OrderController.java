@@ -12,9 +12,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import FoodSeer.dto.FulfillmentStatusDto;
 import FoodSeer.dto.OrderDto;
+import FoodSeer.dto.OrderPageDto;
 import FoodSeer.exception.ResourceNotFoundException;
 import FoodSeer.service.OrderService;
 
@@ -64,6 +67,31 @@ public class OrderController {
         return orderService.getAllUnfulfilledOrders();
     }
 
+    /**
+     * Retrieves one page of orders, oldest first, for screens such as the
+     * staff queue that should not load every order ever placed. Pass the
+     * returned cursor as "after" to get the next page.
+     *
+     * @param fulfilled true for fulfilled orders, false for unfulfilled
+     *            ones, omitted for all orders
+     * @param after id of the last order already seen, omitted for the
+     *            first page
+     * @param limit maximum number of orders to return
+     * @return the page of orders, or 400 if the limit is invalid
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
+    @GetMapping("/page")
+    public ResponseEntity<OrderPageDto> getOrdersPage(
+            @RequestParam(value = "fulfilled", required = false) final Boolean fulfilled,
+            @RequestParam(value = "after", required = false) final Long after,
+            @RequestParam(value = "limit", defaultValue = "50") final int limit) {
+        try {
+            return ResponseEntity.ok(orderService.getOrdersPage(fulfilled, after, limit));
+        } catch (final IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
     /**
      * Creates a new order.
      *
@@ -78,7 +106,8 @@ public class OrderController {
     }
 
     /**
-     * Marks an order as fulfilled.
+     * Marks an order as fulfilled, waiting for the stock to be taken. Busy
+     * clients should queue the order with POST /{id}/fulfillment instead.
      *
      * @param orderDto the order to fulfill
      * @return ResponseEntity with status depending on fulfillment result
@@ -86,26 +115,65 @@ public class OrderController {
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
     @PostMapping("/fulfillOrder")
     public ResponseEntity<OrderDto> fulfillOrder(@RequestBody final OrderDto orderDto) {
+        final boolean fulfilled;
         try {
-            orderService.getOrderById(orderDto.getId());
+            fulfilled = orderService.isOrderFulfilled(orderDto.getId());
         } catch (final ResourceNotFoundException e) {
             return new ResponseEntity<>(orderDto, HttpStatus.PRECONDITION_FAILED);
         }
 
-        final OrderDto existingOrder = orderService.getOrderById(orderDto.getId());
-
-        if (existingOrder.getIsFulfilled()) {
+        if (fulfilled) {
             return new ResponseEntity<>(orderDto, HttpStatus.GONE);
         }
 
         try {
-            final OrderDto updatedOrder = orderService.fulfillOrder(existingOrder.getId());
+            final OrderDto updatedOrder = orderService.fulfillOrder(orderDto.getId());
             return ResponseEntity.ok(updatedOrder);
         } catch (final Exception e) {
             return new ResponseEntity<>(orderDto, HttpStatus.BAD_REQUEST);
         }
     }
 
+    /**
+     * Queues an order to be fulfilled in the background. The request is
+     * acknowledged at once; poll the status endpoint for the outcome.
+     *
+     * @param id the ID of the order
+     * @return 202 with the status of the request, 404 if the order does not
+     *         exist, 410 if it is already fulfilled, or 503 if the queue is
+     *         full
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @PostMapping("/{id}/fulfillment")
+    public ResponseEntity<?> requestFulfillment(@PathVariable("id") final Long id) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(orderService.requestFulfillment(id));
+        } catch (final ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (final IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.GONE).body(e.getMessage());
+        } catch (final IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the status of the latest fulfillment request for an order.
+     *
+     * @param id the ID of the order
+     * @return the status, or 404 if the order has not been requested
+     *         recently
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @GetMapping("/{id}/fulfillment")
+    public ResponseEntity<FulfillmentStatusDto> getFulfillmentStatus(@PathVariable("id") final Long id) {
+        try {
+            return ResponseEntity.ok(orderService.getFulfillmentStatus(id));
+        } catch (final ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+    }
+
     /**
      * Retrieves a specific order by ID.
      *
@@ -156,4 +224,26 @@ public class OrderController {
         return orderService.getCurrentUserUnfulfilledOrders();
     }
 
+    /**
+     * Retrieves one page of the current user's orders, oldest first.
+     *
+     * @param fulfilled true for fulfilled orders, false for unfulfilled
+     *            ones, omitted for all orders
+     * @param after id of the last order already seen, omitted for the
+     *            first page
+     * @param limit maximum number of orders to return
+     * @return the page of orders, or 400 if the limit is invalid
+     */
+    @PreAuthorize("hasRole('CUSTOMER')")
+    @GetMapping("/my-orders/page")
+    public ResponseEntity<OrderPageDto> getMyOrdersPage(
+            @RequestParam(value = "fulfilled", required = false) final Boolean fulfilled,
+            @RequestParam(value = "after", required = false) final Long after,
+            @RequestParam(value = "limit", defaultValue = "50") final int limit) {
+        try {
+            return ResponseEntity.ok(orderService.getCurrentUserOrdersPage(fulfilled, after, limit));
+        } catch (final IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
 }
@@ -0,0 +1,51 @@
+package FoodSeer.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import FoodSeer.dto.FoodDto;
+import FoodSeer.service.RecommendationService;
+
+/**
+ * Controller for food recommendations.
+ * Recommendations are computed on the server from the caller's stored cost
+ * preference and dietary restrictions.
+ */
+@CrossOrigin("*")
+@RestController
+@RequestMapping("/api/recommendations")
+public class RecommendationController {
+
+    /** Connection to RecommendationService */
+    @Autowired
+    private RecommendationService recommendationService;
+
+    /**
+     * Returns recommended foods for the current user.
+     *
+     * @param limit maximum number of foods to return
+     * @return ResponseEntity containing the recommended foods, 400 if the
+     *         limit is invalid, or 401 if no user is logged in
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
+    @GetMapping
+    public ResponseEntity<List<FoodDto>> getRecommendations(
+            @RequestParam(value = "limit", defaultValue = "10") final int limit) {
+        try {
+            return ResponseEntity.ok(recommendationService.recommendForCurrentUser(limit));
+        } catch (final IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (final IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+    }
+}
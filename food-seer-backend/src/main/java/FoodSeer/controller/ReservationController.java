@@ -0,0 +1,120 @@
+package FoodSeer.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import FoodSeer.dto.OrderDto;
+import FoodSeer.dto.ReservationDto;
+import FoodSeer.dto.ReservationItemDto;
+import FoodSeer.exception.ResourceNotFoundException;
+import FoodSeer.service.OrderService;
+import FoodSeer.service.ReservationService;
+
+/**
+ * Controller for stock reservations. A reservation holds stock for a cart
+ * for a limited time so the order placed from it cannot run out at
+ * checkout.
+ */
+@CrossOrigin("*")
+@RestController
+@RequestMapping("/api/reservations")
+public class ReservationController {
+
+    /** Connection to ReservationService */
+    @Autowired
+    private ReservationService reservationService;
+
+    /** Connection to OrderService */
+    @Autowired
+    private OrderService orderService;
+
+    /**
+     * Holds stock for the current user's cart.
+     *
+     * @param items the quantities to hold
+     * @return the reservation, 400 with the reason if an item is invalid or
+     *         out of stock, 404 if a food does not exist, or 503 if too many
+     *         reservations are active
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
+    @PostMapping
+    public ResponseEntity<?> reserve(@RequestBody final List<ReservationItemDto> items) {
+        try {
+            return ResponseEntity.ok(reservationService.reserve(items));
+        } catch (final IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (final ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (final IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves a reservation of the current user.
+     *
+     * @param id the reservation id
+     * @return the reservation, or 404 if it has ended
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
+    @GetMapping("/{id}")
+    public ResponseEntity<ReservationDto> getReservation(@PathVariable("id") final String id) {
+        try {
+            return ResponseEntity.ok(reservationService.getReservation(id));
+        } catch (final ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+    }
+
+    /**
+     * Cancels a reservation of the current user, releasing its stock.
+     *
+     * @param id the reservation id
+     * @return 204, or 404 if it has already ended
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancel(@PathVariable("id") final String id) {
+        try {
+            reservationService.cancel(id);
+            return ResponseEntity.noContent().build();
+        } catch (final ResourceNotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Turns a reservation of the current user into an order.
+     *
+     * @param id the reservation id
+     * @param name the name of the order
+     * @return the created order, 400 with the reason if it could not be
+     *         placed, or 404 if the reservation has ended
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
+    @PostMapping("/{id}/order")
+    public ResponseEntity<?> createOrder(@PathVariable("id") final String id,
+            @RequestParam(name = "name", required = false) final String name) {
+        try {
+            final OrderDto orderDto = orderService.createOrderFromReservation(id, name);
+            return ResponseEntity.ok(orderDto);
+        } catch (final ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (final IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+}
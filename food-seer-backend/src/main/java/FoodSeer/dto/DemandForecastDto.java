@@ -0,0 +1,23 @@
+package FoodSeer.dto;
+
+/**
+ * Projected demand of a food and the stock to order to cover it.
+ *
+ * @param foodId
+ *            id of the food
+ * @param foodName
+ *            name of the food
+ * @param amount
+ *            current stock
+ * @param hourlyDemand
+ *            smoothed quantity ordered per hour
+ * @param dailyDemand
+ *            smoothed quantity ordered per day
+ * @param projectedDemand
+ *            quantity expected to be ordered over the cover period
+ * @param suggestedReorder
+ *            quantity to order so the stock covers the projected demand
+ */
+public record DemandForecastDto ( Long foodId, String foodName, int amount, double hourlyDemand,
+        double dailyDemand, long projectedDemand, long suggestedReorder ) {
+}
@@ -0,0 +1,33 @@
+package FoodSeer.dto;
+
+import java.util.List;
+
+/**
+ * Summary of a bulk food update.
+ *
+ * @param updated
+ *            number of foods changed
+ * @param failed
+ *            number of changes that were rejected
+ * @param items
+ *            the outcome of each change, in request order
+ */
+public record FoodBulkUpdateResultDto ( int updated, int failed, List<ItemResult> items ) {
+
+    /**
+     * Outcome of one change.
+     *
+     * @param index
+     *            0-based position of the change in the request
+     * @param id
+     *            id of the food, or null if it could not be found
+     * @param foodName
+     *            name of the food, as stored if it was found
+     * @param updated
+     *            true if the change was applied
+     * @param message
+     *            why the change was rejected, or null if it was applied
+     */
+    public record ItemResult ( int index, Long id, String foodName, boolean updated, String message ) {
+    }
+}
@@ -0,0 +1,37 @@
+package FoodSeer.dto;
+
+/**
+ * Hit and miss counts of the food catalog cache since startup.
+ *
+ * @param hits
+ *            lookups answered from the cache
+ * @param misses
+ *            lookups that went to the database
+ * @param evictions
+ *            entries dropped because the cache was full
+ * @param size
+ *            entries currently cached
+ * @param hitRate
+ *            fraction of lookups answered from the cache, 0 if there have
+ *            been none
+ */
+public record FoodCacheStatsDto ( long hits, long misses, long evictions, int size, double hitRate ) {
+
+    /**
+     * Creates the statistics, working out the hit rate from the counts.
+     *
+     * @param hits
+     *            lookups answered from the cache
+     * @param misses
+     *            lookups that went to the database
+     * @param evictions
+     *            entries dropped because the cache was full
+     * @param size
+     *            entries currently cached
+     * @return the statistics
+     */
+    public static FoodCacheStatsDto of ( final long hits, final long misses, final long evictions, final int size ) {
+        final long lookups = hits + misses;
+        return new FoodCacheStatsDto( hits, misses, evictions, size, lookups == 0 ? 0.0 : (double) hits / lookups );
+    }
+}
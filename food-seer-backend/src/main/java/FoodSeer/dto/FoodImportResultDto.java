@@ -0,0 +1,33 @@
+package FoodSeer.dto;
+
+import java.util.List;
+
+/**
+ * Summary of a bulk food import.
+ *
+ * @param imported
+ *            number of foods added
+ * @param failed
+ *            number of rows that were rejected
+ * @param errors
+ *            the rejected rows, in input order; capped at
+ *            MAX_REPORTED_ERRORS even when more rows failed
+ */
+public record FoodImportResultDto ( int imported, int failed, List<RowError> errors ) {
+
+    /** Largest number of row errors included in a result */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    /**
+     * A rejected import row.
+     *
+     * @param line
+     *            1-based line number of the row in the input
+     * @param foodName
+     *            name of the food on the row, or null if it could not be read
+     * @param message
+     *            why the row was rejected
+     */
+    public record RowError ( long line, String foodName, String message ) {
+    }
+}
@@ -0,0 +1,15 @@
+package FoodSeer.dto;
+
+import java.util.List;
+
+/**
+ * One page of foods from a keyset-paginated listing.
+ *
+ * @param foods
+ *            the foods on this page, ordered by id
+ * @param nextCursor
+ *            id to pass as the "after" cursor to fetch the next page, or
+ *            null if this is the last page
+ */
+public record FoodPageDto ( List<FoodDto> foods, Long nextCursor ) {
+}
@@ -0,0 +1,16 @@
+package FoodSeer.dto;
+
+/**
+ * One food name search result.
+ *
+ * @param id
+ *            id of the food
+ * @param foodName
+ *            name of the food
+ * @param score
+ *            how well the name matches: above 1 for a prefix match (higher
+ *            for closer matches), otherwise the trigram similarity between 0
+ *            and 1
+ */
+public record FoodSearchHitDto ( Long id, String foodName, double score ) {
+}
@@ -0,0 +1,21 @@
+package FoodSeer.dto;
+
+import java.util.List;
+
+/**
+ * One change in a bulk food update. The food is picked by id, or by name
+ * when no id is given. Fields left null keep their current value.
+ *
+ * @param id
+ *            id of the food to change, or null to look it up by name
+ * @param foodName
+ *            name of the food to change, used when id is null
+ * @param amount
+ *            new amount, or null to keep the current one
+ * @param price
+ *            new price, or null to keep the current one
+ * @param allergies
+ *            new allergies, or null to keep the current ones
+ */
+public record FoodUpdateDto ( Long id, String foodName, Integer amount, Integer price, List<String> allergies ) {
+}
@@ -0,0 +1,30 @@
+package FoodSeer.dto;
+
+import java.time.Instant;
+
+/**
+ * Where a fulfillment request for an order stands.
+ *
+ * @param orderId
+ *            id of the order
+ * @param state
+ *            state of the request
+ * @param message
+ *            why the order could not be fulfilled, or null
+ * @param updatedAt
+ *            when the request last changed state
+ */
+public record FulfillmentStatusDto ( Long orderId, State state, String message, Instant updatedAt ) {
+
+    /**
+     * State of a fulfillment request.
+     */
+    public enum State {
+        /** Waiting for a worker */
+        QUEUED,
+        /** The order was fulfilled and its stock taken */
+        FULFILLED,
+        /** The order could not be fulfilled; nothing was taken */
+        FAILED
+    }
+}
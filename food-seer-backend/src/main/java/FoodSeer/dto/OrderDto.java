@@ -1,5 +1,6 @@
 package FoodSeer.dto;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,17 +18,24 @@ public class OrderDto {
     /** Order name */
     private String name;
 
-    /** List of foods in the order */
+    /** List of foods in the order, each repeated as many times as it was ordered */
     private List<Food> foods;
 
+    /** Lines of the order, one per food with its quantity */
+    private List<OrderLineDto> lines;
+
     /** Boolean used to track if the order has been fulfilled */
     private boolean isFulfilled;
 
+    /** When the order was placed, or null if unknown */
+    private Instant createdAt;
+
     /**
      * Default constructor for OrderDto.
      */
     public OrderDto() {
         this.foods = new ArrayList<>();
+        this.lines = new ArrayList<>();
         this.isFulfilled = false;
     }
 
@@ -41,6 +49,7 @@ public class OrderDto {
         this.id = id;
         this.name = name;
         this.foods = new ArrayList<>();
+        this.lines = new ArrayList<>();
         this.isFulfilled = false;
     }
 
@@ -107,6 +116,25 @@ public class OrderDto {
         this.foods = foods;
     }
 
+    /**
+     * Gets the lines of the order.
+     *
+     * @return the lines
+     */
+    public List<OrderLineDto> getLines() {
+        return this.lines;
+    }
+
+    /**
+     * Sets the lines of the order. When an order is placed with lines, they
+     * are used instead of the list of foods.
+     *
+     * @param lines the lines
+     */
+    public void setLines(final List<OrderLineDto> lines) {
+        this.lines = lines;
+    }
+
     /**
      * Checks if the order is fulfilled.
      *
@@ -124,4 +152,22 @@ public class OrderDto {
     public void setIsFulfilled(final boolean isFulfilled) {
         this.isFulfilled = isFulfilled;
     }
+
+    /**
+     * Gets when the order was placed.
+     *
+     * @return the time, or null if unknown
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Sets when the order was placed.
+     *
+     * @param createdAt the time
+     */
+    public void setCreatedAt(final Instant createdAt) {
+        this.createdAt = createdAt;
+    }
 }
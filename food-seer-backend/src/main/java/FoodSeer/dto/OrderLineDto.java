@@ -0,0 +1,18 @@
+package FoodSeer.dto;
+
+/**
+ * One line of an order. Clients placing an order only need to send the
+ * food id and quantity; the name and unit price are filled in by the
+ * server.
+ *
+ * @param foodId
+ *            id of the food
+ * @param foodName
+ *            name of the food
+ * @param quantity
+ *            number of units ordered
+ * @param unitPrice
+ *            price of one unit when the order was placed
+ */
+public record OrderLineDto ( Long foodId, String foodName, int quantity, int unitPrice ) {
+}
@@ -0,0 +1,15 @@
+package FoodSeer.dto;
+
+import java.util.List;
+
+/**
+ * One page of orders from a keyset-paginated listing.
+ *
+ * @param orders
+ *            the orders on this page, oldest first
+ * @param nextCursor
+ *            id to pass as the "after" cursor to fetch the next page, or
+ *            null if this is the last page
+ */
+public record OrderPageDto ( List<OrderDto> orders, Long nextCursor ) {
+}
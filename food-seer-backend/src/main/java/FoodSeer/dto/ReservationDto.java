@@ -0,0 +1,18 @@
+package FoodSeer.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A stock reservation: quantities held for one customer's cart until it is
+ * turned into an order, cancelled, or expires.
+ *
+ * @param id
+ *            reservation id
+ * @param items
+ *            the held quantities, one per food
+ * @param expiresAt
+ *            time after which the quantities are released
+ */
+public record ReservationDto ( String id, List<ReservationItemDto> items, Instant expiresAt ) {
+}
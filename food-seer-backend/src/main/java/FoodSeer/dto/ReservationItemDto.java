@@ -0,0 +1,12 @@
+package FoodSeer.dto;
+
+/**
+ * A quantity of one food held by a stock reservation.
+ *
+ * @param foodId
+ *            id of the food to hold
+ * @param quantity
+ *            number of units to hold
+ */
+public record ReservationItemDto ( Long foodId, Integer quantity ) {
+}
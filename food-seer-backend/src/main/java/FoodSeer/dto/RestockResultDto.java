@@ -0,0 +1,48 @@
+package FoodSeer.dto;
+
+import java.util.List;
+
+/**
+ * Summary of a restock manifest ingestion.
+ *
+ * @param lines
+ *            number of non-blank lines read, header excluded
+ * @param appliedLines
+ *            number of lines whose quantity was added to the stock
+ * @param rejectedLines
+ *            number of lines that were rejected
+ * @param foodsUpdated
+ *            number of foods whose stock changed
+ * @param bytes
+ *            size of the manifest
+ * @param elapsedMillis
+ *            time taken to parse and apply the manifest
+ * @param linesPerSecond
+ *            lines processed per second
+ * @param errors
+ *            the rejected lines, in input order for unreadable lines and
+ *            then by food; capped at MAX_REPORTED_ERRORS even when more
+ *            lines were rejected
+ */
+public record RestockResultDto ( long lines, long appliedLines, long rejectedLines, int foodsUpdated, long bytes,
+        long elapsedMillis, long linesPerSecond, List<LineError> errors ) {
+
+    /** Largest number of line errors included in a result */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    /**
+     * A rejected manifest line. Lines rejected because their food's total
+     * could not be applied are reported once, at the food's first line.
+     *
+     * @param line
+     *            1-based line number in the manifest
+     * @param foodId
+     *            id of the food on the line, or null if it could not be read
+     * @param lineCount
+     *            number of lines the error covers
+     * @param message
+     *            why the lines were rejected
+     */
+    public record LineError ( long line, Long foodId, long lineCount, String message ) {
+    }
+}
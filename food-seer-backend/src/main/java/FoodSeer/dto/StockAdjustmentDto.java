@@ -0,0 +1,12 @@
+package FoodSeer.dto;
+
+/**
+ * One relative change to the stock of a food.
+ *
+ * @param foodId
+ *            id of the food to adjust
+ * @param quantity
+ *            number of units to add, or to remove when negative
+ */
+public record StockAdjustmentDto ( Long foodId, Integer quantity ) {
+}
@@ -0,0 +1,34 @@
+package FoodSeer.dto;
+
+import java.util.List;
+
+/**
+ * Summary of a batch of stock adjustments.
+ *
+ * @param applied
+ *            number of adjustments applied
+ * @param rejected
+ *            number of adjustments that were not applied
+ * @param items
+ *            the outcome of each adjustment, in request order
+ */
+public record StockAdjustmentResultDto ( int applied, int rejected, List<ItemResult> items ) {
+
+    /**
+     * Outcome of one adjustment.
+     *
+     * @param index
+     *            0-based position of the adjustment in the request
+     * @param foodId
+     *            id of the food
+     * @param applied
+     *            true if the stock was changed
+     * @param amount
+     *            stock of the food once the batch was written, or null if
+     *            the food does not exist
+     * @param message
+     *            why the adjustment was rejected, or null if it was applied
+     */
+    public record ItemResult ( int index, Long foodId, boolean applied, Integer amount, String message ) {
+    }
+}
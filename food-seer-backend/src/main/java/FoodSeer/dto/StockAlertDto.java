@@ -0,0 +1,23 @@
+package FoodSeer.dto;
+
+import java.time.Instant;
+
+/**
+ * Raised when the stock of a food falls to its reorder threshold or below.
+ *
+ * @param sequence
+ *            position of the alert, increasing with every alert raised
+ * @param foodId
+ *            id of the food
+ * @param foodName
+ *            name of the food
+ * @param amount
+ *            stock after the change that raised the alert
+ * @param threshold
+ *            the food's reorder threshold
+ * @param raisedAt
+ *            time the alert was raised
+ */
+public record StockAlertDto ( long sequence, Long foodId, String foodName, int amount, int threshold,
+        Instant raisedAt ) {
+}
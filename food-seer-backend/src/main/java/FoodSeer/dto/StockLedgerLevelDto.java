@@ -0,0 +1,18 @@
+package FoodSeer.dto;
+
+import java.time.Instant;
+
+/**
+ * Stock of a food at a point in time, computed from the stock ledger.
+ *
+ * @param foodId
+ *            id of the food
+ * @param amount
+ *            the amount at that time
+ * @param at
+ *            the point in time
+ * @param movementsRead
+ *            number of movements read on top of the snapshot
+ */
+public record StockLedgerLevelDto ( Long foodId, int amount, Instant at, long movementsRead ) {
+}
@@ -0,0 +1,14 @@
+package FoodSeer.dto;
+
+/**
+ * Stock level of one food, as pushed on the inventory stream.
+ *
+ * @param id
+ *            id of the food
+ * @param foodName
+ *            name of the food
+ * @param amount
+ *            units in stock, 0 once the food is removed
+ */
+public record StockLevelDto ( Long id, String foodName, int amount ) {
+}
@@ -0,0 +1,23 @@
+package FoodSeer.dto;
+
+import java.time.Instant;
+
+/**
+ * One entry of the stock ledger.
+ *
+ * @param id
+ *            movement id, increasing in the order movements were written
+ * @param foodId
+ *            id of the food
+ * @param delta
+ *            change to the amount
+ * @param amountAfter
+ *            amount after the change
+ * @param kind
+ *            kind of food change: PERSISTED, UPDATED or REMOVED
+ * @param occurredAt
+ *            time the change was committed
+ */
+public record StockMovementDto ( Long id, Long foodId, int delta, int amountAfter, String kind,
+        Instant occurredAt ) {
+}
@@ -0,0 +1,12 @@
+package FoodSeer.dto;
+
+/**
+ * Reorder threshold of a food.
+ *
+ * @param foodId
+ *            id of the food
+ * @param threshold
+ *            stock at or below which the food is low
+ */
+public record StockThresholdDto ( Long foodId, Integer threshold ) {
+}
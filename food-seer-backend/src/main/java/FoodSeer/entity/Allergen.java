@@ -0,0 +1,164 @@
+package FoodSeer.entity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Dictionary of the allergens FoodSeer knows about. Each allergen owns one
+ * bit of a food's allergen mask, so "is this food safe for this user" is a
+ * single bitwise AND instead of a string comparison per allergy.
+ *
+ * The bit of an allergen is its ordinal and is stored in the database, so
+ * new allergens must only ever be appended to the end of this list (at most
+ * 64 in total).
+ */
+public enum Allergen {
+
+    /** Milk, cheese, butter, cream */
+    MILK ( "DAIRY" ),
+    /** Lactose intolerance specific */
+    LACTOSE,
+    /** Egg products */
+    EGGS,
+    /** Finned fish */
+    FISH,
+    /** Crustaceans, mollusks */
+    SHELLFISH,
+    /** Almonds, walnuts, cashews, etc. */
+    TREE_NUTS ( "TREE-NUTS" ),
+    /** Peanuts specifically */
+    PEANUTS,
+    /** Wheat flour */
+    WHEAT,
+    /** Wheat, barley, rye */
+    GLUTEN,
+    /** Soybean products */
+    SOY,
+    /** Sesame seeds/oil */
+    SESAME,
+    /** Corn products */
+    CORN,
+    /** Preservatives in wine, dried fruit */
+    SULFITES,
+    /** Mustard seeds/products */
+    MUSTARD,
+    /** General meat (for vegetarians) */
+    MEAT,
+    /** Beef specifically */
+    BEEF,
+    /** Pork specifically */
+    PORK,
+    /** Chicken, turkey */
+    POULTRY,
+    /** Animal-derived gelatin */
+    GELATIN,
+    /** Caffeinated products */
+    CAFFEINE;
+
+    /** Lookup from upper-case name or alias to allergen */
+    private static final Map<String, Allergen> BY_NAME = new HashMap<>();
+
+    static {
+        for ( final Allergen allergen : values() ) {
+            BY_NAME.put( allergen.name(), allergen );
+            for ( final String alias : allergen.aliases ) {
+                BY_NAME.put( alias, allergen );
+            }
+        }
+    }
+
+    /** Other names that map to this allergen */
+    private final String[] aliases;
+
+    /**
+     * Creates an allergen.
+     *
+     * @param aliases
+     *            other names that map to this allergen
+     */
+    Allergen ( final String... aliases ) {
+        this.aliases = aliases;
+    }
+
+    /**
+     * Returns the bit this allergen occupies in an allergen mask.
+     *
+     * @return the allergen's bit
+     */
+    public long bit () {
+        return 1L << ordinal();
+    }
+
+    /**
+     * Looks up an allergen by name or alias, ignoring case and surrounding
+     * whitespace.
+     *
+     * @param name
+     *            the allergen name
+     * @return the allergen, or null if the name is not in the dictionary
+     */
+    public static Allergen fromName ( final String name ) {
+        if ( name == null ) {
+            return null;
+        }
+        return BY_NAME.get( name.trim().toUpperCase( Locale.ROOT ) );
+    }
+
+    /**
+     * Builds the mask for a list of allergen names. Names that are not in
+     * the dictionary are ignored.
+     *
+     * @param names
+     *            allergen names, may be null
+     * @return the combined mask
+     */
+    public static long maskOf ( final Collection<String> names ) {
+        long mask = 0L;
+        if ( names != null ) {
+            for ( final String name : names ) {
+                final Allergen allergen = fromName( name );
+                if ( allergen != null ) {
+                    mask |= allergen.bit();
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the names in the list that are not in the dictionary.
+     *
+     * @param names
+     *            allergen names, may be null
+     * @return upper-case names with no dictionary entry
+     */
+    public static List<String> unknownNames ( final Collection<String> names ) {
+        final List<String> unknown = new ArrayList<>();
+        if ( names != null ) {
+            for ( final String name : names ) {
+                if ( name != null && !name.isBlank() && fromName( name ) == null ) {
+                    unknown.add( name.trim().toUpperCase( Locale.ROOT ) );
+                }
+            }
+        }
+        return unknown;
+    }
+
+    /**
+     * Returns true if a food with the given mask contains none of the
+     * allergens in the user's mask.
+     *
+     * @param foodMask
+     *            the food's allergen mask
+     * @param userMask
+     *            the allergens the user must avoid
+     * @return true if the food is safe
+     */
+    public static boolean isSafe ( final long foodMask, final long userMask ) {
+        return ( foodMask & userMask ) == 0L;
+    }
+}
@@ -3,18 +3,31 @@ package FoodSeer.entity;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.BatchSize;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 
 /**
- * This class represents a Food entity.
+ * This class represents a Food entity. Food names are unique, so the name
+ * column is backed by a unique index. Alongside the allergy names, each food
+ * stores a bitmask of its known allergens (see Allergen) that filters can
+ * test with a single bitwise AND.
  */
 @Entity
-@Table ( name = "foods" )
+@Table ( name = "foods", indexes = @Index ( name = "idx_foods_food_name", columnList = "food_name", unique = true ) )
+@EntityListeners ( FoodEntityListener.class )
 public class Food {
 
     /**
@@ -27,6 +40,7 @@ public class Food {
     /**
      * Name of the food
      */
+    @Column ( name = "food_name" )
     private String foodName;
 
     /**
@@ -43,8 +57,18 @@ public class Food {
      * List representing allergies associated with the food
      */
     @ElementCollection
+    @CollectionTable ( name = "food_allergies", joinColumns = @JoinColumn ( name = "food_id" ) )
+    @Column ( name = "allergies" )
+    @BatchSize ( size = 100 )
     private List<String> allergies = new ArrayList<>();
 
+    /**
+     * Bitmask of the dictionary allergens in allergies, kept in sync with
+     * the list
+     */
+    @Column ( name = "allergen_mask", nullable = false )
+    private long         allergenMask;
+
     /**
      * Constructor for Hibernate
      */
@@ -76,6 +100,7 @@ public class Food {
         for ( final String allergy : allergies ) {
             this.allergies.add( allergy.toUpperCase() );
         }
+        this.allergenMask = Allergen.maskOf( this.allergies );
     }
 
     /**
@@ -171,5 +196,36 @@ public class Food {
      */
     public void setAllergies ( final List<String> allergies ) {
         this.allergies = allergies;
+        this.allergenMask = Allergen.maskOf( allergies );
+    }
+
+    /**
+     * Gets the bitmask of dictionary allergens in this food
+     *
+     * @return The allergen mask
+     */
+    public long getAllergenMask () {
+        return allergenMask;
+    }
+
+    /**
+     * Returns true if this food contains none of the allergens in the mask
+     *
+     * @param avoidMask
+     *            allergens to avoid
+     * @return true if the food is safe
+     */
+    public boolean isSafeFor ( final long avoidMask ) {
+        return Allergen.isSafe( allergenMask, avoidMask );
+    }
+
+    /**
+     * Recomputes the allergen mask before writing, in case the allergies
+     * list was modified in place
+     */
+    @PrePersist
+    @PreUpdate
+    void syncAllergenMask () {
+        this.allergenMask = Allergen.maskOf( allergies );
     }
 }
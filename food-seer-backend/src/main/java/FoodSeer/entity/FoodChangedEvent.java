@@ -0,0 +1,62 @@
+package FoodSeer.entity;
+
+/**
+ * Application event published whenever a Food row is written or removed.
+ * In-memory views of the catalog listen for these events so they stay in
+ * step with the database no matter which code path performed the write.
+ *
+ * @param type
+ *            the kind of change
+ * @param foodId
+ *            id of the changed food, or null for RESET
+ * @param foodName
+ *            name of the changed food, or null for RESET
+ * @param amount
+ *            stock level after the change
+ * @param price
+ *            price after the change
+ * @param allergenMask
+ *            allergen mask after the change
+ */
+public record FoodChangedEvent ( Type type, Long foodId, String foodName, int amount, int price, long allergenMask ) {
+
+    /**
+     * Kinds of food changes.
+     */
+    public enum Type {
+        /** A new food row was inserted */
+        PERSISTED,
+        /** An existing food row was updated */
+        UPDATED,
+        /** A food row was deleted */
+        REMOVED,
+        /**
+         * A transaction that changed foods was rolled back; listeners must
+         * discard anything they derived from it and reload.
+         */
+        RESET
+    }
+
+    /**
+     * Creates an event describing a change to the given food.
+     *
+     * @param type
+     *            the kind of change
+     * @param food
+     *            the changed food
+     * @return the event
+     */
+    public static FoodChangedEvent of ( final Type type, final Food food ) {
+        return new FoodChangedEvent( type, food.getId(), food.getFoodName(), food.getAmount(), food.getPrice(),
+                food.getAllergenMask() );
+    }
+
+    /**
+     * Creates an event telling listeners to reload from the database.
+     *
+     * @return the reset event
+     */
+    public static FoodChangedEvent reset () {
+        return new FoodChangedEvent( Type.RESET, null, null, 0, 0, 0L );
+    }
+}
@@ -0,0 +1,116 @@
+package FoodSeer.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Demand aggregates of a food, kept up to date as orders are placed. Demand
+ * is counted in hourly and daily buckets; each completed bucket is folded
+ * into an exponentially smoothed rate, so the open bucket and the two rates
+ * are all that is stored.
+ */
+@Entity
+@Table(name = "food_demand")
+public class FoodDemand {
+
+    /** ID of the food */
+    @Id
+    @Column(name = "food_id")
+    private Long foodId;
+
+    /** Open hourly bucket, in hours since the epoch */
+    @Column(name = "hour_bucket", nullable = false)
+    private long hourBucket;
+
+    /** Quantity ordered in the open hourly bucket */
+    @Column(name = "hour_count", nullable = false)
+    private long hourCount;
+
+    /** Smoothed quantity per hour, or null before the first hour closes */
+    @Column(name = "hourly_rate")
+    private Double hourlyRate;
+
+    /** Open daily bucket, in days since the epoch */
+    @Column(name = "day_bucket", nullable = false)
+    private long dayBucket;
+
+    /** Quantity ordered in the open daily bucket */
+    @Column(name = "day_count", nullable = false)
+    private long dayCount;
+
+    /** Smoothed quantity per day, or null before the first day closes */
+    @Column(name = "daily_rate")
+    private Double dailyRate;
+
+    /**
+     * Default constructor for Hibernate.
+     */
+    protected FoodDemand() {
+        // Default constructor
+    }
+
+    /**
+     * Gets the ID of the food.
+     *
+     * @return the food ID
+     */
+    public Long getFoodId() {
+        return foodId;
+    }
+
+    /**
+     * Gets the open hourly bucket.
+     *
+     * @return hours since the epoch
+     */
+    public long getHourBucket() {
+        return hourBucket;
+    }
+
+    /**
+     * Gets the quantity ordered in the open hourly bucket.
+     *
+     * @return the quantity
+     */
+    public long getHourCount() {
+        return hourCount;
+    }
+
+    /**
+     * Gets the smoothed quantity per hour.
+     *
+     * @return the rate, or null before the first hour closes
+     */
+    public Double getHourlyRate() {
+        return hourlyRate;
+    }
+
+    /**
+     * Gets the open daily bucket.
+     *
+     * @return days since the epoch
+     */
+    public long getDayBucket() {
+        return dayBucket;
+    }
+
+    /**
+     * Gets the quantity ordered in the open daily bucket.
+     *
+     * @return the quantity
+     */
+    public long getDayCount() {
+        return dayCount;
+    }
+
+    /**
+     * Gets the smoothed quantity per day.
+     *
+     * @return the rate, or null before the first day closes
+     */
+    public Double getDailyRate() {
+        return dailyRate;
+    }
+}
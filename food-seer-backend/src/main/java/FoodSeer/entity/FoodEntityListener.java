@@ -0,0 +1,120 @@
+package FoodSeer.entity;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PreRemove;
+
+/**
+ * JPA entity listener for Food. Turns Hibernate lifecycle callbacks into
+ * FoodChangedEvents so that in-memory catalog indexes see every write,
+ * including writes made straight through FoodRepository.
+ *
+ * Hibernate creates this listener through Spring, so the publisher is
+ * injected like any other bean.
+ */
+public class FoodEntityListener {
+
+    /** Publishes food change events to the application context */
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    /**
+     * Called after a food row is inserted.
+     *
+     * @param food
+     *            the inserted food
+     */
+    @PostPersist
+    public void afterPersist ( final Food food ) {
+        publish( FoodChangedEvent.of( FoodChangedEvent.Type.PERSISTED, food ) );
+    }
+
+    /**
+     * Called after a food row is updated.
+     *
+     * @param food
+     *            the updated food
+     */
+    @PostUpdate
+    public void afterUpdate ( final Food food ) {
+        publish( FoodChangedEvent.of( FoodChangedEvent.Type.UPDATED, food ) );
+    }
+
+    /**
+     * Called when a food is removed. This runs at remove time rather than at
+     * flush so that lookups made later in the same transaction already see
+     * the delete, just as a query would after Hibernate's auto-flush. If the
+     * delete never commits the rollback RESET covers it.
+     *
+     * @param food
+     *            the deleted food
+     */
+    @PreRemove
+    public void onRemove ( final Food food ) {
+        publish( FoodChangedEvent.of( FoodChangedEvent.Type.REMOVED, food ) );
+    }
+
+    /**
+     * Publishes the event and, inside a transaction, makes sure a RESET is
+     * published if that transaction ends up rolling back.
+     *
+     * @param event
+     *            the event to publish
+     */
+    private void publish ( final FoodChangedEvent event ) {
+        if ( publisher == null ) {
+            return;
+        }
+        publish( publisher, event );
+    }
+
+    /**
+     * Publishes an event for a write that bypassed Hibernate (JDBC or bulk
+     * JPQL), with the same rollback handling as the lifecycle callbacks.
+     *
+     * @param publisher
+     *            publisher to send the event through
+     * @param event
+     *            the event to publish
+     */
+    public static void publish ( final ApplicationEventPublisher publisher, final FoodChangedEvent event ) {
+        publisher.publishEvent( event );
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.getSynchronizations().stream()
+                        .noneMatch( RollbackReset.class::isInstance ) ) {
+            TransactionSynchronizationManager.registerSynchronization( new RollbackReset( publisher ) );
+        }
+    }
+
+    /**
+     * Publishes a RESET event when the surrounding transaction rolls back.
+     */
+    private static final class RollbackReset implements TransactionSynchronization {
+
+        /** Publisher to send the reset through */
+        private final ApplicationEventPublisher publisher;
+
+        /**
+         * Creates the synchronization.
+         *
+         * @param publisher
+         *            publisher to send the reset through
+         */
+        RollbackReset ( final ApplicationEventPublisher publisher ) {
+            this.publisher = publisher;
+        }
+
+        @Override
+        public void afterCompletion ( final int status ) {
+            if ( status != STATUS_COMMITTED ) {
+                publisher.publishEvent( FoodChangedEvent.reset() );
+            }
+        }
+    }
+}
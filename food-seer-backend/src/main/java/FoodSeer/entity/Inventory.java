@@ -6,12 +6,19 @@ import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.JoinTable;
 import jakarta.persistence.OneToMany;
 
 /**
  * Inventory for the FoodSeer application.
  * Inventory is a Data Access Object (DAO) tied to the database using Hibernate.
  * InventoryRepository provides the methods for database CRUD operations.
+ *
+ * The food list is loaded lazily. Reads of the inventory go through
+ * projection queries on the foods table and new foods are linked with a
+ * single insert, so the whole catalog is never loaded or rewritten just
+ * to read or extend the inventory.
  */
 @Entity
 public class Inventory {
@@ -21,7 +28,9 @@ public class Inventory {
     private Long id;
 
     /** List of food objects in the inventory */
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @JoinTable(name = "inventory_foods", joinColumns = @JoinColumn(name = "inventory_id"),
+            inverseJoinColumns = @JoinColumn(name = "foods_id"))
     private List<Food> foods;
 
     /**
@@ -1,24 +1,36 @@
 package FoodSeer.entity;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import org.hibernate.annotations.BatchSize;
+
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
-import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 
 /**
  * Represents an Order in the FoodSeer system.
- * Each order can contain multiple foods, and can be marked as fulfilled or not.
+ * Each order holds one line per food with the quantity ordered, and can be
+ * marked as fulfilled or not. Ids are assigned in creation order, so the
+ * indexes end with the id to serve pages of orders in creation order.
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_fulfilled_id", columnList = "is_fulfilled, id"),
+    @Index(name = "idx_orders_user_id", columnList = "user_id, id"),
+    @Index(name = "idx_orders_user_fulfilled_id", columnList = "user_id, is_fulfilled, id") })
 public class Order {
 
     /** Order ID */
@@ -34,13 +46,23 @@ public class Order {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    /** List of foods in the order */
-    @ManyToMany
-    private List<Food> foods = new ArrayList<>();
+    /**
+     * Lines of the order, one per food. Loaded in batches when orders are
+     * read without fetching their lines.
+     */
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
+    @BatchSize(size = 100)
+    private List<OrderLine> lines = new ArrayList<>();
 
     /** Boolean used to track if the order has been fulfilled */
+    @Column(name = "is_fulfilled")
     private boolean isFulfilled;
 
+    /** When the order was placed, in epoch milliseconds */
+    @Column(name = "created_at")
+    private long createdAt;
+
     /**
      * Default constructor for Hibernate.
      */
@@ -57,7 +79,7 @@ public class Order {
     public Order(final Long id, final String name) {
         this.id = id;
         this.name = name;
-        this.foods = new ArrayList<>();
+        this.lines = new ArrayList<>();
         this.isFulfilled = false;
     }
 
@@ -99,30 +121,70 @@ public class Order {
     }
 
     /**
-     * Adds a food item to the order.
+     * Adds units of a food to the order at the food's current price. Units
+     * of a food already in the order are added to its line.
+     *
+     * @param food     the food to add
+     * @param quantity number of units to add
+     */
+    public void addLine(final Food food, final int quantity) {
+        for (final OrderLine line : this.lines) {
+            final Food lineFood = line.getFood();
+            if (lineFood == food || (food.getId() != null && food.getId().equals(lineFood.getId()))) {
+                line.setQuantity(line.getQuantity() + quantity);
+                return;
+            }
+        }
+        final OrderLine line = new OrderLine(food, quantity, food.getPrice());
+        line.setOrder(this);
+        this.lines.add(line);
+    }
+
+    /**
+     * Gets the lines of the order.
+     *
+     * @return the lines, in the order they were added
+     */
+    public List<OrderLine> getLines() {
+        return this.lines;
+    }
+
+    /**
+     * Adds one unit of a food to the order.
      *
      * @param food the food to add
      */
     public void addFood(final Food food) {
-        this.foods.add(food);
+        addLine(food, 1);
     }
 
     /**
-     * Gets the list of foods in the order.
+     * Gets the foods in the order, each repeated as many times as it was
+     * ordered.
      *
-     * @return the list of foods
+     * @return read-only list of foods
      */
     public List<Food> getFoods() {
-        return this.foods;
+        final List<Food> foods = new ArrayList<>();
+        for (final OrderLine line : this.lines) {
+            for (int i = 0; i < line.getQuantity(); i++) {
+                foods.add(line.getFood());
+            }
+        }
+        return Collections.unmodifiableList(foods);
     }
 
     /**
-     * Sets the list of foods in the order.
+     * Replaces the contents of the order with the given foods, one unit
+     * per entry.
      *
      * @param foods the list of foods
      */
     public void setFoods(final List<Food> foods) {
-        this.foods = foods;
+        this.lines.clear();
+        for (final Food food : foods) {
+            addFood(food);
+        }
     }
 
     /**
@@ -143,6 +205,26 @@ public class Order {
         this.isFulfilled = isFulfilled;
     }
 
+    /**
+     * Gets when the order was placed.
+     *
+     * @return epoch milliseconds, or 0 for orders placed before this was
+     *         recorded
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Records when a new order is placed.
+     */
+    @PrePersist
+    void onPersist() {
+        if (createdAt == 0L) {
+            createdAt = System.currentTimeMillis();
+        }
+    }
+
     /**
      * Gets the user who created this order.
      *
@@ -0,0 +1,136 @@
+package FoodSeer.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * One line of an Order: a food, how many of it were ordered and the unit
+ * price it was ordered at. An order of 20 coffees is a single line with a
+ * quantity of 20.
+ */
+@Entity
+@Table(name = "order_lines", indexes = @Index(name = "idx_order_lines_food_id", columnList = "food_id"))
+public class OrderLine {
+
+    /** Line ID */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Order the line belongs to */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+
+    /** Food ordered */
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "food_id", nullable = false)
+    private Food food;
+
+    /** Number of units ordered */
+    private int quantity;
+
+    /** Price of one unit when the order was placed */
+    @Column(name = "unit_price")
+    private int unitPrice;
+
+    /**
+     * Default constructor for Hibernate.
+     */
+    public OrderLine() {
+        // Default constructor
+    }
+
+    /**
+     * Creates a line for the given food.
+     *
+     * @param food      the food ordered
+     * @param quantity  number of units ordered
+     * @param unitPrice price of one unit
+     */
+    public OrderLine(final Food food, final int quantity, final int unitPrice) {
+        this.food = food;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+
+    /**
+     * Gets the line ID.
+     *
+     * @return the line ID
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the order the line belongs to.
+     *
+     * @return the order
+     */
+    public Order getOrder() {
+        return order;
+    }
+
+    /**
+     * Sets the order the line belongs to.
+     *
+     * @param order the order
+     */
+    public void setOrder(final Order order) {
+        this.order = order;
+    }
+
+    /**
+     * Gets the food ordered.
+     *
+     * @return the food
+     */
+    public Food getFood() {
+        return food;
+    }
+
+    /**
+     * Gets the id of the food ordered.
+     *
+     * @return the food id
+     */
+    public Long getFoodId() {
+        return food == null ? null : food.getId();
+    }
+
+    /**
+     * Gets the number of units ordered.
+     *
+     * @return the quantity
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Sets the number of units ordered.
+     *
+     * @param quantity the quantity
+     */
+    public void setQuantity(final int quantity) {
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets the price of one unit when the order was placed.
+     *
+     * @return the unit price
+     */
+    public int getUnitPrice() {
+        return unitPrice;
+    }
+}
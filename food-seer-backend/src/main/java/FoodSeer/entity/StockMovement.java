@@ -0,0 +1,106 @@
+package FoodSeer.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * One committed change to the stock of a food, as recorded in the
+ * append-only stock ledger. Rows are only ever inserted, in batches, by
+ * the ledger writer.
+ */
+@Entity
+@Table(name = "stock_movements",
+        indexes = @Index(name = "idx_stock_movements_food_id", columnList = "food_id, id"))
+public class StockMovement {
+
+    /** Movement ID, increasing in the order movements were written */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** ID of the food whose stock changed */
+    @Column(name = "food_id", nullable = false)
+    private Long foodId;
+
+    /** Change to the amount */
+    @Column(nullable = false)
+    private int delta;
+
+    /** Amount after the change */
+    @Column(name = "amount_after", nullable = false)
+    private int amountAfter;
+
+    /** Kind of food change that caused the movement */
+    @Column(nullable = false, length = 16)
+    private String kind;
+
+    /** Time the change was committed, in epoch milliseconds */
+    @Column(name = "occurred_at", nullable = false)
+    private long occurredAt;
+
+    /**
+     * Default constructor for Hibernate.
+     */
+    protected StockMovement() {
+        // Default constructor
+    }
+
+    /**
+     * Gets the movement ID.
+     *
+     * @return the movement ID
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the ID of the food whose stock changed.
+     *
+     * @return the food ID
+     */
+    public Long getFoodId() {
+        return foodId;
+    }
+
+    /**
+     * Gets the change to the amount.
+     *
+     * @return the delta
+     */
+    public int getDelta() {
+        return delta;
+    }
+
+    /**
+     * Gets the amount after the change.
+     *
+     * @return the amount after
+     */
+    public int getAmountAfter() {
+        return amountAfter;
+    }
+
+    /**
+     * Gets the kind of food change that caused the movement.
+     *
+     * @return the kind
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the time the change was committed.
+     *
+     * @return the time, in epoch milliseconds
+     */
+    public long getOccurredAt() {
+        return occurredAt;
+    }
+}
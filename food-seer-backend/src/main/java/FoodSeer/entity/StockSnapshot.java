@@ -0,0 +1,93 @@
+package FoodSeer.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * The stock of a food as of a movement in the stock ledger. The level at
+ * any later time is the snapshot amount plus the deltas of the movements
+ * written after it.
+ */
+@Entity
+@Table(name = "stock_snapshots",
+        indexes = @Index(name = "idx_stock_snapshots_food_id", columnList = "food_id, taken_at"))
+public class StockSnapshot {
+
+    /** Snapshot ID */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** ID of the food */
+    @Column(name = "food_id", nullable = false)
+    private Long foodId;
+
+    /** Amount after the last movement the snapshot covers */
+    @Column(nullable = false)
+    private int amount;
+
+    /** ID of the last movement the snapshot covers */
+    @Column(name = "last_movement_id", nullable = false)
+    private Long lastMovementId;
+
+    /** Time the snapshot was taken, in epoch milliseconds */
+    @Column(name = "taken_at", nullable = false)
+    private long takenAt;
+
+    /**
+     * Default constructor for Hibernate.
+     */
+    protected StockSnapshot() {
+        // Default constructor
+    }
+
+    /**
+     * Gets the snapshot ID.
+     *
+     * @return the snapshot ID
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the ID of the food.
+     *
+     * @return the food ID
+     */
+    public Long getFoodId() {
+        return foodId;
+    }
+
+    /**
+     * Gets the amount after the last movement the snapshot covers.
+     *
+     * @return the amount
+     */
+    public int getAmount() {
+        return amount;
+    }
+
+    /**
+     * Gets the ID of the last movement the snapshot covers.
+     *
+     * @return the movement ID
+     */
+    public Long getLastMovementId() {
+        return lastMovementId;
+    }
+
+    /**
+     * Gets the time the snapshot was taken.
+     *
+     * @return the time, in epoch milliseconds
+     */
+    public long getTakenAt() {
+        return takenAt;
+    }
+}
@@ -0,0 +1,60 @@
+package FoodSeer.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Reorder threshold of a food: staff are alerted when its stock falls to
+ * the threshold or below.
+ */
+@Entity
+@Table(name = "stock_thresholds")
+public class StockThreshold {
+
+    /** ID of the food */
+    @Id
+    @Column(name = "food_id")
+    private Long foodId;
+
+    /** Stock at or below which the food is low */
+    @Column(nullable = false)
+    private int threshold;
+
+    /**
+     * Default constructor for Hibernate.
+     */
+    protected StockThreshold() {
+        // Default constructor
+    }
+
+    /**
+     * Creates a threshold.
+     *
+     * @param foodId    the food ID
+     * @param threshold stock at or below which the food is low
+     */
+    public StockThreshold(final Long foodId, final int threshold) {
+        this.foodId = foodId;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Gets the food ID.
+     *
+     * @return the food ID
+     */
+    public Long getFoodId() {
+        return foodId;
+    }
+
+    /**
+     * Gets the threshold.
+     *
+     * @return stock at or below which the food is low
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+}
@@ -1,10 +1,15 @@
 package FoodSeer.mapper;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import FoodSeer.dto.OrderDto;
+import FoodSeer.dto.OrderLineDto;
 import FoodSeer.dto.FoodDto;
 import FoodSeer.entity.Order;
+import FoodSeer.entity.OrderLine;
 import FoodSeer.entity.Food;
 
 /**
@@ -21,17 +26,30 @@ public class OrderMapper {
     public static OrderDto mapToOrderDto(final Order order) {
         final OrderDto dto = new OrderDto(order.getId(), order.getName());
 
-        // Map Food entities to FoodDto and add them
-        dto.setFoods(order.getFoods().stream()
-                .map(FoodMapper::mapToFoodDto)
-                .map(foodDto -> new Food(
-                        foodDto.getFoodName(),
-                        foodDto.getAmount(),
-                        foodDto.getPrice(),
-                        foodDto.getAllergies()))
-                .collect(Collectors.toList()));
+        // Map each line's food once; the foods list repeats it as many
+        // times as it was ordered for clients that read foods
+        final List<Food> foods = new ArrayList<>();
+        final List<OrderLineDto> lines = new ArrayList<>(order.getLines().size());
+        for (final OrderLine line : order.getLines()) {
+            final FoodDto foodDto = FoodMapper.mapToFoodDto(line.getFood());
+            final Food food = new Food(
+                    foodDto.getFoodName(),
+                    foodDto.getAmount(),
+                    foodDto.getPrice(),
+                    foodDto.getAllergies());
+            for (int i = 0; i < line.getQuantity(); i++) {
+                foods.add(food);
+            }
+            lines.add(new OrderLineDto(foodDto.getId(), foodDto.getFoodName(), line.getQuantity(),
+                    line.getUnitPrice()));
+        }
+        dto.setFoods(foods);
+        dto.setLines(lines);
 
         dto.setIsFulfilled(order.getIsFulfilled());
+        if (order.getCreatedAt() != 0L) {
+            dto.setCreatedAt(Instant.ofEpochMilli(order.getCreatedAt()));
+        }
         return dto;
     }
 
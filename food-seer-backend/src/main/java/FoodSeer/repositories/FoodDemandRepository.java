@@ -0,0 +1,11 @@
+package FoodSeer.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import FoodSeer.entity.FoodDemand;
+
+/**
+ * Repository for the demand aggregates of foods.
+ */
+public interface FoodDemandRepository extends JpaRepository<FoodDemand, Long> {
+}
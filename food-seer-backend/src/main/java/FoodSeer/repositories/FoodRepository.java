@@ -1,6 +1,21 @@
 package FoodSeer.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
 
 import FoodSeer.entity.Food;
 
@@ -9,4 +24,213 @@ import FoodSeer.entity.Food;
  */
 public interface FoodRepository extends JpaRepository<Food, Long> {
 
+    /**
+     * Finds the food with the given name using the unique name index.
+     *
+     * @param foodName
+     *            name of the food
+     * @return the food, if one exists
+     */
+    Optional<Food> findByFoodName ( String foodName );
+
+    /**
+     * Returns true if a food exists with the given name.
+     *
+     * @param foodName
+     *            name of the food
+     * @return true if the name is taken
+     */
+    boolean existsByFoodName ( String foodName );
+
+    /**
+     * Finds the food with the given id, fetching its allergies in the same
+     * query.
+     *
+     * @param id
+     *            id of the food
+     * @return the food, if one exists
+     */
+    @EntityGraph ( attributePaths = "allergies" )
+    @Query ( "SELECT f FROM Food f WHERE f.id = :id" )
+    Optional<Food> findWithAllergiesById ( @Param ( "id" ) Long id );
+
+    /**
+     * Returns every food with its allergies fetched in the same query.
+     *
+     * @return all foods, ordered by id
+     */
+    @EntityGraph ( attributePaths = "allergies" )
+    @Query ( "SELECT f FROM Food f ORDER BY f.id" )
+    List<Food> findAllWithAllergies ();
+
+    /**
+     * Returns the id and name of every food without loading allergies.
+     * Used to (re)build the in-memory name index.
+     *
+     * @return id/name pairs for all foods
+     */
+    @Query ( "SELECT f.id AS id, f.foodName AS foodName FROM Food f" )
+    List<FoodNameView> findAllNames ();
+
+    /**
+     * Returns a summary of every food that is in stock, without loading
+     * allergies.
+     *
+     * @return summaries of foods with a positive amount
+     */
+    @Query ( "SELECT f.id AS id, f.foodName AS foodName, f.amount AS amount, f.price AS price,"
+            + " f.allergenMask AS allergenMask FROM Food f WHERE f.amount > 0" )
+    List<FoodSummaryView> findInStockSummaries ();
+
+    /**
+     * Returns a summary of each of the given foods straight from the
+     * database, without loading entities.
+     *
+     * @param ids
+     *            ids of the foods
+     * @return summaries of the foods that exist
+     */
+    @Query ( "SELECT f.id AS id, f.foodName AS foodName, f.amount AS amount, f.price AS price,"
+            + " f.allergenMask AS allergenMask FROM Food f WHERE f.id IN :ids" )
+    List<FoodSummaryView> findSummariesByIdIn ( @Param ( "ids" ) Collection<Long> ids );
+
+    /**
+     * Returns foods with an id greater than the cursor, in id order, applying
+     * the optional price range and name prefix filters. The page size comes
+     * from the Pageable; no count query is run.
+     *
+     * @param after
+     *            id of the last food already seen (0 for the first page)
+     * @param minPrice
+     *            minimum price, or null for no lower bound
+     * @param maxPrice
+     *            maximum price, or null for no upper bound
+     * @param namePrefix
+     *            upper-case LIKE pattern for the name (e.g. "COF%"), using
+     *            "!" as the escape character, or null
+     * @param excludeMask
+     *            allergen mask the foods must not intersect (0 for none)
+     * @param pageable
+     *            page size
+     * @return the next page of foods
+     */
+    @Query ( "SELECT f FROM Food f WHERE f.id > :after"
+            + " AND (:minPrice IS NULL OR f.price >= :minPrice)"
+            + " AND (:maxPrice IS NULL OR f.price <= :maxPrice)"
+            + " AND (:namePrefix IS NULL OR UPPER(f.foodName) LIKE :namePrefix ESCAPE '!')"
+            + " AND bitand(f.allergenMask, cast(:excludeMask as Long)) = 0"
+            + " ORDER BY f.id" )
+    List<Food> findPageAfter ( @Param ( "after" ) long after, @Param ( "minPrice" ) Integer minPrice,
+            @Param ( "maxPrice" ) Integer maxPrice, @Param ( "namePrefix" ) String namePrefix,
+            @Param ( "excludeMask" ) long excludeMask, Pageable pageable );
+
+    /**
+     * Returns every food that contains none of the allergens in the mask,
+     * i.e. (allergen_mask &amp; mask) = 0.
+     *
+     * @param mask
+     *            allergens to avoid
+     * @return the safe foods, ordered by id
+     */
+    @Query ( "SELECT f FROM Food f WHERE bitand(f.allergenMask, cast(:mask as Long)) = 0 ORDER BY f.id" )
+    List<Food> findSafeFor ( @Param ( "mask" ) long mask );
+
+    /**
+     * Returns (food id, allergy) pairs for foods that list allergies but have
+     * no allergen mask yet, i.e. rows written before the mask column existed.
+     *
+     * @return allergies of foods whose mask needs to be filled in
+     */
+    @Query ( "SELECT f.id AS id, a AS allergy FROM Food f JOIN f.allergies a WHERE f.allergenMask = 0" )
+    List<FoodAllergyView> findAllergiesWithoutMask ();
+
+    /**
+     * Sets the allergen mask of a food.
+     *
+     * @param id
+     *            food id
+     * @param mask
+     *            the new mask
+     * @return number of rows updated
+     */
+    @Transactional
+    @Modifying
+    @Query ( "UPDATE Food f SET f.allergenMask = :mask WHERE f.id = :id" )
+    int updateAllergenMask ( @Param ( "id" ) Long id, @Param ( "mask" ) long mask );
+
+    /**
+     * Streams every food in id order. Must be consumed inside a transaction
+     * and closed afterwards; rows are fetched from the driver in chunks
+     * rather than all at once. MySQL honours the fetch size only when the
+     * datasource URL sets useCursorFetch=true.
+     *
+     * @return stream over all foods
+     */
+    @QueryHints ( @QueryHint ( name = HibernateHints.HINT_FETCH_SIZE, value = "500" ) )
+    @Query ( "SELECT f FROM Food f ORDER BY f.id" )
+    Stream<Food> streamAllOrderById ();
+
+    /**
+     * Projection of a food's id and name.
+     */
+    interface FoodNameView {
+
+        /**
+         * @return the food id
+         */
+        Long getId ();
+
+        /**
+         * @return the food name
+         */
+        String getFoodName ();
+    }
+
+    /**
+     * Projection of one allergy of a food.
+     */
+    interface FoodAllergyView {
+
+        /**
+         * @return the food id
+         */
+        Long getId ();
+
+        /**
+         * @return the allergy name
+         */
+        String getAllergy ();
+    }
+
+    /**
+     * Projection of a food's scalar columns.
+     */
+    interface FoodSummaryView {
+
+        /**
+         * @return the food id
+         */
+        Long getId ();
+
+        /**
+         * @return the food name
+         */
+        String getFoodName ();
+
+        /**
+         * @return the amount in stock
+         */
+        int getAmount ();
+
+        /**
+         * @return the price
+         */
+        int getPrice ();
+
+        /**
+         * @return the allergen mask
+         */
+        long getAllergenMask ();
+    }
+
 }
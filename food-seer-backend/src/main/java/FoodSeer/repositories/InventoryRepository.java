@@ -1,6 +1,11 @@
 package FoodSeer.repositories;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import FoodSeer.entity.Inventory;
 
@@ -10,4 +15,62 @@ import FoodSeer.entity.Inventory;
  */
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
 
+    /**
+     * Returns the scalar columns of every food in the inventory straight
+     * from the foods table, without loading the inventory or its foods.
+     *
+     * @param inventoryId
+     *            id of the inventory
+     * @return summaries of the foods in the inventory, ordered by id
+     */
+    @Query("SELECT f.id AS id, f.foodName AS foodName, f.amount AS amount, f.price AS price,"
+            + " f.allergenMask AS allergenMask FROM Inventory i JOIN i.foods f WHERE i.id = :inventoryId"
+            + " ORDER BY f.id")
+    List<FoodRepository.FoodSummaryView> findFoodSummaries(@Param("inventoryId") Long inventoryId);
+
+    /**
+     * Returns (food id, allergy) pairs for every food in the inventory.
+     *
+     * @param inventoryId
+     *            id of the inventory
+     * @return allergies of the foods in the inventory
+     */
+    @Query("SELECT f.id AS id, a AS allergy FROM Inventory i JOIN i.foods f JOIN f.allergies a"
+            + " WHERE i.id = :inventoryId")
+    List<FoodRepository.FoodAllergyView> findFoodAllergies(@Param("inventoryId") Long inventoryId);
+
+    /**
+     * Links a food to the inventory with a single insert, without loading
+     * or rewriting the inventory's food list.
+     *
+     * @param inventoryId
+     *            id of the inventory
+     * @param foodId
+     *            id of the food
+     * @return number of rows inserted
+     */
+    @Modifying
+    @Query(value = "INSERT INTO inventory_foods (inventory_id, foods_id) VALUES (:inventoryId, :foodId)",
+            nativeQuery = true)
+    int addFood(@Param("inventoryId") Long inventoryId, @Param("foodId") Long foodId);
+
+    /**
+     * Unlinks a food from every inventory.
+     *
+     * @param foodId
+     *            id of the food
+     * @return number of rows deleted
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM inventory_foods WHERE foods_id = :foodId", nativeQuery = true)
+    int removeFood(@Param("foodId") Long foodId);
+
+    /**
+     * Unlinks every food from every inventory.
+     *
+     * @return number of rows deleted
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM inventory_foods", nativeQuery = true)
+    int removeAllFoods();
 }
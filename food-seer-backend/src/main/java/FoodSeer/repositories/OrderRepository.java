@@ -1,11 +1,17 @@
 package FoodSeer.repositories;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import FoodSeer.entity.Food;
 import FoodSeer.entity.Order;
@@ -19,28 +25,205 @@ import FoodSeer.entity.User;
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
     /**
-     * Find all orders for a specific user.
+     * Find all orders, with their user, lines and foods fetched in the same
+     * query. The foods' allergies are batch loaded.
+     *
+     * @return list of all orders
+     */
+    @Override
+    @EntityGraph(attributePaths = { "user", "lines", "lines.food" })
+    List<Order> findAll();
+
+    /**
+     * Find an order, with its user, lines and foods fetched in the same
+     * query.
+     *
+     * @param id the order id
+     * @return the order, if it exists
+     */
+    @Override
+    @EntityGraph(attributePaths = { "user", "lines", "lines.food" })
+    Optional<Order> findById(Long id);
+
+    /**
+     * Find all orders for a specific user, with their lines and foods
+     * fetched in the same query.
      *
      * @param user the user
      * @return list of orders belonging to the user
      */
+    @EntityGraph(attributePaths = { "user", "lines", "lines.food" })
     List<Order> findByUser(User user);
     
     /**
-     * Find all fulfilled orders for a specific user.
+     * Find all fulfilled orders for a specific user, with their lines and
+     * foods fetched in the same query.
      *
      * @param user the user
      * @param isFulfilled true for fulfilled orders
      * @return list of fulfilled orders belonging to the user
      */
+    @EntityGraph(attributePaths = { "user", "lines", "lines.food" })
     List<Order> findByUserAndIsFulfilled(User user, boolean isFulfilled);
     
+    /**
+     * Find all orders that are, or are not, fulfilled, oldest first, with
+     * their lines and foods fetched in the same query.
+     *
+     * @param isFulfilled true for fulfilled orders
+     * @return list of matching orders
+     */
+    @EntityGraph(attributePaths = { "user", "lines", "lines.food" })
+    List<Order> findByIsFulfilledOrderByIdAsc(boolean isFulfilled);
+
+    /**
+     * Returns the ids of the next page of orders after a cursor, oldest
+     * first. Reads only the primary key.
+     *
+     * @param after id of the last order already seen, or 0
+     * @param pageable page size
+     * @return the order ids
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.id > :after ORDER BY o.id")
+    List<Long> findPageIdsAfter(@Param("after") long after, Pageable pageable);
+
+    /**
+     * Returns the ids of the next page of orders that are, or are not,
+     * fulfilled after a cursor, oldest first. Reads only the
+     * (is_fulfilled, id) index.
+     *
+     * @param isFulfilled fulfilment state to match
+     * @param after id of the last order already seen, or 0
+     * @param pageable page size
+     * @return the order ids
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.isFulfilled = :isFulfilled AND o.id > :after ORDER BY o.id")
+    List<Long> findPageIdsByFulfilledAfter(@Param("isFulfilled") boolean isFulfilled, @Param("after") long after,
+            Pageable pageable);
+
+    /**
+     * Returns the ids of the next page of a user's orders after a cursor,
+     * oldest first. Reads only the (user_id, id) index.
+     *
+     * @param user the user
+     * @param after id of the last order already seen, or 0
+     * @param pageable page size
+     * @return the order ids
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.user = :user AND o.id > :after ORDER BY o.id")
+    List<Long> findPageIdsByUserAfter(@Param("user") User user, @Param("after") long after, Pageable pageable);
+
+    /**
+     * Returns the ids of the next page of a user's orders that are, or are
+     * not, fulfilled after a cursor, oldest first. Reads only the
+     * (user_id, is_fulfilled, id) index.
+     *
+     * @param user the user
+     * @param isFulfilled fulfilment state to match
+     * @param after id of the last order already seen, or 0
+     * @param pageable page size
+     * @return the order ids
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.user = :user AND o.isFulfilled = :isFulfilled"
+            + " AND o.id > :after ORDER BY o.id")
+    List<Long> findPageIdsByUserAndFulfilledAfter(@Param("user") User user,
+            @Param("isFulfilled") boolean isFulfilled, @Param("after") long after, Pageable pageable);
+
+    /**
+     * Loads the orders with the given ids, oldest first, with their user,
+     * lines and foods fetched in the same query. Used for pages, whose ids
+     * are found first so the collection fetch is not paged in memory.
+     *
+     * @param ids the order ids
+     * @return the orders
+     */
+    @EntityGraph(attributePaths = { "user", "lines", "lines.food" })
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids ORDER BY o.id")
+    List<Order> findAllWithLinesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Reads whether an order is fulfilled without loading it.
+     *
+     * @param id the order id
+     * @return true if fulfilled, or empty if the order does not exist
+     */
+    @Query("SELECT o.isFulfilled FROM Order o WHERE o.id = :id")
+    Optional<Boolean> findIsFulfilledById(@Param("id") Long id);
+
+    /**
+     * Marks orders as fulfilled in one statement. Must run inside a
+     * transaction.
+     *
+     * @param ids the order ids
+     * @return number of orders updated
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.isFulfilled = true WHERE o.id IN :ids")
+    int markFulfilled(@Param("ids") Collection<Long> ids);
+
     /**
      * Find all orders that contain a specific food.
      *
      * @param food the food to search for
      * @return list of orders containing the food
      */
-    @Query("SELECT o FROM Order o JOIN o.foods f WHERE f = :food")
+    @Query("SELECT DISTINCT o FROM Order o JOIN o.lines l WHERE l.food = :food")
     List<Order> findOrdersContainingFood(@Param("food") Food food);
+
+    /**
+     * Counts the unfulfilled orders that contain a specific food, without
+     * loading them.
+     *
+     * @param foodId id of the food
+     * @return number of unfulfilled orders containing the food
+     */
+    @Query("SELECT COUNT(DISTINCT o.id) FROM Order o JOIN o.lines l WHERE l.food.id = :foodId AND o.isFulfilled = false")
+    long countUnfulfilledOrdersContainingFood(@Param("foodId") Long foodId);
+
+    /**
+     * Removes a food from every order in one statement by deleting its
+     * order lines. Pending changes are flushed first.
+     *
+     * @param foodId id of the food
+     * @return number of order lines deleted
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM order_lines WHERE food_id = :foodId", nativeQuery = true)
+    int removeFoodFromOrders(@Param("foodId") Long foodId);
+
+    /**
+     * Counts the tables named orders_foods in the current schema: the
+     * order/food join table used before orders had lines.
+     *
+     * @return 1 if the old join table still exists, 0 otherwise
+     */
+    @Query(value = "SELECT COUNT(*) FROM information_schema.tables"
+            + " WHERE table_schema = DATABASE() AND table_name = 'orders_foods'", nativeQuery = true)
+    long countLegacyOrderFoodsTables();
+
+    /**
+     * Copies the rows of the old order/food join table into order lines,
+     * one line per order and food with the number of rows as its quantity.
+     * Orders that already have lines are skipped. The price a food was
+     * ordered at was never stored, so its current price is used.
+     *
+     * @return number of order lines created
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO order_lines (order_id, food_id, quantity, unit_price)"
+            + " SELECT j.order_id, j.foods_id, COUNT(*), f.price FROM orders_foods j"
+            + " JOIN foods f ON f.id = j.foods_id"
+            + " WHERE NOT EXISTS (SELECT 1 FROM order_lines l WHERE l.order_id = j.order_id)"
+            + " GROUP BY j.order_id, j.foods_id, f.price ORDER BY j.order_id, j.foods_id", nativeQuery = true)
+    int migrateLegacyOrderFoods();
+
+    /**
+     * Drops the old order/food join table once its rows have been copied
+     * into order lines.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DROP TABLE orders_foods", nativeQuery = true)
+    void dropLegacyOrderFoods();
 }
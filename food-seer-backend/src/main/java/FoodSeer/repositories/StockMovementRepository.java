@@ -0,0 +1,75 @@
+package FoodSeer.repositories;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import FoodSeer.entity.StockMovement;
+
+/**
+ * Read access to the stock ledger. Movements are written in batches by the
+ * ledger writer, not through this repository.
+ */
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    /**
+     * Finds the latest movement of a food.
+     *
+     * @param foodId
+     *            id of the food
+     * @return the latest movement, if any
+     */
+    Optional<StockMovement> findFirstByFoodIdOrderByIdDesc ( Long foodId );
+
+    /**
+     * Finds the movements of a food, newest first.
+     *
+     * @param foodId
+     *            id of the food
+     * @param pageable
+     *            page of movements to read
+     * @return the movements
+     */
+    List<StockMovement> findByFoodIdOrderByIdDesc ( Long foodId, Pageable pageable );
+
+    /**
+     * Sums the movements of a food written after a snapshot and committed
+     * no later than the given time, using the (food_id, id) index.
+     *
+     * @param foodId
+     *            id of the food
+     * @param afterId
+     *            id of the last movement covered by the snapshot, or 0
+     * @param at
+     *            latest commit time to include, in epoch milliseconds
+     * @return the sum of the deltas and the number of movements read
+     */
+    @Query ( "SELECT COALESCE(SUM(m.delta), 0) AS delta, COUNT(m) AS count FROM StockMovement m"
+            + " WHERE m.foodId = :foodId AND m.id > :afterId AND m.occurredAt <= :at" )
+    Tail sumTail ( @Param ( "foodId" ) Long foodId, @Param ( "afterId" ) Long afterId,
+            @Param ( "at" ) long at );
+
+    /**
+     * Movements read on top of a snapshot.
+     */
+    interface Tail {
+
+        /**
+         * Returns the sum of the deltas.
+         *
+         * @return the net change
+         */
+        long getDelta ();
+
+        /**
+         * Returns the number of movements read.
+         *
+         * @return the movement count
+         */
+        long getCount ();
+    }
+}
@@ -0,0 +1,27 @@
+package FoodSeer.repositories;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import FoodSeer.entity.StockSnapshot;
+
+/**
+ * Read access to the stock ledger snapshots, which are written by the
+ * ledger writer.
+ */
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    /**
+     * Finds the latest snapshot of a food taken no later than the given
+     * time, using the (food_id, taken_at) index.
+     *
+     * @param foodId
+     *            id of the food
+     * @param at
+     *            latest time to consider, in epoch milliseconds
+     * @return the snapshot, if any
+     */
+    Optional<StockSnapshot> findFirstByFoodIdAndTakenAtLessThanEqualOrderByTakenAtDescIdDesc ( Long foodId,
+            long at );
+}
@@ -0,0 +1,11 @@
+package FoodSeer.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import FoodSeer.entity.StockThreshold;
+
+/**
+ * Repository for the reorder thresholds of foods.
+ */
+public interface StockThresholdRepository extends JpaRepository<StockThreshold, Long> {
+}
@@ -1,8 +1,16 @@
 package FoodSeer.service;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
+import FoodSeer.dto.FoodBulkUpdateResultDto;
+import FoodSeer.dto.FoodCacheStatsDto;
 import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.FoodImportResultDto;
+import FoodSeer.dto.FoodPageDto;
+import FoodSeer.dto.FoodSearchHitDto;
+import FoodSeer.dto.FoodUpdateDto;
 
 /**
  * Food Service
@@ -34,6 +42,62 @@ public interface FoodService {
      */
     List<FoodDto> getAllFoods ();
 
+    /**
+     * Returns one page of foods ordered by id, starting after the given
+     * cursor.
+     *
+     * @param after
+     *            id of the last food already seen, or null for the first page
+     * @param limit
+     *            maximum number of foods to return
+     * @param minPrice
+     *            minimum price, or null for no lower bound
+     * @param maxPrice
+     *            maximum price, or null for no upper bound
+     * @param name
+     *            name prefix to match (case-insensitive), or null
+     * @param excludeAllergens
+     *            dictionary allergens the foods must not contain, or null
+     * @return the page and the cursor for the next one
+     */
+    FoodPageDto getFoodsPage ( Long after, int limit, Integer minPrice, Integer maxPrice, String name,
+            List<String> excludeAllergens );
+
+    /**
+     * Returns all foods that contain none of the given allergies.
+     *
+     * @param restrictions
+     *            allergies to avoid
+     * @return foods that are safe for the restrictions
+     */
+    List<FoodDto> getSafeFoods ( List<String> restrictions );
+
+    /**
+     * Passes every food, in id order, to the given action one at a time
+     * without holding the whole catalog in memory. Each DTO is only valid
+     * for the duration of the call.
+     *
+     * @param action
+     *            called once per food
+     */
+    void forEachFood ( Consumer<FoodDto> action );
+
+    /**
+     * Adds foods read from CSV or JSON lines. The input is read one row at a
+     * time and rows are inserted in batches. Invalid rows and rows whose
+     * name already exists are reported instead of stopping the import.
+     *
+     * @param input
+     *            the rows to import
+     * @param format
+     *            "csv" (foodName,amount,price,allergies with allergies
+     *            separated by ';') or "jsonl" (one food object per line)
+     * @return how many foods were added and which rows were rejected
+     * @throws IllegalArgumentException
+     *             if the format is not supported
+     */
+    FoodImportResultDto importFoods ( InputStream input, String format );
+
     /**
      * Delete Food
      *
@@ -47,6 +111,37 @@ public interface FoodService {
      */
     void deleteAllFoods ();
 
+    /**
+     * Returns hit and miss counts for the cache behind getFoodById and
+     * getAllFoods.
+     *
+     * @return the cache statistics
+     */
+    FoodCacheStatsDto getCacheStats ();
+
+    /**
+     * Returns a strong ETag for the current version of the food catalog.
+     * The tag changes whenever a food or its stock changes.
+     *
+     * @return the quoted ETag
+     */
+    String getCatalogETag ();
+
+    /**
+     * Finds foods by name for autocomplete. Matches on the start of the name
+     * or of any word in it rank first; names within a few typos of the
+     * query follow.
+     *
+     * @param query
+     *            the text typed so far
+     * @param limit
+     *            maximum number of results
+     * @return the best matches, best first
+     * @throws IllegalArgumentException
+     *             if the limit is not positive
+     */
+    List<FoodSearchHitDto> searchFoods ( String query, int limit );
+
     /**
      * Helper method
      *
@@ -76,6 +171,16 @@ public interface FoodService {
      */
     FoodDto updateFood(final String name, final int amount, final int price, final List<String> allergies);
 
+    /**
+     * Applies many food changes in one transaction. Invalid changes are
+     * rejected and reported; the valid ones are still applied.
+     *
+     * @param updates
+     *            the changes, each picking a food by id or name
+     * @return the outcome of each change
+     */
+    FoodBulkUpdateResultDto updateFoods ( List<FoodUpdateDto> updates );
+
     /**
      * Returns true if the food already exists in the database.
      *
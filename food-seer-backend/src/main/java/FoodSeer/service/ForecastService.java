@@ -0,0 +1,43 @@
+package FoodSeer.service;
+
+import java.util.List;
+import java.util.Map;
+
+import FoodSeer.dto.DemandForecastDto;
+import FoodSeer.exception.ResourceNotFoundException;
+
+/**
+ * Forecasts the demand for foods from the orders placed, and suggests how
+ * much of each to reorder. Demand is aggregated as orders are created, so a
+ * forecast never reads the order history.
+ */
+public interface ForecastService {
+
+    /**
+     * Adds ordered quantities to the demand of their foods, once the
+     * current transaction commits if there is one.
+     *
+     * @param quantities
+     *            the ordered quantity by food id
+     */
+    void recordDemand ( Map<Long, Long> quantities );
+
+    /**
+     * Returns the demand forecast of a food.
+     *
+     * @param foodId
+     *            id of the food
+     * @return the forecast; a food that was never ordered has no demand
+     * @throws ResourceNotFoundException
+     *             if the food does not exist
+     */
+    DemandForecastDto getForecast ( Long foodId );
+
+    /**
+     * Returns the forecast of every food that has been ordered, largest
+     * suggested reorder first.
+     *
+     * @return the forecasts
+     */
+    List<DemandForecastDto> getReorderSuggestions ();
+}
@@ -1,6 +1,20 @@
 package FoodSeer.service;
 
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
 import FoodSeer.dto.InventoryDto;
+import FoodSeer.dto.RestockResultDto;
+import FoodSeer.dto.StockAdjustmentDto;
+import FoodSeer.dto.StockAdjustmentResultDto;
+import FoodSeer.dto.StockAlertDto;
+import FoodSeer.dto.StockLedgerLevelDto;
+import FoodSeer.dto.StockMovementDto;
+import FoodSeer.dto.StockThresholdDto;
+import FoodSeer.exception.ResourceNotFoundException;
 
 /**
  * Interface defining the inventory behaviors for FoodSeer.
@@ -8,6 +22,12 @@ import FoodSeer.dto.InventoryDto;
  */
 public interface InventoryService {
 
+    /** Largest number of adjustments accepted by adjustStock */
+    int MAX_ADJUSTMENTS = 1000;
+
+    /** Largest number of movements returned by getStockMovements */
+    int MAX_MOVEMENTS = 500;
+
     /**
      * Creates a new inventory.
      *
@@ -32,4 +52,121 @@ public interface InventoryService {
      * @return The updated inventory as a DTO
      */
     InventoryDto updateInventory(InventoryDto inventoryDto);
+
+    /**
+     * Adds or removes stock of individual foods. Each adjustment is applied
+     * atomically relative to the current amount, so concurrent adjustments
+     * never overwrite each other; one that would take the stock below zero
+     * is rejected while the others still apply.
+     *
+     * @param adjustments
+     *            the adjustments, each with a food id and a signed quantity
+     * @return the outcome of each adjustment
+     * @throws IllegalArgumentException
+     *             if more than MAX_ADJUSTMENTS adjustments are sent
+     */
+    StockAdjustmentResultDto adjustStock(List<StockAdjustmentDto> adjustments);
+
+    /**
+     * Applies a restock manifest: one "foodId,quantity" line per delivery,
+     * with an optional header. The quantities are totalled per food and
+     * added to the stock as one batch of relative updates; a food whose
+     * total would take its stock below zero or past the maximum, or that
+     * does not exist, is rejected with all of its lines.
+     *
+     * @param manifest
+     *            the manifest
+     * @return the summary, with throughput and rejected lines
+     * @throws IllegalArgumentException
+     *             if the manifest is larger than the configured limit
+     */
+    RestockResultDto restockFromManifest(InputStream manifest);
+
+    /**
+     * Opens a server-sent event stream of stock levels: a snapshot of every
+     * food, then a change each time a food's stock changes.
+     *
+     * @return the emitter for the stream
+     * @throws IllegalStateException
+     *             if too many streams are already open
+     */
+    SseEmitter streamStockLevels();
+
+    /**
+     * Returns the stock of a food at a point in time, computed from the
+     * stock ledger as the latest snapshot by then plus the movements after
+     * it.
+     *
+     * @param foodId
+     *            id of the food
+     * @param at
+     *            the point in time, or null for now
+     * @return the level
+     */
+    StockLedgerLevelDto getStockLevelAt(Long foodId, Instant at);
+
+    /**
+     * Returns the latest stock movements of a food, newest first.
+     *
+     * @param foodId
+     *            id of the food
+     * @param limit
+     *            largest number of movements to return
+     * @return the movements
+     * @throws IllegalArgumentException
+     *             if the limit is not between 1 and MAX_MOVEMENTS
+     */
+    List<StockMovementDto> getStockMovements(Long foodId, int limit);
+
+    /**
+     * Sets the reorder threshold of a food. A low-stock alert is raised
+     * whenever the food's stock falls to the threshold or below, including
+     * right away if it already has.
+     *
+     * @param thresholdDto
+     *            the food id and its threshold; 0 alerts when the food runs
+     *            out
+     * @return the saved threshold
+     * @throws IllegalArgumentException
+     *             if the food id or threshold is missing or the threshold is
+     *             negative
+     */
+    StockThresholdDto setStockThreshold(StockThresholdDto thresholdDto);
+
+    /**
+     * Removes the reorder threshold of a food, so it no longer raises
+     * low-stock alerts.
+     *
+     * @param foodId
+     *            id of the food
+     * @throws ResourceNotFoundException
+     *             if the food has no threshold
+     */
+    void removeStockThreshold(Long foodId);
+
+    /**
+     * Returns the reorder thresholds of all foods that have one.
+     *
+     * @return the thresholds
+     */
+    List<StockThresholdDto> getStockThresholds();
+
+    /**
+     * Returns the low-stock alerts raised after the given one, oldest first.
+     * Only the latest alerts are kept.
+     *
+     * @param after
+     *            sequence number of the last alert already seen, or 0 for
+     *            all kept alerts
+     * @return the alerts
+     */
+    List<StockAlertDto> getStockAlerts(long after);
+
+    /**
+     * Returns a strong ETag for the current version of the inventory. The
+     * tag changes whenever a food, its stock or the inventory changes.
+     *
+     * @return the quoted ETag
+     */
+    String getCatalogETag();
 }
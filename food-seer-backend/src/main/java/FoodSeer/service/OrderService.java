@@ -2,7 +2,9 @@ package FoodSeer.service;
 
 import java.util.List;
 
+import FoodSeer.dto.FulfillmentStatusDto;
 import FoodSeer.dto.OrderDto;
+import FoodSeer.dto.OrderPageDto;
 import FoodSeer.exception.ResourceNotFoundException;
 
 /**
@@ -19,6 +21,21 @@ public interface OrderService {
      */
     OrderDto createOrder(OrderDto orderDto);
 
+    /**
+     * Creates an order holding exactly the quantities of a reservation of
+     * the current user. The reservation ends whether or not the order is
+     * created.
+     *
+     * @param reservationId
+     *            the ID of the reservation
+     * @param name
+     *            the name of the order
+     * @return the created order as a DTO
+     * @throws ResourceNotFoundException
+     *             if the current user has no such active reservation
+     */
+    OrderDto createOrderFromReservation(String reservationId, String name);
+
     /**
      * Retrieves an order by its ID.
      *
@@ -46,6 +63,44 @@ public interface OrderService {
      */
     OrderDto fulfillOrder(long orderId);
 
+    /**
+     * Checks whether an order is fulfilled, without loading it.
+     *
+     * @param orderId
+     *            the ID of the order
+     * @return true if the order is fulfilled
+     * @throws ResourceNotFoundException
+     *             if no order exists with the provided ID
+     */
+    boolean isOrderFulfilled(Long orderId);
+
+    /**
+     * Queues an order to be fulfilled in the background and returns at
+     * once.
+     *
+     * @param orderId
+     *            the ID of the order to fulfill
+     * @return the status of the request
+     * @throws ResourceNotFoundException
+     *             if no order exists with the provided ID
+     * @throws IllegalArgumentException
+     *             if the order is already fulfilled
+     * @throws IllegalStateException
+     *             if the fulfillment queue is full
+     */
+    FulfillmentStatusDto requestFulfillment(long orderId);
+
+    /**
+     * Retrieves the status of the latest fulfillment request for an order.
+     *
+     * @param orderId
+     *            the ID of the order
+     * @return the status of the request
+     * @throws ResourceNotFoundException
+     *             if the order has not been requested recently
+     */
+    FulfillmentStatusDto getFulfillmentStatus(long orderId);
+
     /**
      * Retrieves all fulfilled orders.
      *
@@ -80,4 +135,39 @@ public interface OrderService {
      * @return a list of unfulfilled orders belonging to the current user
      */
     List<OrderDto> getCurrentUserUnfulfilledOrders();
+
+    /**
+     * Retrieves one page of orders, oldest first, using keyset pagination.
+     *
+     * @param isFulfilled
+     *            true for fulfilled orders, false for unfulfilled ones, or
+     *            null for all orders
+     * @param after
+     *            id of the last order already seen, or null for the first
+     *            page
+     * @param limit
+     *            largest number of orders to return
+     * @return the page of orders and the cursor for the next one
+     * @throws IllegalArgumentException
+     *             if the limit is not positive
+     */
+    OrderPageDto getOrdersPage(Boolean isFulfilled, Long after, int limit);
+
+    /**
+     * Retrieves one page of the current user's orders, oldest first, using
+     * keyset pagination.
+     *
+     * @param isFulfilled
+     *            true for fulfilled orders, false for unfulfilled ones, or
+     *            null for all orders
+     * @param after
+     *            id of the last order already seen, or null for the first
+     *            page
+     * @param limit
+     *            largest number of orders to return
+     * @return the page of orders and the cursor for the next one
+     * @throws IllegalArgumentException
+     *             if the limit is not positive
+     */
+    OrderPageDto getCurrentUserOrdersPage(Boolean isFulfilled, Long after, int limit);
 }
@@ -0,0 +1,38 @@
+package FoodSeer.service;
+
+import java.util.List;
+
+import FoodSeer.dto.FoodDto;
+
+/**
+ * Interface defining food recommendation behaviors for FoodSeer.
+ * Recommendations are in-stock foods that fit a cost preference and avoid
+ * a set of dietary restrictions.
+ */
+public interface RecommendationService {
+
+    /**
+     * Returns up to limit recommended foods for the current authenticated
+     * user, based on the preferences stored on their account.
+     *
+     * @param limit
+     *            maximum number of foods to return
+     * @return recommended foods, cheapest first
+     * @throws IllegalStateException
+     *             if no user is authenticated
+     */
+    List<FoodDto> recommendForCurrentUser ( int limit );
+
+    /**
+     * Returns up to limit recommended foods for the given preferences.
+     *
+     * @param costPreference
+     *            budget, moderate, premium or no-limit (null for no limit)
+     * @param dietaryRestrictions
+     *            comma-separated allergies to avoid, may be null
+     * @param limit
+     *            maximum number of foods to return
+     * @return recommended foods, cheapest first
+     */
+    List<FoodDto> recommend ( String costPreference, String dietaryRestrictions, int limit );
+}
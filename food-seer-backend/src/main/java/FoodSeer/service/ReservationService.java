@@ -0,0 +1,92 @@
+package FoodSeer.service;
+
+import java.util.List;
+import java.util.Map;
+
+import FoodSeer.dto.ReservationDto;
+import FoodSeer.dto.ReservationItemDto;
+import FoodSeer.exception.ResourceNotFoundException;
+
+/**
+ * Holds stock for carts that are still being built. Held quantities are not
+ * taken from the foods table; they are only subtracted from what other
+ * customers can reserve or order, until the reservation is turned into an
+ * order, cancelled, or expires.
+ */
+public interface ReservationService {
+
+    /** Largest number of items in one reservation */
+    int MAX_ITEMS = 100;
+
+    /**
+     * Holds the given quantities for the current user, all or nothing.
+     * Items for the same food are added together.
+     *
+     * @param items
+     *            the quantities to hold
+     * @return the reservation
+     * @throws IllegalArgumentException
+     *             if an item is invalid or a food does not have enough
+     *             unheld stock
+     * @throws ResourceNotFoundException
+     *             if a food does not exist
+     * @throws IllegalStateException
+     *             if too many reservations are already active
+     */
+    ReservationDto reserve ( List<ReservationItemDto> items );
+
+    /**
+     * Returns a reservation of the current user.
+     *
+     * @param reservationId
+     *            the reservation id
+     * @return the reservation
+     * @throws ResourceNotFoundException
+     *             if there is no such active reservation for the current
+     *             user
+     */
+    ReservationDto getReservation ( String reservationId );
+
+    /**
+     * Cancels a reservation of the current user, releasing its stock.
+     *
+     * @param reservationId
+     *            the reservation id
+     * @throws ResourceNotFoundException
+     *             if there is no such active reservation for the current
+     *             user
+     */
+    void cancel ( String reservationId );
+
+    /**
+     * Ends a reservation of the current user so it can be turned into an
+     * order. Its quantities stay held until they are passed to release.
+     *
+     * @param reservationId
+     *            the reservation id
+     * @return the held quantity by food id
+     * @throws ResourceNotFoundException
+     *             if there is no such active reservation for the current
+     *             user
+     */
+    Map<Long, Long> claim ( String reservationId );
+
+    /**
+     * Releases quantities returned by claim. Inside a transaction they are
+     * released once it completes, so the stock taken by the order is
+     * committed before the hold goes away.
+     *
+     * @param quantities
+     *            the quantities by food id
+     */
+    void release ( Map<Long, Long> quantities );
+
+    /**
+     * Returns the quantity of a food held by all active reservations.
+     *
+     * @param foodId
+     *            the food id
+     * @return the held quantity
+     */
+    long heldQuantity ( Long foodId );
+}
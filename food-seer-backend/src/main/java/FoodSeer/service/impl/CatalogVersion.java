@@ -0,0 +1,83 @@
+package FoodSeer.service.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import FoodSeer.entity.FoodChangedEvent;
+
+/**
+ * Monotonically increasing version of the food catalog and inventory, used
+ * to build ETags for the catalog GET endpoints.
+ *
+ * Every FoodChangedEvent bumps the version, which covers food and stock
+ * writes from any service. Inventory writes that only touch the inventory
+ * itself call bump() directly. A write inside a transaction bumps the
+ * version again once the transaction completes, so a poll that read the
+ * old rows while the write was still uncommitted cannot keep a tag that
+ * matches the new state.
+ *
+ * The ETag also carries the startup time so tags from before a restart
+ * never match.
+ */
+@Component
+public class CatalogVersion {
+
+    /** Time this instance started, in milliseconds */
+    private final long       epoch   = System.currentTimeMillis();
+
+    /** Current version */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Returns the current version.
+     *
+     * @return the version
+     */
+    public long current () {
+        return version.get();
+    }
+
+    /**
+     * Returns a strong ETag for the current version.
+     *
+     * @return the quoted ETag
+     */
+    public String eTag () {
+        return "\"" + epoch + "-" + version.get() + "\"";
+    }
+
+    /**
+     * Bumps the version, and bumps it again when the current transaction,
+     * if any, completes.
+     */
+    public void bump () {
+        version.incrementAndGet();
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.getResource( this ) == null ) {
+            TransactionSynchronizationManager.bindResource( this, Boolean.TRUE );
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+                @Override
+                public void afterCompletion ( final int status ) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible( CatalogVersion.this );
+                    version.incrementAndGet();
+                }
+            } );
+        }
+    }
+
+    /**
+     * Bumps the version on every food change.
+     *
+     * @param event
+     *            the food change
+     */
+    @EventListener
+    public void onFoodChanged ( final FoodChangedEvent event ) {
+        bump();
+    }
+}
@@ -2,7 +2,9 @@ package FoodSeer.service.impl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -13,9 +15,11 @@ import org.springframework.stereotype.Component;
 import FoodSeer.entity.User;
 import FoodSeer.entity.Role;
 import FoodSeer.entity.Food;
+import FoodSeer.entity.Allergen;
 import FoodSeer.repositories.UserRepository;
 import FoodSeer.repositories.RoleRepository;
 import FoodSeer.repositories.FoodRepository;
+import FoodSeer.repositories.OrderRepository;
 
 /**
  * Initializes application data such as a default admin user.
@@ -26,6 +30,7 @@ public class DataInitializer {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final FoodRepository foodRepository;
+    private final OrderRepository orderRepository;
     private final PasswordEncoder passwordEncoder;
 
     @Value("${app.admin-user-password:admin}")
@@ -34,10 +39,12 @@ public class DataInitializer {
     public DataInitializer(UserRepository userRepository,
                            RoleRepository roleRepository,
                            FoodRepository foodRepository,
+                           OrderRepository orderRepository,
                            PasswordEncoder passwordEncoder) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.foodRepository = foodRepository;
+        this.orderRepository = orderRepository;
         this.passwordEncoder = passwordEncoder;
     }
 
@@ -74,36 +81,21 @@ public class DataInitializer {
             System.out.println("Updated admin user password to: " + adminPassword);
         }
 
+        // Fill in allergen masks for foods saved before the mask column existed
+        backfillAllergenMasks();
+
+        // Move orders saved before orders had lines into order lines
+        migrateOrderFoods();
+
         // Initialize sample food data if database is empty
         if (foodRepository.count() == 0) {
             System.out.println("Database empty - initializing sample food data...");
             
             List<Food> sampleFoods = new ArrayList<>();
             
-            /*
-             * Comprehensive Allergen List Reference:
-             * - MILK/DAIRY: milk, cheese, butter, cream
-             * - LACTOSE: lactose intolerance specific
-             * - EGGS: egg products
-             * - FISH: finned fish
-             * - SHELLFISH: crustaceans, mollusks
-             * - TREE-NUTS: almonds, walnuts, cashews, etc.
-             * - PEANUTS: peanuts specifically
-             * - WHEAT: wheat flour
-             * - GLUTEN: wheat, barley, rye
-             * - SOY: soybean products
-             * - SESAME: sesame seeds/oil
-             * - CORN: corn products
-             * - SULFITES: preservatives in wine, dried fruit
-             * - MUSTARD: mustard seeds/products
-             * - MEAT: general meat (for vegetarians)
-             * - BEEF: beef specifically
-             * - PORK: pork specifically
-             * - POULTRY: chicken, turkey
-             * - GELATIN: animal-derived gelatin
-             * - CAFFEINE: caffeinated products
-             */
-            
+            // Allergen names below come from the Allergen dictionary
+            // (FoodSeer.entity.Allergen), which also assigns each its mask bit.
+
             // Budget-friendly options (under $10)
             sampleFoods.add(new Food("COFFEE", 50, 3, Arrays.asList("CAFFEINE")));
             sampleFoods.add(new Food("TEA", 40, 2, Arrays.asList("CAFFEINE")));
@@ -152,4 +144,34 @@ public class DataInitializer {
             System.out.println("Food database already contains " + foodRepository.count() + " items - skipping sample data creation.");
         }
     }
+
+    /**
+     * Computes the allergen mask of any food that lists allergies but was
+     * stored before foods had an allergen mask column.
+     */
+    private void backfillAllergenMasks() {
+        final Map<Long, List<String>> allergiesByFood = new HashMap<>();
+        for (final FoodRepository.FoodAllergyView row : foodRepository.findAllergiesWithoutMask()) {
+            allergiesByFood.computeIfAbsent(row.getId(), id -> new ArrayList<>()).add(row.getAllergy());
+        }
+        allergiesByFood.forEach((id, allergies) -> {
+            final long mask = Allergen.maskOf(allergies);
+            if (mask != 0L) {
+                foodRepository.updateAllergenMask(id, mask);
+            }
+        });
+    }
+
+    /**
+     * Copies the orders stored in the old order/food join table, one row
+     * per unit, into order lines with quantities, then drops the old table.
+     */
+    private void migrateOrderFoods() {
+        if (orderRepository.countLegacyOrderFoodsTables() == 0) {
+            return;
+        }
+        final int lines = orderRepository.migrateLegacyOrderFoods();
+        orderRepository.dropLegacyOrderFoods();
+        System.out.println("Migrated old orders into " + lines + " order lines.");
+    }
 }
@@ -0,0 +1,314 @@
+package FoodSeer.service.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import FoodSeer.dto.StockAdjustmentDto;
+import FoodSeer.entity.Food;
+import FoodSeer.entity.FoodChangedEvent;
+import FoodSeer.entity.FoodEntityListener;
+import FoodSeer.repositories.FoodRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+
+/**
+ * Writes foods with JDBC batch statements, bypassing Hibernate.
+ *
+ * Food ids use IDENTITY generation, which stops Hibernate from batching
+ * inserts, so bulk imports write the foods, their allergies and their
+ * inventory links directly. Stock adjustments are relative updates
+ * (amount = amount + delta) so concurrent adjustments never overwrite each
+ * other, and stock taken by orders is taken with guarded decrements that
+ * only apply while enough is left. Because no entity callbacks run, a FoodChangedEvent is published
+ * for each written food so the in-memory catalog views stay current.
+ */
+@Component
+public class FoodBatchWriter {
+
+    /** Insert for the food rows */
+    private static final String INSERT_FOOD = "INSERT INTO foods (food_name, amount, price, allergen_mask)"
+            + " VALUES (?, ?, ?, ?)";
+
+    /** Insert for the allergy rows */
+    private static final String INSERT_ALLERGY = "INSERT INTO food_allergies (food_id, allergies)"
+            + " VALUES (?, ?)";
+
+    /** Insert for the inventory links */
+    private static final String INSERT_INVENTORY = "INSERT INTO inventory_foods (inventory_id, foods_id)"
+            + " VALUES (?, ?)";
+
+    /**
+     * Relative stock change; the guard leaves the row alone if the amount
+     * would drop below zero or overflow
+     */
+    private static final String ADD_TO_AMOUNT = "UPDATE foods SET amount = amount + ?"
+            + " WHERE id = ? AND amount + ? BETWEEN 0 AND " + Integer.MAX_VALUE;
+
+    /**
+     * Guarded stock decrement; the row is left alone unless the amount
+     * covers the quantity plus the stock that must stay behind
+     */
+    private static final String TAKE_FROM_AMOUNT = "UPDATE foods SET amount = amount - ?"
+            + " WHERE id = ? AND amount >= ?";
+
+    /** Query for the ids of the inserted foods */
+    private static final String SELECT_IDS = "SELECT id, food_name FROM foods"
+            + " WHERE food_name IN (:names)";
+
+    /** JDBC access for the batch statements */
+    private final JdbcTemplate                jdbcTemplate;
+
+    /** JDBC access for the id lookup */
+    private final NamedParameterJdbcTemplate  namedJdbcTemplate;
+
+    /** Entity manager, flushed before writing so JDBC sees pending changes */
+    private final EntityManager               entityManager;
+
+    /** Publishes the food change events */
+    private final ApplicationEventPublisher   publisher;
+
+    /** Repository used to read back adjusted foods */
+    private final FoodRepository              foodRepository;
+
+    /**
+     * Creates the writer.
+     *
+     * @param jdbcTemplate
+     *            JDBC access for the batch statements
+     * @param namedJdbcTemplate
+     *            JDBC access for the id lookup
+     * @param entityManager
+     *            entity manager of the current transaction
+     * @param publisher
+     *            publisher for food change events
+     * @param foodRepository
+     *            repository used to read back adjusted foods
+     */
+    public FoodBatchWriter ( final JdbcTemplate jdbcTemplate, final NamedParameterJdbcTemplate namedJdbcTemplate,
+            final EntityManager entityManager, final ApplicationEventPublisher publisher,
+            final FoodRepository foodRepository ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.entityManager = entityManager;
+        this.publisher = publisher;
+        this.foodRepository = foodRepository;
+    }
+
+    /**
+     * Inserts the foods and links them to the inventory in one transaction.
+     * The foods must have distinct names that are not in the database yet;
+     * if any insert fails the whole batch is rolled back.
+     *
+     * @param inventoryId
+     *            id of the inventory to add the foods to
+     * @param foods
+     *            new foods, without ids
+     * @return the number of foods inserted
+     */
+    @Transactional
+    public int insert ( final Long inventoryId, final List<Food> foods ) {
+        if ( foods.isEmpty() ) {
+            return 0;
+        }
+        entityManager.flush();
+
+        jdbcTemplate.batchUpdate( INSERT_FOOD, foods, foods.size(), ( ps, food ) -> {
+            ps.setString( 1, food.getFoodName() );
+            ps.setInt( 2, food.getAmount() );
+            ps.setInt( 3, food.getPrice() );
+            ps.setLong( 4, food.getAllergenMask() );
+        } );
+
+        final Map<String, Long> ids = new HashMap<>();
+        namedJdbcTemplate.query( SELECT_IDS,
+                new MapSqlParameterSource( "names",
+                        foods.stream().map( Food::getFoodName ).collect( Collectors.toList() ) ),
+                rs -> {
+                    ids.put( rs.getString( "food_name" ), rs.getLong( "id" ) );
+                } );
+
+        final List<Object[]> allergyRows = new ArrayList<>();
+        final List<Object[]> inventoryRows = new ArrayList<>( foods.size() );
+        for ( final Food food : foods ) {
+            final Long id = ids.get( food.getFoodName() );
+            if ( id == null ) {
+                throw new IllegalStateException( "Inserted food not found: " + food.getFoodName() );
+            }
+            food.setId( id );
+            for ( final String allergy : food.getAllergies() ) {
+                allergyRows.add( new Object[] { id, allergy } );
+            }
+            inventoryRows.add( new Object[] { inventoryId, id } );
+        }
+        jdbcTemplate.batchUpdate( INSERT_ALLERGY, allergyRows );
+        jdbcTemplate.batchUpdate( INSERT_INVENTORY, inventoryRows );
+
+        for ( final Food food : foods ) {
+            FoodEntityListener.publish( publisher, FoodChangedEvent.of( FoodChangedEvent.Type.PERSISTED, food ) );
+        }
+        return foods.size();
+    }
+
+    /**
+     * Adds each adjustment's quantity to the amount of its food, all in one
+     * JDBC batch. An adjustment is skipped if its food does not exist or
+     * if it would take the amount below zero; the others still apply.
+     * Managed copies of the adjusted foods are refreshed so the rest of the
+     * transaction sees the new amounts.
+     *
+     * @param adjustments
+     *            the adjustments, each with a food id and a quantity
+     * @return the update count of each adjustment (1 if applied, 0 if
+     *         skipped) and the current state of every adjusted food
+     */
+    @Transactional
+    public AmountChanges addToAmounts ( final List<StockAdjustmentDto> adjustments ) {
+        if ( adjustments.isEmpty() ) {
+            return new AmountChanges( new int[0], new HashMap<>() );
+        }
+        entityManager.flush();
+
+        final int[] counts = jdbcTemplate.batchUpdate( ADD_TO_AMOUNT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues ( final PreparedStatement ps, final int i ) throws SQLException {
+                final StockAdjustmentDto adjustment = adjustments.get( i );
+                ps.setLong( 1, adjustment.quantity() );
+                ps.setLong( 2, adjustment.foodId() );
+                ps.setLong( 3, adjustment.quantity() );
+            }
+
+            @Override
+            public int getBatchSize () {
+                return adjustments.size();
+            }
+        } );
+
+        final Set<Long> changed = new LinkedHashSet<>();
+        for ( int i = 0; i < counts.length; i++ ) {
+            if ( counts[i] > 0 ) {
+                changed.add( adjustments.get( i ).foodId() );
+            }
+        }
+        for ( final Long id : changed ) {
+            final Food managed = entityManager.getReference( Food.class, id );
+            if ( Hibernate.isInitialized( managed ) ) {
+                entityManager.refresh( managed );
+            }
+        }
+
+        final Map<Long, FoodRepository.FoodSummaryView> foods = new HashMap<>();
+        for ( final FoodRepository.FoodSummaryView food : foodRepository.findSummariesByIdIn(
+                adjustments.stream().map( StockAdjustmentDto::foodId ).collect( Collectors.toSet() ) ) ) {
+            foods.put( food.getId(), food );
+            if ( changed.contains( food.getId() ) ) {
+                FoodEntityListener.publish( publisher, new FoodChangedEvent( FoodChangedEvent.Type.UPDATED,
+                        food.getId(), food.getFoodName(), food.getAmount(), food.getPrice(), food.getAllergenMask() ) );
+            }
+        }
+        return new AmountChanges( counts, foods );
+    }
+
+    /**
+     * Takes stock for an order with one guarded decrement per food, all in
+     * one JDBC batch. A take only applies if the food's amount covers its
+     * quantity plus the stock it must leave behind, so concurrent orders can
+     * never oversell; the database row lock serializes only orders for the
+     * same food. Takes should be sorted by food id so concurrent orders lock
+     * their rows in the same order.
+     *
+     * Change events are only published when every take applied. If one did
+     * not, the caller is expected to roll back the transaction, undoing the
+     * takes that did apply.
+     *
+     * @param takes
+     *            the takes, in food id order
+     * @return the update count of each take (1 if applied, 0 if not) and the
+     *         current state of every food taken from
+     */
+    @Transactional
+    public AmountChanges takeFromAmounts ( final List<StockTake> takes ) {
+        if ( takes.isEmpty() ) {
+            return new AmountChanges( new int[0], new HashMap<>() );
+        }
+        entityManager.flush();
+
+        final int[] counts = jdbcTemplate.batchUpdate( TAKE_FROM_AMOUNT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues ( final PreparedStatement ps, final int i ) throws SQLException {
+                final StockTake take = takes.get( i );
+                ps.setLong( 1, take.quantity() );
+                ps.setLong( 2, take.foodId() );
+                ps.setLong( 3, take.quantity() + take.keep() );
+            }
+
+            @Override
+            public int getBatchSize () {
+                return takes.size();
+            }
+        } );
+
+        boolean allApplied = true;
+        for ( int i = 0; i < counts.length; i++ ) {
+            if ( counts[i] > 0 ) {
+                final Food managed = entityManager.getReference( Food.class, takes.get( i ).foodId() );
+                if ( Hibernate.isInitialized( managed ) ) {
+                    entityManager.refresh( managed );
+                }
+            }
+            else {
+                allApplied = false;
+            }
+        }
+
+        final Map<Long, FoodRepository.FoodSummaryView> foods = new HashMap<>();
+        for ( final FoodRepository.FoodSummaryView food : foodRepository.findSummariesByIdIn(
+                takes.stream().map( StockTake::foodId ).collect( Collectors.toSet() ) ) ) {
+            foods.put( food.getId(), food );
+            if ( allApplied ) {
+                FoodEntityListener.publish( publisher, new FoodChangedEvent( FoodChangedEvent.Type.UPDATED,
+                        food.getId(), food.getFoodName(), food.getAmount(), food.getPrice(), food.getAllergenMask() ) );
+            }
+        }
+        return new AmountChanges( counts, foods );
+    }
+
+    /**
+     * Stock to take from one food.
+     *
+     * @param foodId
+     *            id of the food
+     * @param quantity
+     *            number of units to take
+     * @param keep
+     *            number of units that must be left behind, e.g. because
+     *            reservations hold them
+     */
+    public record StockTake ( Long foodId, long quantity, long keep ) {
+    }
+
+    /**
+     * Result of addToAmounts and takeFromAmounts.
+     *
+     * @param updateCounts
+     *            rows updated by each adjustment, in order
+     * @param foods
+     *            the adjusted foods that exist, by id, as written
+     */
+    public record AmountChanges ( int[] updateCounts, Map<Long, FoodRepository.FoodSummaryView> foods ) {
+    }
+}
@@ -0,0 +1,306 @@
+package FoodSeer.service.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import FoodSeer.dto.FoodCacheStatsDto;
+import FoodSeer.dto.FoodDto;
+import FoodSeer.entity.Food;
+import FoodSeer.entity.FoodChangedEvent;
+import FoodSeer.mapper.FoodMapper;
+import FoodSeer.repositories.FoodRepository;
+
+/**
+ * Read-through cache in front of FoodRepository for single food lookups and
+ * the full food list.
+ *
+ * Single foods are kept in a size-bounded LRU map; the full list is kept as
+ * one entry. Every entry expires after a fixed time to live. Entries are
+ * invalidated through FoodChangedEvents: a change to a food drops that food
+ * and the full list, an insert drops only the full list, and a RESET drops
+ * everything. Changes made inside a transaction are invalidated again once
+ * the transaction completes, so a read that raced the commit cannot leave a
+ * stale entry behind.
+ *
+ * Callers always get copies, so cached entries cannot be changed from the
+ * outside.
+ */
+@Component
+public class FoodCatalogCache {
+
+    /** Repository used to load entries */
+    private final FoodRepository             foodRepository;
+
+    /** Largest number of single foods kept */
+    private final int                        maxEntries;
+
+    /** Time to live of an entry, in nanoseconds */
+    private final long                       ttlNanos;
+
+    /** Single foods by id, least recently used first */
+    private final LinkedHashMap<Long, Entry<FoodDto>> foods;
+
+    /** The full food list, or null if not cached */
+    private Entry<List<FoodDto>>             allFoods;
+
+    /**
+     * Bumped on every invalidation. A load only stores its result if no
+     * invalidation happened while it was reading the database.
+     */
+    private long                             generation;
+
+    /** Number of lookups answered from the cache */
+    private final LongAdder                  hits      = new LongAdder();
+
+    /** Number of lookups that went to the database */
+    private final LongAdder                  misses    = new LongAdder();
+
+    /** Number of entries dropped because the cache was full */
+    private final LongAdder                  evictions = new LongAdder();
+
+    /**
+     * Creates the cache.
+     *
+     * @param foodRepository
+     *            repository used to load entries
+     * @param maxEntries
+     *            largest number of single foods kept
+     * @param ttlSeconds
+     *            time to live of an entry, in seconds
+     */
+    public FoodCatalogCache ( final FoodRepository foodRepository,
+            @Value ( "${app.food-cache.max-entries:1000}" ) final int maxEntries,
+            @Value ( "${app.food-cache.ttl-seconds:300}" ) final long ttlSeconds ) {
+        this.foodRepository = foodRepository;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos( ttlSeconds );
+        this.foods = new LinkedHashMap<>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry ( final Map.Entry<Long, Entry<FoodDto>> eldest ) {
+                if ( size() > FoodCatalogCache.this.maxEntries ) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the food with the given id, loading it on a miss.
+     *
+     * @param id
+     *            the food id
+     * @return a copy of the food, or empty if there is no such food
+     */
+    public Optional<FoodDto> getFood ( final Long id ) {
+        final long loadGeneration;
+        synchronized ( this ) {
+            final Entry<FoodDto> entry = foods.get( id );
+            if ( entry != null && !entry.isExpired() ) {
+                hits.increment();
+                return Optional.of( copyOf( entry.value() ) );
+            }
+            if ( entry != null ) {
+                foods.remove( id );
+            }
+            misses.increment();
+            loadGeneration = generation;
+        }
+
+        final Optional<FoodDto> loaded = foodRepository.findWithAllergiesById( id ).map( FoodCatalogCache::toDto );
+        loaded.ifPresent( food -> {
+            synchronized ( this ) {
+                if ( generation == loadGeneration ) {
+                    foods.put( id, new Entry<>( food, System.nanoTime() + ttlNanos ) );
+                }
+            }
+        } );
+        return loaded.map( FoodCatalogCache::copyOf );
+    }
+
+    /**
+     * Returns all foods, loading them on a miss.
+     *
+     * @return copies of all foods, ordered by id
+     */
+    public List<FoodDto> getAllFoods () {
+        final long loadGeneration;
+        synchronized ( this ) {
+            if ( allFoods != null && !allFoods.isExpired() ) {
+                hits.increment();
+                return copyOf( allFoods.value() );
+            }
+            allFoods = null;
+            misses.increment();
+            loadGeneration = generation;
+        }
+
+        final List<FoodDto> loaded = foodRepository.findAllWithAllergies().stream().map( FoodCatalogCache::toDto )
+                .collect( Collectors.toList() );
+        synchronized ( this ) {
+            if ( generation == loadGeneration ) {
+                allFoods = new Entry<>( loaded, System.nanoTime() + ttlNanos );
+            }
+        }
+        return copyOf( loaded );
+    }
+
+    /**
+     * Keeps the cache in step with food writes.
+     *
+     * @param event
+     *            the food change
+     */
+    @EventListener
+    public void onFoodChanged ( final FoodChangedEvent event ) {
+        if ( event.type() == FoodChangedEvent.Type.RESET || event.foodId() == null ) {
+            invalidateAll();
+            return;
+        }
+        invalidate( event.type() == FoodChangedEvent.Type.PERSISTED ? null : event.foodId() );
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            pendingInvalidations().add( event.foodId() );
+        }
+    }
+
+    /**
+     * Drops every entry.
+     */
+    public synchronized void invalidateAll () {
+        generation++;
+        foods.clear();
+        allFoods = null;
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts since startup.
+     *
+     * @return the cache statistics
+     */
+    public synchronized FoodCacheStatsDto stats () {
+        return FoodCacheStatsDto.of( hits.sum(), misses.sum(), evictions.sum(),
+                foods.size() + ( allFoods == null ? 0 : 1 ) );
+    }
+
+    /**
+     * Drops the full list and, if given, one food.
+     *
+     * @param id
+     *            the food to drop, or null to drop only the full list
+     */
+    private synchronized void invalidate ( final Long id ) {
+        generation++;
+        allFoods = null;
+        if ( id != null ) {
+            foods.remove( id );
+        }
+    }
+
+    /**
+     * Returns the ids changed in the current transaction, registering a
+     * synchronization that invalidates them again once it completes.
+     *
+     * @return the changed ids of the current transaction
+     */
+    @SuppressWarnings ( "unchecked" )
+    private Set<Long> pendingInvalidations () {
+        Set<Long> pending = (Set<Long>) TransactionSynchronizationManager.getResource( this );
+        if ( pending == null ) {
+            final Set<Long> ids = new HashSet<>();
+            pending = ids;
+            TransactionSynchronizationManager.bindResource( this, ids );
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+                @Override
+                public void afterCompletion ( final int status ) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible( FoodCatalogCache.this );
+                    ids.forEach( FoodCatalogCache.this::invalidate );
+                }
+            } );
+        }
+        return pending;
+    }
+
+    /**
+     * Maps a food to a DTO that owns its allergy list.
+     *
+     * @param food
+     *            the food
+     * @return the DTO
+     */
+    private static FoodDto toDto ( final Food food ) {
+        final FoodDto dto = FoodMapper.mapToFoodDto( food );
+        dto.setAllergies( dto.getAllergies() == null ? new ArrayList<>() : new ArrayList<>( dto.getAllergies() ) );
+        return dto;
+    }
+
+    /**
+     * Copies a cached food.
+     *
+     * @param food
+     *            the cached food
+     * @return a copy the caller may change
+     */
+    private static FoodDto copyOf ( final FoodDto food ) {
+        // Set field by field: the constructor would upper-case the allergies
+        final FoodDto copy = new FoodDto();
+        copy.setId( food.getId() );
+        copy.setFoodName( food.getFoodName() );
+        copy.setAmount( food.getAmount() );
+        copy.setPrice( food.getPrice() );
+        copy.setAllergies( new ArrayList<>( food.getAllergies() ) );
+        return copy;
+    }
+
+    /**
+     * Copies a cached food list.
+     *
+     * @param foods
+     *            the cached foods
+     * @return copies the caller may change
+     */
+    private static List<FoodDto> copyOf ( final List<FoodDto> foods ) {
+        final List<FoodDto> copies = new ArrayList<>( foods.size() );
+        for ( final FoodDto food : foods ) {
+            copies.add( copyOf( food ) );
+        }
+        return copies;
+    }
+
+    /**
+     * A cached value and the time it expires.
+     *
+     * @param <T>
+     *            type of the value
+     * @param value
+     *            the cached value
+     * @param expiresAt
+     *            System.nanoTime() after which the entry is stale
+     */
+    private record Entry<T> ( T value, long expiresAt ) {
+
+        /**
+         * Returns true if the entry has passed its time to live.
+         *
+         * @return true if stale
+         */
+        boolean isExpired () {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
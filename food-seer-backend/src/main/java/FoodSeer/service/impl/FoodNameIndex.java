@@ -0,0 +1,169 @@
+package FoodSeer.service.impl;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import FoodSeer.entity.FoodChangedEvent;
+import FoodSeer.repositories.FoodRepository;
+
+/**
+ * In-memory index from case-normalized food name to food id. Lets duplicate
+ * checks and name lookups run in constant time instead of scanning the whole
+ * catalog.
+ *
+ * The index is loaded from the database on first use and then kept current
+ * through FoodChangedEvents. A RESET event (rolled back transaction) drops
+ * the index so that it is reloaded on the next lookup.
+ */
+@Component
+public class FoodNameIndex {
+
+    /** Repository used to load the index */
+    private final FoodRepository   foodRepository;
+
+    /** Normalized name to food id */
+    private final Map<String, Long> idsByName = new ConcurrentHashMap<>();
+
+    /** Food id to normalized name, used to handle renames and deletes */
+    private final Map<Long, String> namesById = new ConcurrentHashMap<>();
+
+    /** Whether the index has been loaded from the database */
+    private volatile boolean        loaded;
+
+    /**
+     * Creates the index.
+     *
+     * @param foodRepository
+     *            repository used to load the index
+     */
+    public FoodNameIndex ( final FoodRepository foodRepository ) {
+        this.foodRepository = foodRepository;
+    }
+
+    /**
+     * Returns the id of the food with the given name, ignoring case and
+     * surrounding whitespace.
+     *
+     * @param name
+     *            name to look up
+     * @return the food id, or null if no food has that name
+     */
+    public Long findId ( final String name ) {
+        if ( name == null ) {
+            return null;
+        }
+        ensureLoaded();
+        return idsByName.get( normalize( name ) );
+    }
+
+    /**
+     * Returns true if a food with the given name exists.
+     *
+     * @param name
+     *            name to look up
+     * @return true if the name is taken
+     */
+    public boolean contains ( final String name ) {
+        return findId( name ) != null;
+    }
+
+    /**
+     * Keeps the index in step with food writes.
+     *
+     * @param event
+     *            the food change
+     */
+    @EventListener
+    public void onFoodChanged ( final FoodChangedEvent event ) {
+        switch ( event.type() ) {
+            case PERSISTED:
+            case UPDATED:
+                put( event.foodId(), event.foodName() );
+                break;
+            case REMOVED:
+                remove( event.foodId() );
+                break;
+            case RESET:
+            default:
+                invalidate();
+                break;
+        }
+    }
+
+    /**
+     * Drops all entries; the index is reloaded on the next lookup.
+     */
+    public synchronized void invalidate () {
+        loaded = false;
+        idsByName.clear();
+        namesById.clear();
+    }
+
+    /**
+     * Normalizes a food name for use as an index key.
+     *
+     * @param name
+     *            the food name
+     * @return the key for the name
+     */
+    static String normalize ( final String name ) {
+        return name.trim().toUpperCase( Locale.ROOT );
+    }
+
+    /**
+     * Loads the index from the database if needed.
+     */
+    private void ensureLoaded () {
+        if ( loaded ) {
+            return;
+        }
+        synchronized ( this ) {
+            if ( !loaded ) {
+                for ( final FoodRepository.FoodNameView view : foodRepository.findAllNames() ) {
+                    put( view.getId(), view.getFoodName() );
+                }
+                loaded = true;
+            }
+        }
+    }
+
+    /**
+     * Adds or moves an entry.
+     *
+     * @param id
+     *            food id
+     * @param name
+     *            food name
+     */
+    private void put ( final Long id, final String name ) {
+        if ( id == null || name == null ) {
+            return;
+        }
+        final String key = normalize( name );
+        final String previous = namesById.put( id, key );
+        if ( previous != null && !previous.equals( key ) ) {
+            idsByName.remove( previous, id );
+        }
+        idsByName.put( key, id );
+    }
+
+    /**
+     * Removes the entry for a food.
+     *
+     * @param id
+     *            food id
+     */
+    private void remove ( final Long id ) {
+        if ( id == null ) {
+            return;
+        }
+        final String key = namesById.remove( id );
+        if ( key != null ) {
+            idsByName.remove( key, id );
+        }
+    }
+}
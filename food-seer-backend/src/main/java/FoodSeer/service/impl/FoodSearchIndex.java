@@ -0,0 +1,368 @@
+package FoodSeer.service.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import FoodSeer.dto.FoodSearchHitDto;
+import FoodSeer.entity.FoodChangedEvent;
+import FoodSeer.repositories.FoodRepository;
+
+/**
+ * In-memory search index over food names for autocomplete and
+ * typo-tolerant lookups.
+ *
+ * Two structures are kept. A sorted map holds every suffix of a name that
+ * starts at a word, so prefix matches on the whole name or on any word are
+ * a range scan. A trigram posting map (each word padded as "  word ") lets
+ * fuzzy matches be scored by trigram similarity without scanning all
+ * names. A name is as similar as its whole text or its closest word,
+ * whichever is higher, so a misspelt word still finds a long name.
+ *
+ * Results are ranked: whole-name prefix matches first, then word prefix
+ * matches, each closer when the query covers more of the name, then fuzzy
+ * matches by similarity.
+ *
+ * The index is loaded on first use and kept current through
+ * FoodChangedEvents; a RESET drops it so it is reloaded.
+ */
+@Component
+public class FoodSearchIndex {
+
+    /** Trigram similarity a fuzzy match must exceed */
+    static final double                              MIN_SIMILARITY = 0.3;
+
+    /** Shortest query that is also matched fuzzily */
+    static final int                                 MIN_FUZZY_LENGTH = 3;
+
+    /**
+     * Most prefix matches looked at per search, so a one-letter query does
+     * not walk a large part of the catalog
+     */
+    static final int                                 MAX_PREFIX_CANDIDATES = 1000;
+
+    /** Separates the name from the id in prefix keys */
+    private static final char                        KEY_SEPARATOR  = '\u0000';
+
+    /** Repository used to load the index */
+    private final FoodRepository                     foodRepository;
+
+    /** Word-start suffixes of every name (plus separator and id) to id */
+    private final NavigableMap<String, Long>         idsByPrefixKey = new ConcurrentSkipListMap<>();
+
+    /** Trigram to the ids of the names that contain it */
+    private final Map<String, Set<Long>>             idsByTrigram   = new ConcurrentHashMap<>();
+
+    /** Indexed names by food id */
+    private final Map<Long, Entry>                   entries        = new ConcurrentHashMap<>();
+
+    /** Whether the index has been loaded from the database */
+    private volatile boolean                         loaded;
+
+    /**
+     * Creates the index.
+     *
+     * @param foodRepository
+     *            repository used to load the index
+     */
+    public FoodSearchIndex ( final FoodRepository foodRepository ) {
+        this.foodRepository = foodRepository;
+    }
+
+    /**
+     * Finds the foods whose names best match the query.
+     *
+     * @param query
+     *            the text typed so far
+     * @param limit
+     *            maximum number of results
+     * @return the best matches, best first
+     */
+    public List<FoodSearchHitDto> search ( final String query, final int limit ) {
+        final String key = normalize( query );
+        if ( key.isEmpty() || limit < 1 ) {
+            return new ArrayList<>();
+        }
+        ensureLoaded();
+
+        final Map<Long, FoodSearchHitDto> hits = new HashMap<>();
+
+        // Prefix matches on the whole name or on any word
+        int scanned = 0;
+        for ( final Map.Entry<String, Long> match : idsByPrefixKey
+                .subMap( key, true, key + Character.MAX_VALUE, false ).entrySet() ) {
+            if ( ++scanned > MAX_PREFIX_CANDIDATES ) {
+                break;
+            }
+            final Entry entry = entries.get( match.getValue() );
+            if ( entry == null ) {
+                continue;
+            }
+            final boolean wholeName = match.getKey().equals( entry.prefixKeys().get( 0 ) );
+            final double closeness = (double) key.length() / entry.key().length();
+            hits.merge( match.getValue(),
+                    new FoodSearchHitDto( match.getValue(), entry.name(), ( wholeName ? 2 : 1 ) + closeness ),
+                    ( a, b ) -> a.score() >= b.score() ? a : b );
+        }
+
+        if ( key.length() < MIN_FUZZY_LENGTH ) {
+            return rank( hits, limit );
+        }
+
+        // Fuzzy matches by trigram similarity
+        final Set<String> queryTrigrams = trigrams( key );
+        final Map<Long, Integer> shared = new HashMap<>();
+        for ( final String trigram : queryTrigrams ) {
+            final Set<Long> ids = idsByTrigram.get( trigram );
+            if ( ids != null ) {
+                for ( final Long id : ids ) {
+                    shared.merge( id, 1, Integer::sum );
+                }
+            }
+        }
+        // Similarity is at most shared / query trigrams, so fewer shared
+        // trigrams than this can never reach the threshold
+        final int minShared = (int) Math.ceil( MIN_SIMILARITY * queryTrigrams.size() );
+        for ( final Map.Entry<Long, Integer> candidate : shared.entrySet() ) {
+            final Entry entry = entries.get( candidate.getKey() );
+            if ( entry == null || candidate.getValue() < minShared || hits.containsKey( candidate.getKey() ) ) {
+                continue;
+            }
+            double similarity = similarity( queryTrigrams, entry.trigrams(), candidate.getValue() );
+            for ( final Set<String> word : entry.wordTrigrams() ) {
+                similarity = Math.max( similarity, similarity( queryTrigrams, word, -1 ) );
+            }
+            if ( similarity > MIN_SIMILARITY ) {
+                hits.put( candidate.getKey(), new FoodSearchHitDto( candidate.getKey(), entry.name(), similarity ) );
+            }
+        }
+
+        return rank( hits, limit );
+    }
+
+    /**
+     * Keeps the index in step with food writes.
+     *
+     * @param event
+     *            the food change
+     */
+    @EventListener
+    public synchronized void onFoodChanged ( final FoodChangedEvent event ) {
+        switch ( event.type() ) {
+            case PERSISTED:
+            case UPDATED:
+                final Entry current = event.foodId() == null ? null : entries.get( event.foodId() );
+                if ( current != null && current.name().equals( event.foodName() ) ) {
+                    break; // stock or price change only
+                }
+                remove( event.foodId() );
+                add( event.foodId(), event.foodName() );
+                break;
+            case REMOVED:
+                remove( event.foodId() );
+                break;
+            case RESET:
+            default:
+                invalidate();
+                break;
+        }
+    }
+
+    /**
+     * Drops all entries; the index is reloaded on the next search.
+     */
+    public synchronized void invalidate () {
+        loaded = false;
+        idsByPrefixKey.clear();
+        idsByTrigram.clear();
+        entries.clear();
+    }
+
+    /**
+     * Normalizes text for searching: upper case, with every run of
+     * characters other than letters and digits turned into one space.
+     *
+     * @param text
+     *            the text
+     * @return the normalized text
+     */
+    static String normalize ( final String text ) {
+        if ( text == null ) {
+            return "";
+        }
+        return text.toUpperCase( Locale.ROOT ).replaceAll( "[^\\p{L}\\p{N}]+", " " ).trim();
+    }
+
+    /**
+     * Returns the trigrams of normalized text, padding each word with two
+     * spaces in front and one behind.
+     *
+     * @param key
+     *            normalized text
+     * @return the distinct trigrams
+     */
+    static Set<String> trigrams ( final String key ) {
+        final Set<String> trigrams = new LinkedHashSet<>();
+        for ( final String word : key.split( " " ) ) {
+            if ( word.isEmpty() ) {
+                continue;
+            }
+            final String padded = "  " + word + " ";
+            for ( int i = 0; i + 3 <= padded.length(); i++ ) {
+                trigrams.add( padded.substring( i, i + 3 ) );
+            }
+        }
+        return trigrams;
+    }
+
+    /**
+     * Returns the Jaccard similarity of two trigram sets.
+     *
+     * @param query
+     *            trigrams of the query
+     * @param name
+     *            trigrams of the name or word
+     * @param common
+     *            number of trigrams in both sets, or -1 to count them
+     * @return the similarity, between 0 and 1
+     */
+    private static double similarity ( final Set<String> query, final Set<String> name, final int common ) {
+        int shared = common;
+        if ( shared < 0 ) {
+            shared = 0;
+            for ( final String trigram : query ) {
+                if ( name.contains( trigram ) ) {
+                    shared++;
+                }
+            }
+        }
+        return (double) shared / ( query.size() + name.size() - shared );
+    }
+
+    /**
+     * Orders hits best first.
+     *
+     * @param hits
+     *            the hits by food id
+     * @param limit
+     *            maximum number of hits to return
+     * @return the best hits
+     */
+    private static List<FoodSearchHitDto> rank ( final Map<Long, FoodSearchHitDto> hits, final int limit ) {
+        return hits.values().stream()
+                .sorted( Comparator.comparingDouble( FoodSearchHitDto::score ).reversed()
+                        .thenComparing( FoodSearchHitDto::foodName ) )
+                .limit( limit ).collect( Collectors.toList() );
+    }
+
+    /**
+     * Loads the index from the database if needed.
+     */
+    private void ensureLoaded () {
+        if ( loaded ) {
+            return;
+        }
+        synchronized ( this ) {
+            if ( !loaded ) {
+                for ( final FoodRepository.FoodNameView view : foodRepository.findAllNames() ) {
+                    remove( view.getId() );
+                    add( view.getId(), view.getFoodName() );
+                }
+                loaded = true;
+            }
+        }
+    }
+
+    /**
+     * Indexes a name.
+     *
+     * @param id
+     *            food id
+     * @param name
+     *            food name
+     */
+    private void add ( final Long id, final String name ) {
+        if ( id == null || name == null ) {
+            return;
+        }
+        final String key = normalize( name );
+        final List<String> prefixKeys = new ArrayList<>();
+        for ( int i = 0; i < key.length(); i++ ) {
+            if ( i == 0 || key.charAt( i - 1 ) == ' ' ) {
+                prefixKeys.add( key.substring( i ) + KEY_SEPARATOR + id );
+            }
+        }
+        final List<Set<String>> wordTrigrams = new ArrayList<>();
+        if ( key.indexOf( ' ' ) >= 0 ) {
+            for ( final String word : key.split( " " ) ) {
+                wordTrigrams.add( trigrams( word ) );
+            }
+        }
+        final Entry entry = new Entry( name, key, prefixKeys, trigrams( key ), wordTrigrams );
+        entries.put( id, entry );
+        for ( final String prefixKey : prefixKeys ) {
+            idsByPrefixKey.put( prefixKey, id );
+        }
+        for ( final String trigram : entry.trigrams() ) {
+            idsByTrigram.computeIfAbsent( trigram, t -> ConcurrentHashMap.newKeySet() ).add( id );
+        }
+    }
+
+    /**
+     * Removes a food from the index, if present.
+     *
+     * @param id
+     *            food id
+     */
+    private void remove ( final Long id ) {
+        if ( id == null ) {
+            return;
+        }
+        final Entry entry = entries.remove( id );
+        if ( entry == null ) {
+            return;
+        }
+        for ( final String prefixKey : entry.prefixKeys() ) {
+            idsByPrefixKey.remove( prefixKey );
+        }
+        for ( final String trigram : entry.trigrams() ) {
+            final Set<Long> ids = idsByTrigram.get( trigram );
+            if ( ids != null ) {
+                ids.remove( id );
+                if ( ids.isEmpty() ) {
+                    idsByTrigram.remove( trigram, ids );
+                }
+            }
+        }
+    }
+
+    /**
+     * An indexed food name.
+     *
+     * @param name
+     *            the name as stored
+     * @param key
+     *            the normalized name
+     * @param prefixKeys
+     *            the keys of this food in the prefix map
+     * @param trigrams
+     *            the trigrams of the normalized name
+     * @param wordTrigrams
+     *            the trigrams of each word, empty for a one-word name
+     */
+    private record Entry ( String name, String key, List<String> prefixKeys, Set<String> trigrams,
+            List<Set<String>> wordTrigrams ) {
+    }
+}
@@ -1,25 +1,51 @@
 package FoodSeer.service.impl;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import FoodSeer.dto.FoodBulkUpdateResultDto;
+import FoodSeer.dto.FoodCacheStatsDto;
 import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.FoodImportResultDto;
+import FoodSeer.dto.FoodPageDto;
+import FoodSeer.dto.FoodSearchHitDto;
+import FoodSeer.dto.FoodUpdateDto;
 import FoodSeer.dto.InventoryDto;
+import FoodSeer.entity.Allergen;
 import FoodSeer.entity.Food;
-import FoodSeer.entity.Inventory;
-import FoodSeer.entity.Order;
 import FoodSeer.exception.ResourceNotFoundException;
 import FoodSeer.mapper.FoodMapper;
-import FoodSeer.mapper.InventoryMapper;
 import FoodSeer.repositories.FoodRepository;
 import FoodSeer.repositories.InventoryRepository;
 import FoodSeer.repositories.OrderRepository;
+import FoodSeer.repositories.StockThresholdRepository;
 import FoodSeer.service.FoodService;
 import FoodSeer.service.InventoryService;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 
 /**
@@ -28,6 +54,18 @@ import jakarta.transaction.Transactional;
 @Service
 public class FoodServiceImpl implements FoodService {
 
+    /** Largest page that getFoodsPage will return */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /** Number of imported foods inserted per JDBC batch */
+    public static final int IMPORT_BATCH_SIZE = 500;
+
+    /** Largest number of results searchFoods will return */
+    public static final int MAX_SEARCH_RESULTS = 50;
+
+    /** Id of the single inventory row */
+    private static final Long INVENTORY_ID = 1L;
+
     /** Connection to the repository to work with the DAO + database */
     @Autowired
     private FoodRepository foodRepository;
@@ -44,9 +82,42 @@ public class FoodServiceImpl implements FoodService {
     @Autowired
     private OrderRepository orderRepository;
 
+    /** Reorder thresholds, removed with their food */
+    @Autowired
+    private StockThresholdRepository stockThresholdRepository;
+
+    /** Name to id index used for duplicate checks and name lookups */
+    @Autowired
+    private FoodNameIndex        foodNameIndex;
+
+    /** Read-through cache for single foods and the full food list */
+    @Autowired
+    private FoodCatalogCache     foodCatalogCache;
+
+    /** Version of the catalog, used for ETags */
+    @Autowired
+    private CatalogVersion       catalogVersion;
+
+    /** Batch inserter used by bulk imports */
+    @Autowired
+    private FoodBatchWriter      foodBatchWriter;
+
+    /** Name search index */
+    @Autowired
+    private FoodSearchIndex      foodSearchIndex;
+
+    /** Reads JSON lines during bulk imports */
+    @Autowired
+    private ObjectMapper         objectMapper;
+
+    /** Reference to EntityManager */
+    @Autowired
+    private EntityManager        entityManager;
+
     /**
      * Creates an food with the given information. A created food
-     * needs to add to a new/existing inventory
+     * needs to add to a new/existing inventory; it is linked with a single
+     * insert rather than by loading and re-saving the inventory.
      *
      * @param foodDto
      *            food to create
@@ -68,47 +139,16 @@ public class FoodServiceImpl implements FoodService {
         final Food food = FoodMapper.mapToFood( foodDto );
         final Food savedFood = foodRepository.saveAndFlush( food );
 
-        // initialize inventory to see if it exists already or not
-        final List<Inventory> inventoryList = inventoryRepository.findAll();
-
-        if ( inventoryList.isEmpty() ) { // if inventory doesn't exist yet,
-                                         // create it
-            // initialize new list of foods to construct a new inventory
-            // Dto
-            final List<Food> foods = new ArrayList<>();
-            foods.add( savedFood );
-            final InventoryDto inventoryDto = new InventoryDto( 1L, foods );
-
-            final InventoryDto createdInventoryDto = inventoryService.createInventory( inventoryDto );
-
-            // SAVE the inventory to the repository
-            final Inventory createdInventory = InventoryMapper.mapToInventory( createdInventoryDto );
-            inventoryRepository.saveAndFlush( createdInventory );
-            InventoryMapper.mapToInventoryDto( createdInventory );
-
-        }
-        else { // if the inventory does already exist... then get the existing
-               // one and call updateInventory with it
-
-            final Inventory inventory = inventoryRepository.getReferenceById( 1L );
-
-            // add the savedFood to the existing inventory
-            inventory.getFoods().add( savedFood );
-            final InventoryDto inventoryDto = InventoryMapper.mapToInventoryDto( inventory );
-            final InventoryDto createdInventoryDto = inventoryService.updateInventory( inventoryDto );
-
-            // SAVE the inventory to the repository
-            final Inventory createdInventory = InventoryMapper.mapToInventory( createdInventoryDto );
-            inventoryRepository.saveAndFlush( createdInventory );
-            InventoryMapper.mapToInventoryDto( createdInventory );
-        }
+        // add the food to the inventory, creating the inventory if needed
+        ensureInventory();
+        inventoryRepository.addFood( INVENTORY_ID, savedFood.getId() );
 
         return FoodMapper.mapToFoodDto( savedFood );
 
     }
 
     /**
-     * Returns the food with the given id.
+     * Returns the food with the given id. Served from the catalog cache.
      *
      * @param foodId
      *            food's id
@@ -118,20 +158,378 @@ public class FoodServiceImpl implements FoodService {
      */
     @Override
     public FoodDto getFoodById ( final Long foodId ) {
-        final Food food = foodRepository.findById( foodId ).orElseThrow(
+        return foodCatalogCache.getFood( foodId ).orElseThrow(
                 () -> new ResourceNotFoundException( "Food does not exist with id " + foodId ) );
-        return FoodMapper.mapToFoodDto( food );
     }
 
     /**
-     * Returns a list of all foods
+     * Returns a list of all foods. Served from the catalog cache.
      *
      * @return list of all foods
      */
     @Override
     public List<FoodDto> getAllFoods () {
-        final List<Food> foods = foodRepository.findAll();
-        return foods.stream().map( FoodMapper::mapToFoodDto ).collect( Collectors.toList() );
+        return foodCatalogCache.getAllFoods();
+    }
+
+    /**
+     * Returns hit and miss counts for the catalog cache.
+     *
+     * @return the cache statistics
+     */
+    @Override
+    public FoodCacheStatsDto getCacheStats () {
+        return foodCatalogCache.stats();
+    }
+
+    /**
+     * Returns a strong ETag for the current version of the food catalog.
+     *
+     * @return the quoted ETag
+     */
+    @Override
+    public String getCatalogETag () {
+        return catalogVersion.eTag();
+    }
+
+    /**
+     * Finds foods by name using the in-memory search index.
+     *
+     * @param query
+     *            the text typed so far
+     * @param limit
+     *            maximum number of results, capped at MAX_SEARCH_RESULTS
+     * @return the best matches, best first
+     * @throws IllegalArgumentException
+     *             if the limit is not positive
+     */
+    @Override
+    public List<FoodSearchHitDto> searchFoods ( final String query, final int limit ) {
+        if ( limit < 1 ) {
+            throw new IllegalArgumentException( "The search limit must be a positive integer." );
+        }
+        return foodSearchIndex.search( query, Math.min( limit, MAX_SEARCH_RESULTS ) );
+    }
+
+    /**
+     * Returns one page of foods after the given cursor. Filtering and the
+     * page limit are applied by the database.
+     *
+     * @param after
+     *            id of the last food already seen, or null for the first page
+     * @param limit
+     *            maximum number of foods to return, capped at MAX_PAGE_SIZE
+     * @param minPrice
+     *            minimum price, or null
+     * @param maxPrice
+     *            maximum price, or null
+     * @param name
+     *            name prefix, or null
+     * @param excludeAllergens
+     *            dictionary allergens to exclude, or null
+     * @return the page of foods
+     * @throws IllegalArgumentException
+     *             if the limit is not positive or an excluded allergen is
+     *             not in the Allergen dictionary
+     */
+    @Override
+    public FoodPageDto getFoodsPage ( final Long after, final int limit, final Integer minPrice,
+            final Integer maxPrice, final String name, final List<String> excludeAllergens ) {
+        if ( limit < 1 ) {
+            throw new IllegalArgumentException( "The page limit must be a positive integer." );
+        }
+        final List<String> unknown = Allergen.unknownNames( excludeAllergens );
+        if ( !unknown.isEmpty() ) {
+            throw new IllegalArgumentException( "Unknown allergens: " + String.join( ", ", unknown ) );
+        }
+        final int pageSize = Math.min( limit, MAX_PAGE_SIZE );
+        final String namePrefix = name == null || name.isBlank() ? null : toLikePrefix( name );
+
+        final List<Food> foods = foodRepository.findPageAfter( after == null ? 0L : after, minPrice, maxPrice,
+                namePrefix, Allergen.maskOf( excludeAllergens ), PageRequest.of( 0, pageSize ) );
+
+        final List<FoodDto> page = foods.stream().map( FoodMapper::mapToFoodDto ).collect( Collectors.toList() );
+        final Long nextCursor = foods.size() < pageSize ? null : foods.get( foods.size() - 1 ).getId();
+        return new FoodPageDto( page, nextCursor );
+    }
+
+    /**
+     * Returns all foods that contain none of the given allergies. Dictionary
+     * allergens are filtered in the database with the allergen mask; any
+     * restriction outside the dictionary is then checked against the
+     * allergy names.
+     *
+     * @param restrictions
+     *            allergies to avoid
+     * @return foods that are safe for the restrictions
+     */
+    @Override
+    public List<FoodDto> getSafeFoods ( final List<String> restrictions ) {
+        final List<String> unknown = Allergen.unknownNames( restrictions );
+        return foodRepository.findSafeFor( Allergen.maskOf( restrictions ) ).stream()
+                .filter( food -> unknown.isEmpty() || food.getAllergies().stream()
+                        .noneMatch( allergy -> allergy != null
+                                && unknown.contains( allergy.trim().toUpperCase( Locale.ROOT ) ) ) )
+                .map( FoodMapper::mapToFoodDto ).collect( Collectors.toList() );
+    }
+
+    /**
+     * Streams all foods from the database, detaching each one once the
+     * action has seen it so the persistence context stays small.
+     *
+     * @param action
+     *            called once per food
+     */
+    @Override
+    @Transactional
+    public void forEachFood ( final Consumer<FoodDto> action ) {
+        try ( Stream<Food> foods = foodRepository.streamAllOrderById() ) {
+            foods.forEach( food -> {
+                action.accept( FoodMapper.mapToFoodDto( food ) );
+                entityManager.detach( food );
+            } );
+        }
+    }
+
+    /**
+     * Adds foods read from CSV or JSON lines, reading one row at a time and
+     * inserting in batches of IMPORT_BATCH_SIZE. Each batch commits on its
+     * own; if a batch fails, its rows are retried one at a time so only the
+     * offending rows are rejected.
+     *
+     * @param input
+     *            the rows to import
+     * @param format
+     *            "csv" or "jsonl"
+     * @return how many foods were added and which rows were rejected
+     * @throws IllegalArgumentException
+     *             if the format is not supported
+     */
+    @Override
+    public FoodImportResultDto importFoods ( final InputStream input, final String format ) {
+        final boolean csv = "csv".equalsIgnoreCase( format );
+        if ( !csv && !"jsonl".equalsIgnoreCase( format ) ) {
+            throw new IllegalArgumentException( "Unsupported import format: " + format );
+        }
+        ensureInventory();
+
+        final ImportProgress progress = new ImportProgress();
+        final Set<String> seenNames = new HashSet<>();
+        final List<Food> batch = new ArrayList<>( IMPORT_BATCH_SIZE );
+        final List<Long> batchLines = new ArrayList<>( IMPORT_BATCH_SIZE );
+
+        try ( BufferedReader reader = new BufferedReader(
+                new InputStreamReader( input, StandardCharsets.UTF_8 ) ) ) {
+            long lineNumber = 0;
+            boolean first = true;
+            String line;
+            while ( ( line = reader.readLine() ) != null ) {
+                lineNumber++;
+                if ( line.isBlank() ) {
+                    continue;
+                }
+                if ( first && csv && isCsvHeader( line ) ) {
+                    first = false;
+                    continue;
+                }
+                first = false;
+
+                final FoodDto foodDto;
+                try {
+                    foodDto = csv ? parseCsvRow( line ) : objectMapper.readValue( line, FoodDto.class );
+                }
+                catch ( final IllegalArgumentException | JsonProcessingException e ) {
+                    progress.fail( lineNumber, null, "The row could not be read." );
+                    continue;
+                }
+                if ( foodDto.getAllergies() == null ) {
+                    foodDto.setAllergies( new ArrayList<>() );
+                }
+                if ( !isValidFood( foodDto ) ) {
+                    progress.fail( lineNumber, foodDto.getFoodName(), "The provided food information is invalid." );
+                    continue;
+                }
+                if ( !seenNames.add( FoodNameIndex.normalize( foodDto.getFoodName() ) )
+                        || isDuplicateName( foodDto.getFoodName() ) ) {
+                    progress.fail( lineNumber, foodDto.getFoodName(),
+                            "The name of the new food already exists in the system." );
+                    continue;
+                }
+
+                batch.add( FoodMapper.mapToFood( foodDto ) );
+                batchLines.add( lineNumber );
+                if ( batch.size() == IMPORT_BATCH_SIZE ) {
+                    writeImportBatch( batch, batchLines, progress );
+                }
+            }
+            writeImportBatch( batch, batchLines, progress );
+        }
+        catch ( final IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+        return progress.toResult();
+    }
+
+    /**
+     * Inserts one batch of imported foods, falling back to one insert per
+     * food if the batch fails, then clears the batch.
+     *
+     * @param batch
+     *            foods to insert
+     * @param lines
+     *            input line of each food
+     * @param progress
+     *            import progress to update
+     */
+    private void writeImportBatch ( final List<Food> batch, final List<Long> lines, final ImportProgress progress ) {
+        try {
+            progress.imported += foodBatchWriter.insert( INVENTORY_ID, batch );
+        }
+        catch ( final DataAccessException | IllegalStateException batchFailure ) {
+            for ( int i = 0; i < batch.size(); i++ ) {
+                final Food food = batch.get( i );
+                food.setId( null );
+                try {
+                    progress.imported += foodBatchWriter.insert( INVENTORY_ID, List.of( food ) );
+                }
+                catch ( final DataAccessException | IllegalStateException e ) {
+                    progress.fail( lines.get( i ), food.getFoodName(), "The food could not be saved." );
+                }
+            }
+        }
+        batch.clear();
+        lines.clear();
+    }
+
+    /**
+     * Returns true if a CSV line is a header row.
+     *
+     * @param line
+     *            the first line of the input
+     * @return true if the first column is a name heading
+     */
+    private static boolean isCsvHeader ( final String line ) {
+        final String firstColumn = splitCsvLine( line ).get( 0 ).trim();
+        return "foodName".equalsIgnoreCase( firstColumn ) || "name".equalsIgnoreCase( firstColumn );
+    }
+
+    /**
+     * Reads a food from a CSV row: name, amount, price and optional
+     * allergies separated by ';'.
+     *
+     * @param line
+     *            the CSV row
+     * @return the food
+     * @throws IllegalArgumentException
+     *             if the row has too few columns or a number is malformed
+     */
+    private static FoodDto parseCsvRow ( final String line ) {
+        final List<String> columns = splitCsvLine( line );
+        if ( columns.size() < 3 ) {
+            throw new IllegalArgumentException( "Expected name, amount and price" );
+        }
+        final List<String> allergies = new ArrayList<>();
+        if ( columns.size() > 3 && !columns.get( 3 ).isBlank() ) {
+            Arrays.stream( columns.get( 3 ).split( ";" ) ).map( String::trim ).forEach( allergies::add );
+        }
+        return new FoodDto( columns.get( 0 ).trim(), Integer.parseInt( columns.get( 1 ).trim() ),
+                Integer.parseInt( columns.get( 2 ).trim() ), allergies );
+    }
+
+    /**
+     * Splits one CSV line into columns. Columns may be quoted, with "" for a
+     * quote inside a quoted column. Quoted line breaks are not supported.
+     *
+     * @param line
+     *            the CSV line
+     * @return the columns
+     */
+    static List<String> splitCsvLine ( final String line ) {
+        final List<String> columns = new ArrayList<>();
+        final StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for ( int i = 0; i < line.length(); i++ ) {
+            final char c = line.charAt( i );
+            if ( quoted ) {
+                if ( c == '"' && i + 1 < line.length() && line.charAt( i + 1 ) == '"' ) {
+                    column.append( '"' );
+                    i++;
+                }
+                else if ( c == '"' ) {
+                    quoted = false;
+                }
+                else {
+                    column.append( c );
+                }
+            }
+            else if ( c == '"' ) {
+                quoted = true;
+            }
+            else if ( c == ',' ) {
+                columns.add( column.toString() );
+                column.setLength( 0 );
+            }
+            else {
+                column.append( c );
+            }
+        }
+        columns.add( column.toString() );
+        return columns;
+    }
+
+    /**
+     * Running totals of a bulk import.
+     */
+    private static final class ImportProgress {
+
+        /** Number of foods added */
+        private int                                   imported;
+
+        /** Number of rows rejected */
+        private int                                   failed;
+
+        /** Rejected rows, up to MAX_REPORTED_ERRORS */
+        private final List<FoodImportResultDto.RowError> errors = new ArrayList<>();
+
+        /**
+         * Records a rejected row.
+         *
+         * @param line
+         *            line number of the row
+         * @param foodName
+         *            name on the row, or null
+         * @param message
+         *            why the row was rejected
+         */
+        void fail ( final long line, final String foodName, final String message ) {
+            failed++;
+            if ( errors.size() < FoodImportResultDto.MAX_REPORTED_ERRORS ) {
+                errors.add( new FoodImportResultDto.RowError( line, foodName, message ) );
+            }
+        }
+
+        /**
+         * Returns the import summary.
+         *
+         * @return the summary
+         */
+        FoodImportResultDto toResult () {
+            return new FoodImportResultDto( imported, failed, errors );
+        }
+    }
+
+    /**
+     * Turns a user supplied name into an upper-case LIKE prefix pattern,
+     * escaping LIKE wildcards with '!'.
+     *
+     * @param name
+     *            the name prefix
+     * @return the LIKE pattern
+     */
+    private static String toLikePrefix ( final String name ) {
+        final String escaped = FoodNameIndex.normalize( name ).replace( "!", "!!" ).replace( "%", "!%" )
+                .replace( "_", "!_" );
+        return escaped + "%";
     }
 
     /**
@@ -149,78 +547,75 @@ public class FoodServiceImpl implements FoodService {
     public void deleteFood ( final Long foodId ) {
         final Food food = foodRepository.findById( foodId ).orElseThrow(
                 () -> new ResourceNotFoundException( "Food does not exist with id " + foodId ) );
-        
-        // Find all orders containing this food
-        final List<Order> ordersWithFood = orderRepository.findOrdersContainingFood(food);
-        
-        // Check if any unfulfilled orders contain this food
-        final List<Order> unfulfilledOrders = ordersWithFood.stream()
-                .filter(order -> !order.getIsFulfilled())
-                .collect(Collectors.toList());
-        
-        if (!unfulfilledOrders.isEmpty()) {
-            throw new IllegalStateException("Cannot delete food that is part of unfulfilled orders. " +
-                    "There are " + unfulfilledOrders.size() + " unfulfilled order(s) containing this food.");
-        }
-        
-        // Remove the food from all fulfilled orders before deletion
-        for (final Order order : ordersWithFood) {
-            // Remove the food from the order's foods list
-            order.getFoods().removeIf(f -> f.getId().equals(food.getId()));
-            // Save and flush to update the join table immediately
-            orderRepository.saveAndFlush(order);
-        }
-        
-        // Flush all pending changes to ensure join table is updated
-        orderRepository.flush();
-        
-        // Now safe to delete the food
+
+        // Check if any unfulfilled orders contain this food, without loading
+        // the orders
+        final long unfulfilledOrders = orderRepository.countUnfulfilledOrdersContainingFood( foodId );
+        if ( unfulfilledOrders > 0 ) {
+            throw new IllegalStateException( "Cannot delete food that is part of unfulfilled orders. " + "There are "
+                    + unfulfilledOrders + " unfulfilled order(s) containing this food." );
+        }
+
+        // Remove the food from all fulfilled orders and from the inventory
+        // with one bulk delete on each join table, and drop its threshold
+        orderRepository.removeFoodFromOrders( foodId );
+        inventoryRepository.removeFood( foodId );
+        stockThresholdRepository.deleteById( foodId );
+
+        // Now safe to delete the food. Flushed so its name can be reused in
+        // the same transaction without hitting the unique name index.
         foodRepository.delete( food );
+        foodRepository.flush();
     }
 
     /**
      * Deletes all foods
      */
     @Override
+    @Transactional
     public void deleteAllFoods () {
+        inventoryRepository.removeAllFoods();
+        stockThresholdRepository.deleteAllInBatch();
         foodRepository.deleteAll();
+        foodRepository.flush();
+    }
+
+    /**
+     * Creates the empty inventory row if it does not exist yet.
+     */
+    private void ensureInventory () {
+        if ( !inventoryRepository.existsById( INVENTORY_ID ) ) {
+            inventoryService.createInventory( new InventoryDto( INVENTORY_ID, new ArrayList<>() ) );
+        }
     }
 
     /**
-     * Returns true if the recipe already exists in the database.
+     * Returns true if a food with the given name already exists. Names are
+     * compared ignoring case, using the in-memory name index.
      *
      * @param name
-     *            recipe's name to check
+     *            food's name to check
      * @return true if already in the database
      */
     @Override
     public boolean isDuplicateName ( final String name ) {
-        final List<FoodDto> list = getAllFoods();
-        for ( int i = 0; i < list.size(); ++i ) {
-            if ( name.equals( list.get( i ).getFoodName() ) ) {
-                return true;
-            }
-        }
-        return false;
+        return foodNameIndex.contains( name );
     }
 
     /**
-     * Returns true if the recipe already exists in the database.
+     * Returns the food with the given name if it already exists.
      *
      * @param name
-     *            recipe's name to check
-     * @return true if already in the database
+     *            food's name to check
+     * @return the existing food, or null if there is none
      */
     @Override
     public FoodDto getDuplicateName ( final String name ) {
-        final List<FoodDto> list = getAllFoods();
-        for ( int i = 0; i < list.size(); ++i ) {
-            if ( name.equals( list.get( i ).getFoodName() ) ) {
-                return list.get( i );
-            }
+        final Long foodId = foodNameIndex.findId( name );
+        if ( foodId == null ) {
+            return null;
         }
-        return null;
-
+        return foodRepository.findById( foodId ).map( FoodMapper::mapToFoodDto ).orElse( null );
     }
 
     /**
@@ -280,25 +675,133 @@ public class FoodServiceImpl implements FoodService {
         if (price < 0) {
             throw new IllegalArgumentException("The price of the food must be a non-negative integer.");
         }
-        // if the food name exists currently
-        if ( isDuplicateName( name ) ) {
+        final Long foodId = foodNameIndex.findId( name );
+        final Food food = foodId == null ? null : foodRepository.findById( foodId ).orElse( null );
+        if ( food == null ) {
+            throw new ResourceNotFoundException( "Food does not exist with name " + name );
+        }
 
-            final FoodDto foodDto = getDuplicateName( name );
-            // update with the new entries
-            foodDto.setAmount( amount );
-            foodDto.setPrice(price);
-            foodDto.setAllergies(allergies);
+        // update with the new entries
+        food.setAmount( amount );
+        food.setPrice( price );
+        food.setAllergies( allergies == null ? new ArrayList<>() : new ArrayList<>( allergies ) );
 
-            final Food food = FoodMapper.mapToFood( foodDto );
-            final Food savedFood = foodRepository.saveAndFlush( food );
+        final Food savedFood = foodRepository.saveAndFlush( food );
+        return FoodMapper.mapToFoodDto( savedFood );
+    }
 
-            return FoodMapper.mapToFoodDto( savedFood );
+    /**
+     * Applies many food changes in one transaction. Targets are resolved
+     * through the name index and loaded with one IN query per
+     * MAX_PAGE_SIZE ids; the changed rows are written when the transaction
+     * flushes, which Hibernate sends as JDBC update batches.
+     *
+     * @param updates
+     *            the changes, each picking a food by id or name
+     * @return the outcome of each change
+     */
+    @Override
+    @Transactional
+    public FoodBulkUpdateResultDto updateFoods ( final List<FoodUpdateDto> updates ) {
+        final FoodBulkUpdateResultDto.ItemResult[] results = new FoodBulkUpdateResultDto.ItemResult[updates.size()];
+        final Map<Long, Integer> indexById = new LinkedHashMap<>();
+
+        for ( int i = 0; i < updates.size(); i++ ) {
+            final FoodUpdateDto update = updates.get( i );
+            final String error = validateUpdate( update );
+            if ( error != null ) {
+                results[i] = rejected( i, update == null ? null : update.id(),
+                        update == null ? null : update.foodName(), error );
+                continue;
+            }
+            final Long foodId = update.id() != null ? update.id() : foodNameIndex.findId( update.foodName() );
+            if ( foodId == null ) {
+                results[i] = rejected( i, null, update.foodName(),
+                        "Food does not exist with name " + update.foodName() );
+            }
+            else if ( indexById.putIfAbsent( foodId, i ) != null ) {
+                results[i] = rejected( i, foodId, update.foodName(),
+                        "The food appears more than once in the update." );
+            }
+        }
 
+        final List<Long> ids = new ArrayList<>( indexById.keySet() );
+        final Map<Long, Food> foods = new HashMap<>();
+        for ( int from = 0; from < ids.size(); from += MAX_PAGE_SIZE ) {
+            for ( final Food food : foodRepository
+                    .findAllById( ids.subList( from, Math.min( from + MAX_PAGE_SIZE, ids.size() ) ) ) ) {
+                foods.put( food.getId(), food );
+            }
         }
-        else {
-            throw new ResourceNotFoundException( "Food does not exist with name " + name );
+
+        int updated = 0;
+        for ( final Map.Entry<Long, Integer> entry : indexById.entrySet() ) {
+            final int i = entry.getValue();
+            final FoodUpdateDto update = updates.get( i );
+            final Food food = foods.get( entry.getKey() );
+            if ( food == null ) {
+                results[i] = rejected( i, entry.getKey(), update.foodName(),
+                        "Food does not exist with id " + entry.getKey() );
+                continue;
+            }
+            if ( update.amount() != null ) {
+                food.setAmount( update.amount() );
+            }
+            if ( update.price() != null ) {
+                food.setPrice( update.price() );
+            }
+            if ( update.allergies() != null ) {
+                food.setAllergies( new ArrayList<>( update.allergies() ) );
+            }
+            results[i] = new FoodBulkUpdateResultDto.ItemResult( i, food.getId(), food.getFoodName(), true, null );
+            updated++;
+        }
+        foodRepository.flush();
+
+        return new FoodBulkUpdateResultDto( updated, updates.size() - updated, Arrays.asList( results ) );
+    }
+
+    /**
+     * Checks one bulk update change without looking up the food.
+     *
+     * @param update
+     *            the change
+     * @return why the change is invalid, or null if it is valid
+     */
+    private static String validateUpdate ( final FoodUpdateDto update ) {
+        if ( update == null || update.id() == null
+                && ( update.foodName() == null || update.foodName().trim().isEmpty() ) ) {
+            return "A food id or name is required.";
+        }
+        if ( update.amount() != null && update.amount() < 0 ) {
+            return "The units of the food must be a positive integer.";
+        }
+        if ( update.price() != null && update.price() < 0 ) {
+            return "The price of the food must be a non-negative integer.";
         }
+        if ( update.allergies() != null
+                && update.allergies().stream().anyMatch( a -> a == null || a.trim().isEmpty() ) ) {
+            return "The provided food information is invalid.";
+        }
+        return null;
+    }
 
+    /**
+     * Builds the result for a rejected bulk update change.
+     *
+     * @param index
+     *            position of the change
+     * @param id
+     *            id of the food, if known
+     * @param foodName
+     *            name of the food, if known
+     * @param message
+     *            why the change was rejected
+     * @return the result
+     */
+    private static FoodBulkUpdateResultDto.ItemResult rejected ( final int index, final Long id, final String foodName,
+            final String message ) {
+        return new FoodBulkUpdateResultDto.ItemResult( index, id, foodName, false, message );
     }
 
 }
@@ -0,0 +1,550 @@
+package FoodSeer.service.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import FoodSeer.dto.DemandForecastDto;
+import FoodSeer.entity.FoodDemand;
+import FoodSeer.exception.ResourceNotFoundException;
+import FoodSeer.repositories.FoodDemandRepository;
+import FoodSeer.repositories.FoodRepository;
+import FoodSeer.service.ForecastService;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Implementation of ForecastService.
+ *
+ * Each food ordered at least once has an in-memory aggregate holding the
+ * quantity ordered in the open hour and the open day (UTC), and a smoothed
+ * rate per hour and per day. When an order arrives in a later bucket, the
+ * open bucket is folded into its rate with exponential smoothing and every
+ * empty bucket in between decays the rate, so recording demand is constant
+ * time per food and a forecast reads only the aggregate and the food's
+ * current amount. A rate starts at the quantity of the first bucket that
+ * closes.
+ *
+ * Changed aggregates are written to the food_demand table by one writer
+ * thread with JDBC batch updates, followed by a batch insert of those not
+ * stored yet, and loaded from it on first use.
+ */
+@Service
+public class ForecastServiceImpl implements ForecastService {
+
+    /** Logs aggregate writes that fail */
+    private static final Logger LOG = LoggerFactory.getLogger( ForecastServiceImpl.class );
+
+    /** Overwrite of one stored aggregate */
+    private static final String UPDATE_DEMAND = "UPDATE food_demand SET hour_bucket = ?, hour_count = ?,"
+            + " hourly_rate = ?, day_bucket = ?, day_count = ?, daily_rate = ? WHERE food_id = ?";
+
+    /** Insert of one aggregate that is not stored yet */
+    private static final String INSERT_DEMAND = "INSERT INTO food_demand"
+            + " (hour_bucket, hour_count, hourly_rate, day_bucket, day_count, daily_rate, food_id)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /** Milliseconds in an hourly bucket */
+    private static final long                 HOUR_MILLIS = TimeUnit.HOURS.toMillis( 1 );
+
+    /** Milliseconds in a daily bucket */
+    private static final long                 DAY_MILLIS  = TimeUnit.DAYS.toMillis( 1 );
+
+    /** Largest number of aggregates sent in one JDBC batch */
+    private static final int                  BATCH_SIZE  = 1000;
+
+    /** JDBC access for the batch writes */
+    private final JdbcTemplate                jdbcTemplate;
+
+    /** Repository used to load the aggregates */
+    private final FoodDemandRepository        demandRepository;
+
+    /** Repository used to read the current amounts */
+    private final FoodRepository              foodRepository;
+
+    /** Weight of a closed hour in the hourly rate */
+    private final double                      hourlySmoothing;
+
+    /** Weight of a closed day in the daily rate */
+    private final double                      dailySmoothing;
+
+    /** Days of projected demand a reorder should cover */
+    private final int                         coverDays;
+
+    /** Aggregates by food id */
+    private final Map<Long, Demand>           demands     = new ConcurrentHashMap<>();
+
+    /** Ids of the foods whose aggregate changed since the last write */
+    private final Set<Long>                   dirty       = ConcurrentHashMap.newKeySet();
+
+    /** Whether the aggregates have been loaded from the database */
+    private volatile boolean                  loaded;
+
+    /** Runs the writer */
+    private final ScheduledExecutorService    executor;
+
+    /**
+     * Creates the service and starts its writer.
+     *
+     * @param jdbcTemplate
+     *            JDBC access for the batch writes
+     * @param demandRepository
+     *            repository used to load the aggregates
+     * @param foodRepository
+     *            repository used to read the current amounts
+     * @param hourlySmoothing
+     *            weight of a closed hour in the hourly rate, between 0 and 1
+     * @param dailySmoothing
+     *            weight of a closed day in the daily rate, between 0 and 1
+     * @param coverDays
+     *            days of projected demand a reorder should cover
+     * @param flushIntervalMillis
+     *            milliseconds between writes of the changed aggregates
+     */
+    public ForecastServiceImpl ( final JdbcTemplate jdbcTemplate, final FoodDemandRepository demandRepository,
+            final FoodRepository foodRepository,
+            @Value ( "${app.forecast.hourly-smoothing:0.3}" ) final double hourlySmoothing,
+            @Value ( "${app.forecast.daily-smoothing:0.3}" ) final double dailySmoothing,
+            @Value ( "${app.forecast.cover-days:7}" ) final int coverDays,
+            @Value ( "${app.forecast.flush-interval-ms:60000}" ) final long flushIntervalMillis ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.demandRepository = demandRepository;
+        this.foodRepository = foodRepository;
+        this.hourlySmoothing = hourlySmoothing;
+        this.dailySmoothing = dailySmoothing;
+        this.coverDays = coverDays;
+
+        this.executor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+            final Thread thread = new Thread( runnable, "demand-forecast-writer" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        executor.scheduleWithFixedDelay( this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Adds ordered quantities to the demand of their foods, once the
+     * current transaction commits if there is one.
+     *
+     * @param quantities
+     *            the ordered quantity by food id
+     */
+    @Override
+    public void recordDemand ( final Map<Long, Long> quantities ) {
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+                @Override
+                public void afterCommit () {
+                    recordDemand( quantities, Instant.now() );
+                }
+            } );
+        }
+        else {
+            recordDemand( quantities, Instant.now() );
+        }
+    }
+
+    /**
+     * Adds ordered quantities to the demand of their foods as of the given
+     * time.
+     *
+     * @param quantities
+     *            the ordered quantity by food id
+     * @param at
+     *            time of the order
+     */
+    public void recordDemand ( final Map<Long, Long> quantities, final Instant at ) {
+        ensureLoaded();
+        final long atMillis = at.toEpochMilli();
+        quantities.forEach( ( foodId, quantity ) -> {
+            demands.computeIfAbsent( foodId, id -> new Demand( id, atMillis ) ).add( quantity, atMillis,
+                    hourlySmoothing, dailySmoothing );
+            dirty.add( foodId );
+        } );
+    }
+
+    /**
+     * Returns the demand forecast of a food.
+     *
+     * @param foodId
+     *            id of the food
+     * @return the forecast
+     */
+    @Override
+    public DemandForecastDto getForecast ( final Long foodId ) {
+        return getForecast( foodId, Instant.now() );
+    }
+
+    /**
+     * Returns the demand forecast of a food as of the given time.
+     *
+     * @param foodId
+     *            id of the food
+     * @param at
+     *            time of the forecast
+     * @return the forecast
+     */
+    public DemandForecastDto getForecast ( final Long foodId, final Instant at ) {
+        ensureLoaded();
+        final FoodRepository.FoodSummaryView food = foodRepository.findSummariesByIdIn( List.of( foodId ) ).stream()
+                .findFirst()
+                .orElseThrow( () -> new ResourceNotFoundException( "Food does not exist with id " + foodId ) );
+        return forecast( food, at.toEpochMilli() );
+    }
+
+    /**
+     * Returns the forecast of every food that has been ordered, largest
+     * suggested reorder first.
+     *
+     * @return the forecasts
+     */
+    @Override
+    public List<DemandForecastDto> getReorderSuggestions () {
+        return getReorderSuggestions( Instant.now() );
+    }
+
+    /**
+     * Returns the forecast of every food that has been ordered as of the
+     * given time, largest suggested reorder first.
+     *
+     * @param at
+     *            time of the forecast
+     * @return the forecasts
+     */
+    public List<DemandForecastDto> getReorderSuggestions ( final Instant at ) {
+        ensureLoaded();
+        if ( demands.isEmpty() ) {
+            return new ArrayList<>();
+        }
+        final long atMillis = at.toEpochMilli();
+        return foodRepository.findSummariesByIdIn( new ArrayList<>( demands.keySet() ) ).stream()
+                .map( food -> forecast( food, atMillis ) )
+                .sorted( Comparator.comparingLong( DemandForecastDto::suggestedReorder ).reversed()
+                        .thenComparing( DemandForecastDto::foodId ) )
+                .collect( Collectors.toList() );
+    }
+
+    /**
+     * Writes the changed aggregates in JDBC batches. Aggregates of a failed
+     * batch are written again next time.
+     *
+     * @return the number of aggregates written
+     */
+    public synchronized int flush () {
+        final List<Long> ids = new ArrayList<>( dirty );
+        dirty.removeAll( ids );
+        final List<State> states = new ArrayList<>( ids.size() );
+        for ( final Long id : ids ) {
+            final Demand demand = demands.get( id );
+            if ( demand != null ) {
+                states.add( demand.state() );
+            }
+        }
+        if ( states.isEmpty() ) {
+            return 0;
+        }
+        try {
+            // Overwrite the stored aggregates, then insert the ones no row
+            // was found for. Only this writer inserts aggregates.
+            final int[][] counts = jdbcTemplate.batchUpdate( UPDATE_DEMAND, states, BATCH_SIZE,
+                    ForecastServiceImpl::setState );
+            final List<State> missing = new ArrayList<>();
+            int i = 0;
+            for ( final int[] batch : counts ) {
+                for ( final int count : batch ) {
+                    if ( count == 0 ) {
+                        missing.add( states.get( i ) );
+                    }
+                    i++;
+                }
+            }
+            if ( !missing.isEmpty() ) {
+                jdbcTemplate.batchUpdate( INSERT_DEMAND, missing, BATCH_SIZE, ForecastServiceImpl::setState );
+            }
+        }
+        catch ( final RuntimeException e ) {
+            dirty.addAll( ids );
+            throw e;
+        }
+        return states.size();
+    }
+
+    /**
+     * Stops the writer and writes what is left.
+     */
+    @PreDestroy
+    public void shutdown () {
+        executor.shutdownNow();
+        flushQuietly();
+    }
+
+    /**
+     * Builds the forecast of a food from its aggregate and amount.
+     *
+     * @param food
+     *            the food
+     * @param atMillis
+     *            time of the forecast, in epoch milliseconds
+     * @return the forecast
+     */
+    private DemandForecastDto forecast ( final FoodRepository.FoodSummaryView food, final long atMillis ) {
+        final Demand demand = demands.get( food.getId() );
+        final State state = demand == null ? null : demand.rolledTo( atMillis, hourlySmoothing, dailySmoothing );
+        final double hourly = state == null || state.hourlyRate() == null ? 0 : state.hourlyRate();
+        // Until a whole day has been seen, project the day from the hours
+        final double daily = state == null ? 0 : state.dailyRate() != null ? state.dailyRate() : hourly * 24;
+        final long projected = (long) Math.ceil( daily * coverDays - 1e-9 );
+        final long suggested = Math.max( 0, projected - food.getAmount() );
+        return new DemandForecastDto( food.getId(), food.getFoodName(), food.getAmount(), hourly, daily,
+                projected, suggested );
+    }
+
+    /**
+     * Writes the aggregates, leaving a failure to the next run.
+     */
+    private void flushQuietly () {
+        try {
+            flush();
+        }
+        catch ( final RuntimeException e ) {
+            // keep the schedule alive; the aggregates stay dirty
+            LOG.warn( "Demand aggregate flush failed, retrying on the next run", e );
+        }
+    }
+
+    /**
+     * Loads the aggregates from the database if needed.
+     */
+    private void ensureLoaded () {
+        if ( loaded ) {
+            return;
+        }
+        synchronized ( demands ) {
+            if ( !loaded ) {
+                for ( final FoodDemand row : demandRepository.findAll() ) {
+                    demands.putIfAbsent( row.getFoodId(), new Demand( row ) );
+                }
+                loaded = true;
+            }
+        }
+    }
+
+    /**
+     * Sets the parameters of an aggregate update or insert, which both take
+     * the food id last.
+     *
+     * @param ps
+     *            the statement
+     * @param state
+     *            the aggregate
+     * @throws SQLException
+     *             if a parameter cannot be set
+     */
+    private static void setState ( final PreparedStatement ps, final State state ) throws SQLException {
+        ps.setLong( 1, state.hourBucket() );
+        ps.setLong( 2, state.hourCount() );
+        setRate( ps, 3, state.hourlyRate() );
+        ps.setLong( 4, state.dayBucket() );
+        ps.setLong( 5, state.dayCount() );
+        setRate( ps, 6, state.dailyRate() );
+        ps.setLong( 7, state.foodId() );
+    }
+
+    /**
+     * Sets a nullable rate parameter.
+     *
+     * @param ps
+     *            the statement
+     * @param index
+     *            index of the parameter
+     * @param rate
+     *            the rate, or null
+     * @throws SQLException
+     *             if the parameter cannot be set
+     */
+    private static void setRate ( final PreparedStatement ps, final int index, final Double rate )
+            throws SQLException {
+        if ( rate == null ) {
+            ps.setNull( index, Types.DOUBLE );
+        }
+        else {
+            ps.setDouble( index, rate );
+        }
+    }
+
+    /**
+     * Folds a closed bucket into a smoothed rate and decays the rate over
+     * the empty buckets that followed it.
+     *
+     * @param rate
+     *            the rate, or null if no bucket has closed yet
+     * @param count
+     *            quantity in the closed bucket
+     * @param elapsed
+     *            buckets from the closed one to the open one, at least 1
+     * @param smoothing
+     *            weight of a bucket in the rate
+     * @return the new rate
+     */
+    private static double close ( final Double rate, final long count, final long elapsed, final double smoothing ) {
+        final double folded = rate == null ? count : smoothing * count + ( 1 - smoothing ) * rate;
+        return folded * Math.pow( 1 - smoothing, elapsed - 1 );
+    }
+
+    /**
+     * Aggregate values of a food.
+     *
+     * @param foodId
+     *            id of the food
+     * @param hourBucket
+     *            open hourly bucket
+     * @param hourCount
+     *            quantity in the open hourly bucket
+     * @param hourlyRate
+     *            smoothed quantity per hour, or null
+     * @param dayBucket
+     *            open daily bucket
+     * @param dayCount
+     *            quantity in the open daily bucket
+     * @param dailyRate
+     *            smoothed quantity per day, or null
+     */
+    private record State ( Long foodId, long hourBucket, long hourCount, Double hourlyRate, long dayBucket,
+            long dayCount, Double dailyRate ) {
+    }
+
+    /**
+     * Demand aggregate of one food.
+     */
+    private static final class Demand {
+
+        /** ID of the food */
+        private final Long foodId;
+
+        /** Open hourly bucket, in hours since the epoch */
+        private long       hourBucket;
+
+        /** Quantity in the open hourly bucket */
+        private long       hourCount;
+
+        /** Smoothed quantity per hour, or null */
+        private Double     hourlyRate;
+
+        /** Open daily bucket, in days since the epoch */
+        private long       dayBucket;
+
+        /** Quantity in the open daily bucket */
+        private long       dayCount;
+
+        /** Smoothed quantity per day, or null */
+        private Double     dailyRate;
+
+        /**
+         * Creates an empty aggregate whose buckets open at the given time.
+         *
+         * @param foodId
+         *            id of the food
+         * @param atMillis
+         *            time of the first order, in epoch milliseconds
+         */
+        private Demand ( final Long foodId, final long atMillis ) {
+            this.foodId = foodId;
+            this.hourBucket = atMillis / HOUR_MILLIS;
+            this.dayBucket = atMillis / DAY_MILLIS;
+        }
+
+        /**
+         * Creates an aggregate from its stored row.
+         *
+         * @param row
+         *            the row
+         */
+        private Demand ( final FoodDemand row ) {
+            this.foodId = row.getFoodId();
+            this.hourBucket = row.getHourBucket();
+            this.hourCount = row.getHourCount();
+            this.hourlyRate = row.getHourlyRate();
+            this.dayBucket = row.getDayBucket();
+            this.dayCount = row.getDayCount();
+            this.dailyRate = row.getDailyRate();
+        }
+
+        /**
+         * Adds an ordered quantity, closing the open buckets first if the
+         * order falls in a later one.
+         *
+         * @param quantity
+         *            the quantity
+         * @param atMillis
+         *            time of the order, in epoch milliseconds
+         * @param hourlySmoothing
+         *            weight of a closed hour
+         * @param dailySmoothing
+         *            weight of a closed day
+         */
+        private synchronized void add ( final long quantity, final long atMillis, final double hourlySmoothing,
+                final double dailySmoothing ) {
+            final State rolled = rolledTo( atMillis, hourlySmoothing, dailySmoothing );
+            hourBucket = rolled.hourBucket();
+            hourCount = rolled.hourCount() + quantity;
+            hourlyRate = rolled.hourlyRate();
+            dayBucket = rolled.dayBucket();
+            dayCount = rolled.dayCount() + quantity;
+            dailyRate = rolled.dailyRate();
+        }
+
+        /**
+         * Returns the aggregate as it would be at the given time, without
+         * changing it.
+         *
+         * @param atMillis
+         *            the time, in epoch milliseconds
+         * @param hourlySmoothing
+         *            weight of a closed hour
+         * @param dailySmoothing
+         *            weight of a closed day
+         * @return the values at that time
+         */
+        private synchronized State rolledTo ( final long atMillis, final double hourlySmoothing,
+                final double dailySmoothing ) {
+            final long hour = atMillis / HOUR_MILLIS;
+            final long day = atMillis / DAY_MILLIS;
+            final boolean hourClosed = hour > hourBucket;
+            final boolean dayClosed = day > dayBucket;
+            return new State( foodId, hourClosed ? hour : hourBucket, hourClosed ? 0 : hourCount,
+                    hourClosed ? Double.valueOf( close( hourlyRate, hourCount, hour - hourBucket, hourlySmoothing ) )
+                            : hourlyRate,
+                    dayClosed ? day : dayBucket, dayClosed ? 0 : dayCount,
+                    dayClosed ? Double.valueOf( close( dailyRate, dayCount, day - dayBucket, dailySmoothing ) )
+                            : dailyRate );
+        }
+
+        /**
+         * Returns the current values.
+         *
+         * @return the values
+         */
+        private synchronized State state () {
+            return new State( foodId, hourBucket, hourCount, hourlyRate, dayBucket, dayCount, dailyRate );
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package FoodSeer.service.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import FoodSeer.dto.FulfillmentStatusDto;
+import FoodSeer.dto.StockAdjustmentDto;
+import FoodSeer.repositories.OrderRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fulfills orders in the background.
+ *
+ * A fulfillment request only puts the order id on a bounded queue and
+ * records it as QUEUED, so the caller is answered at once. Worker threads
+ * take the ids off the queue in batches and fulfill each batch in one
+ * transaction: the batch's order rows and then its food rows are locked in
+ * id order, every order is checked against the locked stock in the order
+ * it was queued, and the stock taken by the orders that can be fulfilled is
+ * written as one JDBC batch, followed by one update marking them fulfilled.
+ * An order that is short of any food takes nothing and is recorded as
+ * FAILED with the reason.
+ *
+ * Statuses are kept in memory for the latest requests only, and are lost on
+ * restart along with any queued requests; the orders themselves stay
+ * unfulfilled and can be requested again.
+ */
+@Component
+public class FulfillmentQueue {
+
+    /** Locks the orders of a batch and reads whether they are fulfilled */
+    private static final String LOCK_ORDERS = "SELECT id, is_fulfilled FROM orders"
+            + " WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+
+    /** Reads the lines of a batch's open orders */
+    private static final String SELECT_LINES = "SELECT order_id, food_id, quantity FROM order_lines"
+            + " WHERE order_id IN (:ids) ORDER BY id";
+
+    /** Locks the foods of a batch and reads their stock */
+    private static final String LOCK_FOODS  = "SELECT id, food_name, amount FROM foods"
+            + " WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+
+    /** Repository used to load and mark the orders */
+    private final OrderRepository                     orderRepository;
+
+    /** JDBC access for the locking reads */
+    private final NamedParameterJdbcTemplate          namedJdbcTemplate;
+
+    /** Writes the stock taken by each batch */
+    private final FoodBatchWriter                     foodBatchWriter;
+
+    /** Runs each batch in its own transaction */
+    private final TransactionTemplate                 transactionTemplate;
+
+    /** Largest number of orders fulfilled in one transaction */
+    private final int                                 batchSize;
+
+    /** Ids of the orders waiting for a worker, oldest first */
+    private final BlockingQueue<Long>                 queue;
+
+    /** Latest status by order id, oldest first */
+    private final Map<Long, FulfillmentStatusDto>     statuses;
+
+    /** Worker threads */
+    private final List<Thread>                        workers = new ArrayList<>();
+
+    /**
+     * Creates the queue and starts its workers.
+     *
+     * @param orderRepository
+     *            repository used to load and mark the orders
+     * @param namedJdbcTemplate
+     *            JDBC access for the locking reads
+     * @param foodBatchWriter
+     *            writer for the stock taken
+     * @param transactionManager
+     *            transaction manager for the batches
+     * @param capacity
+     *            largest number of queued requests
+     * @param workerCount
+     *            number of worker threads; 0 leaves the queue to drain
+     * @param batchSize
+     *            largest number of orders fulfilled in one transaction
+     * @param statusCapacity
+     *            number of statuses kept
+     */
+    public FulfillmentQueue ( final OrderRepository orderRepository,
+            final NamedParameterJdbcTemplate namedJdbcTemplate, final FoodBatchWriter foodBatchWriter,
+            final PlatformTransactionManager transactionManager,
+            @Value ( "${app.fulfillment.queue-capacity:1000}" ) final int capacity,
+            @Value ( "${app.fulfillment.workers:4}" ) final int workerCount,
+            @Value ( "${app.fulfillment.batch-size:50}" ) final int batchSize,
+            @Value ( "${app.fulfillment.status-capacity:10000}" ) final int statusCapacity ) {
+        this.orderRepository = orderRepository;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.foodBatchWriter = foodBatchWriter;
+        this.transactionTemplate = new TransactionTemplate( transactionManager );
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>( capacity );
+        this.statuses = new LinkedHashMap<>( 16, 0.75f, false ) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry ( final Map.Entry<Long, FulfillmentStatusDto> eldest ) {
+                return size() > Math.max( statusCapacity, capacity );
+            }
+        };
+
+        for ( int i = 0; i < workerCount; i++ ) {
+            final Thread worker = new Thread( this::work, "order-fulfillment-" + i );
+            worker.setDaemon( true );
+            worker.start();
+            workers.add( worker );
+        }
+    }
+
+    /**
+     * Queues an order for fulfillment. An order that is already queued
+     * keeps its place.
+     *
+     * @param orderId
+     *            id of the order
+     * @return the order's status
+     * @throws IllegalStateException
+     *             if the queue is full
+     */
+    public FulfillmentStatusDto submit ( final Long orderId ) {
+        synchronized ( statuses ) {
+            final FulfillmentStatusDto current = statuses.get( orderId );
+            if ( current != null && current.state() == FulfillmentStatusDto.State.QUEUED ) {
+                return current;
+            }
+            if ( !queue.offer( orderId ) ) {
+                throw new IllegalStateException( "The fulfillment queue is full. Please try again shortly." );
+            }
+            return record( new FulfillmentStatusDto( orderId, FulfillmentStatusDto.State.QUEUED, null,
+                    Instant.now() ) );
+        }
+    }
+
+    /**
+     * Returns the latest status of an order's fulfillment request.
+     *
+     * @param orderId
+     *            id of the order
+     * @return the status, or empty if the order was not requested recently
+     */
+    public Optional<FulfillmentStatusDto> status ( final Long orderId ) {
+        synchronized ( statuses ) {
+            return Optional.ofNullable( statuses.get( orderId ) );
+        }
+    }
+
+    /**
+     * Fulfills every queued order on the calling thread, in batches.
+     *
+     * @return the number of requests processed
+     */
+    public int drain () {
+        int processed = 0;
+        final List<Long> batch = new ArrayList<>( batchSize );
+        while ( queue.drainTo( batch, batchSize ) > 0 ) {
+            processed += batch.size();
+            process( batch );
+            batch.clear();
+        }
+        return processed;
+    }
+
+    /**
+     * Stops the workers. Requests still queued are dropped.
+     */
+    @PreDestroy
+    public void shutdown () {
+        workers.forEach( Thread::interrupt );
+    }
+
+    /**
+     * Worker loop: waits for a request, then fulfills it together with
+     * whatever else is queued, up to the batch size.
+     */
+    private void work () {
+        final List<Long> batch = new ArrayList<>( batchSize );
+        while ( !Thread.currentThread().isInterrupted() ) {
+            try {
+                batch.add( queue.take() );
+                queue.drainTo( batch, batchSize - 1 );
+                process( batch );
+            }
+            catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+            catch ( final RuntimeException e ) {
+                // keep the worker alive
+            }
+            finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Fulfills a batch in one transaction and records the outcome of each
+     * request once it has committed. If the transaction fails, every
+     * request in the batch is recorded as failed.
+     *
+     * @param orderIds
+     *            ids of the orders, in the order they were queued
+     */
+    private void process ( final List<Long> orderIds ) {
+        Map<Long, String> failures;
+        try {
+            failures = transactionTemplate.execute( status -> fulfill( orderIds ) );
+        }
+        catch ( final RuntimeException e ) {
+            failures = new HashMap<>();
+            for ( final Long orderId : orderIds ) {
+                failures.put( orderId, "The order could not be fulfilled. Please try again." );
+            }
+        }
+        final Instant now = Instant.now();
+        synchronized ( statuses ) {
+            for ( final Long orderId : orderIds ) {
+                final String failure = failures.get( orderId );
+                record( new FulfillmentStatusDto( orderId, failure == null ? FulfillmentStatusDto.State.FULFILLED
+                        : FulfillmentStatusDto.State.FAILED, failure, now ) );
+            }
+        }
+    }
+
+    /**
+     * Fulfills the orders of a batch that have enough stock. Must run
+     * inside a transaction.
+     *
+     * @param orderIds
+     *            ids of the orders, in the order they were queued
+     * @return why each order that was not fulfilled failed, by order id
+     */
+    private Map<Long, String> fulfill ( final List<Long> orderIds ) {
+        final Set<Long> ids = new LinkedHashSet<>( orderIds );
+        final Map<Long, String> failures = new HashMap<>();
+
+        // Lock the orders, then their foods, in id order
+        final Map<Long, Boolean> fulfilledById = new HashMap<>();
+        namedJdbcTemplate.query( LOCK_ORDERS, new MapSqlParameterSource( "ids", ids ), rs -> {
+            fulfilledById.put( rs.getLong( "id" ), rs.getBoolean( "is_fulfilled" ) );
+        } );
+        final List<Long> open = new ArrayList<>();
+        for ( final Long orderId : ids ) {
+            final Boolean fulfilled = fulfilledById.get( orderId );
+            if ( fulfilled == null ) {
+                failures.put( orderId, "Order does not exist with id " + orderId );
+            }
+            else if ( fulfilled ) {
+                failures.put( orderId, "The order has already been fulfilled." );
+            }
+            else {
+                open.add( orderId );
+            }
+        }
+        if ( open.isEmpty() ) {
+            return failures;
+        }
+
+        final Map<Long, List<Line>> linesByOrder = new HashMap<>();
+        final Set<Long> foodIds = new TreeSet<>();
+        namedJdbcTemplate.query( SELECT_LINES, new MapSqlParameterSource( "ids", open ), rs -> {
+            final Line line = new Line( rs.getLong( "food_id" ), rs.getInt( "quantity" ) );
+            linesByOrder.computeIfAbsent( rs.getLong( "order_id" ), id -> new ArrayList<>() ).add( line );
+            foodIds.add( line.foodId() );
+        } );
+        final Map<Long, Integer> stock = new HashMap<>();
+        final Map<Long, String> names = new HashMap<>();
+        if ( !foodIds.isEmpty() ) {
+            namedJdbcTemplate.query( LOCK_FOODS, new MapSqlParameterSource( "ids", foodIds ), rs -> {
+                stock.put( rs.getLong( "id" ), rs.getInt( "amount" ) );
+                names.put( rs.getLong( "id" ), rs.getString( "food_name" ) );
+            } );
+        }
+
+        // Check each order against what the orders before it left
+        final Map<Long, Integer> taken = new TreeMap<>();
+        final List<Long> fulfilled = new ArrayList<>();
+        for ( final Long orderId : open ) {
+            final List<Line> lines = linesByOrder.getOrDefault( orderId, List.of() );
+            final String shortage = shortage( lines, stock, names );
+            if ( shortage != null ) {
+                failures.put( orderId, shortage );
+                continue;
+            }
+            for ( final Line line : lines ) {
+                stock.merge( line.foodId(), -line.quantity(), Integer::sum );
+                taken.merge( line.foodId(), line.quantity(), Integer::sum );
+            }
+            fulfilled.add( orderId );
+        }
+
+        if ( !fulfilled.isEmpty() ) {
+            final List<StockAdjustmentDto> adjustments = new ArrayList<>( taken.size() );
+            taken.forEach( ( foodId, quantity ) -> adjustments.add( new StockAdjustmentDto( foodId, -quantity ) ) );
+            foodBatchWriter.addToAmounts( adjustments );
+            orderRepository.markFulfilled( fulfilled );
+        }
+        return failures;
+    }
+
+    /**
+     * Returns why an order cannot be fulfilled from the given stock.
+     *
+     * @param lines
+     *            the order's lines
+     * @param stock
+     *            stock left by food id
+     * @param names
+     *            food names by food id
+     * @return the reason, or null if every line is covered
+     */
+    private static String shortage ( final List<Line> lines, final Map<Long, Integer> stock,
+            final Map<Long, String> names ) {
+        for ( final Line line : lines ) {
+            final Integer available = stock.get( line.foodId() );
+            if ( available == null ) {
+                return "Food not found with id " + line.foodId();
+            }
+            if ( available < line.quantity() ) {
+                return "Not enough stock to fulfill the order for " + names.get( line.foodId() ) + ". Need: "
+                        + line.quantity() + ", Available: " + available;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records a status, moving it to the newest end.
+     *
+     * @param status
+     *            the status
+     * @return the status
+     */
+    private FulfillmentStatusDto record ( final FulfillmentStatusDto status ) {
+        statuses.remove( status.orderId() );
+        statuses.put( status.orderId(), status );
+        return status;
+    }
+
+    /**
+     * One line of a queued order.
+     *
+     * @param foodId
+     *            id of the food
+     * @param quantity
+     *            number of units ordered
+     */
+    private record Line ( Long foodId, int quantity ) {
+    }
+}
@@ -1,21 +1,46 @@
 package FoodSeer.service.impl;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import FoodSeer.dto.FoodDto;
 import FoodSeer.dto.InventoryDto;
+import FoodSeer.dto.RestockResultDto;
+import FoodSeer.dto.StockAdjustmentDto;
+import FoodSeer.dto.StockAdjustmentResultDto;
+import FoodSeer.dto.StockAlertDto;
+import FoodSeer.dto.StockLedgerLevelDto;
+import FoodSeer.dto.StockMovementDto;
+import FoodSeer.dto.StockThresholdDto;
 import FoodSeer.entity.Food;
 import FoodSeer.entity.Inventory;
+import FoodSeer.entity.StockThreshold;
 import FoodSeer.exception.ResourceNotFoundException;
-import FoodSeer.mapper.FoodMapper;
 import FoodSeer.mapper.InventoryMapper;
+import FoodSeer.repositories.FoodRepository;
 import FoodSeer.repositories.InventoryRepository;
-import FoodSeer.service.FoodService;
+import FoodSeer.repositories.StockThresholdRepository;
 import FoodSeer.service.InventoryService;
 import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
@@ -27,17 +52,44 @@ import jakarta.transaction.Transactional;
 @Service
 public class InventoryServiceImpl implements InventoryService {
 
+    /** Id of the single inventory row */
+    private static final Long INVENTORY_ID = 1L;
+
     /** Connection to the repository to work with the DAO + database */
     @Autowired
     private InventoryRepository inventoryRepository;
 
-    /**
-     * Lazy dependency injection to prevent circular dependency
-     * between InventoryService and FoodService.
-     */
+    /** Version of the catalog, bumped on inventory writes */
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    /** Writes stock adjustments as JDBC batches */
+    @Autowired
+    private FoodBatchWriter foodBatchWriter;
+
+    /** Pushes stock changes to stream subscribers */
+    @Autowired
+    private InventoryStreamBroadcaster inventoryStreamBroadcaster;
+
+    /** Append-only record of stock movements */
     @Autowired
-    @Lazy
-    private FoodService foodService;
+    private StockLedger stockLedger;
+
+    /** Raises low-stock alerts */
+    @Autowired
+    private StockAlertMonitor stockAlertMonitor;
+
+    /** Connection to the reorder thresholds */
+    @Autowired
+    private StockThresholdRepository stockThresholdRepository;
+
+    /** Cached foods, used to look up the food of a threshold */
+    @Autowired
+    private FoodCatalogCache foodCatalogCache;
+
+    /** Largest restock manifest accepted, in bytes */
+    @Value("${app.restock.max-bytes:268435456}")
+    private long restockMaxBytes;
 
     /** Reference to EntityManager */
     @Autowired
@@ -54,26 +106,45 @@ public class InventoryServiceImpl implements InventoryService {
     public InventoryDto createInventory(final InventoryDto inventoryDto) {
         final Inventory inventory = InventoryMapper.mapToInventory(inventoryDto);
         final Inventory savedInventory = inventoryRepository.saveAndFlush(inventory);
+        catalogVersion.bump();
         return InventoryMapper.mapToInventoryDto(savedInventory);
     }
 
     /**
      * Returns the single inventory.
      *
+     * The foods are read with two projection queries, one for their columns
+     * and one for their allergies, so neither the inventory entity nor the
+     * food entities are loaded into the persistence context.
+     *
      * @return The single inventory as a DTO
      */
     @Override
+    @Transactional
     public InventoryDto getInventory() {
-        final List<Inventory> inventoryList = inventoryRepository.findAll();
-
-        if (inventoryList.isEmpty()) {
+        if (!inventoryRepository.existsById(INVENTORY_ID)) {
             // initialize new empty food list in the new inventory
             final List<Food> foods = new ArrayList<>();
-            final InventoryDto newInventoryDto = new InventoryDto(1L, foods);
+            final InventoryDto newInventoryDto = new InventoryDto(INVENTORY_ID, foods);
             return createInventory(newInventoryDto);
         }
 
-        return InventoryMapper.mapToInventoryDto(inventoryList.get(0));
+        final Map<Long, List<String>> allergies = new HashMap<>();
+        for (final FoodRepository.FoodAllergyView allergy : inventoryRepository.findFoodAllergies(INVENTORY_ID)) {
+            allergies.computeIfAbsent(allergy.getId(), id -> new ArrayList<>()).add(allergy.getAllergy());
+        }
+
+        final List<Food> foods = new ArrayList<>();
+        for (final FoodRepository.FoodSummaryView summary : inventoryRepository.findFoodSummaries(INVENTORY_ID)) {
+            final Food food = new Food();
+            food.setId(summary.getId());
+            food.setFoodName(summary.getFoodName());
+            food.setAmount(summary.getAmount());
+            food.setPrice(summary.getPrice());
+            food.setAllergies(allergies.getOrDefault(summary.getId(), new ArrayList<>()));
+            foods.add(food);
+        }
+        return new InventoryDto(INVENTORY_ID, foods);
     }
 
     /**
@@ -83,51 +154,403 @@ public class InventoryServiceImpl implements InventoryService {
      * It only updates the existing foods' values (amount, price, etc.)
      * if they already exist in the inventory.
      *
+     * The inventory foods are indexed once by id and by name, so each
+     * incoming food is matched in constant time. Changes are made on the
+     * managed entities and written in a single flush, which Hibernate sends
+     * as JDBC update batches; allergies are only rewritten when they differ.
+     *
      * @param inventoryDto
      *            The inventory data to update
      * @return The updated inventory as a DTO
+     * @throws IllegalArgumentException
+     *             if an amount or price is negative
      */
     @Override
     @Transactional
     public InventoryDto updateInventory(final InventoryDto inventoryDto) {
 
-        final Inventory inventory = inventoryRepository.findById(1L)
+        final Inventory inventory = inventoryRepository.findById(INVENTORY_ID)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Inventory does not exist with id of " + inventoryDto.getId()));
 
-        final List<Integer> indexesToRemove = new ArrayList<>();
-        final List<Food> foodsToAdd = new ArrayList<>();
+        final Map<Long, Food> foodsById = new HashMap<>();
+        final Map<String, Food> foodsByName = new HashMap<>();
+        for (final Food food : inventory.getFoods()) {
+            foodsById.put(food.getId(), food);
+            foodsByName.putIfAbsent(food.getFoodName(), food);
+        }
+
+        final List<Food> changes = inventoryDto.getFoods() == null ? new ArrayList<>() : inventoryDto.getFoods();
+        for (final Food f : changes) {
+            Food food = f.getId() == null ? null : foodsById.get(f.getId());
+            if (food == null) {
+                food = foodsByName.get(f.getFoodName());
+            }
+            if (food == null) {
+                continue;
+            }
+
+            // check for invalid units
+            if (f.getAmount() < 0) {
+                throw new IllegalArgumentException("The units of the food must be a positive integer.");
+            }
+
+            // check for invalid price
+            if (f.getPrice() < 0) {
+                throw new IllegalArgumentException("The price of the food must be a non-negative integer.");
+            }
+
+            food.setAmount(f.getAmount());
+            food.setPrice(f.getPrice());
+
+            final List<String> allergies = f.getAllergies() == null ? new ArrayList<>() : f.getAllergies();
+            if (food.getAllergies() == null || !new ArrayList<>(food.getAllergies()).equals(allergies)) {
+                food.setAllergies(new ArrayList<>(allergies));
+            }
+        }
+
+        entityManager.flush();
+        catalogVersion.bump();
+        return InventoryMapper.mapToInventoryDto(inventory);
+    }
+
+    /**
+     * Adds or removes stock of individual foods. The valid adjustments are
+     * sent as one JDBC batch of guarded relative updates.
+     *
+     * @param adjustments
+     *            the adjustments, each with a food id and a signed quantity
+     * @return the outcome of each adjustment
+     * @throws IllegalArgumentException
+     *             if more than MAX_ADJUSTMENTS adjustments are sent
+     */
+    @Override
+    @Transactional
+    public StockAdjustmentResultDto adjustStock(final List<StockAdjustmentDto> adjustments) {
+        if (adjustments.size() > MAX_ADJUSTMENTS) {
+            throw new IllegalArgumentException("At most " + MAX_ADJUSTMENTS + " adjustments can be sent at once.");
+        }
 
-        for (final Food f : inventoryDto.getFoods()) {
-            final int size = inventory.getFoods().size();
-            for (int index = 0; index < size; index++) {
-                if (inventory.getFoods().get(index).getFoodName().equals(f.getFoodName())) {
+        final StockAdjustmentResultDto.ItemResult[] results =
+                new StockAdjustmentResultDto.ItemResult[adjustments.size()];
+        final List<StockAdjustmentDto> valid = new ArrayList<>();
+        final List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < adjustments.size(); i++) {
+            final StockAdjustmentDto adjustment = adjustments.get(i);
+            final String error = validateAdjustment(adjustment);
+            if (error != null) {
+                results[i] = new StockAdjustmentResultDto.ItemResult(i,
+                        adjustment == null ? null : adjustment.foodId(), false, null, error);
+            } else {
+                valid.add(adjustment);
+                validIndexes.add(i);
+            }
+        }
 
-                    // Update existing food item
-                    final FoodDto fDto = foodService.updateFood(f.getFoodName(), f.getAmount(), f.getPrice(), f.getAllergies());
-                    final Food updatedFood = FoodMapper.mapToFood(fDto);
+        final FoodBatchWriter.AmountChanges changes = foodBatchWriter.addToAmounts(valid);
+        for (int v = 0; v < valid.size(); v++) {
+            final StockAdjustmentDto adjustment = valid.get(v);
+            final int i = validIndexes.get(v);
+            final FoodRepository.FoodSummaryView food = changes.foods().get(adjustment.foodId());
+            final Integer amount = food == null ? null : food.getAmount();
+            if (changes.updateCounts()[v] > 0) {
+                results[i] = new StockAdjustmentResultDto.ItemResult(i, adjustment.foodId(), true, amount, null);
+            } else if (food == null) {
+                results[i] = new StockAdjustmentResultDto.ItemResult(i, adjustment.foodId(), false, null,
+                        "Food does not exist with id " + adjustment.foodId());
+            } else if (adjustment.quantity() < 0) {
+                results[i] = new StockAdjustmentResultDto.ItemResult(i, adjustment.foodId(), false, amount,
+                        "Not enough stock of " + food.getFoodName() + " to remove " + -adjustment.quantity() + ".");
+            } else {
+                results[i] = new StockAdjustmentResultDto.ItemResult(i, adjustment.foodId(), false, amount,
+                        "The stock of " + food.getFoodName() + " would exceed the maximum.");
+            }
+        }
 
-                    // track indexes and updated foods
-                    indexesToRemove.add(index);
-                    foodsToAdd.add(updatedFood);
+        final List<StockAdjustmentResultDto.ItemResult> items = Arrays.asList(results);
+        final int applied = (int) items.stream().filter(StockAdjustmentResultDto.ItemResult::applied).count();
+        return new StockAdjustmentResultDto(applied, items.size() - applied, items);
+    }
 
-                    FoodMapper.mapToFoodDto(updatedFood);
+    /**
+     * Checks one adjustment before it is sent to the database.
+     *
+     * @param adjustment
+     *            the adjustment
+     * @return why it is invalid, or null if it is valid
+     */
+    private static String validateAdjustment(final StockAdjustmentDto adjustment) {
+        if (adjustment == null || adjustment.foodId() == null) {
+            return "A food id is required.";
+        }
+        if (adjustment.quantity() == null || adjustment.quantity() == 0) {
+            return "The quantity must be a non-zero integer.";
+        }
+        return null;
+    }
+
+    /**
+     * Applies a restock manifest.
+     *
+     * The manifest is spooled to a temporary file and memory-mapped, then
+     * parsed in place into totals per food without creating objects per
+     * line. The totals are sent as one JDBC batch of guarded relative
+     * updates in a single transaction.
+     *
+     * @param manifest
+     *            the manifest
+     * @return the summary, with throughput and rejected lines
+     * @throws IllegalArgumentException
+     *             if the manifest is larger than the configured limit
+     */
+    @Override
+    public RestockResultDto restockFromManifest(final InputStream manifest) {
+        final long started = System.nanoTime();
+        Path file = null;
+        try {
+            file = Files.createTempFile("restock", ".manifest");
+            final RestockManifest parsed;
+            final long bytes;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                bytes = spool(manifest, channel);
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+                parsed = RestockManifest.parse(buffer);
+            }
+            return applyManifest(parsed, bytes, started);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (final IOException e) {
+                    // the temporary directory is cleaned up by the system
                 }
             }
         }
+    }
+
+    /**
+     * Copies a manifest into a file channel.
+     *
+     * @param manifest
+     *            the manifest
+     * @param channel
+     *            the file to copy into
+     * @return the number of bytes copied
+     * @throws IOException
+     *             if the manifest cannot be read or written
+     * @throws IllegalArgumentException
+     *             if the manifest is larger than the configured limit
+     */
+    private long spool(final InputStream manifest, final FileChannel channel) throws IOException {
+        final long limit = Math.min(restockMaxBytes, Integer.MAX_VALUE);
+        final ReadableByteChannel source = Channels.newChannel(manifest);
+        final ByteBuffer chunk = ByteBuffer.allocate(1 << 16);
+        long bytes = 0;
+        while (source.read(chunk) != -1) {
+            chunk.flip();
+            while (chunk.hasRemaining()) {
+                bytes += channel.write(chunk);
+            }
+            chunk.clear();
+            if (bytes > limit) {
+                throw new IllegalArgumentException("The manifest is larger than " + limit + " bytes.");
+            }
+        }
+        return bytes;
+    }
 
-        // clear persistence context to prevent detached entity issues
-        entityManager.clear();
+    /**
+     * Adds the totals of a parsed manifest to the stock.
+     *
+     * @param parsed
+     *            the totals per food
+     * @param bytes
+     *            size of the manifest
+     * @param started
+     *            System.nanoTime() when the ingestion started
+     * @return the summary
+     */
+    private RestockResultDto applyManifest(final RestockManifest parsed, final long bytes, final long started) {
+        final List<RestockResultDto.LineError> errors = new ArrayList<>(parsed.errors());
+        final List<StockAdjustmentDto> adjustments = new ArrayList<>(parsed.foods());
+        final List<long[]> adjustmentLines = new ArrayList<>(parsed.foods());
+        final long[] rejectedLines = { parsed.unreadable() };
+        parsed.forEachTotal((foodId, total, lineCount, firstLine) -> {
+            if (total == 0) {
+                // deliveries and returns cancel out
+                return;
+            }
+            if (total < Integer.MIN_VALUE || total > Integer.MAX_VALUE) {
+                rejectedLines[0] += lineCount;
+                addLineError(errors, new RestockResultDto.LineError(firstLine, foodId, lineCount,
+                        "The total quantity for the food is out of range."));
+                return;
+            }
+            adjustments.add(new StockAdjustmentDto(foodId, (int) total));
+            adjustmentLines.add(new long[] { lineCount, firstLine });
+        });
 
-        // apply updates to inventory
-        int num = indexesToRemove.size();
-        while (num > 0) {
-            inventory.getFoods().remove((int) indexesToRemove.get(num - 1));
-            inventory.getFoods().add(foodsToAdd.get(num - 1));
-            num--;
+        final FoodBatchWriter.AmountChanges changes = foodBatchWriter.addToAmounts(adjustments);
+        int foodsUpdated = 0;
+        for (int i = 0; i < adjustments.size(); i++) {
+            if (changes.updateCounts()[i] > 0) {
+                foodsUpdated++;
+                continue;
+            }
+            final StockAdjustmentDto adjustment = adjustments.get(i);
+            final FoodRepository.FoodSummaryView food = changes.foods().get(adjustment.foodId());
+            final String message = food == null ? "Food does not exist with id " + adjustment.foodId()
+                    : adjustment.quantity() < 0
+                            ? "Not enough stock of " + food.getFoodName() + " to remove " + -adjustment.quantity() + "."
+                            : "The stock of " + food.getFoodName() + " would exceed the maximum.";
+            rejectedLines[0] += adjustmentLines.get(i)[0];
+            addLineError(errors, new RestockResultDto.LineError(adjustmentLines.get(i)[1], adjustment.foodId(),
+                    adjustmentLines.get(i)[0], message));
         }
 
-        final Inventory savedInventory = inventoryRepository.save(inventory);
-        return InventoryMapper.mapToInventoryDto(savedInventory);
+        final long elapsedNanos = Math.max(System.nanoTime() - started, 1);
+        return new RestockResultDto(parsed.lines(), parsed.lines() - rejectedLines[0], rejectedLines[0],
+                foodsUpdated, bytes, elapsedNanos / 1_000_000, parsed.lines() * 1_000_000_000L / elapsedNanos, errors);
+    }
+
+    /**
+     * Adds a line error unless MAX_REPORTED_ERRORS have been reported.
+     *
+     * @param errors
+     *            the reported errors
+     * @param error
+     *            the error
+     */
+    private static void addLineError(final List<RestockResultDto.LineError> errors,
+            final RestockResultDto.LineError error) {
+        if (errors.size() < RestockResultDto.MAX_REPORTED_ERRORS) {
+            errors.add(error);
+        }
+    }
+
+    /**
+     * Opens a server-sent event stream of stock levels.
+     *
+     * @return the emitter for the stream
+     * @throws IllegalStateException
+     *             if too many streams are already open
+     */
+    @Override
+    public SseEmitter streamStockLevels() {
+        return inventoryStreamBroadcaster.subscribe();
+    }
+
+    /**
+     * Returns the stock of a food at a point in time from the ledger.
+     *
+     * @param foodId
+     *            id of the food
+     * @param at
+     *            the point in time, or null for now
+     * @return the level
+     */
+    @Override
+    public StockLedgerLevelDto getStockLevelAt(final Long foodId, final Instant at) {
+        return stockLedger.levelAt(foodId, at == null ? Instant.now() : at);
+    }
+
+    /**
+     * Returns the latest stock movements of a food, newest first.
+     *
+     * @param foodId
+     *            id of the food
+     * @param limit
+     *            largest number of movements to return
+     * @return the movements
+     */
+    @Override
+    public List<StockMovementDto> getStockMovements(final Long foodId, final int limit) {
+        if (limit < 1 || limit > MAX_MOVEMENTS) {
+            throw new IllegalArgumentException("The limit must be between 1 and " + MAX_MOVEMENTS + ".");
+        }
+        return stockLedger.movements(foodId, limit);
+    }
+
+    /**
+     * Sets the reorder threshold of a food.
+     *
+     * @param thresholdDto
+     *            the food id and its threshold
+     * @return the saved threshold
+     * @throws IllegalArgumentException
+     *             if the food id or threshold is missing or the threshold is
+     *             negative
+     */
+    @Override
+    @Transactional
+    public StockThresholdDto setStockThreshold(final StockThresholdDto thresholdDto) {
+        if (thresholdDto == null || thresholdDto.foodId() == null) {
+            throw new IllegalArgumentException("A food id is required.");
+        }
+        if (thresholdDto.threshold() == null || thresholdDto.threshold() < 0) {
+            throw new IllegalArgumentException("The threshold must be a non-negative integer.");
+        }
+        final FoodDto food = foodCatalogCache.getFood(thresholdDto.foodId())
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Food does not exist with id " + thresholdDto.foodId()));
+
+        stockThresholdRepository.save(new StockThreshold(food.getId(), thresholdDto.threshold()));
+        stockAlertMonitor.setThreshold(food.getId(), food.getFoodName(), food.getAmount(),
+                thresholdDto.threshold());
+        return new StockThresholdDto(food.getId(), thresholdDto.threshold());
+    }
+
+    /**
+     * Removes the reorder threshold of a food.
+     *
+     * @param foodId
+     *            id of the food
+     * @throws ResourceNotFoundException
+     *             if the food has no threshold
+     */
+    @Override
+    @Transactional
+    public void removeStockThreshold(final Long foodId) {
+        if (foodId == null || !stockThresholdRepository.existsById(foodId)) {
+            throw new ResourceNotFoundException("No threshold is set for food with id " + foodId);
+        }
+        stockThresholdRepository.deleteById(foodId);
+        stockAlertMonitor.removeThreshold(foodId);
+    }
+
+    /**
+     * Returns the reorder thresholds of all foods that have one.
+     *
+     * @return the thresholds
+     */
+    @Override
+    public List<StockThresholdDto> getStockThresholds() {
+        return stockThresholdRepository.findAll().stream()
+                .map(threshold -> new StockThresholdDto(threshold.getFoodId(), threshold.getThreshold()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the low-stock alerts raised after the given one.
+     *
+     * @param after
+     *            sequence number of the last alert already seen, or 0
+     * @return the alerts, oldest first
+     */
+    @Override
+    public List<StockAlertDto> getStockAlerts(final long after) {
+        return stockAlertMonitor.alertsAfter(after);
+    }
+
+    /**
+     * Returns a strong ETag for the current version of the inventory.
+     *
+     * @return the quoted ETag
+     */
+    @Override
+    public String getCatalogETag() {
+        return catalogVersion.eTag();
     }
 }
@@ -0,0 +1,305 @@
+package FoodSeer.service.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import FoodSeer.dto.StockLevelDto;
+import FoodSeer.entity.FoodChangedEvent;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes stock level changes to server-sent event subscribers.
+ *
+ * Each subscriber first gets a "snapshot" event with the stock of every
+ * food, then a "stock" event whenever a food is added or its amount
+ * changes and a "removed" event when a food is deleted. Changes are sent
+ * once their transaction commits; a rollback makes every subscriber
+ * receive a fresh snapshot. The snapshot comes from FoodCatalogCache, so
+ * many subscribers connecting at once cost one database read.
+ *
+ * Every subscriber has its own queue, keyed by food id so that only the
+ * latest level of each food is kept. A slow client therefore receives
+ * fewer, newer updates rather than holding up the others. If its queue
+ * still grows past max-pending it is dropped and replaced by a snapshot.
+ * Sends run on a small shared pool, one drain at a time per subscriber,
+ * and a comment is sent as a heartbeat whenever a subscriber has been
+ * idle so proxies keep the connection open.
+ */
+@Component
+public class InventoryStreamBroadcaster {
+
+    /** Cache the snapshots are read from */
+    private final FoodCatalogCache              foodCatalogCache;
+
+    /** Largest number of open subscriptions */
+    private final int                           maxSubscribers;
+
+    /** Largest number of queued changes per subscriber before resyncing */
+    private final int                           maxPending;
+
+    /** Sends events and heartbeats */
+    private final ScheduledExecutorService      executor;
+
+    /** Open subscriptions */
+    private final Set<Subscriber>               subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates the broadcaster.
+     *
+     * @param foodCatalogCache
+     *            cache the snapshots are read from
+     * @param maxSubscribers
+     *            largest number of open subscriptions
+     * @param maxPending
+     *            largest number of queued changes per subscriber
+     * @param heartbeatSeconds
+     *            seconds between heartbeats
+     * @param threads
+     *            number of threads sending events
+     */
+    public InventoryStreamBroadcaster ( final FoodCatalogCache foodCatalogCache,
+            @Value ( "${app.inventory-stream.max-subscribers:500}" ) final int maxSubscribers,
+            @Value ( "${app.inventory-stream.max-pending:1000}" ) final int maxPending,
+            @Value ( "${app.inventory-stream.heartbeat-seconds:15}" ) final long heartbeatSeconds,
+            @Value ( "${app.inventory-stream.threads:4}" ) final int threads ) {
+        this.foodCatalogCache = foodCatalogCache;
+        this.maxSubscribers = maxSubscribers;
+        this.maxPending = maxPending;
+
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool( threads, runnable -> {
+            final Thread thread = new Thread( runnable, "inventory-stream-" + count.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        executor.scheduleAtFixedRate( this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS );
+    }
+
+    /**
+     * Opens a subscription. The snapshot is sent as soon as a sender is
+     * free.
+     *
+     * @return the emitter to return from the controller
+     * @throws IllegalStateException
+     *             if max-subscribers subscriptions are already open
+     */
+    public SseEmitter subscribe () {
+        if ( subscribers.size() >= maxSubscribers ) {
+            throw new IllegalStateException( "Too many inventory stream subscribers." );
+        }
+        final SseEmitter emitter = new SseEmitter( 0L );
+        final Subscriber subscriber = new Subscriber( emitter );
+        emitter.onCompletion( () -> subscribers.remove( subscriber ) );
+        emitter.onTimeout( () -> subscribers.remove( subscriber ) );
+        emitter.onError( e -> subscribers.remove( subscriber ) );
+
+        subscribers.add( subscriber );
+        subscriber.requestSnapshot();
+        schedule( subscriber );
+        return emitter;
+    }
+
+    /**
+     * Returns the number of open subscriptions.
+     *
+     * @return the subscriber count
+     */
+    public int subscriberCount () {
+        return subscribers.size();
+    }
+
+    /**
+     * Queues a committed food change for every subscriber. Events outside
+     * a transaction, such as the RESET sent after a rollback, are handled
+     * straight away.
+     *
+     * @param event
+     *            the food change
+     */
+    @TransactionalEventListener ( fallbackExecution = true )
+    public void onFoodChanged ( final FoodChangedEvent event ) {
+        for ( final Subscriber subscriber : subscribers ) {
+            if ( event.type() == FoodChangedEvent.Type.RESET || event.foodId() == null ) {
+                subscriber.requestSnapshot();
+            }
+            else {
+                subscriber.offer( event );
+            }
+            schedule( subscriber );
+        }
+    }
+
+    /**
+     * Closes every subscription and stops the senders.
+     */
+    @PreDestroy
+    public void shutdown () {
+        executor.shutdownNow();
+        for ( final Subscriber subscriber : subscribers ) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    /**
+     * Marks every subscriber as due a heartbeat.
+     */
+    private void heartbeat () {
+        for ( final Subscriber subscriber : subscribers ) {
+            subscriber.heartbeatDue = true;
+            schedule( subscriber );
+        }
+    }
+
+    /**
+     * Starts a drain of the subscriber unless one is already running.
+     *
+     * @param subscriber
+     *            the subscriber
+     */
+    private void schedule ( final Subscriber subscriber ) {
+        if ( subscriber.draining.compareAndSet( false, true ) ) {
+            try {
+                executor.execute( () -> drain( subscriber ) );
+            }
+            catch ( final RuntimeException e ) {
+                subscriber.draining.set( false ); // shutting down
+            }
+        }
+    }
+
+    /**
+     * Sends everything queued for a subscriber.
+     *
+     * @param subscriber
+     *            the subscriber
+     */
+    private void drain ( final Subscriber subscriber ) {
+        try {
+            final boolean snapshot;
+            final List<FoodChangedEvent> changes;
+            synchronized ( subscriber ) {
+                snapshot = subscriber.snapshotRequested;
+                subscriber.snapshotRequested = false;
+                changes = new ArrayList<>( subscriber.pending.values() );
+                subscriber.pending.clear();
+            }
+            final boolean heartbeat = subscriber.heartbeatDue;
+            subscriber.heartbeatDue = false;
+
+            if ( snapshot ) {
+                subscriber.emitter.send( SseEmitter.event().name( "snapshot" ).data( snapshot() ) );
+            }
+            for ( final FoodChangedEvent change : changes ) {
+                final boolean removed = change.type() == FoodChangedEvent.Type.REMOVED;
+                subscriber.emitter.send( SseEmitter.event().name( removed ? "removed" : "stock" ).data(
+                        new StockLevelDto( change.foodId(), change.foodName(), removed ? 0 : change.amount() ) ) );
+            }
+            if ( heartbeat && !snapshot && changes.isEmpty() ) {
+                subscriber.emitter.send( SseEmitter.event().comment( "heartbeat" ) );
+            }
+        }
+        catch ( final IOException | IllegalStateException e ) {
+            // Client went away or the emitter is already complete
+            subscribers.remove( subscriber );
+            subscriber.emitter.completeWithError( e );
+        }
+        finally {
+            subscriber.draining.set( false );
+        }
+        // Anything queued meanwhile goes out in a new drain, so a busy
+        // subscriber does not keep a sender to itself
+        if ( subscribers.contains( subscriber ) && subscriber.hasWork() ) {
+            schedule( subscriber );
+        }
+    }
+
+    /**
+     * Returns the stock level of every food.
+     *
+     * @return the snapshot
+     */
+    private List<StockLevelDto> snapshot () {
+        return foodCatalogCache.getAllFoods().stream()
+                .map( food -> new StockLevelDto( food.getId(), food.getFoodName(), food.getAmount() ) )
+                .collect( Collectors.toList() );
+    }
+
+    /**
+     * One open subscription and the changes queued for it.
+     */
+    private final class Subscriber {
+
+        /** Emitter the events are sent through */
+        private final SseEmitter                            emitter;
+
+        /** Latest queued change of each food, oldest first */
+        private final Map<Long, FoodChangedEvent>           pending    = new LinkedHashMap<>();
+
+        /** True while a drain is scheduled or running */
+        private final AtomicBoolean                         draining   = new AtomicBoolean();
+
+        /** True if the next drain must start with a snapshot */
+        private boolean                                     snapshotRequested;
+
+        /** True if a heartbeat is due */
+        private volatile boolean                            heartbeatDue;
+
+        /**
+         * Creates a subscriber.
+         *
+         * @param emitter
+         *            emitter the events are sent through
+         */
+        private Subscriber ( final SseEmitter emitter ) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queues a change, replacing any queued change of the same food.
+         *
+         * @param event
+         *            the change
+         */
+        private synchronized void offer ( final FoodChangedEvent event ) {
+            pending.remove( event.foodId() );
+            pending.put( event.foodId(), event );
+            if ( pending.size() > maxPending ) {
+                requestSnapshot();
+            }
+        }
+
+        /**
+         * Drops the queued changes in favour of a snapshot.
+         */
+        private synchronized void requestSnapshot () {
+            pending.clear();
+            snapshotRequested = true;
+        }
+
+        /**
+         * Returns true if anything is waiting to be sent.
+         *
+         * @return true if a drain is needed
+         */
+        private synchronized boolean hasWork () {
+            return snapshotRequested || !pending.isEmpty() || heartbeatDue;
+        }
+    }
+}
@@ -1,25 +1,37 @@
 package FoodSeer.service.impl;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import FoodSeer.dto.FulfillmentStatusDto;
 import FoodSeer.dto.InventoryDto;
 import FoodSeer.dto.OrderDto;
+import FoodSeer.dto.OrderLineDto;
+import FoodSeer.dto.OrderPageDto;
 import FoodSeer.entity.Food;
 import FoodSeer.entity.Order;
+import FoodSeer.entity.OrderLine;
 import FoodSeer.exception.ResourceNotFoundException;
 import FoodSeer.mapper.OrderMapper;
 import FoodSeer.entity.User;
 import FoodSeer.repositories.FoodRepository;
 import FoodSeer.repositories.OrderRepository;
+import FoodSeer.service.ForecastService;
 import FoodSeer.service.InventoryService;
 import FoodSeer.service.OrderService;
+import FoodSeer.service.ReservationService;
 import FoodSeer.service.UserService;
+import jakarta.transaction.Transactional;
 
 /**
  * Implementation of the OrderService interface for managing food orders.
@@ -27,6 +39,9 @@ import FoodSeer.service.UserService;
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    /** Largest page that getOrdersPage will return */
+    public static final int MAX_PAGE_SIZE = 200;
+
     /** Repository for food items. */
     @Autowired
     private FoodRepository foodRepository;
@@ -43,59 +58,248 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private UserService userService;
 
+    /** Stock held for carts that are not ordered yet. */
+    @Autowired
+    private ReservationService reservationService;
+
+    /** In-memory stock counters, used for orders when enabled. */
+    @Autowired
+    private StockEngine stockEngine;
+
+    /** Writes the guarded stock decrements of orders. */
+    @Autowired
+    private FoodBatchWriter foodBatchWriter;
+
+    /** Demand aggregates, fed with every order placed. */
+    @Autowired
+    private ForecastService forecastService;
+
+    /** Background fulfillment of queued orders. */
+    @Autowired
+    private FulfillmentQueue fulfillmentQueue;
+
     /**
-     * Creates an order with the given information.
+     * Creates an order with the given information. The order's stock is
+     * taken and the order saved in one transaction, so either every line
+     * is deducted or none is.
      *
      * @param orderDto order to create
      * @return created order
      */
     @Override
+    @Transactional
     public OrderDto createOrder(final OrderDto orderDto) {
-        final List<Food> foods = new ArrayList<>();
+        return placeOrder(orderDto, Map.of());
+    }
 
-    // Count how many of each food is in the order
-    Map<Long, Long> foodCounts = orderDto.getFoods().stream()
-        .collect(Collectors.groupingBy(Food::getId, Collectors.counting()));
+    /**
+     * Creates an order from a reservation of the current user. The stock
+     * taken by the order and the order itself are written in one
+     * transaction; the reservation ends either way.
+     *
+     * @param reservationId id of the reservation
+     * @param name name of the order
+     * @return created order
+     */
+    @Override
+    @Transactional
+    public OrderDto createOrderFromReservation(final String reservationId, final String name) {
+        final Map<Long, Long> quantities = reservationService.claim(reservationId);
+        try {
+            final OrderDto orderDto = new OrderDto(0L, name);
+            final List<OrderLineDto> lines = new ArrayList<>();
+            quantities.forEach((foodId, quantity) ->
+                    lines.add(new OrderLineDto(foodId, null, quantity.intValue(), 0)));
+            orderDto.setLines(lines);
+            return placeOrder(orderDto, quantities);
+        } finally {
+            reservationService.release(quantities);
+        }
+    }
 
-    for (Map.Entry<Long, Long> entry : foodCounts.entrySet()) {
-        Long foodId = entry.getKey();
-        Long quantityNeeded = entry.getValue();
+    /**
+     * Takes the order's stock and saves the order. Stock held by active
+     * reservations cannot be ordered, except for the holds passed in. The
+     * order's lines are used when it has any, otherwise its list of foods.
+     *
+     * Each food's stock is taken with one guarded decrement that only
+     * applies while enough unheld stock is left, so concurrent orders never
+     * oversell and never wait on each other unless they share a food. Must
+     * run inside a transaction: if any food is short, the decrements that
+     * did apply are rolled back with it, and stock the engine took is given
+     * back once the rollback completes.
+     *
+     * @param orderDto order to create
+     * @param ownHolds quantities held for this order by food id
+     * @return created order
+     */
+    private OrderDto placeOrder(final OrderDto orderDto, final Map<Long, Long> ownHolds) {
+        final User currentUser = userService.getCurrentUser();
+        if (currentUser == null) {
+            throw new IllegalStateException("No authenticated user found");
+        }
 
-        Food food = foodRepository.findById(foodId)
-                .orElseThrow(() -> new ResourceNotFoundException("Food not found with id " + foodId));
+        // Count how many of each food is in the order, in food id order so
+        // concurrent orders lock the same rows in the same order
+        final Map<Long, Long> foodCounts = countFoods(orderDto);
+
+        // With the stock engine on, stock is taken from its in-memory
+        // counters and written to the foods table behind the order
+        final boolean reserved = stockEngine.isEnabled();
+        if (reserved) {
+            stockEngine.reserve(foodCounts);
+            releaseOnRollback(foodCounts);
+        } else {
+            // Take the stock before the foods are loaded, so they are
+            // read once with their new amounts instead of refreshed
+            takeStock(foodCounts, ownHolds);
+        }
 
-        // Check if enough stock
-        if (food.getAmount() < quantityNeeded) {
-            throw new IllegalArgumentException("Not enough stock for " + food.getFoodName()
-                    + ". Needed: " + quantityNeeded + ", Available: " + food.getAmount());
+        // Load every food of the order in one query
+        final Map<Long, Food> foodsById = new HashMap<>();
+        for (final Food food : foodRepository.findAllById(foodCounts.keySet())) {
+            foodsById.put(food.getId(), food);
         }
 
-        // Deduct stock immediately
-        food.setAmount((int) (food.getAmount() - quantityNeeded));
-        foodRepository.save(food);
+        if (reserved) {
+            // The engine has taken the stock already
+            for (final Map.Entry<Long, Long> entry : foodCounts.entrySet()) {
+                final Food food = foodsById.get(entry.getKey());
+                if (food == null) {
+                    throw new ResourceNotFoundException("Food not found with id " + entry.getKey());
+                }
+                checkUnheld(food, entry.getValue(), stockEngine.available(food.getId()) + entry.getValue(),
+                        ownHolds);
+            }
+        }
 
-        // Add the food multiple times based on quantity
-        for (int i = 0; i < quantityNeeded; i++) {
-            foods.add(food);
+        // Create order with one line per food at its current price
+        final Order order = new Order();
+        order.setName(orderDto.getName());
+        for (final Map.Entry<Long, Long> entry : foodCounts.entrySet()) {
+            final Food food = foodsById.get(entry.getKey());
+            if (food == null) {
+                throw new ResourceNotFoundException("Food not found with id " + entry.getKey());
+            }
+            order.addLine(food, entry.getValue().intValue());
         }
+        order.setIsFulfilled(false);
+        order.setUser(currentUser);
+
+        final Order savedOrder = orderRepository.save(order);
+        forecastService.recordDemand(foodCounts);
+        return OrderMapper.mapToOrderDto(savedOrder);
     }
 
-    // Create order
-    final Order order = new Order();
-    order.setName(orderDto.getName());
-    order.setFoods(foods);
-    order.setIsFulfilled(false);
+    /**
+     * Gives stock taken from the stock engine back if the current
+     * transaction rolls back, including when its commit fails after the
+     * order was placed.
+     *
+     * @param foodCounts quantity taken by food id
+     */
+    private void releaseOnRollback(final Map<Long, Long> foodCounts) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    stockEngine.release(foodCounts);
+                }
+            }
+        });
+    }
 
-    // Assign user
-    final User currentUser = userService.getCurrentUser();
-    if (currentUser == null) {
-        throw new IllegalStateException("No authenticated user found");
+    /**
+     * Returns the quantity of each food in an order, in food id order.
+     *
+     * @param orderDto the order
+     * @return quantity by food id
+     * @throws IllegalArgumentException if a line has no food id or a
+     *         quantity below 1
+     */
+    private Map<Long, Long> countFoods(final OrderDto orderDto) {
+        if (orderDto.getLines() == null || orderDto.getLines().isEmpty()) {
+            return orderDto.getFoods().stream()
+                    .collect(Collectors.groupingBy(Food::getId, TreeMap::new, Collectors.counting()));
+        }
+        final Map<Long, Long> foodCounts = new TreeMap<>();
+        for (final OrderLineDto line : orderDto.getLines()) {
+            if (line.foodId() == null) {
+                throw new IllegalArgumentException("A food id is required.");
+            }
+            if (line.quantity() < 1) {
+                throw new IllegalArgumentException("The quantity must be a positive integer.");
+            }
+            foodCounts.merge(line.foodId(), (long) line.quantity(), Long::sum);
+        }
+        return foodCounts;
     }
-    order.setUser(currentUser);
 
-    final Order savedOrder = orderRepository.save(order);
-    return OrderMapper.mapToOrderDto(savedOrder);
-}
+    /**
+     * Takes an order's stock from the foods table with one guarded
+     * decrement per food, leaving behind the stock other reservations hold.
+     *
+     * @param foodCounts quantity of each food, in food id order
+     * @param ownHolds quantities held for this order by food id
+     * @throws IllegalArgumentException naming every food that is short
+     * @throws ResourceNotFoundException if a food does not exist
+     */
+    private void takeStock(final Map<Long, Long> foodCounts, final Map<Long, Long> ownHolds) {
+        final List<FoodBatchWriter.StockTake> takes = new ArrayList<>(foodCounts.size());
+        for (final Map.Entry<Long, Long> entry : foodCounts.entrySet()) {
+            takes.add(new FoodBatchWriter.StockTake(entry.getKey(), entry.getValue(),
+                    heldByOthers(entry.getKey(), ownHolds)));
+        }
+
+        final FoodBatchWriter.AmountChanges changes = foodBatchWriter.takeFromAmounts(takes);
+        final List<String> shortages = new ArrayList<>();
+        for (int i = 0; i < takes.size(); i++) {
+            if (changes.updateCounts()[i] > 0) {
+                continue;
+            }
+            final FoodBatchWriter.StockTake take = takes.get(i);
+            final FoodRepository.FoodSummaryView food = changes.foods().get(take.foodId());
+            if (food == null) {
+                throw new ResourceNotFoundException("Food not found with id " + take.foodId());
+            }
+            shortages.add("Not enough stock for " + food.getFoodName() + ". Needed: " + take.quantity()
+                    + ", Available: " + Math.max(food.getAmount() - take.keep(), 0));
+        }
+        if (!shortages.isEmpty()) {
+            throw new IllegalArgumentException(String.join(" ", shortages));
+        }
+    }
+
+    /**
+     * Returns the quantity of a food held by reservations other than this
+     * order's own.
+     *
+     * @param foodId the food id
+     * @param ownHolds quantities held for this order by food id
+     * @return the quantity, never negative
+     */
+    private long heldByOthers(final Long foodId, final Map<Long, Long> ownHolds) {
+        return Math.max(reservationService.heldQuantity(foodId) - ownHolds.getOrDefault(foodId, 0L), 0);
+    }
+
+    /**
+     * Checks that enough stock of a food is left once the quantities held
+     * by other reservations are set aside.
+     *
+     * @param food the food
+     * @param quantityNeeded quantity the order takes
+     * @param amount stock of the food before the order
+     * @param ownHolds quantities held for this order by food id
+     * @throws IllegalArgumentException if there is not enough stock
+     */
+    private void checkUnheld(final Food food, final long quantityNeeded, final long amount,
+            final Map<Long, Long> ownHolds) {
+        final long available = amount - heldByOthers(food.getId(), ownHolds);
+        if (available < quantityNeeded) {
+            throw new IllegalArgumentException("Not enough stock for " + food.getFoodName()
+                    + ". Needed: " + quantityNeeded + ", Available: " + Math.max(available, 0));
+        }
+    }
 
     /**
      * Returns the order with the given id.
@@ -133,14 +337,10 @@ public class OrderServiceImpl implements OrderService {
         final Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order does not exist with id " + orderId));
 
-        // Count how many of each food is in the order
-        final Map<Long, Long> foodCounts = order.getFoods().stream()
-                .collect(Collectors.groupingBy(Food::getId, Collectors.counting()));
-
-        // Check inventory and deduct quantities
-        for (final Map.Entry<Long, Long> entry : foodCounts.entrySet()) {
-            final Long foodId = entry.getKey();
-            final Long quantityNeeded = entry.getValue();
+        // Check inventory and deduct each line's quantity
+        for (final OrderLine line : order.getLines()) {
+            final Long foodId = line.getFoodId();
+            final int quantityNeeded = line.getQuantity();
             
             final Food food = foodRepository.findById(foodId)
                     .orElseThrow(() -> new ResourceNotFoundException("Food not found with id " + foodId));
@@ -151,9 +351,10 @@ public class OrderServiceImpl implements OrderService {
                         + ". Need: " + quantityNeeded + ", Available: " + food.getAmount());
             }
             
-            // Deduct from inventory
-            food.setAmount((int) (food.getAmount() - quantityNeeded));
-            foodRepository.save(food);
+            // Deduct from inventory; flushing publishes the stock change so
+            // cached catalog entries for this food are dropped right away
+            food.setAmount(food.getAmount() - quantityNeeded);
+            foodRepository.saveAndFlush(food);
         }
 
         order.setIsFulfilled(true);
@@ -161,6 +362,47 @@ public class OrderServiceImpl implements OrderService {
         return OrderMapper.mapToOrderDto(savedOrder);
     }
 
+    /**
+     * Checks whether an order is fulfilled by reading only that column.
+     *
+     * @param orderId the order id
+     * @return true if the order is fulfilled
+     * @throws ResourceNotFoundException if the order doesn't exist
+     */
+    @Override
+    public boolean isOrderFulfilled(final Long orderId) {
+        return orderRepository.findIsFulfilledById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order does not exist with id " + orderId));
+    }
+
+    /**
+     * Queues an order for fulfillment. The order is checked again when a
+     * worker picks it up, so a request for an order that is fulfilled in
+     * the meantime just fails.
+     *
+     * @param orderId the order id
+     * @return the status of the request
+     */
+    @Override
+    public FulfillmentStatusDto requestFulfillment(final long orderId) {
+        if (isOrderFulfilled(orderId)) {
+            throw new IllegalArgumentException("The order has already been fulfilled.");
+        }
+        return fulfillmentQueue.submit(orderId);
+    }
+
+    /**
+     * Returns the status of the latest fulfillment request for an order.
+     *
+     * @param orderId the order id
+     * @return the status
+     */
+    @Override
+    public FulfillmentStatusDto getFulfillmentStatus(final long orderId) {
+        return fulfillmentQueue.status(orderId).orElseThrow(
+                () -> new ResourceNotFoundException("No fulfillment request for order with id " + orderId));
+    }
+
     /**
      * Checks if all ingredients/foods for an order item are available.
      *
@@ -201,8 +443,8 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public List<OrderDto> getAllFulfilledOrders() {
-        return getAllOrders().stream()
-                .filter(OrderDto::getIsFulfilled)
+        return orderRepository.findByIsFulfilledOrderByIdAsc(true).stream()
+                .map(OrderMapper::mapToOrderDto)
                 .collect(Collectors.toList());
     }
 
@@ -213,8 +455,8 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public List<OrderDto> getAllUnfulfilledOrders() {
-        return getAllOrders().stream()
-                .filter(o -> !o.getIsFulfilled())
+        return orderRepository.findByIsFulfilledOrderByIdAsc(false).stream()
+                .map(OrderMapper::mapToOrderDto)
                 .collect(Collectors.toList());
     }
 
@@ -265,4 +507,80 @@ public class OrderServiceImpl implements OrderService {
         final List<Order> orders = orderRepository.findByUserAndIsFulfilled(currentUser, false);
         return orders.stream().map(OrderMapper::mapToOrderDto).collect(Collectors.toList());
     }
+
+    /**
+     * Returns one page of orders, oldest first. The page's ids are read
+     * from an index first, then its orders are loaded with their lines in
+     * one query.
+     *
+     * @param isFulfilled fulfilment state to match, or null for all orders
+     * @param after id of the last order already seen, or null
+     * @param limit largest number of orders to return
+     * @return the page
+     */
+    @Override
+    public OrderPageDto getOrdersPage(final Boolean isFulfilled, final Long after, final int limit) {
+        final int pageSize = pageSize(limit);
+        final long cursor = after == null ? 0L : after;
+        final PageRequest page = PageRequest.of(0, pageSize);
+        final List<Long> ids = isFulfilled == null
+                ? orderRepository.findPageIdsAfter(cursor, page)
+                : orderRepository.findPageIdsByFulfilledAfter(isFulfilled, cursor, page);
+        return toPage(ids, pageSize);
+    }
+
+    /**
+     * Returns one page of the current user's orders, oldest first.
+     *
+     * @param isFulfilled fulfilment state to match, or null for all orders
+     * @param after id of the last order already seen, or null
+     * @param limit largest number of orders to return
+     * @return the page
+     */
+    @Override
+    public OrderPageDto getCurrentUserOrdersPage(final Boolean isFulfilled, final Long after, final int limit) {
+        final int pageSize = pageSize(limit);
+        final User currentUser = userService.getCurrentUser();
+        if (currentUser == null) {
+            throw new IllegalStateException("No authenticated user found");
+        }
+        final long cursor = after == null ? 0L : after;
+        final PageRequest page = PageRequest.of(0, pageSize);
+        final List<Long> ids = isFulfilled == null
+                ? orderRepository.findPageIdsByUserAfter(currentUser, cursor, page)
+                : orderRepository.findPageIdsByUserAndFulfilledAfter(currentUser, isFulfilled, cursor, page);
+        return toPage(ids, pageSize);
+    }
+
+    /**
+     * Checks a requested page limit and caps it at MAX_PAGE_SIZE.
+     *
+     * @param limit the requested limit
+     * @return the page size
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    private static int pageSize(final int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("The page limit must be a positive integer.");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Loads the orders of a page of ids.
+     *
+     * @param ids the ids on the page, in order
+     * @param pageSize the page size
+     * @return the page, with a next cursor if the page is full
+     */
+    private OrderPageDto toPage(final List<Long> ids, final int pageSize) {
+        if (ids.isEmpty()) {
+            return new OrderPageDto(new ArrayList<>(), null);
+        }
+        final List<OrderDto> orders = orderRepository.findAllWithLinesByIdIn(ids).stream()
+                .map(OrderMapper::mapToOrderDto)
+                .collect(Collectors.toList());
+        final Long nextCursor = ids.size() < pageSize ? null : ids.get(ids.size() - 1);
+        return new OrderPageDto(orders, nextCursor);
+    }
 }
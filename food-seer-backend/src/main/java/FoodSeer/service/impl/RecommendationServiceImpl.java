@@ -0,0 +1,300 @@
+package FoodSeer.service.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import FoodSeer.dto.FoodDto;
+import FoodSeer.entity.Allergen;
+import FoodSeer.entity.Food;
+import FoodSeer.entity.FoodChangedEvent;
+import FoodSeer.entity.User;
+import FoodSeer.mapper.FoodMapper;
+import FoodSeer.repositories.FoodRepository;
+import FoodSeer.service.RecommendationService;
+import FoodSeer.service.UserService;
+import jakarta.transaction.Transactional;
+
+/**
+ * Implementation of the RecommendationService interface.
+ *
+ * Keeps an in-memory index of in-stock foods sorted by price, each with its
+ * precomputed allergen mask. A recommendation walks the part of the index
+ * under the user's budget and keeps the foods whose mask does not intersect
+ * the user's restrictions, stopping as soon as it has enough. Only the
+ * chosen foods are then loaded from the database.
+ *
+ * The index is loaded on first use and kept current through
+ * FoodChangedEvents; a RESET drops it so it is reloaded.
+ */
+@Service
+public class RecommendationServiceImpl implements RecommendationService {
+
+    /** Largest number of recommendations returned at once */
+    public static final int                    MAX_LIMIT = 100;
+
+    /** Repository used to load the index and the chosen foods */
+    private final FoodRepository               foodRepository;
+
+    /** User service for getting the current user */
+    private final UserService                  userService;
+
+    /** In-stock foods ordered by price, then id */
+    private final NavigableSet<Candidate>      byPrice   = new ConcurrentSkipListSet<>( Candidate.ORDER );
+
+    /** In-stock foods by id, used to find a food's current index entry */
+    private final Map<Long, Candidate>         byId      = new ConcurrentHashMap<>();
+
+    /** Whether the index has been loaded from the database */
+    private volatile boolean                   loaded;
+
+    /**
+     * Creates the recommendation service.
+     *
+     * @param foodRepository
+     *            repository for foods
+     * @param userService
+     *            user service for getting the current user
+     */
+    public RecommendationServiceImpl ( final FoodRepository foodRepository, final UserService userService ) {
+        this.foodRepository = foodRepository;
+        this.userService = userService;
+    }
+
+    /**
+     * Returns recommendations for the current user's stored preferences.
+     *
+     * @param limit
+     *            maximum number of foods to return
+     * @return recommended foods
+     */
+    @Override
+    @Transactional
+    public List<FoodDto> recommendForCurrentUser ( final int limit ) {
+        final User currentUser = userService.getCurrentUser();
+        if ( currentUser == null ) {
+            throw new IllegalStateException( "No authenticated user found" );
+        }
+        return recommend( currentUser.getCostPreference(), currentUser.getDietaryRestrictions(), limit );
+    }
+
+    /**
+     * Returns recommendations for the given preferences.
+     *
+     * @param costPreference
+     *            budget, moderate, premium or no-limit
+     * @param dietaryRestrictions
+     *            comma-separated allergies to avoid
+     * @param limit
+     *            maximum number of foods to return, capped at MAX_LIMIT
+     * @return recommended foods, cheapest first
+     * @throws IllegalArgumentException
+     *             if limit is not positive
+     */
+    @Override
+    @Transactional
+    public List<FoodDto> recommend ( final String costPreference, final String dietaryRestrictions,
+            final int limit ) {
+        if ( limit < 1 ) {
+            throw new IllegalArgumentException( "The recommendation limit must be a positive integer." );
+        }
+        final int wanted = Math.min( limit, MAX_LIMIT );
+        final List<String> restrictions = parseRestrictions( dietaryRestrictions );
+        final long avoidMask = Allergen.maskOf( restrictions );
+        final List<String> unknown = Allergen.unknownNames( restrictions );
+
+        ensureLoaded();
+        final Integer maxPrice = maxPriceFor( costPreference );
+        final NavigableSet<Candidate> affordable = maxPrice == null ? byPrice
+                : byPrice.headSet( new Candidate( Long.MAX_VALUE, maxPrice, 0L ), true );
+
+        final List<FoodDto> result = new ArrayList<>( wanted );
+        final List<Long> batch = new ArrayList<>( wanted );
+        for ( final Candidate candidate : affordable ) {
+            if ( !Allergen.isSafe( candidate.allergenMask(), avoidMask ) ) {
+                continue;
+            }
+            batch.add( candidate.id() );
+            if ( result.size() + batch.size() == wanted ) {
+                addLoaded( batch, unknown, result );
+                batch.clear();
+                if ( result.size() == wanted ) {
+                    break;
+                }
+            }
+        }
+        addLoaded( batch, unknown, result );
+        return result;
+    }
+
+    /**
+     * Keeps the index in step with food writes.
+     *
+     * @param event
+     *            the food change
+     */
+    @EventListener
+    public synchronized void onFoodChanged ( final FoodChangedEvent event ) {
+        switch ( event.type() ) {
+            case PERSISTED:
+            case UPDATED:
+                remove( event.foodId() );
+                if ( event.amount() > 0 ) {
+                    add( new Candidate( event.foodId(), event.price(), event.allergenMask() ) );
+                }
+                break;
+            case REMOVED:
+                remove( event.foodId() );
+                break;
+            case RESET:
+            default:
+                loaded = false;
+                byPrice.clear();
+                byId.clear();
+                break;
+        }
+    }
+
+    /**
+     * Returns the highest price allowed by a cost preference.
+     *
+     * @param costPreference
+     *            the cost preference
+     * @return the price cap, or null for no cap
+     */
+    static Integer maxPriceFor ( final String costPreference ) {
+        if ( costPreference == null ) {
+            return null;
+        }
+        switch ( costPreference.trim().toLowerCase( Locale.ROOT ) ) {
+            case "budget":
+                return 10;
+            case "moderate":
+                return 20;
+            case "premium":
+                return 35;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Splits stored dietary restrictions into names. Accepts both the
+     * comma-separated form saved by the preferences page and a JSON array
+     * string.
+     *
+     * @param dietaryRestrictions
+     *            the stored restrictions
+     * @return the restriction names
+     */
+    static List<String> parseRestrictions ( final String dietaryRestrictions ) {
+        final List<String> names = new ArrayList<>();
+        if ( dietaryRestrictions == null ) {
+            return names;
+        }
+        for ( final String part : dietaryRestrictions.replaceAll( "[\\[\\]\"]", "" ).split( "," ) ) {
+            if ( !part.isBlank() ) {
+                names.add( part.trim() );
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Loads the foods with the given ids and appends, in id list order,
+     * those whose allergy names avoid every unknown restriction.
+     *
+     * @param ids
+     *            ids of the chosen foods
+     * @param unknown
+     *            upper-case restrictions outside the allergen dictionary
+     * @param result
+     *            list to append to
+     */
+    private void addLoaded ( final List<Long> ids, final List<String> unknown, final List<FoodDto> result ) {
+        if ( ids.isEmpty() ) {
+            return;
+        }
+        final Map<Long, Food> foods = foodRepository.findAllById( ids ).stream()
+                .collect( Collectors.toMap( Food::getId, Function.identity() ) );
+        for ( final Long id : ids ) {
+            final Food food = foods.get( id );
+            if ( food != null && ( unknown.isEmpty() || food.getAllergies().stream()
+                    .noneMatch( a -> a != null && unknown.contains( a.trim().toUpperCase( Locale.ROOT ) ) ) ) ) {
+                result.add( FoodMapper.mapToFoodDto( food ) );
+            }
+        }
+    }
+
+    /**
+     * Loads the index from the database if needed.
+     */
+    private void ensureLoaded () {
+        if ( loaded ) {
+            return;
+        }
+        synchronized ( this ) {
+            if ( !loaded ) {
+                for ( final FoodRepository.FoodSummaryView view : foodRepository.findInStockSummaries() ) {
+                    remove( view.getId() );
+                    add( new Candidate( view.getId(), view.getPrice(), view.getAllergenMask() ) );
+                }
+                loaded = true;
+            }
+        }
+    }
+
+    /**
+     * Adds an index entry.
+     *
+     * @param candidate
+     *            the entry
+     */
+    private void add ( final Candidate candidate ) {
+        byId.put( candidate.id(), candidate );
+        byPrice.add( candidate );
+    }
+
+    /**
+     * Removes the index entry for a food, if any.
+     *
+     * @param id
+     *            the food id
+     */
+    private void remove ( final Long id ) {
+        if ( id == null ) {
+            return;
+        }
+        final Candidate old = byId.remove( id );
+        if ( old != null ) {
+            byPrice.remove( old );
+        }
+    }
+
+    /**
+     * An in-stock food in the price index.
+     *
+     * @param id
+     *            food id
+     * @param price
+     *            food price
+     * @param allergenMask
+     *            food allergen mask
+     */
+    record Candidate ( long id, int price, long allergenMask ) {
+
+        /** Orders candidates by price, then id */
+        static final Comparator<Candidate> ORDER = Comparator.comparingInt( Candidate::price )
+                .thenComparingLong( Candidate::id );
+    }
+}
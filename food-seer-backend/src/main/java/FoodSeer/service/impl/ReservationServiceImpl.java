@@ -0,0 +1,393 @@
+package FoodSeer.service.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.ReservationDto;
+import FoodSeer.dto.ReservationItemDto;
+import FoodSeer.entity.User;
+import FoodSeer.exception.ResourceNotFoundException;
+import FoodSeer.service.ReservationService;
+import FoodSeer.service.UserService;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory implementation of ReservationService.
+ *
+ * Each food has one counter of the quantity held for it. A reservation is
+ * checked and taken with a compare-and-set against the food's stock from
+ * the catalog cache (or the stock engine when it is enabled), so holding
+ * stock costs no database lock and no query on a cache hit. Reservations
+ * are kept in a delay queue ordered by expiry; one daemon thread takes
+ * each reservation as it expires and releases its holds. Whoever removes a
+ * reservation from the active map first, expiry or the customer, releases
+ * it, so it is never released twice; a reservation that has already ended
+ * is skipped when its expiry comes up.
+ *
+ * Reservations live only in memory and are lost on restart, which releases
+ * them.
+ */
+@Service
+public class ReservationServiceImpl implements ReservationService {
+
+    /** Stock of foods, read when checking a reservation */
+    private final FoodCatalogCache          foodCatalogCache;
+
+    /** In-memory stock counters, used as the stock when enabled */
+    private final StockEngine               stockEngine;
+
+    /** Service used to find the current user */
+    private final UserService               userService;
+
+    /** How long a reservation holds its stock, in milliseconds */
+    private final long                      ttlMillis;
+
+    /** Largest number of active reservations */
+    private final int                       maxActive;
+
+    /** Quantity held by active reservations by food id */
+    private final Map<Long, AtomicLong>     held         = new ConcurrentHashMap<>();
+
+    /** Active reservations by id */
+    private final Map<String, Reservation>  reservations = new ConcurrentHashMap<>();
+
+    /** Active reservations by expiry */
+    private final DelayQueue<Reservation>   expiries     = new DelayQueue<>();
+
+    /** Releases expired reservations */
+    private final Thread                    expiryThread;
+
+    /**
+     * Creates the service and starts the expiry thread.
+     *
+     * @param foodCatalogCache
+     *            cache the stock of foods is read from
+     * @param stockEngine
+     *            in-memory stock counters
+     * @param userService
+     *            service used to find the current user
+     * @param ttlSeconds
+     *            how long a reservation holds its stock, in seconds
+     * @param maxActive
+     *            largest number of active reservations
+     */
+    public ReservationServiceImpl ( final FoodCatalogCache foodCatalogCache, final StockEngine stockEngine,
+            final UserService userService, @Value ( "${app.reservations.ttl-seconds:600}" ) final long ttlSeconds,
+            @Value ( "${app.reservations.max-active:10000}" ) final int maxActive ) {
+        this.foodCatalogCache = foodCatalogCache;
+        this.stockEngine = stockEngine;
+        this.userService = userService;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis( ttlSeconds );
+        this.maxActive = maxActive;
+
+        expiryThread = new Thread( this::expire, "stock-reservation-expiry" );
+        expiryThread.setDaemon( true );
+        expiryThread.start();
+    }
+
+    /**
+     * Holds the given quantities for the current user, all or nothing.
+     *
+     * @param items
+     *            the quantities to hold
+     * @return the reservation
+     */
+    @Override
+    public ReservationDto reserve ( final List<ReservationItemDto> items ) {
+        final String owner = currentUsername();
+        if ( items == null || items.isEmpty() ) {
+            throw new IllegalArgumentException( "A reservation must hold at least one item." );
+        }
+        if ( items.size() > MAX_ITEMS ) {
+            throw new IllegalArgumentException( "At most " + MAX_ITEMS + " items can be reserved at once." );
+        }
+        final Map<Long, Long> quantities = new LinkedHashMap<>();
+        for ( final ReservationItemDto item : items ) {
+            if ( item == null || item.foodId() == null ) {
+                throw new IllegalArgumentException( "A food id is required." );
+            }
+            if ( item.quantity() == null || item.quantity() < 1 ) {
+                throw new IllegalArgumentException( "The quantity must be a positive integer." );
+            }
+            quantities.merge( item.foodId(), (long) item.quantity(), Long::sum );
+        }
+        if ( reservations.size() >= maxActive ) {
+            throw new IllegalStateException( "Too many active reservations." );
+        }
+
+        final Map<Long, Long> taken = new LinkedHashMap<>();
+        try {
+            for ( final Map.Entry<Long, Long> entry : quantities.entrySet() ) {
+                hold( entry.getKey(), entry.getValue() );
+                taken.put( entry.getKey(), entry.getValue() );
+            }
+        }
+        catch ( final RuntimeException e ) {
+            unhold( taken );
+            throw e;
+        }
+
+        final Reservation reservation = new Reservation( UUID.randomUUID().toString(), owner, quantities,
+                System.currentTimeMillis() + ttlMillis );
+        reservations.put( reservation.id, reservation );
+        expiries.add( reservation );
+        return reservation.toDto();
+    }
+
+    /**
+     * Returns a reservation of the current user.
+     *
+     * @param reservationId
+     *            the reservation id
+     * @return the reservation
+     */
+    @Override
+    public ReservationDto getReservation ( final String reservationId ) {
+        return find( reservationId ).toDto();
+    }
+
+    /**
+     * Cancels a reservation of the current user.
+     *
+     * @param reservationId
+     *            the reservation id
+     */
+    @Override
+    public void cancel ( final String reservationId ) {
+        final Reservation reservation = remove( reservationId );
+        unhold( reservation.quantities );
+    }
+
+    /**
+     * Ends a reservation of the current user, keeping its holds.
+     *
+     * @param reservationId
+     *            the reservation id
+     * @return the held quantity by food id
+     */
+    @Override
+    public Map<Long, Long> claim ( final String reservationId ) {
+        return remove( reservationId ).quantities;
+    }
+
+    /**
+     * Releases claimed quantities, after the current transaction if there
+     * is one.
+     *
+     * @param quantities
+     *            the quantities by food id
+     */
+    @Override
+    public void release ( final Map<Long, Long> quantities ) {
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+                @Override
+                public void afterCompletion ( final int status ) {
+                    unhold( quantities );
+                }
+            } );
+        }
+        else {
+            unhold( quantities );
+        }
+    }
+
+    /**
+     * Returns the quantity of a food held by active reservations.
+     *
+     * @param foodId
+     *            the food id
+     * @return the held quantity
+     */
+    @Override
+    public long heldQuantity ( final Long foodId ) {
+        final AtomicLong counter = held.get( foodId );
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * Stops the expiry thread.
+     */
+    @PreDestroy
+    public void shutdown () {
+        expiryThread.interrupt();
+    }
+
+    /**
+     * Holds a quantity of one food if enough unheld stock is left.
+     *
+     * @param foodId
+     *            the food id
+     * @param quantity
+     *            the quantity to hold
+     */
+    private void hold ( final Long foodId, final long quantity ) {
+        final FoodDto food = foodCatalogCache.getFood( foodId )
+                .orElseThrow( () -> new ResourceNotFoundException( "Food does not exist with id " + foodId ) );
+        final long stock = stockEngine.isEnabled() ? stockEngine.available( foodId ) : food.getAmount();
+        final AtomicLong counter = held.computeIfAbsent( foodId, id -> new AtomicLong() );
+        while ( true ) {
+            final long current = counter.get();
+            if ( current + quantity > stock ) {
+                throw new IllegalArgumentException( "Not enough stock for " + food.getFoodName() + ". Needed: "
+                        + quantity + ", Available: " + Math.max( stock - current, 0 ) );
+            }
+            if ( counter.compareAndSet( current, current + quantity ) ) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drops holds.
+     *
+     * @param quantities
+     *            the held quantity by food id
+     */
+    private void unhold ( final Map<Long, Long> quantities ) {
+        quantities.forEach( ( foodId, quantity ) -> {
+            final AtomicLong counter = held.get( foodId );
+            if ( counter != null ) {
+                counter.addAndGet( -quantity );
+            }
+        } );
+    }
+
+    /**
+     * Returns an active reservation of the current user.
+     *
+     * @param reservationId
+     *            the reservation id
+     * @return the reservation
+     */
+    private Reservation find ( final String reservationId ) {
+        final String owner = currentUsername();
+        final Reservation reservation = reservationId == null ? null : reservations.get( reservationId );
+        if ( reservation == null || !reservation.owner.equals( owner ) ) {
+            throw new ResourceNotFoundException( "Reservation does not exist with id " + reservationId );
+        }
+        return reservation;
+    }
+
+    /**
+     * Removes an active reservation of the current user.
+     *
+     * @param reservationId
+     *            the reservation id
+     * @return the removed reservation, whose holds the caller now owns
+     */
+    private Reservation remove ( final String reservationId ) {
+        final Reservation reservation = find( reservationId );
+        if ( !reservations.remove( reservationId, reservation ) ) {
+            throw new ResourceNotFoundException( "Reservation does not exist with id " + reservationId );
+        }
+        return reservation;
+    }
+
+    /**
+     * Releases reservations as they expire, until interrupted.
+     */
+    private void expire () {
+        while ( !Thread.currentThread().isInterrupted() ) {
+            try {
+                final Reservation reservation = expiries.take();
+                if ( reservations.remove( reservation.id, reservation ) ) {
+                    unhold( reservation.quantities );
+                }
+            }
+            catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the current user.
+     *
+     * @return the username
+     * @throws IllegalStateException
+     *             if no user is logged in
+     */
+    private String currentUsername () {
+        final User user = userService.getCurrentUser();
+        if ( user == null ) {
+            throw new IllegalStateException( "No authenticated user found" );
+        }
+        return user.getUsername();
+    }
+
+    /**
+     * An active reservation.
+     */
+    private static final class Reservation implements Delayed {
+
+        /** Reservation id */
+        private final String          id;
+
+        /** Username of the customer it belongs to */
+        private final String          owner;
+
+        /** Held quantity by food id */
+        private final Map<Long, Long> quantities;
+
+        /** Expiry time, in epoch milliseconds */
+        private final long            expiresAt;
+
+        /**
+         * Creates a reservation.
+         *
+         * @param id
+         *            reservation id
+         * @param owner
+         *            username of the customer it belongs to
+         * @param quantities
+         *            held quantity by food id
+         * @param expiresAt
+         *            expiry time, in epoch milliseconds
+         */
+        private Reservation ( final String id, final String owner, final Map<Long, Long> quantities,
+                final long expiresAt ) {
+            this.id = id;
+            this.owner = owner;
+            this.quantities = quantities;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Returns the reservation as a DTO.
+         *
+         * @return the DTO
+         */
+        private ReservationDto toDto () {
+            final List<ReservationItemDto> items = new ArrayList<>( quantities.size() );
+            quantities.forEach( ( foodId, quantity ) -> items.add( new ReservationItemDto( foodId,
+                    quantity.intValue() ) ) );
+            return new ReservationDto( id, items, Instant.ofEpochMilli( expiresAt ) );
+        }
+
+        @Override
+        public long getDelay ( final TimeUnit unit ) {
+            return unit.convert( expiresAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS );
+        }
+
+        @Override
+        public int compareTo ( final Delayed other ) {
+            return Long.compare( getDelay( TimeUnit.MILLISECONDS ), other.getDelay( TimeUnit.MILLISECONDS ) );
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package FoodSeer.service.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import FoodSeer.dto.RestockResultDto;
+
+/**
+ * Parsed restock manifest: the total quantity per food id.
+ *
+ * A manifest is plain text with one "foodId,quantity" line per delivery
+ * (quantity may be negative), an optional header line and blank lines.
+ * Lines are read straight from the bytes of the buffer, which is normally
+ * a memory-mapped file, so no String or boxed number is created per line.
+ * Totals are kept in an open-addressing table of primitive arrays keyed by
+ * food id, which only grows with the number of distinct foods.
+ */
+final class RestockManifest {
+
+    /** Marks an empty slot; food ids are positive */
+    private static final long EMPTY            = 0L;
+
+    /** Largest number of digits read for a food id */
+    private static final int  MAX_ID_DIGITS    = 18;
+
+    /** Largest number of digits read for a quantity */
+    private static final int  MAX_QTY_DIGITS   = 9;
+
+    /** Food id of each slot */
+    private long[]            keys             = new long[1024];
+
+    /** Total quantity of each slot */
+    private long[]            totals           = new long[1024];
+
+    /** Number of lines of each slot */
+    private long[]            lineCounts       = new long[1024];
+
+    /** First line of each slot */
+    private long[]            firstLines       = new long[1024];
+
+    /** Number of used slots */
+    private int               size;
+
+    /** Number of non-blank lines read, header excluded */
+    private long              lines;
+
+    /** Number of lines that could not be read */
+    private long              unreadable;
+
+    /** Unreadable lines, up to MAX_REPORTED_ERRORS */
+    private final List<RestockResultDto.LineError> errors = new ArrayList<>();
+
+    /**
+     * Creates an empty manifest; use parse.
+     */
+    private RestockManifest () {
+    }
+
+    /**
+     * Reads a manifest from the buffer's position to its limit.
+     *
+     * @param buffer
+     *            the manifest bytes
+     * @return the totals per food
+     */
+    static RestockManifest parse ( final ByteBuffer buffer ) {
+        final RestockManifest manifest = new RestockManifest();
+        final int limit = buffer.limit();
+        int start = buffer.position();
+        long lineNumber = 0;
+        while ( start < limit ) {
+            lineNumber++;
+            int newline = start;
+            while ( newline < limit && buffer.get( newline ) != '\n' ) {
+                newline++;
+            }
+            int end = newline;
+            if ( end > start && buffer.get( end - 1 ) == '\r' ) {
+                end--;
+            }
+            manifest.readLine( buffer, start, end, lineNumber );
+            start = newline + 1;
+        }
+        return manifest;
+    }
+
+    /**
+     * Reads one line and adds its quantity to its food.
+     *
+     * @param buffer
+     *            the manifest bytes
+     * @param start
+     *            index of the first byte of the line
+     * @param end
+     *            index after the last byte of the line
+     * @param lineNumber
+     *            1-based line number
+     */
+    private void readLine ( final ByteBuffer buffer, final int start, final int end, final long lineNumber ) {
+        int i = skipBlanks( buffer, start, end );
+        if ( i == end ) {
+            return;
+        }
+        if ( lineNumber == 1 && !isDigit( buffer.get( i ) ) ) {
+            // header
+            return;
+        }
+        lines++;
+
+        long foodId = 0;
+        final int idStart = i;
+        while ( i < end && isDigit( buffer.get( i ) ) && i - idStart < MAX_ID_DIGITS ) {
+            foodId = foodId * 10 + ( buffer.get( i ) - '0' );
+            i++;
+        }
+        if ( i == idStart || foodId == EMPTY ) {
+            reject( lineNumber, null, "The line could not be read." );
+            return;
+        }
+        i = skipBlanks( buffer, i, end );
+        if ( i == end || buffer.get( i ) != ',' ) {
+            reject( lineNumber, foodId, "The line could not be read." );
+            return;
+        }
+        i = skipBlanks( buffer, i + 1, end );
+
+        boolean negative = false;
+        if ( i < end && ( buffer.get( i ) == '-' || buffer.get( i ) == '+' ) ) {
+            negative = buffer.get( i ) == '-';
+            i++;
+        }
+        long quantity = 0;
+        final int quantityStart = i;
+        while ( i < end && isDigit( buffer.get( i ) ) && i - quantityStart < MAX_QTY_DIGITS ) {
+            quantity = quantity * 10 + ( buffer.get( i ) - '0' );
+            i++;
+        }
+        if ( i == quantityStart || skipBlanks( buffer, i, end ) != end ) {
+            reject( lineNumber, foodId, "The line could not be read." );
+            return;
+        }
+        if ( quantity == 0 ) {
+            reject( lineNumber, foodId, "The quantity must be a non-zero integer." );
+            return;
+        }
+        add( foodId, negative ? -quantity : quantity, lineNumber );
+    }
+
+    /**
+     * Adds a line's quantity to the total of its food.
+     *
+     * @param foodId
+     *            the food id
+     * @param quantity
+     *            the quantity
+     * @param lineNumber
+     *            the line number
+     */
+    private void add ( final long foodId, final long quantity, final long lineNumber ) {
+        if ( ( size + 1 ) * 4 > keys.length * 3 ) {
+            grow();
+        }
+        final int slot = slotOf( keys, foodId );
+        if ( keys[slot] == EMPTY ) {
+            keys[slot] = foodId;
+            firstLines[slot] = lineNumber;
+            size++;
+        }
+        totals[slot] += quantity;
+        lineCounts[slot]++;
+    }
+
+    /**
+     * Doubles the table.
+     */
+    private void grow () {
+        final long[] oldKeys = keys;
+        final long[] oldTotals = totals;
+        final long[] oldLineCounts = lineCounts;
+        final long[] oldFirstLines = firstLines;
+        keys = new long[oldKeys.length * 2];
+        totals = new long[keys.length];
+        lineCounts = new long[keys.length];
+        firstLines = new long[keys.length];
+        for ( int i = 0; i < oldKeys.length; i++ ) {
+            if ( oldKeys[i] != EMPTY ) {
+                final int slot = slotOf( keys, oldKeys[i] );
+                keys[slot] = oldKeys[i];
+                totals[slot] = oldTotals[i];
+                lineCounts[slot] = oldLineCounts[i];
+                firstLines[slot] = oldFirstLines[i];
+            }
+        }
+    }
+
+    /**
+     * Finds the slot of a food id, or the empty slot where it belongs.
+     *
+     * @param table
+     *            the key table, whose length is a power of two
+     * @param foodId
+     *            the food id
+     * @return the slot
+     */
+    private static int slotOf ( final long[] table, final long foodId ) {
+        final int mask = table.length - 1;
+        final long hash = foodId * 0x9E3779B97F4A7C15L;
+        int slot = (int) ( hash ^ ( hash >>> 32 ) ) & mask;
+        while ( table[slot] != EMPTY && table[slot] != foodId ) {
+            slot = ( slot + 1 ) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Records an unreadable line.
+     *
+     * @param lineNumber
+     *            the line number
+     * @param foodId
+     *            the food id, or null if it could not be read
+     * @param message
+     *            why the line was rejected
+     */
+    private void reject ( final long lineNumber, final Long foodId, final String message ) {
+        unreadable++;
+        if ( errors.size() < RestockResultDto.MAX_REPORTED_ERRORS ) {
+            errors.add( new RestockResultDto.LineError( lineNumber, foodId, 1, message ) );
+        }
+    }
+
+    /**
+     * Returns the index of the first byte that is not a space or tab.
+     *
+     * @param buffer
+     *            the manifest bytes
+     * @param i
+     *            index to start at
+     * @param end
+     *            index after the last byte of the line
+     * @return the index, or end
+     */
+    private static int skipBlanks ( final ByteBuffer buffer, int i, final int end ) {
+        while ( i < end && ( buffer.get( i ) == ' ' || buffer.get( i ) == '\t' ) ) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns true for an ASCII digit.
+     *
+     * @param b
+     *            the byte
+     * @return true if it is a digit
+     */
+    private static boolean isDigit ( final byte b ) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Calls the visitor with each food's total, in no particular order.
+     *
+     * @param visitor
+     *            the visitor
+     */
+    void forEachTotal ( final TotalVisitor visitor ) {
+        for ( int i = 0; i < keys.length; i++ ) {
+            if ( keys[i] != EMPTY ) {
+                visitor.visit( keys[i], totals[i], lineCounts[i], firstLines[i] );
+            }
+        }
+    }
+
+    /**
+     * Returns the number of distinct foods.
+     *
+     * @return the number of foods
+     */
+    int foods () {
+        return size;
+    }
+
+    /**
+     * Returns the number of non-blank lines read, header excluded.
+     *
+     * @return the number of lines
+     */
+    long lines () {
+        return lines;
+    }
+
+    /**
+     * Returns the number of lines that could not be read.
+     *
+     * @return the number of lines
+     */
+    long unreadable () {
+        return unreadable;
+    }
+
+    /**
+     * Returns the unreadable lines, up to MAX_REPORTED_ERRORS.
+     *
+     * @return the errors, in input order
+     */
+    List<RestockResultDto.LineError> errors () {
+        return errors;
+    }
+
+    /**
+     * Receives the total of one food.
+     */
+    @FunctionalInterface
+    interface TotalVisitor {
+
+        /**
+         * Receives the total of one food.
+         *
+         * @param foodId
+         *            the food id
+         * @param total
+         *            sum of the food's quantities
+         * @param lineCount
+         *            number of lines for the food
+         * @param firstLine
+         *            first line for the food
+         */
+        void visit ( long foodId, long total, long lineCount, long firstLine );
+    }
+}
@@ -0,0 +1,242 @@
+package FoodSeer.service.impl;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import FoodSeer.dto.StockAlertDto;
+import FoodSeer.entity.FoodChangedEvent;
+import FoodSeer.entity.StockThreshold;
+import FoodSeer.repositories.StockThresholdRepository;
+
+/**
+ * Raises low-stock alerts as food amounts change.
+ *
+ * Reorder thresholds are held in memory by food id, loaded from the
+ * threshold table on first use. Every committed FoodChangedEvent carries the
+ * food's new amount, so orders, fulfilment, inventory updates, stock
+ * adjustments and JDBC batch writes are all checked with one map lookup and
+ * one comparison; the catalog is never scanned.
+ *
+ * An alert is raised when a food falls to its threshold or below, and only
+ * once until its stock rises above the threshold again; a threshold of 0
+ * alerts when the food runs out. Alerts are kept in a bounded queue,
+ * dropping the oldest when full, and carry an increasing sequence number so
+ * readers can ask for the alerts after the last one they saw.
+ *
+ * Threshold changes reach memory once the transaction that stores them
+ * commits.
+ */
+@Component
+public class StockAlertMonitor {
+
+    /** Repository used to load the thresholds */
+    private final StockThresholdRepository thresholdRepository;
+
+    /** Largest number of alerts kept */
+    private final int                      capacity;
+
+    /** Threshold by food id */
+    private final Map<Long, Integer>       thresholds = new ConcurrentHashMap<>();
+
+    /** Ids of the foods currently at or below their threshold */
+    private final Set<Long>                low        = ConcurrentHashMap.newKeySet();
+
+    /** Latest alerts, oldest first */
+    private final Deque<StockAlertDto>     alerts     = new ArrayDeque<>();
+
+    /** Sequence number of the latest alert */
+    private long                           sequence;
+
+    /** Whether the thresholds have been loaded from the database */
+    private volatile boolean               loaded;
+
+    /**
+     * Creates the monitor.
+     *
+     * @param thresholdRepository
+     *            repository used to load the thresholds
+     * @param capacity
+     *            largest number of alerts kept
+     */
+    public StockAlertMonitor ( final StockThresholdRepository thresholdRepository,
+            @Value ( "${app.stock-alerts.capacity:1000}" ) final int capacity ) {
+        this.thresholdRepository = thresholdRepository;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Checks every committed change to a food's amount against its
+     * threshold.
+     *
+     * @param event
+     *            the food change
+     */
+    @TransactionalEventListener ( fallbackExecution = true )
+    public void onFoodChanged ( final FoodChangedEvent event ) {
+        if ( event.foodId() == null ) {
+            return;
+        }
+        switch ( event.type() ) {
+            case PERSISTED:
+            case UPDATED:
+                check( event.foodId(), event.foodName(), event.amount() );
+                break;
+            case REMOVED:
+                thresholds.remove( event.foodId() );
+                low.remove( event.foodId() );
+                break;
+            case RESET:
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Sets the threshold of a food and checks its current amount against
+     * it, once the current transaction commits if there is one.
+     *
+     * @param foodId
+     *            id of the food
+     * @param foodName
+     *            name of the food
+     * @param amount
+     *            current amount of the food
+     * @param threshold
+     *            the threshold
+     */
+    public void setThreshold ( final Long foodId, final String foodName, final int amount, final int threshold ) {
+        afterCommit( () -> {
+            ensureLoaded();
+            low.remove( foodId );
+            thresholds.put( foodId, threshold );
+            check( foodId, foodName, amount );
+        } );
+    }
+
+    /**
+     * Removes the threshold of a food, once the current transaction commits
+     * if there is one.
+     *
+     * @param foodId
+     *            id of the food
+     */
+    public void removeThreshold ( final Long foodId ) {
+        afterCommit( () -> {
+            ensureLoaded();
+            thresholds.remove( foodId );
+            low.remove( foodId );
+        } );
+    }
+
+    /**
+     * Returns the kept alerts raised after the given sequence number.
+     *
+     * @param after
+     *            sequence number of the last alert already seen, or 0
+     * @return the alerts, oldest first
+     */
+    public synchronized List<StockAlertDto> alertsAfter ( final long after ) {
+        final List<StockAlertDto> result = new ArrayList<>();
+        final Iterator<StockAlertDto> newestFirst = alerts.descendingIterator();
+        while ( newestFirst.hasNext() ) {
+            final StockAlertDto alert = newestFirst.next();
+            if ( alert.sequence() <= after ) {
+                break;
+            }
+            result.add( 0, alert );
+        }
+        return result;
+    }
+
+    /**
+     * Raises an alert if a food has just fallen to its threshold or below.
+     *
+     * @param foodId
+     *            id of the food
+     * @param foodName
+     *            name of the food
+     * @param amount
+     *            new amount of the food
+     */
+    private void check ( final Long foodId, final String foodName, final int amount ) {
+        ensureLoaded();
+        final Integer threshold = thresholds.get( foodId );
+        if ( threshold == null || amount > threshold ) {
+            low.remove( foodId );
+        }
+        else if ( low.add( foodId ) ) {
+            raise( foodId, foodName, amount, threshold );
+        }
+    }
+
+    /**
+     * Adds an alert, dropping the oldest if the queue is full.
+     *
+     * @param foodId
+     *            id of the food
+     * @param foodName
+     *            name of the food
+     * @param amount
+     *            amount of the food
+     * @param threshold
+     *            threshold of the food
+     */
+    private synchronized void raise ( final Long foodId, final String foodName, final int amount,
+            final int threshold ) {
+        if ( alerts.size() >= capacity ) {
+            alerts.pollFirst();
+        }
+        alerts.addLast( new StockAlertDto( ++sequence, foodId, foodName, amount, threshold, Instant.now() ) );
+    }
+
+    /**
+     * Runs a change once the current transaction commits, or at once if
+     * there is none, so memory never holds a threshold that was rolled back.
+     *
+     * @param change
+     *            the change
+     */
+    private static void afterCommit ( final Runnable change ) {
+        if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+                @Override
+                public void afterCommit () {
+                    change.run();
+                }
+            } );
+        }
+        else {
+            change.run();
+        }
+    }
+
+    /**
+     * Loads the thresholds from the database if needed.
+     */
+    private void ensureLoaded () {
+        if ( loaded ) {
+            return;
+        }
+        synchronized ( thresholds ) {
+            if ( !loaded ) {
+                for ( final StockThreshold threshold : thresholdRepository.findAll() ) {
+                    thresholds.putIfAbsent( threshold.getFoodId(), threshold.getThreshold() );
+                }
+                loaded = true;
+            }
+        }
+    }
+}
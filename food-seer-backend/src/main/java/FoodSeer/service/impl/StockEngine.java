@@ -0,0 +1,768 @@
+package FoodSeer.service.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import FoodSeer.entity.FoodChangedEvent;
+import FoodSeer.entity.FoodEntityListener;
+import FoodSeer.exception.ResourceNotFoundException;
+import FoodSeer.repositories.FoodRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional in-memory stock engine for high order rates.
+ *
+ * When enabled, the stock of every ordered food is held in its own atomic
+ * counter and reservations are decided with a compare-and-set on that
+ * counter, so orders for different foods never contend and orders for the
+ * same food never wait on a database row lock. The counters are the
+ * authority; the amount column lags behind by at most one flush interval.
+ *
+ * Each counter remembers the amount it last saw in the database (its
+ * base). A flush writes the difference between counter and base to the
+ * foods table as one batch of relative updates, reads the stored amounts
+ * back as the new bases, then publishes them so the catalog views catch
+ * up. A row that stopped at zero moves its counter up by the same amount. Writes made elsewhere (admin
+ * edits, stock adjustments) arrive as FoodChangedEvents and move the
+ * counter by the same amount they moved the row, so reservations that are
+ * not flushed yet are kept. A RESET marks every counter to be re-read.
+ *
+ * Every reservation is appended to a local journal before it is
+ * acknowledged. A flush starts a new journal segment and deletes the old
+ * ones once its transaction commits; on startup any segments left by a
+ * crash are replayed into the database before the engine serves orders.
+ * A crash between that commit and the delete replays the segment a second
+ * time, so the journal errs towards too little stock, never too much.
+ */
+@Component
+public class StockEngine {
+
+    /** Logs write-behind flushes that fail */
+    private static final Logger LOG = LoggerFactory.getLogger( StockEngine.class );
+
+    /**
+     * Relative stock change; a row that an outside write has already taken
+     * below the unflushed reservations stops at zero, and the flush reads the
+     * stored amount back into the counter
+     */
+    private static final String ADD_TO_AMOUNT = "UPDATE foods SET amount = GREATEST(amount + ?, 0) WHERE id = ?";
+
+    /** Query for a food's name and stock when its counter is created */
+    private static final String SELECT_STOCK  = "SELECT food_name, amount FROM foods WHERE id = ?";
+
+    /** JDBC access for loads and flushes */
+    private final JdbcTemplate                jdbcTemplate;
+
+    /** Runs each flush in its own transaction */
+    private final TransactionTemplate         transactionTemplate;
+
+    /** Repository used to read back flushed foods */
+    private final FoodRepository              foodRepository;
+
+    /** Publishes the flushed amounts */
+    private final ApplicationEventPublisher   publisher;
+
+    /** Whether the engine is used for orders */
+    private final boolean                     enabled;
+
+    /** Milliseconds between flushes */
+    private final long                        flushIntervalMillis;
+
+    /** Journal of reservations that are not flushed yet */
+    private final Journal                     journal;
+
+    /** Counters by food id, created on first use */
+    private final Map<Long, Cell>             cells     = new ConcurrentHashMap<>();
+
+    /**
+     * Held shared by reservations and exclusively while a flush takes its
+     * snapshot, so every journal record belongs to exactly one flush
+     */
+    private final ReadWriteLock               flushLock = new ReentrantReadWriteLock();
+
+    /** Runs the periodic flush */
+    private ScheduledExecutorService          executor;
+
+    /**
+     * Creates the engine.
+     *
+     * @param jdbcTemplate
+     *            JDBC access for loads and flushes
+     * @param transactionManager
+     *            transaction manager for the flushes
+     * @param foodRepository
+     *            repository used to read back flushed foods
+     * @param publisher
+     *            publisher for food change events
+     * @param enabled
+     *            whether orders reserve stock through the engine
+     * @param flushIntervalMillis
+     *            milliseconds between flushes
+     * @param journalPath
+     *            file the journal is written to
+     * @param journalFsync
+     *            whether each journal record is forced to disk before the
+     *            reservation is acknowledged
+     */
+    public StockEngine ( final JdbcTemplate jdbcTemplate, final PlatformTransactionManager transactionManager,
+            final FoodRepository foodRepository, final ApplicationEventPublisher publisher,
+            @Value ( "${app.stock-engine.enabled:false}" ) final boolean enabled,
+            @Value ( "${app.stock-engine.flush-interval-ms:1000}" ) final long flushIntervalMillis,
+            @Value ( "${app.stock-engine.journal-path:stock.journal}" ) final String journalPath,
+            @Value ( "${app.stock-engine.journal-fsync:false}" ) final boolean journalFsync ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate( transactionManager );
+        this.foodRepository = foodRepository;
+        this.publisher = publisher;
+        this.enabled = enabled;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.journal = new Journal( Paths.get( journalPath ), journalFsync );
+    }
+
+    /**
+     * Replays the journal left by the previous run, if any, and starts the
+     * periodic flush. Does nothing if the engine is disabled.
+     */
+    @PostConstruct
+    public void start () {
+        if ( !enabled ) {
+            return;
+        }
+        replay();
+        journal.open();
+        executor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+            final Thread thread = new Thread( runnable, "stock-engine-flush" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        executor.scheduleWithFixedDelay( this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Stops the periodic flush and writes out what is left.
+     */
+    @PreDestroy
+    public void shutdown () {
+        if ( !enabled ) {
+            return;
+        }
+        executor.shutdownNow();
+        flush();
+        journal.close();
+    }
+
+    /**
+     * Returns true if orders reserve stock through the engine.
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled () {
+        return enabled;
+    }
+
+    /**
+     * Takes the given quantities out of stock, all or nothing.
+     *
+     * @param quantities
+     *            quantity to take by food id
+     * @throws ResourceNotFoundException
+     *             if a food does not exist
+     * @throws IllegalArgumentException
+     *             if a food does not have enough stock; nothing is taken
+     */
+    public void reserve ( final Map<Long, Long> quantities ) {
+        flushLock.readLock().lock();
+        try {
+            final Map<Cell, Long> taken = new LinkedHashMap<>();
+            try {
+                for ( final Map.Entry<Long, Long> entry : quantities.entrySet() ) {
+                    final Cell cell = cell( entry.getKey() );
+                    final long available = cell.take( entry.getValue() );
+                    if ( available >= 0 ) {
+                        throw new IllegalArgumentException( "Not enough stock for " + cell.name + ". Needed: "
+                                + entry.getValue() + ", Available: " + available );
+                    }
+                    taken.put( cell, entry.getValue() );
+                }
+                journal.append( quantities, -1 );
+            }
+            catch ( final RuntimeException e ) {
+                taken.forEach( ( cell, quantity ) -> cell.available.addAndGet( quantity ) );
+                throw e;
+            }
+        }
+        finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Puts reserved quantities back into stock, for example when the order
+     * they were taken for could not be saved.
+     *
+     * @param quantities
+     *            quantity to return by food id
+     */
+    public void release ( final Map<Long, Long> quantities ) {
+        flushLock.readLock().lock();
+        try {
+            journal.append( quantities, 1 );
+            for ( final Map.Entry<Long, Long> entry : quantities.entrySet() ) {
+                final Cell cell = cells.get( entry.getKey() );
+                if ( cell != null ) {
+                    cell.available.addAndGet( entry.getValue() );
+                }
+            }
+        }
+        finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the stock the engine holds for a food, including reservations
+     * that are not flushed yet.
+     *
+     * @param foodId
+     *            the food id
+     * @return the available stock
+     * @throws ResourceNotFoundException
+     *             if the food does not exist
+     */
+    public long available ( final Long foodId ) {
+        return cell( foodId ).available.get();
+    }
+
+    /**
+     * Writes every unflushed change to the foods table in one transaction
+     * and publishes the new amounts.
+     *
+     * @return the number of foods written
+     */
+    public synchronized int flush () {
+        if ( !enabled ) {
+            return 0;
+        }
+        final Map<Cell, Long> deltas = new LinkedHashMap<>();
+        flushLock.writeLock().lock();
+        try {
+            journal.rotate();
+            for ( final Cell cell : cells.values() ) {
+                synchronized ( cell ) {
+                    final long delta = cell.available.get() - cell.base;
+                    if ( delta != 0 ) {
+                        deltas.put( cell, delta );
+                    }
+                }
+            }
+        }
+        finally {
+            flushLock.writeLock().unlock();
+        }
+        if ( deltas.isEmpty() ) {
+            journal.deleteRotated();
+            return 0;
+        }
+
+        final Map<Cell, Long> moved = new LinkedHashMap<>();
+        final List<FoodChangedEvent> events;
+        try {
+            events = transactionTemplate.execute( status -> write( deltas, moved ) );
+        }
+        catch ( final RuntimeException e ) {
+            // The deltas stay in the counters and the segments on disk, so
+            // the next flush writes them again
+            moved.forEach( ( cell, base ) -> {
+                synchronized ( cell ) {
+                    cell.available.addAndGet( base + deltas.get( cell ) - cell.base );
+                    cell.base = base;
+                }
+            } );
+            throw e;
+        }
+        journal.deleteRotated();
+        for ( final FoodChangedEvent event : events ) {
+            FoodEntityListener.publish( publisher, event );
+        }
+        return deltas.size();
+    }
+
+    /**
+     * Keeps the counters in step with writes made outside the engine.
+     *
+     * @param event
+     *            the food change
+     */
+    @EventListener
+    public void onFoodChanged ( final FoodChangedEvent event ) {
+        if ( !enabled ) {
+            return;
+        }
+        switch ( event.type() ) {
+            case UPDATED:
+                final Cell cell = cells.get( event.foodId() );
+                if ( cell != null ) {
+                    cell.name = event.foodName();
+                    cell.sync( event.amount() );
+                }
+                break;
+            case REMOVED:
+                cells.remove( event.foodId() );
+                break;
+            case RESET:
+                cells.values().forEach( c -> c.stale = true );
+                break;
+            case PERSISTED:
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Flushes from the scheduler; a failed flush is retried on the next
+     * run.
+     */
+    private void flushQuietly () {
+        try {
+            flush();
+        }
+        catch ( final RuntimeException e ) {
+            // keep the schedule alive; the deltas stay in the counters
+            LOG.warn( "Stock engine flush failed, retrying on the next run", e );
+        }
+    }
+
+    /**
+     * Writes the deltas and moves each counter's base to the stored amount.
+     * Runs inside the flush transaction, so writes to the same rows from
+     * other transactions wait until the bases are current.
+     *
+     * @param deltas
+     *            change to write by counter
+     * @param moved
+     *            filled with the previous base of every counter that has
+     *            moved, so a failed commit can move them back
+     * @return the events describing the written foods
+     */
+    private List<FoodChangedEvent> write ( final Map<Cell, Long> deltas, final Map<Cell, Long> moved ) {
+        final List<Object[]> rows = new ArrayList<>( deltas.size() );
+        deltas.forEach( ( cell, delta ) -> rows.add( new Object[] { delta, cell.foodId } ) );
+        jdbcTemplate.batchUpdate( ADD_TO_AMOUNT, rows );
+
+        final List<FoodChangedEvent> events = new ArrayList<>( deltas.size() );
+        final Map<Long, Integer> stored = new HashMap<>();
+        for ( final FoodRepository.FoodSummaryView food : foodRepository.findSummariesByIdIn(
+                deltas.keySet().stream().map( c -> c.foodId ).collect( Collectors.toList() ) ) ) {
+            events.add( new FoodChangedEvent( FoodChangedEvent.Type.UPDATED, food.getId(), food.getFoodName(),
+                    food.getAmount(), food.getPrice(), food.getAllergenMask() ) );
+            stored.put( food.getId(), food.getAmount() );
+        }
+
+        deltas.forEach( ( cell, delta ) -> {
+            synchronized ( cell ) {
+                moved.put( cell, cell.base );
+                final Integer amount = stored.get( cell.foodId );
+                if ( amount == null ) {
+                    cell.base += delta;
+                }
+                else {
+                    // Whatever the clamp kept is stock the counter gets back
+                    cell.available.addAndGet( amount - ( cell.base + delta ) );
+                    cell.base = amount;
+                }
+            }
+        } );
+        return events;
+    }
+
+    /**
+     * Applies the segments left by the previous run to the foods table and
+     * deletes them.
+     */
+    private void replay () {
+        journal.rotate();
+        final Map<Long, Long> deltas = journal.readRotated();
+        if ( !deltas.isEmpty() ) {
+            final List<Object[]> rows = new ArrayList<>( deltas.size() );
+            deltas.forEach( ( foodId, delta ) -> rows.add( new Object[] { delta, foodId } ) );
+            transactionTemplate.executeWithoutResult( status -> jdbcTemplate.batchUpdate( ADD_TO_AMOUNT, rows ) );
+        }
+        journal.deleteRotated();
+    }
+
+    /**
+     * Returns the counter of a food, loading it from the database on first
+     * use or after a RESET.
+     *
+     * @param foodId
+     *            the food id
+     * @return the counter
+     * @throws ResourceNotFoundException
+     *             if the food does not exist
+     */
+    private Cell cell ( final Long foodId ) {
+        final Cell cell = cells.computeIfAbsent( foodId, id -> {
+            final Object[] row = load( id );
+            return new Cell( id, (String) row[0], (Integer) row[1] );
+        } );
+        if ( cell.stale ) {
+            synchronized ( cell ) {
+                if ( cell.stale ) {
+                    cell.sync( (Integer) load( foodId )[1] );
+                    cell.stale = false;
+                }
+            }
+        }
+        return cell;
+    }
+
+    /**
+     * Reads a food's name and stock.
+     *
+     * @param foodId
+     *            the food id
+     * @return the name and amount
+     * @throws ResourceNotFoundException
+     *             if the food does not exist
+     */
+    private Object[] load ( final Long foodId ) {
+        try {
+            return jdbcTemplate.queryForObject( SELECT_STOCK,
+                    ( rs, rowNum ) -> new Object[] { rs.getString( "food_name" ), rs.getInt( "amount" ) }, foodId );
+        }
+        catch ( final EmptyResultDataAccessException e ) {
+            throw new ResourceNotFoundException( "Food not found with id " + foodId );
+        }
+    }
+
+    /**
+     * Stock counter of one food.
+     */
+    private static final class Cell {
+
+        /** Id of the food */
+        private final Long       foodId;
+
+        /** Name of the food, for error messages */
+        private volatile String  name;
+
+        /** Stock the engine holds, the authority while enabled */
+        private final AtomicLong available;
+
+        /** Amount last seen in the database; guarded by this cell */
+        private long             base;
+
+        /** Whether the base must be re-read before the next use */
+        private volatile boolean stale;
+
+        /**
+         * Creates a counter.
+         *
+         * @param foodId
+         *            id of the food
+         * @param name
+         *            name of the food
+         * @param amount
+         *            amount in the database
+         */
+        private Cell ( final Long foodId, final String name, final long amount ) {
+            this.foodId = foodId;
+            this.name = name;
+            this.available = new AtomicLong( amount );
+            this.base = amount;
+        }
+
+        /**
+         * Takes a quantity if enough stock is left.
+         *
+         * @param quantity
+         *            quantity to take
+         * @return -1 if taken, otherwise the stock that was available
+         */
+        private long take ( final long quantity ) {
+            while ( true ) {
+                final long current = available.get();
+                if ( current < quantity ) {
+                    return Math.max( current, 0 );
+                }
+                if ( available.compareAndSet( current, current - quantity ) ) {
+                    return -1;
+                }
+            }
+        }
+
+        /**
+         * Moves the counter by however much the database amount moved since
+         * it was last seen.
+         *
+         * @param amount
+         *            amount now in the database
+         */
+        private synchronized void sync ( final long amount ) {
+            available.addAndGet( amount - base );
+            base = amount;
+        }
+    }
+
+    /**
+     * Append-only file of stock changes that are not flushed yet. Each
+     * record is a line "foodId delta". Records go to the current segment;
+     * a flush renames it to a numbered segment that is deleted once the
+     * flush commits.
+     */
+    private static final class Journal {
+
+        /** Path of the current segment */
+        private final Path    path;
+
+        /** Whether each append is forced to disk */
+        private final boolean fsync;
+
+        /** Open current segment, or null before open() */
+        private FileChannel   channel;
+
+        /** Number of the next rotated segment */
+        private long          nextSegment;
+
+        /**
+         * Creates the journal.
+         *
+         * @param path
+         *            path of the current segment
+         * @param fsync
+         *            whether each append is forced to disk
+         */
+        private Journal ( final Path path, final boolean fsync ) {
+            this.path = path.toAbsolutePath();
+            this.fsync = fsync;
+        }
+
+        /**
+         * Opens the current segment for appending.
+         */
+        private synchronized void open () {
+            try {
+                if ( path.getParent() != null ) {
+                    Files.createDirectories( path.getParent() );
+                }
+                channel = FileChannel.open( path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND );
+            }
+            catch ( final IOException e ) {
+                throw new UncheckedIOException( "Could not open the stock journal " + path, e );
+            }
+        }
+
+        /**
+         * Appends one record per food.
+         *
+         * @param quantities
+         *            quantity by food id
+         * @param sign
+         *            -1 for reservations, 1 for releases
+         */
+        private synchronized void append ( final Map<Long, Long> quantities, final int sign ) {
+            if ( channel == null ) {
+                return;
+            }
+            final StringBuilder records = new StringBuilder();
+            quantities.forEach( ( foodId, quantity ) -> records.append( foodId ).append( ' ' )
+                    .append( sign * quantity ).append( '\n' ) );
+            try {
+                final ByteBuffer buffer = ByteBuffer.wrap( records.toString().getBytes( StandardCharsets.US_ASCII ) );
+                while ( buffer.hasRemaining() ) {
+                    channel.write( buffer );
+                }
+                if ( fsync ) {
+                    channel.force( false );
+                }
+            }
+            catch ( final IOException e ) {
+                throw new UncheckedIOException( "Could not write the stock journal " + path, e );
+            }
+        }
+
+        /**
+         * Moves the current segment aside and starts an empty one.
+         */
+        private synchronized void rotate () {
+            try {
+                final boolean wasOpen = channel != null;
+                if ( wasOpen ) {
+                    channel.force( false );
+                    channel.close();
+                    channel = null;
+                }
+                if ( Files.exists( path ) ) {
+                    nextSegment = Math.max( nextSegment, lastSegment() + 1 );
+                    Files.move( path, segment( nextSegment++ ), StandardCopyOption.ATOMIC_MOVE );
+                }
+                if ( wasOpen ) {
+                    open();
+                }
+            }
+            catch ( final IOException e ) {
+                throw new UncheckedIOException( "Could not rotate the stock journal " + path, e );
+            }
+        }
+
+        /**
+         * Sums the records of every rotated segment.
+         *
+         * @return net change by food id
+         */
+        private synchronized Map<Long, Long> readRotated () {
+            final Map<Long, Long> deltas = new HashMap<>();
+            for ( final Path segment : rotated() ) {
+                final List<String> lines;
+                try {
+                    lines = Files.readAllLines( segment, StandardCharsets.US_ASCII );
+                }
+                catch ( final IOException e ) {
+                    throw new UncheckedIOException( "Could not read the stock journal " + segment, e );
+                }
+                for ( final String line : lines ) {
+                    final String[] fields = line.trim().split( " " );
+                    try {
+                        if ( fields.length == 2 ) {
+                            deltas.merge( Long.valueOf( fields[0] ), Long.valueOf( fields[1] ), Long::sum );
+                        }
+                    }
+                    catch ( final NumberFormatException e ) {
+                        // a record cut short by a crash was never acknowledged
+                    }
+                }
+            }
+            deltas.values().removeIf( delta -> delta == 0 );
+            return deltas;
+        }
+
+        /**
+         * Deletes every rotated segment.
+         */
+        private synchronized void deleteRotated () {
+            for ( final Path segment : rotated() ) {
+                try {
+                    Files.deleteIfExists( segment );
+                }
+                catch ( final IOException e ) {
+                    throw new UncheckedIOException( "Could not delete the stock journal " + segment, e );
+                }
+            }
+        }
+
+        /**
+         * Closes the current segment.
+         */
+        private synchronized void close () {
+            try {
+                if ( channel != null ) {
+                    channel.close();
+                    channel = null;
+                }
+            }
+            catch ( final IOException e ) {
+                throw new UncheckedIOException( "Could not close the stock journal " + path, e );
+            }
+        }
+
+        /**
+         * Returns the path of a rotated segment.
+         *
+         * @param number
+         *            the segment number
+         * @return the path
+         */
+        private Path segment ( final long number ) {
+            return path.resolveSibling( path.getFileName() + "." + number );
+        }
+
+        /**
+         * Returns the rotated segments, oldest first.
+         *
+         * @return the segment paths
+         */
+        private List<Path> rotated () {
+            final List<Path> segments = new ArrayList<>();
+            if ( !Files.isDirectory( path.getParent() ) ) {
+                return segments;
+            }
+            try ( DirectoryStream<Path> stream = Files.newDirectoryStream( path.getParent(),
+                    path.getFileName() + ".*" ) ) {
+                for ( final Path segment : stream ) {
+                    if ( number( segment ) >= 0 ) {
+                        segments.add( segment );
+                    }
+                }
+            }
+            catch ( final IOException e ) {
+                throw new UncheckedIOException( "Could not list the stock journal " + path, e );
+            }
+            segments.sort( ( a, b ) -> Long.compare( number( a ), number( b ) ) );
+            return segments;
+        }
+
+        /**
+         * Returns the highest rotated segment number, or -1 if there is none.
+         *
+         * @return the segment number
+         */
+        private long lastSegment () {
+            final List<Path> segments = rotated();
+            return segments.isEmpty() ? -1 : number( segments.get( segments.size() - 1 ) );
+        }
+
+        /**
+         * Returns the number of a rotated segment.
+         *
+         * @param segment
+         *            the segment path
+         * @return the number, or -1 if the path is not a rotated segment
+         */
+        private long number ( final Path segment ) {
+            final String suffix = segment.getFileName().toString()
+                    .substring( path.getFileName().toString().length() + 1 );
+            try {
+                return Long.parseLong( suffix );
+            }
+            catch ( final NumberFormatException e ) {
+                return -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package FoodSeer.service.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import FoodSeer.dto.StockLedgerLevelDto;
+import FoodSeer.dto.StockMovementDto;
+import FoodSeer.entity.FoodChangedEvent;
+import FoodSeer.entity.StockMovement;
+import FoodSeer.entity.StockSnapshot;
+import FoodSeer.repositories.StockMovementRepository;
+import FoodSeer.repositories.StockSnapshotRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only ledger of stock movements.
+ *
+ * Every committed FoodChangedEvent that changes a food's amount becomes a
+ * movement holding the delta and the amount after it, so orders,
+ * fulfilment, admin edits, inventory updates and JDBC batch writes are all
+ * recorded without each of them knowing about the ledger. Movements are
+ * queued in memory and inserted in JDBC batches by one writer thread.
+ *
+ * The writer also takes periodic snapshots: one row per food that moved
+ * since its last snapshot, holding its amount and the last movement it
+ * covers. The level of a food at any time is then its latest snapshot
+ * taken by that time plus the movements written after it, a tail no longer
+ * than one snapshot interval.
+ *
+ * The amount before a change is the amount after the previous movement,
+ * remembered per food. A food's first movement starts from zero, so stock
+ * that existed before the ledger shows up as one opening movement.
+ */
+@Component
+public class StockLedger {
+
+    /** Logs writer tasks that fail */
+    private static final Logger LOG = LoggerFactory.getLogger( StockLedger.class );
+
+    /** Insert for one movement */
+    private static final String INSERT_MOVEMENT = "INSERT INTO stock_movements"
+            + " (food_id, delta, amount_after, kind, occurred_at) VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * Snapshots every food whose latest movement is newer than its latest
+     * snapshot
+     */
+    private static final String TAKE_SNAPSHOTS = "INSERT INTO stock_snapshots"
+            + " (food_id, amount, last_movement_id, taken_at)"
+            + " SELECT m.food_id, m.amount_after, m.id, ? FROM stock_movements m"
+            + " WHERE m.id IN (SELECT MAX(l.id) FROM stock_movements l GROUP BY l.food_id)"
+            + " AND m.id > COALESCE((SELECT MAX(s.last_movement_id) FROM stock_snapshots s"
+            + " WHERE s.food_id = m.food_id), 0)";
+
+    /** Largest number of movements sent in one JDBC batch */
+    private static final int                  BATCH_SIZE  = 1000;
+
+    /** JDBC access for the batch inserts */
+    private final JdbcTemplate                jdbcTemplate;
+
+    /** Repository used to read movements */
+    private final StockMovementRepository     movementRepository;
+
+    /** Repository used to read snapshots */
+    private final StockSnapshotRepository     snapshotRepository;
+
+    /** Movements not written yet, oldest first */
+    private final Queue<Movement>             queue       = new ConcurrentLinkedQueue<>();
+
+    /** Movements of a failed batch, written before the queue next time */
+    private final List<Movement>              retry       = new ArrayList<>();
+
+    /** Amount after the latest movement by food id */
+    private final Map<Long, Integer>          lastAmounts = new ConcurrentHashMap<>();
+
+    /** Runs the writer and the snapshots */
+    private final ScheduledExecutorService    executor;
+
+    /**
+     * Creates the ledger and starts its writer.
+     *
+     * @param jdbcTemplate
+     *            JDBC access for the batch inserts
+     * @param movementRepository
+     *            repository used to read movements
+     * @param snapshotRepository
+     *            repository used to read snapshots
+     * @param flushIntervalMillis
+     *            milliseconds between batch inserts
+     * @param snapshotIntervalSeconds
+     *            seconds between snapshots
+     */
+    public StockLedger ( final JdbcTemplate jdbcTemplate, final StockMovementRepository movementRepository,
+            final StockSnapshotRepository snapshotRepository,
+            @Value ( "${app.stock-ledger.flush-interval-ms:1000}" ) final long flushIntervalMillis,
+            @Value ( "${app.stock-ledger.snapshot-interval-seconds:3600}" ) final long snapshotIntervalSeconds ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.movementRepository = movementRepository;
+        this.snapshotRepository = snapshotRepository;
+
+        this.executor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+            final Thread thread = new Thread( runnable, "stock-ledger-writer" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        executor.scheduleWithFixedDelay( () -> quietly( this::flush ), flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS );
+        executor.scheduleWithFixedDelay( () -> quietly( this::snapshot ), snapshotIntervalSeconds,
+                snapshotIntervalSeconds, TimeUnit.SECONDS );
+    }
+
+    /**
+     * Queues a movement for every committed change to a food's amount.
+     *
+     * @param event
+     *            the food change
+     */
+    @TransactionalEventListener ( fallbackExecution = true )
+    public void onFoodChanged ( final FoodChangedEvent event ) {
+        if ( event.foodId() == null || event.type() == FoodChangedEvent.Type.RESET ) {
+            return;
+        }
+        final int amountAfter = event.type() == FoodChangedEvent.Type.REMOVED ? 0 : event.amount();
+        final long occurredAt = System.currentTimeMillis();
+        lastAmounts.compute( event.foodId(), ( foodId, last ) -> {
+            final int before = last != null ? last
+                    : movementRepository.findFirstByFoodIdOrderByIdDesc( foodId )
+                            .map( StockMovement::getAmountAfter ).orElse( 0 );
+            if ( amountAfter != before ) {
+                queue.add( new Movement( foodId, amountAfter - before, amountAfter, event.type().name(),
+                        occurredAt ) );
+            }
+            return event.type() == FoodChangedEvent.Type.REMOVED ? null : amountAfter;
+        } );
+    }
+
+    /**
+     * Writes the queued movements in JDBC batches. A failed batch is kept
+     * and written first next time.
+     *
+     * @return the number of movements written
+     */
+    public synchronized int flush () {
+        final List<Movement> batch = new ArrayList<>( retry );
+        retry.clear();
+        for ( Movement movement = queue.poll(); movement != null; movement = queue.poll() ) {
+            batch.add( movement );
+        }
+        if ( batch.isEmpty() ) {
+            return 0;
+        }
+        try {
+            jdbcTemplate.batchUpdate( INSERT_MOVEMENT, batch, BATCH_SIZE, ( ps, movement ) -> {
+                ps.setLong( 1, movement.foodId() );
+                ps.setInt( 2, movement.delta() );
+                ps.setInt( 3, movement.amountAfter() );
+                ps.setString( 4, movement.kind() );
+                ps.setLong( 5, movement.occurredAt() );
+            } );
+        }
+        catch ( final RuntimeException e ) {
+            retry.addAll( batch );
+            throw e;
+        }
+        return batch.size();
+    }
+
+    /**
+     * Writes the queued movements, then snapshots every food that moved
+     * since its last snapshot, in one statement.
+     *
+     * @return the number of snapshots taken
+     */
+    public synchronized int snapshot () {
+        flush();
+        return jdbcTemplate.update( TAKE_SNAPSHOTS, System.currentTimeMillis() );
+    }
+
+    /**
+     * Returns the stock of a food at a point in time: its latest snapshot
+     * by then plus the movements written after it.
+     *
+     * @param foodId
+     *            id of the food
+     * @param at
+     *            the point in time
+     * @return the level
+     */
+    public StockLedgerLevelDto levelAt ( final Long foodId, final Instant at ) {
+        flush();
+        final long atMillis = at.toEpochMilli();
+        final StockSnapshot snapshot = snapshotRepository
+                .findFirstByFoodIdAndTakenAtLessThanEqualOrderByTakenAtDescIdDesc( foodId, atMillis )
+                .orElse( null );
+        final StockMovementRepository.Tail tail = movementRepository.sumTail( foodId,
+                snapshot == null ? 0L : snapshot.getLastMovementId(), atMillis );
+        final long amount = ( snapshot == null ? 0 : snapshot.getAmount() ) + tail.getDelta();
+        return new StockLedgerLevelDto( foodId, (int) amount, at, tail.getCount() );
+    }
+
+    /**
+     * Returns the latest movements of a food, newest first.
+     *
+     * @param foodId
+     *            id of the food
+     * @param limit
+     *            largest number of movements to return
+     * @return the movements
+     */
+    public List<StockMovementDto> movements ( final Long foodId, final int limit ) {
+        flush();
+        return movementRepository.findByFoodIdOrderByIdDesc( foodId, PageRequest.of( 0, limit ) ).stream()
+                .map( m -> new StockMovementDto( m.getId(), m.getFoodId(), m.getDelta(), m.getAmountAfter(),
+                        m.getKind(), Instant.ofEpochMilli( m.getOccurredAt() ) ) )
+                .collect( Collectors.toList() );
+    }
+
+    /**
+     * Stops the writer and writes what is left.
+     */
+    @PreDestroy
+    public void shutdown () {
+        executor.shutdownNow();
+        quietly( this::flush );
+    }
+
+    /**
+     * Runs a writer task; a failure is retried on the next run.
+     *
+     * @param task
+     *            the task
+     */
+    private static void quietly ( final Runnable task ) {
+        try {
+            task.run();
+        }
+        catch ( final RuntimeException e ) {
+            // keep the schedule alive
+            LOG.warn( "Stock ledger write failed, retrying on the next run", e );
+        }
+    }
+
+    /**
+     * A movement waiting to be written.
+     *
+     * @param foodId
+     *            id of the food
+     * @param delta
+     *            change to the amount
+     * @param amountAfter
+     *            amount after the change
+     * @param kind
+     *            kind of food change
+     * @param occurredAt
+     *            commit time, in epoch milliseconds
+     */
+    private record Movement ( Long foodId, int delta, int amountAfter, String kind, long occurredAt ) {
+    }
+}
@@ -1,7 +1,10 @@
 package FoodSeer.controller;
 
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -12,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -71,6 +75,82 @@ public class FoodControllerTest {
         mvc.perform( get( "/api/foods" ) ).andExpect( status().isOk() );
     }
 
+    /**
+     * Tests that GET /api/foods answers a matching If-None-Match with 304
+     * until the catalog changes
+     *
+     * @throws Exception
+     *             if error
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    void testGetFoodsETag () throws Exception {
+        foodService.createFood( new FoodDto( "COFFEE", 5, 3, Arrays.asList( "CAFFEINE" ) ) );
+
+        final String eTag = mvc.perform( get( "/api/foods" ) ).andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.length()" ).value( 1 ) ).andReturn().getResponse()
+                .getHeader( HttpHeaders.ETAG );
+        assertNotNull( eTag );
+
+        mvc.perform( get( "/api/foods" ).header( HttpHeaders.IF_NONE_MATCH, eTag ) )
+                .andExpect( status().isNotModified() ).andExpect( header().string( HttpHeaders.ETAG, eTag ) );
+
+        foodService.updateFood( "COFFEE", 4, 3, Arrays.asList( "CAFFEINE" ) );
+
+        final String newETag = mvc.perform( get( "/api/foods" ).header( HttpHeaders.IF_NONE_MATCH, eTag ) )
+                .andExpect( status().isOk() ).andExpect( jsonPath( "$[0].amount" ).value( 4 ) ).andReturn()
+                .getResponse().getHeader( HttpHeaders.ETAG );
+        assertNotEquals( eTag, newETag );
+    }
+
+    /**
+     * Tests GET /api/foods/search endpoint
+     *
+     * @throws Exception
+     *             if error
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "customer", roles = "CUSTOMER" )
+    void testSearchFoods () throws Exception {
+        foodService.createFood( new FoodDto( "MAC AND CHEESE", 5, 8, Arrays.asList( "MILK" ) ) );
+        foodService.createFood( new FoodDto( "CHEESECAKE", 5, 6, Arrays.asList( "MILK" ) ) );
+
+        mvc.perform( get( "/api/foods/search" ).param( "q", "chee" ) ).andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.length()" ).value( 2 ) )
+                .andExpect( jsonPath( "$[0].foodName" ).value( "CHEESECAKE" ) )
+                .andExpect( jsonPath( "$[1].foodName" ).value( "MAC AND CHEESE" ) );
+
+        mvc.perform( get( "/api/foods/search" ).param( "q", "cheeze" ).param( "limit", "1" ) )
+                .andExpect( status().isOk() ).andExpect( jsonPath( "$[0].foodName" ).value( "MAC AND CHEESE" ) );
+
+        mvc.perform( get( "/api/foods/search" ).param( "q", "chee" ).param( "limit", "0" ) )
+                .andExpect( status().isBadRequest() );
+    }
+
+    /**
+     * Tests GET /api/foods/page endpoint
+     *
+     * @throws Exception
+     *             if error
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    void testGetFoodsPage () throws Exception {
+        foodService.createFood( new FoodDto( "COFFEE", 5, 3, Arrays.asList( "CAFFEINE" ) ) );
+        foodService.createFood( new FoodDto( "TEA", 5, 2, Arrays.asList( "CAFFEINE" ) ) );
+
+        mvc.perform( get( "/api/foods/page" ).param( "limit", "1" ) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.foods.length()" ).value( 1 ) )
+                .andExpect( jsonPath( "$.foods[0].foodName" ).value( "COFFEE" ) )
+                .andExpect( jsonPath( "$.nextCursor" ).isNumber() );
+
+        mvc.perform( get( "/api/foods/page" ).param( "limit", "0" ) ).andExpect( status().isBadRequest() );
+    }
+
     /**
      * Tests POST /api/foods endpoint (createFood)
      *
@@ -220,4 +300,49 @@ public class FoodControllerTest {
                 .content(TestUtils.asJsonString(update)))
             .andExpect(status().isBadRequest());
     }
+
+    /**
+     * Tests POST /api/foods/import with a CSV body
+     *
+     * @throws Exception
+     *             if error
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    void testImportFoods () throws Exception {
+        final String csv = "foodName,amount,price,allergies\nBAGEL,10,4,GLUTEN\nMUFFIN,-1,3,EGGS\n";
+
+        mvc.perform( post( "/api/foods/import" ).contentType( "text/csv" ).content( csv ) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.imported" ).value( 1 ) )
+                .andExpect( jsonPath( "$.failed" ).value( 1 ) )
+                .andExpect( jsonPath( "$.errors[0].line" ).value( 3 ) )
+                .andExpect( jsonPath( "$.errors[0].foodName" ).value( "MUFFIN" ) );
+
+        mvc.perform( get( "/api/foods" ) ).andExpect( jsonPath( "$[0].foodName" ).value( "BAGEL" ) );
+    }
+
+    /**
+     * Tests POST /api/foods/bulkUpdate
+     *
+     * @throws Exception
+     *             if error
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    void testBulkUpdateFoods () throws Exception {
+        foodService.createFood( new FoodDto( "COFFEE", 5, 3, Arrays.asList( "CAFFEINE" ) ) );
+
+        mvc.perform( post( "/api/foods/bulkUpdate" ).contentType( MediaType.APPLICATION_JSON )
+                .content( "[{\"foodName\":\"COFFEE\",\"price\":6},{\"foodName\":\"NOPE\",\"price\":1}]" ) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.updated" ).value( 1 ) )
+                .andExpect( jsonPath( "$.failed" ).value( 1 ) )
+                .andExpect( jsonPath( "$.items[1].message" ).value( "Food does not exist with name NOPE" ) );
+
+        mvc.perform( get( "/api/foods" ) ).andExpect( jsonPath( "$[0].price" ).value( 6 ) )
+                .andExpect( jsonPath( "$[0].amount" ).value( 5 ) );
+    }
 }
@@ -0,0 +1,74 @@
+package FoodSeer.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import FoodSeer.dto.FoodDto;
+import FoodSeer.service.FoodService;
+import FoodSeer.service.impl.ForecastServiceImpl;
+
+/**
+ * Tests Controller for API endpoints for demand forecasts.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ForecastControllerTest {
+
+    /** Mock MVC for testing controller */
+    @Autowired
+    private MockMvc mvc;
+
+    /** Service for food items */
+    @Autowired
+    private FoodService foodService;
+
+    /** Service for demand forecasts */
+    @Autowired
+    private ForecastServiceImpl forecastService;
+
+    /**
+     * Tests staff can read the forecast of a food and the reorder list.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    public void testGetForecast() throws Exception {
+        final FoodDto bread = foodService.createFood(new FoodDto("FORECAST BREAD", 1, 2, new ArrayList<>()));
+        forecastService.recordDemand(Map.of(bread.getId(), 5L), Instant.now().minus(Duration.ofHours(2)));
+
+        mvc.perform(get("/api/forecast/" + bread.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.foodName").value("FORECAST BREAD"))
+                .andExpect(jsonPath("$.amount").value(1));
+
+        mvc.perform(get("/api/forecast/reorders")).andExpect(status().isOk());
+        mvc.perform(get("/api/forecast/999999")).andExpect(status().isNotFound());
+    }
+
+    /**
+     * Tests customers cannot read forecasts.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    public void testGetForecastForbidden() throws Exception {
+        mvc.perform(get("/api/forecast/reorders")).andExpect(status().isForbidden());
+    }
+}
@@ -1,11 +1,19 @@
 package FoodSeer.controller;
 
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -13,14 +21,25 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import FoodSeer.TestUtils;
+import FoodSeer.dto.FoodDto;
 import FoodSeer.dto.InventoryDto;
+import FoodSeer.dto.StockAdjustmentDto;
+import FoodSeer.dto.StockAlertDto;
+import FoodSeer.dto.StockThresholdDto;
 import FoodSeer.entity.Food;
+import FoodSeer.entity.FoodChangedEvent;
+import FoodSeer.service.FoodService;
+import FoodSeer.service.InventoryService;
+import FoodSeer.service.impl.InventoryStreamBroadcaster;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 
@@ -40,6 +59,18 @@ public class InventoryControllerTest {
     @Autowired
     private EntityManager entityManager;
 
+    /** Reference to FoodService */
+    @Autowired
+    private FoodService foodService;
+
+    /** Reference to InventoryService */
+    @Autowired
+    private InventoryService inventoryService;
+
+    /** Reference to the inventory stream broadcaster */
+    @Autowired
+    private InventoryStreamBroadcaster inventoryStreamBroadcaster;
+
     /**
      * Sets up the test case. We assume only one inventory row.
      * Because inventory is treated as a singleton (only one row),
@@ -51,6 +82,8 @@ public class InventoryControllerTest {
     public void setUp() throws Exception {
         final Query query = entityManager.createNativeQuery("DELETE FROM inventory");
         query.executeUpdate();
+        // Remove the sample foods: food names are unique
+        foodService.deleteAllFoods();
     }
 
     /**
@@ -72,6 +105,30 @@ public class InventoryControllerTest {
         mvc.perform(get("/api/inventory")).andExpect(status().isOk());
     }
 
+    /**
+     * Tests that GET /api/inventory answers a matching If-None-Match with
+     * 304.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    public void testGetInventoryNotModified() throws Exception {
+        // the first request may create the inventory, which changes the tag
+        mvc.perform(get("/api/inventory")).andExpect(status().isOk());
+
+        final String eTag = mvc.perform(get("/api/inventory"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+
+        mvc.perform(get("/api/inventory").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
     /**
      * Tests the POST /api/inventory endpoint for updating inventory.
      *
@@ -109,4 +166,189 @@ public class InventoryControllerTest {
                 .getResponse()
                 .getContentAsString();
     }
+
+    /**
+     * Tests the PATCH /api/inventory endpoint for stock adjustments.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    public void testAdjustStock() throws Exception {
+        final FoodDto coffee = foodService.createFood(new FoodDto("COFFEE", 5, 3, new ArrayList<>()));
+
+        final List<StockAdjustmentDto> adjustments = Arrays.asList(
+                new StockAdjustmentDto(coffee.getId(), 10),
+                new StockAdjustmentDto(coffee.getId(), -20),
+                new StockAdjustmentDto(999999L, 1));
+
+        mvc.perform(patch("/api/inventory")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(adjustments)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(1))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.items[0].amount").value(15))
+                .andExpect(jsonPath("$.items[1].message").value("Not enough stock of COFFEE to remove 20."))
+                .andExpect(jsonPath("$.items[2].message").value("Food does not exist with id 999999"));
+    }
+
+    /**
+     * Tests the POST /api/inventory/restock endpoint applies a manifest and
+     * is open to admins only.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testRestock() throws Exception {
+        final FoodDto milk = foodService.createFood(new FoodDto("MILK", 2, 3, new ArrayList<>()));
+
+        mvc.perform(post("/api/inventory/restock")
+                .contentType("text/csv")
+                .content("foodId,quantity\n" + milk.getId() + ",8\n" + milk.getId() + ",x\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lines").value(2))
+                .andExpect(jsonPath("$.appliedLines").value(1))
+                .andExpect(jsonPath("$.rejectedLines").value(1))
+                .andExpect(jsonPath("$.foodsUpdated").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3));
+    }
+
+    /**
+     * Tests staff cannot apply restock manifests.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    public void testRestockForbidden() throws Exception {
+        mvc.perform(post("/api/inventory/restock").contentType("text/csv").content("1,1\n"))
+                .andExpect(status().isForbidden());
+    }
+
+    /**
+     * Tests customers cannot adjust stock.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    public void testAdjustStockForbidden() throws Exception {
+        mvc.perform(patch("/api/inventory")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(Arrays.asList(new StockAdjustmentDto(1L, 1)))))
+                .andExpect(status().isForbidden());
+    }
+
+    /**
+     * Tests setting a threshold above the stock raises an alert that the
+     * alerts endpoint returns.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    public void testStockAlerts() throws Exception {
+        // Thresholds reach the alert monitor after commit, so commit each call
+        TestTransaction.end();
+        final FoodDto tea = foodService.createFood(new FoodDto("ICED TEA", 2, 3, new ArrayList<>()));
+        try {
+            final List<StockAlertDto> existing = inventoryService.getStockAlerts(0);
+            final long start = existing.isEmpty() ? 0 : existing.get(existing.size() - 1).sequence();
+
+            mvc.perform(put("/api/inventory/thresholds")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtils.asJsonString(new StockThresholdDto(tea.getId(), 3))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.threshold").value(3));
+
+            mvc.perform(get("/api/inventory/alerts").param("after", String.valueOf(start)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].foodName").value("ICED TEA"))
+                    .andExpect(jsonPath("$[0].amount").value(2))
+                    .andExpect(jsonPath("$[0].threshold").value(3));
+
+            mvc.perform(put("/api/inventory/thresholds")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtils.asJsonString(new StockThresholdDto(tea.getId(), 0))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.threshold").value(0));
+
+            mvc.perform(put("/api/inventory/thresholds")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtils.asJsonString(new StockThresholdDto(tea.getId(), -1))))
+                    .andExpect(status().isBadRequest());
+
+            mvc.perform(delete("/api/inventory/thresholds/" + tea.getId()))
+                    .andExpect(status().isNoContent());
+            mvc.perform(delete("/api/inventory/thresholds/" + tea.getId()))
+                    .andExpect(status().isNotFound());
+        } finally {
+            foodService.deleteFood(tea.getId());
+        }
+    }
+
+    /**
+     * Tests customers cannot read low-stock alerts.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    public void testStockAlertsForbidden() throws Exception {
+        mvc.perform(get("/api/inventory/alerts")).andExpect(status().isForbidden());
+    }
+
+    /**
+     * Tests the GET /api/inventory/stream endpoint sends a snapshot and then
+     * stock changes.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    public void testStreamStockLevels() throws Exception {
+        final MvcResult result = mvc.perform(get("/api/inventory/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        try {
+            awaitContent(result, "event:snapshot");
+
+            inventoryStreamBroadcaster.onFoodChanged(
+                    new FoodChangedEvent(FoodChangedEvent.Type.UPDATED, 42L, "COFFEE", 7, 3, 0L));
+            awaitContent(result, "event:stock\ndata:{\"id\":42,\"foodName\":\"COFFEE\",\"amount\":7}");
+
+            inventoryStreamBroadcaster.onFoodChanged(
+                    new FoodChangedEvent(FoodChangedEvent.Type.REMOVED, 42L, "COFFEE", 7, 3, 0L));
+            awaitContent(result, "event:removed\ndata:{\"id\":42,\"foodName\":\"COFFEE\",\"amount\":0}");
+        } finally {
+            result.getRequest().getAsyncContext().complete();
+        }
+    }
+
+    /**
+     * Waits up to five seconds for the response to contain the text.
+     *
+     * @param result the streaming request
+     * @param text the expected text
+     * @throws Exception if interrupted
+     */
+    private static void awaitContent(final MvcResult result, final String text) throws Exception {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!result.getResponse().getContentAsString().contains(text)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(result.getResponse().getContentAsString().contains(text),
+                "Expected " + text + " in " + result.getResponse().getContentAsString());
+    }
 }
@@ -2,6 +2,7 @@ package FoodSeer.controller;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.ArrayList;
@@ -27,6 +28,7 @@ import FoodSeer.repositories.OrderRepository;
 import FoodSeer.repositories.UserRepository;
 import FoodSeer.service.InventoryService;
 import FoodSeer.service.OrderService;
+import FoodSeer.service.impl.FulfillmentQueue;
 
 /**
  * Tests Controller for API endpoints for an Order.
@@ -59,6 +61,10 @@ class OrderControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    /** Fulfillment queue, drained by the tests */
+    @Autowired
+    private FulfillmentQueue fulfillmentQueue;
+
     /**
      * Sets up test case by clearing repositories and creating sample data.
      */
@@ -67,6 +73,8 @@ class OrderControllerTest {
         orderRepository.deleteAll();
         foodRepository.deleteAll();
         userRepository.deleteAll();
+        // Run the deletes before the inserts below: food names are unique
+        foodRepository.flush();
 
         // Create test users that match @WithMockUser usernames
         final User customer = User.builder()
@@ -94,11 +102,11 @@ class OrderControllerTest {
         foods.add(matcha);
         foods.add(sugar);
 
+        // Add food items to repo, then add the saved foods to the inventory
+        foodRepository.saveAll(foods);
+
         final InventoryDto inventoryDto = new InventoryDto(1L, foods);
         inventoryService.createInventory(inventoryDto);
-
-        // Add food items to repo
-        foodRepository.saveAll(foods);
     }
 
     @Test
@@ -300,4 +308,91 @@ class OrderControllerTest {
         mvc.perform(get("/api/orders/my-orders/unfulfilled"))
             .andExpect(status().isOk());
     }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testGetOrdersPage() throws Exception {
+        final Food food = foodRepository.findAll().get(0);
+        final List<OrderDto> saved = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final OrderDto orderDto = new OrderDto(0L, "PageTest" + i);
+            orderDto.setFoods(new ArrayList<>(List.of(food)));
+            saved.add(orderService.createOrder(orderDto));
+        }
+        final var entity = orderRepository.findById(saved.get(0).getId()).get();
+        entity.setIsFulfilled(true);
+        orderRepository.save(entity);
+
+        mvc.perform(get("/api/orders/page").param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.orders.length()").value(2))
+            .andExpect(jsonPath("$.orders[0].name").value("PageTest0"))
+            .andExpect(jsonPath("$.orders[0].lines[0].quantity").value(1))
+            .andExpect(jsonPath("$.nextCursor").value(saved.get(1).getId()));
+
+        mvc.perform(get("/api/orders/page").param("limit", "2").param("after", saved.get(1).getId().toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.orders.length()").value(1))
+            .andExpect(jsonPath("$.orders[0].name").value("PageTest2"))
+            .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mvc.perform(get("/api/orders/page").param("fulfilled", "false"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.orders.length()").value(2))
+            .andExpect(jsonPath("$.orders[0].name").value("PageTest1"));
+
+        mvc.perform(get("/api/orders/my-orders/page").param("fulfilled", "true"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.orders.length()").value(1))
+            .andExpect(jsonPath("$.orders[0].name").value("PageTest0"));
+
+        mvc.perform(get("/api/orders/page").param("limit", "0"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    void testGetMyOrdersPage_Forbidden() throws Exception {
+        mvc.perform(get("/api/orders/my-orders/page"))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    void testRequestFulfillment() throws Exception {
+        final Food food = foodRepository.findAll().get(0);
+        final OrderDto o = new OrderDto(0L, "QueuedTest");
+        o.setFoods(new ArrayList<>(List.of(food)));
+        final OrderDto saved = orderService.createOrder(o);
+
+        mvc.perform(post("/api/orders/" + saved.getId() + "/fulfillment"))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.state").value("QUEUED"));
+        mvc.perform(get("/api/orders/" + saved.getId() + "/fulfillment"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.state").value("QUEUED"));
+
+        fulfillmentQueue.drain();
+
+        mvc.perform(get("/api/orders/" + saved.getId() + "/fulfillment"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.state").value("FULFILLED"));
+        mvc.perform(post("/api/orders/" + saved.getId() + "/fulfillment"))
+            .andExpect(status().isGone());
+        mvc.perform(post("/api/orders/999999/fulfillment"))
+            .andExpect(status().isNotFound());
+        mvc.perform(get("/api/orders/999999/fulfillment"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testRequestFulfillment_Forbidden() throws Exception {
+        mvc.perform(post("/api/orders/1/fulfillment"))
+            .andExpect(status().isForbidden());
+    }
 }
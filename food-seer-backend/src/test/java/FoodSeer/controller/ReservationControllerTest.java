@@ -0,0 +1,142 @@
+package FoodSeer.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.jayway.jsonpath.JsonPath;
+
+import FoodSeer.TestUtils;
+import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.ReservationItemDto;
+import FoodSeer.entity.User;
+import FoodSeer.repositories.FoodRepository;
+import FoodSeer.repositories.OrderRepository;
+import FoodSeer.repositories.UserRepository;
+import FoodSeer.service.FoodService;
+
+/**
+ * Tests Controller for API endpoints for stock reservations.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReservationControllerTest {
+
+    /** Mock MVC for testing controller */
+    @Autowired
+    private MockMvc mvc;
+
+    /** Repository for orders */
+    @Autowired
+    private OrderRepository orderRepository;
+
+    /** Repository for food items */
+    @Autowired
+    private FoodRepository foodRepository;
+
+    /** Repository for users */
+    @Autowired
+    private UserRepository userRepository;
+
+    /** Service for food items */
+    @Autowired
+    private FoodService foodService;
+
+    /**
+     * Clears repositories and creates the customer.
+     */
+    @BeforeEach
+    public void setUp() throws Exception {
+        orderRepository.deleteAll();
+        foodRepository.deleteAll();
+        userRepository.deleteAll();
+
+        userRepository.save(User.builder()
+                .username("customer")
+                .email("customer@test.com")
+                .password("password")
+                .role("ROLE_CUSTOMER")
+                .build());
+    }
+
+    /**
+     * Tests reserving stock and turning the reservation into an order.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testReserveAndOrder() throws Exception {
+        final FoodDto coffee = foodService.createFood(new FoodDto("COFFEE", 5, 3, new ArrayList<>()));
+
+        final String body = mvc.perform(post("/api/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(List.of(new ReservationItemDto(coffee.getId(), 4)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].foodId").value(coffee.getId()))
+                .andExpect(jsonPath("$.items[0].quantity").value(4))
+                .andReturn().getResponse().getContentAsString();
+        final String id = JsonPath.read(body, "$.id");
+
+        mvc.perform(post("/api/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(List.of(new ReservationItemDto(coffee.getId(), 2)))))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Not enough stock for COFFEE. Needed: 2, Available: 1"));
+
+        mvc.perform(post("/api/reservations/" + id + "/order").param("name", "Cart"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Cart"))
+                .andExpect(jsonPath("$.foods.length()").value(4));
+
+        mvc.perform(get("/api/reservations/" + id))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Tests cancelling a reservation.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testCancelReservation() throws Exception {
+        final FoodDto coffee = foodService.createFood(new FoodDto("COFFEE", 5, 3, new ArrayList<>()));
+
+        final String body = mvc.perform(post("/api/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(List.of(new ReservationItemDto(coffee.getId(), 5)))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        final String id = JsonPath.read(body, "$.id");
+
+        mvc.perform(delete("/api/reservations/" + id))
+                .andExpect(status().isNoContent());
+        mvc.perform(delete("/api/reservations/" + id))
+                .andExpect(status().isNotFound());
+
+        mvc.perform(post("/api/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(List.of(new ReservationItemDto(coffee.getId(), 0)))))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("The quantity must be a positive integer."));
+    }
+}
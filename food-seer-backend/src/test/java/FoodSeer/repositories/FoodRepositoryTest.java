@@ -2,6 +2,8 @@ package FoodSeer.repositories;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
 import java.util.List;
@@ -12,7 +14,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 
+import FoodSeer.entity.Allergen;
 import FoodSeer.entity.Food;
 import jakarta.transaction.Transactional;
 
@@ -35,7 +39,8 @@ class FoodRepositoryTest {
 
     @BeforeEach
     public void setUp () throws Exception {
-        foodRepository.deleteAll();
+        // Deleted in one statement before the saves: food names are unique
+        foodRepository.deleteAllInBatch();
 
         final List<String> allergies1 = Arrays.asList( "MILK", "SUGAR" );
         final List<String> allergies2 = Arrays.asList( "CINNAMON" );
@@ -67,4 +72,47 @@ class FoodRepositoryTest {
                 () -> assertEquals( Arrays.asList( "CINNAMON" ), f2.getAllergies() ) );
     }
 
+    @Test
+    @Transactional
+    public void testFindByFoodName () {
+        assertEquals( food1Id, foodRepository.findByFoodName( "COFFEE" ).get().getId() );
+        assertTrue( foodRepository.findByFoodName( "LATTE" ).isEmpty() );
+
+        assertTrue( foodRepository.existsByFoodName( "PUMPKIN_SPICE" ) );
+        assertFalse( foodRepository.existsByFoodName( "LATTE" ) );
+
+        assertEquals( 2, foodRepository.findAllNames().size() );
+    }
+
+    @Test
+    @Transactional
+    public void testFindSafeForUsesAllergenMask () {
+        final Food yogurt = foodRepository.save( new Food( "YOGURT", 4, 4, Arrays.asList( "MILK", "LACTOSE" ) ) );
+        final Food cheese = foodRepository.save( new Food( "CHEESE", 4, 6, Arrays.asList( "DAIRY" ) ) );
+
+        assertEquals( Allergen.MILK.bit() | Allergen.LACTOSE.bit(), yogurt.getAllergenMask() );
+        assertEquals( Allergen.MILK.bit(), cheese.getAllergenMask() );
+        assertFalse( cheese.isSafeFor( Allergen.MILK.bit() ) );
+
+        // COFFEE lists MILK too, so only PUMPKIN_SPICE is safe
+        final List<Food> safe = foodRepository.findSafeFor( Allergen.MILK.bit() );
+        assertEquals( 1, safe.size() );
+        assertEquals( food2Id, safe.get( 0 ).getId() );
+
+        assertEquals( 4, foodRepository.findSafeFor( 0L ).size() );
+    }
+
+    @Test
+    @Transactional
+    public void testFindPageAfterExcludesAllergenMask () {
+        // COFFEE lists MILK, so only PUMPKIN_SPICE is left
+        final List<Food> safe = foodRepository.findPageAfter( 0L, null, null, null, Allergen.MILK.bit(),
+                PageRequest.of( 0, 10 ) );
+        assertEquals( 1, safe.size() );
+        assertEquals( food2Id, safe.get( 0 ).getId() );
+
+        final List<Food> all = foodRepository.findPageAfter( 0L, 1, 10, "%", 0L, PageRequest.of( 0, 10 ) );
+        assertEquals( Arrays.asList( food1Id, food2Id ), all.stream().map( Food::getId ).toList() );
+    }
+
 }
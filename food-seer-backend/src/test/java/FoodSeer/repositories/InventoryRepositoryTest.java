@@ -31,6 +31,10 @@ public class InventoryRepositoryTest {
     @Autowired
     private InventoryRepository inventoryRepository;
 
+    /** Reference to food repository */
+    @Autowired
+    private FoodRepository foodRepository;
+
     /** Reference to EntityManager */
     @Autowired
     private TestEntityManager testEntityManager;
@@ -48,6 +52,9 @@ public class InventoryRepositoryTest {
         final EntityManager entityManager = testEntityManager.getEntityManager();
         final Query query = entityManager.createNativeQuery("DELETE FROM inventory");
         query.executeUpdate();
+        // Food names are unique, so clear foods left by other tests first
+        foodRepository.deleteAll();
+        foodRepository.flush();
 
         // Create sample food items
         final List<Food> foods = new ArrayList<>();
@@ -84,18 +91,10 @@ public class InventoryRepositoryTest {
     public void testUpdateInventory() {
         final Inventory fetchedInventory = inventoryRepository.findById(1L).get();
 
-        // Replace foods with updated quantities
-        final List<Food> newFoods = new ArrayList<>();
-
-        final Food pizza = new Food("pizza", 20, 10, new ArrayList<>());
-        final Food pasta = new Food("pasta", 30, 12, new ArrayList<>());
-        final Food salad = new Food("salad", 40, 6, new ArrayList<>());
-
-        newFoods.add(pizza);
-        newFoods.add(pasta);
-        newFoods.add(salad);
-
-        fetchedInventory.setFoods(newFoods);
+        // Update the quantities of the foods in the inventory
+        fetchedInventory.getFoods().get(0).setAmount(20);
+        fetchedInventory.getFoods().get(1).setAmount(30);
+        fetchedInventory.getFoods().get(2).setAmount(40);
 
         final Inventory updatedInventory = inventoryRepository.save(fetchedInventory);
         assertAll("Updated inventory contents",
@@ -59,6 +59,8 @@ class OrderRepositoryTest {
         orderRepository.deleteAll();
         foodRepository.deleteAll();
         userRepository.deleteAll();
+        // Run the deletes before the inserts below: food names are unique
+        foodRepository.flush();
 
         // Create test user that matches @WithMockUser username
         final User customer = User.builder()
@@ -80,10 +82,10 @@ class OrderRepositoryTest {
         foods.add(f2);
         foods.add(f3);
 
+        foodRepository.saveAll(foods);
+
         final InventoryDto inventoryDto = new InventoryDto(1L, foods);
         inventoryService.createInventory(inventoryDto);
-
-        foodRepository.saveAll(foods);
     }
 
     /**
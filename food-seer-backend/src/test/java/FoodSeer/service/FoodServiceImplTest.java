@@ -1,16 +1,35 @@
 package FoodSeer.service;
 
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.transaction.annotation.Transactional;
 
+import FoodSeer.dto.FoodBulkUpdateResultDto;
 import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.FoodImportResultDto;
+import FoodSeer.dto.FoodPageDto;
+import FoodSeer.dto.FoodSearchHitDto;
+import FoodSeer.dto.FoodUpdateDto;
 import FoodSeer.dto.InventoryDto;
+import FoodSeer.dto.OrderDto;
+import FoodSeer.entity.Food;
+import FoodSeer.entity.User;
 import FoodSeer.exception.ResourceNotFoundException;
+import FoodSeer.mapper.FoodMapper;
+import FoodSeer.repositories.UserRepository;
+import jakarta.persistence.EntityManager;
 
 @SpringBootTest
 @Transactional
@@ -22,6 +41,15 @@ public class FoodServiceImplTest {
     @Autowired
     private InventoryService inventoryService;
 
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @BeforeEach
     public void setUp() throws Exception {
         foodService.deleteAllFoods();
@@ -39,6 +67,16 @@ public class FoodServiceImplTest {
         );
     }
 
+    private void saveCustomer() {
+        // Orders belong to the user named by @WithMockUser
+        userRepository.save(User.builder()
+                .username("customer")
+                .email("customer@test.com")
+                .password("password")
+                .role("ROLE_CUSTOMER")
+                .build());
+    }
+
     // --- Create Tests ------------------------------------------------
 
     @Test
@@ -93,6 +131,76 @@ public class FoodServiceImplTest {
         assertEquals("Food does not exist with id " + invalidId, ex.getMessage());
     }
 
+    @Test
+    public void testGetFoodsPageFollowsCursor() {
+        foodService.createFood(new FoodDto("COFFEE", 5, 3, Arrays.asList("CAFFEINE")));
+        foodService.createFood(new FoodDto("TEA", 5, 2, Arrays.asList("CAFFEINE")));
+        foodService.createFood(new FoodDto("STEAK", 5, 28, Arrays.asList("BEEF")));
+
+        FoodPageDto first = foodService.getFoodsPage(null, 2, null, null, null, null);
+        assertEquals(2, first.foods().size());
+        assertNotNull(first.nextCursor());
+
+        FoodPageDto second = foodService.getFoodsPage(first.nextCursor(), 2, null, null, null, null);
+        assertEquals(1, second.foods().size());
+        assertEquals("STEAK", second.foods().get(0).getFoodName());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    public void testGetFoodsPageFilters() {
+        foodService.createFood(new FoodDto("COFFEE", 5, 3, Arrays.asList("CAFFEINE")));
+        foodService.createFood(new FoodDto("COOKIES", 5, 5, Arrays.asList("GLUTEN")));
+        foodService.createFood(new FoodDto("STEAK", 5, 28, Arrays.asList("BEEF")));
+
+        FoodPageDto cheap = foodService.getFoodsPage(null, 10, null, 10, null, null);
+        assertEquals(2, cheap.foods().size());
+
+        FoodPageDto named = foodService.getFoodsPage(null, 10, 4, null, "co", null);
+        assertEquals(1, named.foods().size());
+        assertEquals("COOKIES", named.foods().get(0).getFoodName());
+
+        assertThrows(IllegalArgumentException.class, () -> foodService.getFoodsPage(null, 0, null, null, null, null));
+    }
+
+    @Test
+    public void testGetSafeFoods() {
+        foodService.createFood(new FoodDto("COFFEE", 5, 3, Arrays.asList("CAFFEINE")));
+        foodService.createFood(new FoodDto("YOGURT", 5, 4, Arrays.asList("DAIRY", "LACTOSE")));
+        foodService.createFood(new FoodDto("CANDY", 5, 1, Arrays.asList("SUGAR")));
+        foodService.createFood(new FoodDto("APPLE", 5, 2, List.of()));
+
+        List<String> names = foodService.getSafeFoods(Arrays.asList("milk", "sugar")).stream()
+                .map(FoodDto::getFoodName).collect(Collectors.toList());
+        assertEquals(Arrays.asList("COFFEE", "APPLE"), names);
+
+        assertEquals(4, foodService.getSafeFoods(null).size());
+    }
+
+    @Test
+    public void testGetFoodsPageExcludesAllergens() {
+        foodService.createFood(new FoodDto("COFFEE", 5, 3, Arrays.asList("CAFFEINE")));
+        foodService.createFood(new FoodDto("YOGURT", 5, 4, Arrays.asList("MILK")));
+
+        FoodPageDto page = foodService.getFoodsPage(null, 10, null, null, null, Arrays.asList("DAIRY"));
+        assertEquals(1, page.foods().size());
+        assertEquals("COFFEE", page.foods().get(0).getFoodName());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> foodService.getFoodsPage(null, 10, null, null, null, Arrays.asList("SUGAR")));
+    }
+
+    @Test
+    public void testForEachFoodVisitsAllInIdOrder() {
+        FoodDto a = foodService.createFood(new FoodDto("COFFEE", 5, 3, Arrays.asList("CAFFEINE")));
+        FoodDto b = foodService.createFood(new FoodDto("TEA", 5, 2, Arrays.asList("CAFFEINE")));
+
+        List<Long> ids = new ArrayList<>();
+        foodService.forEachFood(food -> ids.add(food.getId()));
+
+        assertEquals(Arrays.asList(a.getId(), b.getId()), ids);
+    }
+
     // --- Update Tests ------------------------------------------------
 
     @Test
@@ -102,6 +210,9 @@ public class FoodServiceImplTest {
 
         FoodDto updated = foodService.updateFood("COFFEE", 12, 5, Arrays.asList("Water"));
         assertFood(updated, "COFFEE", 12, 5, Arrays.asList("Water"));
+
+        updated = foodService.updateFood("COFFEE", 12, 5, null);
+        assertFood(updated, "COFFEE", 12, 5, new ArrayList<>());
     }
     
     @Test
@@ -129,6 +240,44 @@ public class FoodServiceImplTest {
         );
         assertEquals("Food does not exist with id " + badId, ex.getMessage());
     }
+
+    @Test
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    public void testDeleteFoodInUnfulfilledOrder() {
+        saveCustomer();
+        FoodDto savedFood = foodService.createFood(new FoodDto("COFFEE", 10, 5, new ArrayList<>(List.of("CAFFEINE"))));
+        Food food = FoodMapper.mapToFood(savedFood);
+        OrderDto orderDto = new OrderDto(0L, "Order1");
+        orderDto.setFoods(new ArrayList<>(List.of(food, food)));
+        orderService.createOrder(orderDto);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () ->
+            foodService.deleteFood(savedFood.getId())
+        );
+        assertEquals("Cannot delete food that is part of unfulfilled orders. "
+                + "There are 1 unfulfilled order(s) containing this food.", ex.getMessage());
+    }
+
+    @Test
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    public void testDeleteFoodRemovesItFromFulfilledOrders() {
+        saveCustomer();
+        FoodDto coffee = foodService.createFood(new FoodDto("COFFEE", 10, 5, new ArrayList<>(List.of("CAFFEINE"))));
+        FoodDto tea = foodService.createFood(new FoodDto("TEA", 10, 3, new ArrayList<>()));
+        OrderDto orderDto = new OrderDto(0L, "Order1");
+        orderDto.setFoods(new ArrayList<>(List.of(FoodMapper.mapToFood(coffee), FoodMapper.mapToFood(coffee),
+                FoodMapper.mapToFood(tea))));
+        OrderDto savedOrder = orderService.createOrder(orderDto);
+        orderService.fulfillOrder(savedOrder.getId());
+
+        foodService.deleteFood(coffee.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        OrderDto reloaded = orderService.getOrderById(savedOrder.getId());
+        assertEquals(1, reloaded.getFoods().size());
+        assertEquals("TEA", reloaded.getFoods().get(0).getFoodName());
+    }
     
     @Test
     public void testGetDuplicateNameExists() {
@@ -147,6 +296,32 @@ public class FoodServiceImplTest {
         assertNull(result);
     }
 
+
+    @Test
+    public void testIsDuplicateNameIgnoresCase() {
+        foodService.createFood(new FoodDto("COFFEE", 5, 3, Arrays.asList("MILK")));
+
+        assertTrue(foodService.isDuplicateName("COFFEE"));
+        assertTrue(foodService.isDuplicateName("coffee"));
+        assertTrue(foodService.isDuplicateName(" Coffee "));
+        assertFalse(foodService.isDuplicateName("TEA"));
+        assertFalse(foodService.isDuplicateName(null));
+    }
+
+    @Test
+    public void testDuplicateNameReleasedAfterDelete() {
+        FoodDto created = foodService.createFood(new FoodDto("MOCHA", 5, 3, Arrays.asList("MILK")));
+        assertTrue(foodService.isDuplicateName("MOCHA"));
+
+        foodService.deleteFood(created.getId());
+
+        assertFalse(foodService.isDuplicateName("MOCHA"));
+        assertNull(foodService.getDuplicateName("MOCHA"));
+
+        // the name can be reused once the old food is gone
+        FoodDto recreated = foodService.createFood(new FoodDto("MOCHA", 7, 4, Arrays.asList("MILK")));
+        assertEquals(recreated.getId(), foodService.getDuplicateName("mocha").getId());
+    }
     
     @Test
     public void testIsValidFoodTrue() {
@@ -235,5 +410,168 @@ public class FoodServiceImplTest {
         assertTrue(containsTea);
     }
 
+    // --- Cache Tests -------------------------------------------------
+
+    @Test
+    public void testGetFoodByIdIsCached() {
+        FoodDto created = foodService.createFood(new FoodDto("COFFEE", 5, 3, Arrays.asList("MILK")));
+
+        foodService.getFoodById(created.getId());
+        long hits = foodService.getCacheStats().hits();
+        FoodDto fetched = foodService.getFoodById(created.getId());
+
+        assertEquals(hits + 1, foodService.getCacheStats().hits());
+        assertFood(fetched, "COFFEE", 5, 3, Arrays.asList("MILK"));
+
+        // Changing a returned food must not change the cached one
+        fetched.setAmount(99);
+        fetched.getAllergies().clear();
+        assertFood(foodService.getFoodById(created.getId()), "COFFEE", 5, 3, Arrays.asList("MILK"));
+    }
+
+    @Test
+    public void testCacheInvalidatedByWrites() {
+        FoodDto coffee = foodService.createFood(new FoodDto("COFFEE", 5, 3, Arrays.asList("MILK")));
+        assertEquals(1, foodService.getAllFoods().size());
+        foodService.getFoodById(coffee.getId());
+
+        foodService.createFood(new FoodDto("TEA", 10, 4, Arrays.asList()));
+        assertEquals(2, foodService.getAllFoods().size());
+
+        foodService.updateFood("COFFEE", 12, 5, Arrays.asList("Water"));
+        assertFood(foodService.getFoodById(coffee.getId()), "COFFEE", 12, 5, Arrays.asList("Water"));
+        assertEquals(12, foodService.getAllFoods().get(0).getAmount());
+
+        foodService.deleteFood(coffee.getId());
+        assertThrows(ResourceNotFoundException.class, () -> foodService.getFoodById(coffee.getId()));
+        assertEquals(1, foodService.getAllFoods().size());
+
+        foodService.deleteAllFoods();
+        assertTrue(foodService.getAllFoods().isEmpty());
+    }
+
+    // --- Import Tests ------------------------------------------------
+
+    private static InputStream rows(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testImportFoodsCsv() {
+        foodService.createFood(new FoodDto("COFFEE", 5, 3, Arrays.asList("MILK")));
+
+        FoodImportResultDto result = foodService.importFoods(rows(
+                "foodName,amount,price,allergies",
+                "BAGEL,10,4,GLUTEN;WHEAT",
+                "\"SALT, SEA\",3,1,",
+                "",
+                "MUFFIN,-1,3,EGGS",
+                "coffee,4,2,",
+                "bagel,1,1,",
+                "TOAST,many,2,",
+                "YOGURT,6,5,DAIRY"), "csv");
+
+        assertEquals(3, result.imported());
+        assertEquals(4, result.failed());
+        assertEquals(Arrays.asList(5L, 6L, 7L, 8L),
+                result.errors().stream().map(FoodImportResultDto.RowError::line).toList());
+
+        assertTrue(foodService.isDuplicateName("SALT, SEA"));
+        assertEquals(4, foodService.getAllFoods().size());
+        FoodDto bagel = foodService.getDuplicateName("BAGEL");
+        assertFood(bagel, "BAGEL", 10, 4, Arrays.asList("GLUTEN", "WHEAT"));
+        assertEquals(1, foodService.getSafeFoods(Arrays.asList("WHEAT", "MILK", "DAIRY")).size());
+    }
+
+    @Test
+    public void testImportFoodsJsonLines() {
+        FoodImportResultDto result = foodService.importFoods(rows(
+                "{\"foodName\":\"BAGEL\",\"amount\":10,\"price\":4,\"allergies\":[\"GLUTEN\"]}",
+                "{\"foodName\":\"BANANA\",\"amount\":7,\"price\":1}",
+                "not json"), "jsonl");
+
+        assertEquals(2, result.imported());
+        assertEquals(1, result.failed());
+        assertEquals(3L, result.errors().get(0).line());
+        assertFood(foodService.getDuplicateName("BANANA"), "BANANA", 7, 1, Arrays.asList());
+
+        assertThrows(IllegalArgumentException.class, () -> foodService.importFoods(rows("x"), "xml"));
+    }
+
+    // --- Bulk Update Tests -------------------------------------------
+
+    @Test
+    public void testUpdateFoodsAppliesValidChanges() {
+        FoodDto coffee = foodService.createFood(new FoodDto("COFFEE", 5, 3, Arrays.asList("MILK")));
+        foodService.createFood(new FoodDto("TEA", 10, 4, Arrays.asList()));
+        foodService.createFood(new FoodDto("BAGEL", 8, 2, Arrays.asList("GLUTEN")));
+
+        FoodBulkUpdateResultDto result = foodService.updateFoods(Arrays.asList(
+                new FoodUpdateDto(coffee.getId(), null, 7, 4, null),
+                new FoodUpdateDto(null, "tea", null, 6, Arrays.asList("CAFFEINE")),
+                new FoodUpdateDto(null, "MUFFIN", 1, 1, null),
+                new FoodUpdateDto(null, "BAGEL", -1, 2, null),
+                new FoodUpdateDto(null, "COFFEE", 9, 9, null),
+                new FoodUpdateDto(9999L, null, 1, 1, null),
+                new FoodUpdateDto(null, " ", 1, 1, null)));
+
+        assertEquals(2, result.updated());
+        assertEquals(5, result.failed());
+        assertEquals(Arrays.asList(true, true, false, false, false, false, false),
+                result.items().stream().map(FoodBulkUpdateResultDto.ItemResult::updated).toList());
+        assertEquals("Food does not exist with name MUFFIN", result.items().get(2).message());
+        assertEquals("The units of the food must be a positive integer.", result.items().get(3).message());
+        assertEquals("The food appears more than once in the update.", result.items().get(4).message());
+        assertEquals("Food does not exist with id 9999", result.items().get(5).message());
+
+        assertFood(foodService.getFoodById(coffee.getId()), "COFFEE", 7, 4, Arrays.asList("MILK"));
+        assertFood(foodService.getDuplicateName("TEA"), "TEA", 10, 6, Arrays.asList("CAFFEINE"));
+        assertFood(foodService.getDuplicateName("BAGEL"), "BAGEL", 8, 2, Arrays.asList("GLUTEN"));
+        assertEquals(1, foodService.getSafeFoods(Arrays.asList("CAFFEINE", "MILK")).size());
+    }
+
+    // --- Search Tests ------------------------------------------------
+
+    private List<String> search(String query, int limit) {
+        return foodService.searchFoods(query, limit).stream().map(FoodSearchHitDto::foodName).toList();
+    }
 
+    @Test
+    public void testSearchFoodsRanksPrefixMatches() {
+        foodService.createFood(new FoodDto("MAC AND CHEESE", 5, 8, Arrays.asList("MILK")));
+        foodService.createFood(new FoodDto("CHEESECAKE", 5, 6, Arrays.asList("MILK", "EGGS")));
+        foodService.createFood(new FoodDto("CHEDDAR BITES", 5, 4, Arrays.asList("MILK")));
+        foodService.createFood(new FoodDto("COFFEE", 5, 3, Arrays.asList()));
+
+        // Whole-name prefixes rank above word prefixes
+        assertEquals(Arrays.asList("CHEESECAKE", "MAC AND CHEESE"), search("chee", 10));
+        assertEquals(Arrays.asList("CHEDDAR BITES"), search("bites", 10));
+        assertEquals(Arrays.asList("COFFEE"), search("c", 1));
+        assertEquals(Arrays.asList(), search("  ", 10));
+
+        assertThrows(IllegalArgumentException.class, () -> foodService.searchFoods("chee", 0));
+    }
+
+    @Test
+    public void testSearchFoodsToleratesTypos() {
+        foodService.createFood(new FoodDto("MAC AND CHEESE", 5, 8, Arrays.asList("MILK")));
+        foodService.createFood(new FoodDto("CHEESECAKE", 5, 6, Arrays.asList("MILK", "EGGS")));
+        foodService.createFood(new FoodDto("COFFEE", 5, 3, Arrays.asList()));
+
+        assertEquals(Arrays.asList("MAC AND CHEESE"), search("cheeze", 10));
+        assertEquals(Arrays.asList("COFFEE"), search("cofee", 10));
+    }
+
+    @Test
+    public void testSearchFoodsFollowsWrites() {
+        FoodDto mac = foodService.createFood(new FoodDto("MAC AND CHEESE", 5, 8, Arrays.asList("MILK")));
+        foodService.createFood(new FoodDto("CHEESECAKE", 5, 6, Arrays.asList("MILK", "EGGS")));
+        assertEquals(2, search("cheese", 10).size());
+
+        foodService.deleteFood(mac.getId());
+        assertEquals(Arrays.asList("CHEESECAKE"), search("cheese", 10));
+
+        foodService.createFood(new FoodDto("CHEESE PIZZA", 5, 9, Arrays.asList("MILK", "GLUTEN")));
+        assertEquals(Arrays.asList("CHEESECAKE", "CHEESE PIZZA"), search("cheese", 10));
+    }
 }
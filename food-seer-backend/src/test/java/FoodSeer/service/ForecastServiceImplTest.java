@@ -0,0 +1,90 @@
+package FoodSeer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import FoodSeer.dto.DemandForecastDto;
+import FoodSeer.dto.FoodDto;
+import FoodSeer.entity.FoodDemand;
+import FoodSeer.exception.ResourceNotFoundException;
+import FoodSeer.repositories.FoodDemandRepository;
+import FoodSeer.service.impl.ForecastServiceImpl;
+
+/**
+ * Tests ForecastService and ForecastServiceImpl.
+ */
+@SpringBootTest
+@Transactional
+class ForecastServiceImplTest {
+
+    /** Reference to the forecast service */
+    @Autowired
+    private ForecastServiceImpl forecastService;
+
+    /** Reference to Food service */
+    @Autowired
+    private FoodService foodService;
+
+    /** Reference to the demand aggregate repository */
+    @Autowired
+    private FoodDemandRepository foodDemandRepository;
+
+    /** JDBC access to read the stored aggregates */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Tests demand is smoothed per bucket and turned into a reorder
+     * suggestion.
+     */
+    @Test
+    public void testForecastFromBuckets() {
+        final Long id = foodService.createFood(new FoodDto("FORECAST", 5, 3, new ArrayList<>())).getId();
+        final Instant start = Instant.parse("2030-01-01T10:15:00Z");
+
+        forecastService.recordDemand(Map.of(id, 4L), start);
+        forecastService.recordDemand(Map.of(id, 2L), start.plus(Duration.ofMinutes(10)));
+        // No bucket has closed yet
+        assertEquals(0, forecastService.getForecast(id, start.plus(Duration.ofMinutes(20))).projectedDemand());
+
+        // The closed hour seeds the hourly rate, which stands in for the day
+        DemandForecastDto forecast = forecastService.getForecast(id, start.plus(Duration.ofHours(1)));
+        assertEquals(6.0, forecast.hourlyDemand(), 1e-9);
+        assertEquals(144.0, forecast.dailyDemand(), 1e-9);
+        assertEquals(1008, forecast.projectedDemand());
+        assertEquals(1003, forecast.suggestedReorder());
+
+        // Day one seeds the daily rate; day two is smoothed into it
+        forecastService.recordDemand(Map.of(id, 3L), Instant.parse("2030-01-02T10:00:00Z"));
+        forecast = forecastService.getForecast(id, Instant.parse("2030-01-03T00:00:00Z"));
+        assertEquals(0.3 * 3 + 0.7 * 6, forecast.dailyDemand(), 1e-9);
+        assertEquals(36, forecast.projectedDemand());
+        assertEquals(31, forecast.suggestedReorder());
+        assertTrue(forecastService.getReorderSuggestions().stream().anyMatch(f -> f.foodId().equals(id)));
+
+        assertTrue(forecastService.flush() >= 1);
+        final FoodDemand stored = foodDemandRepository.findById(id).orElseThrow();
+        assertEquals(6.0, stored.getDailyRate(), 1e-9);
+        assertEquals(3, stored.getDayCount());
+
+        // A stored aggregate is overwritten on the next write
+        forecastService.recordDemand(Map.of(id, 5L), Instant.parse("2030-01-02T11:00:00Z"));
+        assertTrue(forecastService.flush() >= 1);
+        assertEquals(8, jdbcTemplate.queryForObject("SELECT day_count FROM food_demand WHERE food_id = ?",
+                Integer.class, id));
+
+        assertThrows(ResourceNotFoundException.class, () -> forecastService.getForecast(-1L));
+    }
+}
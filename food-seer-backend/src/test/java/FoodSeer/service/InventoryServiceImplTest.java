@@ -2,19 +2,37 @@ package FoodSeer.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
 
+import FoodSeer.dto.FoodDto;
 import FoodSeer.dto.InventoryDto;
+import FoodSeer.dto.RestockResultDto;
+import FoodSeer.dto.StockAdjustmentDto;
+import FoodSeer.dto.StockAdjustmentResultDto;
+import FoodSeer.dto.StockAlertDto;
+import FoodSeer.dto.StockLedgerLevelDto;
+import FoodSeer.dto.StockMovementDto;
+import FoodSeer.dto.StockThresholdDto;
 import FoodSeer.entity.Food;
+import FoodSeer.entity.FoodChangedEvent;
 import FoodSeer.exception.ResourceNotFoundException;
 import FoodSeer.mapper.InventoryMapper;
+import FoodSeer.service.impl.StockAlertMonitor;
+import FoodSeer.service.impl.StockLedger;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 
@@ -37,6 +55,14 @@ public class InventoryServiceImplTest {
     @Autowired
     private FoodService foodService;
 
+    /** Reference to the stock ledger */
+    @Autowired
+    private StockLedger stockLedger;
+
+    /** Reference to the low-stock alert monitor */
+    @Autowired
+    private StockAlertMonitor stockAlertMonitor;
+
     /**
      * Sets up the test case.
      * We assume only one inventory row.
@@ -46,6 +72,8 @@ public class InventoryServiceImplTest {
         // Clear inventory table before each test
         final Query query = entityManager.createNativeQuery("DELETE FROM inventory");
         query.executeUpdate();
+        // Remove the sample foods: food names are unique
+        foodService.deleteAllFoods();
     }
 
     /**
@@ -112,6 +140,170 @@ public class InventoryServiceImplTest {
                 () -> assertEquals(100, updatedInventoryDto.getFoods().get(1).getAmount()));
     }
 
+    /**
+     * Tests updateInventory matches foods by id before name, updates price
+     * and allergies, and ignores foods that are not in the inventory.
+     */
+    @Test
+    @Transactional
+    public void testUpdateInventoryMatchesById() {
+        final List<Food> foods = new ArrayList<>();
+        foods.add(new Food("pizza", 20, 10, new ArrayList<>()));
+        foods.add(new Food("pasta", 30, 12, new ArrayList<>(List.of("GLUTEN"))));
+        final InventoryDto created = inventoryService.createInventory(new InventoryDto(1L, foods));
+        final Long pastaId = created.getFoods().get(1).getId();
+
+        final Food pasta = new Food("renamed pasta", 25, 11, new ArrayList<>(List.of("GLUTEN", "EGGS")));
+        pasta.setId(pastaId);
+        final Food soup = new Food("soup", 5, 3, new ArrayList<>());
+
+        final InventoryDto updated = inventoryService.updateInventory(new InventoryDto(1L, List.of(pasta, soup)));
+
+        assertEquals(2, updated.getFoods().size());
+        final Food savedPasta = updated.getFoods().get(1);
+        assertAll("Updated pasta",
+                () -> assertEquals(pastaId, savedPasta.getId()),
+                () -> assertEquals("PASTA", savedPasta.getFoodName()),
+                () -> assertEquals(25, savedPasta.getAmount()),
+                () -> assertEquals(11, savedPasta.getPrice()),
+                () -> assertEquals(List.of("GLUTEN", "EGGS"), new ArrayList<>(savedPasta.getAllergies())),
+                () -> assertEquals(20, updated.getFoods().get(0).getAmount()));
+    }
+
+    /**
+     * Tests updateInventory rejects negative amounts.
+     */
+    @Test
+    @Transactional
+    public void testUpdateInventoryInvalidAmount() {
+        final List<Food> foods = new ArrayList<>();
+        foods.add(new Food("pizza", 20, 10, new ArrayList<>()));
+        inventoryService.createInventory(new InventoryDto(1L, foods));
+
+        final IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+                inventoryService.updateInventory(new InventoryDto(1L,
+                        List.of(new Food("pizza", -1, 10, new ArrayList<>())))));
+        assertEquals("The units of the food must be a positive integer.", ex.getMessage());
+    }
+
+    /**
+     * Tests a restock manifest is totalled per food and applied in one
+     * batch, reporting the lines it rejects.
+     */
+    @Test
+    @Transactional
+    public void testRestockFromManifest() {
+        final FoodDto rice = foodService.createFood(new FoodDto("rice", 5, 3, new ArrayList<>()));
+        final FoodDto beans = foodService.createFood(new FoodDto("beans", 1, 2, new ArrayList<>()));
+        final String manifest = "foodId,quantity\n"
+                + rice.getId() + ",10\n"
+                + beans.getId() + ",-3\r\n"
+                + rice.getId() + " , +2\n"
+                + "not a line\n"
+                + "999999,4\n"
+                + "\n"
+                + rice.getId() + ",0";
+
+        final RestockResultDto result = inventoryService.restockFromManifest(
+                new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(6, result.lines());
+        assertEquals(2, result.appliedLines());
+        assertEquals(4, result.rejectedLines());
+        assertEquals(1, result.foodsUpdated());
+        assertEquals(manifest.length(), result.bytes());
+        assertEquals(4, result.errors().size());
+        assertEquals(5, result.errors().get(0).line());
+        assertEquals("The quantity must be a non-zero integer.", result.errors().get(1).message());
+        assertTrue(result.errors().contains(new RestockResultDto.LineError(3, beans.getId(), 1,
+                "Not enough stock of BEANS to remove 3.")));
+        assertTrue(result.errors().contains(new RestockResultDto.LineError(6, 999999L, 1,
+                "Food does not exist with id 999999")));
+
+        assertEquals(17, foodService.getFoodById(rice.getId()).getAmount());
+        assertEquals(1, foodService.getFoodById(beans.getId()).getAmount());
+    }
+
+    /**
+     * Tests adjustStock applies relative changes in order and reports the
+     * ones it rejects.
+     */
+    @Test
+    @Transactional
+    public void testAdjustStock() {
+        final FoodDto coffee = foodService.createFood(new FoodDto("coffee", 5, 3, new ArrayList<>()));
+        final FoodDto tea = foodService.createFood(new FoodDto("tea", 10, 2, new ArrayList<>()));
+
+        final StockAdjustmentResultDto result = inventoryService.adjustStock(Arrays.asList(
+                new StockAdjustmentDto(coffee.getId(), 5),
+                new StockAdjustmentDto(tea.getId(), -20),
+                new StockAdjustmentDto(9999L, 1),
+                new StockAdjustmentDto(null, 1),
+                new StockAdjustmentDto(tea.getId(), 0),
+                new StockAdjustmentDto(coffee.getId(), -3)));
+
+        assertEquals(2, result.applied());
+        assertEquals(4, result.rejected());
+        assertEquals(Arrays.asList(true, false, false, false, false, true),
+                result.items().stream().map(StockAdjustmentResultDto.ItemResult::applied).toList());
+        assertEquals(7, result.items().get(5).amount());
+        assertEquals(10, result.items().get(1).amount());
+        assertEquals("Not enough stock of TEA to remove 20.", result.items().get(1).message());
+        assertEquals("Food does not exist with id 9999", result.items().get(2).message());
+        assertEquals("A food id is required.", result.items().get(3).message());
+        assertEquals("The quantity must be a non-zero integer.", result.items().get(4).message());
+
+        // Reads in the same transaction see the new amounts
+        assertEquals(7, foodService.getFoodById(coffee.getId()).getAmount());
+        assertEquals(10, foodService.getFoodById(tea.getId()).getAmount());
+    }
+
+    /**
+     * Tests getInventory reads the foods through projections without
+     * loading any entities into the persistence context.
+     */
+    @Test
+    @Transactional
+    public void testGetInventoryUsesProjections() {
+        final FoodDto coffee = foodService.createFood(new FoodDto("coffee", 5, 3, new ArrayList<>(List.of("CAFFEINE"))));
+        final FoodDto bagel = foodService.createFood(new FoodDto("bagel", 8, 2,
+                new ArrayList<>(List.of("GLUTEN", "WHEAT"))));
+        entityManager.flush();
+        entityManager.clear();
+
+        final InventoryDto inventory = inventoryService.getInventory();
+
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+        assertEquals(1L, inventory.getId());
+        assertEquals(2, inventory.getFoods().size());
+        final Food first = inventory.getFoods().get(0);
+        final Food second = inventory.getFoods().get(1);
+        assertAll("Inventory foods",
+                () -> assertEquals(coffee.getId(), first.getId()),
+                () -> assertEquals("COFFEE", first.getFoodName()),
+                () -> assertEquals(5, first.getAmount()),
+                () -> assertEquals(3, first.getPrice()),
+                () -> assertEquals(List.of("CAFFEINE"), first.getAllergies()),
+                () -> assertEquals(bagel.getId(), second.getId()),
+                () -> assertEquals(2, second.getAllergies().size()));
+    }
+
+    /**
+     * Tests deleting a food takes it out of the inventory.
+     */
+    @Test
+    @Transactional
+    public void testDeleteFoodLeavesInventory() {
+        final FoodDto coffee = foodService.createFood(new FoodDto("coffee", 5, 3, new ArrayList<>()));
+        foodService.createFood(new FoodDto("tea", 5, 2, new ArrayList<>()));
+
+        foodService.deleteFood(coffee.getId());
+
+        final List<Food> foods = inventoryService.getInventory().getFoods();
+        assertEquals(1, foods.size());
+        assertEquals("TEA", foods.get(0).getFoodName());
+    }
+
     /**
      * ✅ Tests InventoryMapper null-handling (mapToInventoryDto & mapToInventory)
      */
@@ -180,6 +372,118 @@ public class InventoryServiceImplTest {
         assertEquals("BURGER", second.getFoods().get(0).getFoodName());
     }
 
+    /**
+     * Tests the stock ledger records amount changes as movements and reads
+     * levels from a snapshot plus the movements after it.
+     */
+    @Test
+    @Transactional
+    public void testStockLedgerLevels() {
+        final Long id = foodService.createFood(new FoodDto("LEDGER", 0, 3, new ArrayList<>())).getId();
+
+        stockLedger.onFoodChanged(new FoodChangedEvent(FoodChangedEvent.Type.PERSISTED, id, "LEDGER", 10, 3, 0L));
+        stockLedger.onFoodChanged(new FoodChangedEvent(FoodChangedEvent.Type.UPDATED, id, "LEDGER", 7, 3, 0L));
+        assertTrue(stockLedger.flush() >= 2);
+        final Instant beforeSnapshot = Instant.now();
+        assertTrue(stockLedger.snapshot() >= 1);
+
+        stockLedger.onFoodChanged(new FoodChangedEvent(FoodChangedEvent.Type.UPDATED, id, "LEDGER", 12, 3, 0L));
+        // A price change alone is not a movement
+        stockLedger.onFoodChanged(new FoodChangedEvent(FoodChangedEvent.Type.UPDATED, id, "LEDGER", 12, 4, 0L));
+
+        final StockLedgerLevelDto now = inventoryService.getStockLevelAt(id, null);
+        assertEquals(12, now.amount());
+        assertEquals(1, now.movementsRead());
+        assertEquals(7, inventoryService.getStockLevelAt(id, beforeSnapshot).amount());
+
+        final List<StockMovementDto> movements = inventoryService.getStockMovements(id, 10);
+        assertEquals(Arrays.asList(5, -3, 10),
+                movements.stream().map(StockMovementDto::delta).collect(Collectors.toList()));
+        assertEquals("PERSISTED", movements.get(2).kind());
+
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.getStockMovements(id, 0));
+    }
 
+    /**
+     * Tests that low-stock alerts are raised once per fall to the threshold.
+     * Runs outside the test transaction, as thresholds reach the monitor
+     * after commit.
+     */
+    @Test
+    public void testStockAlerts() {
+        TestTransaction.end();
+        final Long id = foodService.createFood(new FoodDto("RUNNING LOW", 10, 3, new ArrayList<>())).getId();
+        try {
+            final List<StockAlertDto> existing = inventoryService.getStockAlerts(0);
+            final long start = existing.isEmpty() ? 0 : existing.get(existing.size() - 1).sequence();
+
+            assertEquals(new StockThresholdDto(id, 5),
+                    inventoryService.setStockThreshold(new StockThresholdDto(id, 5)));
+            assertTrue(inventoryService.getStockThresholds().contains(new StockThresholdDto(id, 5)));
+            assertTrue(inventoryService.getStockAlerts(start).isEmpty());
+
+            changeAmount(id, 4);
+            changeAmount(id, 3);
+            List<StockAlertDto> alerts = inventoryService.getStockAlerts(start);
+            assertEquals(1, alerts.size());
+            assertEquals(id, alerts.get(0).foodId());
+            assertEquals(4, alerts.get(0).amount());
+            assertEquals(5, alerts.get(0).threshold());
+
+            // Restocking above the threshold re-arms the alert
+            changeAmount(id, 8);
+            changeAmount(id, 5);
+            alerts = inventoryService.getStockAlerts(alerts.get(0).sequence());
+            assertEquals(1, alerts.size());
+            assertEquals(5, alerts.get(0).amount());
+
+            // A threshold of 0 alerts only when the food runs out
+            inventoryService.setStockThreshold(new StockThresholdDto(id, 0));
+            changeAmount(id, 1);
+            assertEquals(2, inventoryService.getStockAlerts(start).size());
+            changeAmount(id, 0);
+            alerts = inventoryService.getStockAlerts(start);
+            assertEquals(3, alerts.size());
+            assertEquals(0, alerts.get(2).threshold());
+            assertTrue(inventoryService.getStockThresholds().contains(new StockThresholdDto(id, 0)));
+
+            // A threshold set in a rolled back transaction is not applied
+            TestTransaction.start();
+            inventoryService.setStockThreshold(new StockThresholdDto(id, 9));
+            TestTransaction.end();
+            changeAmount(id, 8);
+            assertEquals(3, inventoryService.getStockAlerts(start).size());
+            assertTrue(inventoryService.getStockThresholds().contains(new StockThresholdDto(id, 0)));
+
+            inventoryService.removeStockThreshold(id);
+            changeAmount(id, 0);
+            assertEquals(3, inventoryService.getStockAlerts(start).size());
+            assertTrue(inventoryService.getStockThresholds().stream().noneMatch(t -> t.foodId().equals(id)));
+            assertThrows(ResourceNotFoundException.class, () -> inventoryService.removeStockThreshold(id));
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> inventoryService.setStockThreshold(new StockThresholdDto(id, -1)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> inventoryService.setStockThreshold(new StockThresholdDto(id, null)));
+            assertThrows(ResourceNotFoundException.class,
+                    () -> inventoryService.setStockThreshold(new StockThresholdDto(-1L, 5)));
+
+            // Deleting the food deletes its threshold
+            inventoryService.setStockThreshold(new StockThresholdDto(id, 2));
+        } finally {
+            foodService.deleteFood(id);
+        }
+        assertTrue(inventoryService.getStockThresholds().stream().noneMatch(t -> t.foodId().equals(id)));
+    }
 
+    /**
+     * Sends the monitor a committed change of a food's amount.
+     *
+     * @param id the food id
+     * @param amount the new amount
+     */
+    private void changeAmount(final Long id, final int amount) {
+        stockAlertMonitor.onFoodChanged(
+                new FoodChangedEvent(FoodChangedEvent.Type.UPDATED, id, "RUNNING LOW", amount, 3, 0L));
+    }
 }
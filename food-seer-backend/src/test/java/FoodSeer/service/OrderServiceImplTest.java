@@ -4,29 +4,65 @@ import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 
 import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.FulfillmentStatusDto;
 import FoodSeer.dto.InventoryDto;
 import FoodSeer.dto.OrderDto;
+import FoodSeer.dto.OrderLineDto;
+import FoodSeer.dto.OrderPageDto;
+import FoodSeer.dto.ReservationDto;
+import FoodSeer.dto.ReservationItemDto;
 import FoodSeer.entity.Food;
+import FoodSeer.entity.FoodChangedEvent;
 import FoodSeer.entity.Order;
 import FoodSeer.entity.User;
+import FoodSeer.exception.ResourceNotFoundException;
 import FoodSeer.mapper.FoodMapper;
 import FoodSeer.repositories.FoodRepository;
 import FoodSeer.repositories.InventoryRepository;
 import FoodSeer.repositories.OrderRepository;
 import FoodSeer.repositories.UserRepository;
+import FoodSeer.service.impl.FoodCatalogCache;
+import FoodSeer.service.impl.FulfillmentQueue;
+import FoodSeer.service.impl.ReservationServiceImpl;
+import FoodSeer.service.impl.StockEngine;
+import jakarta.persistence.EntityManager;
 
 /**
  * Tests OrderService and OrderServiceImpl classes for the FoodSeer project.
@@ -62,6 +98,42 @@ class OrderServiceImplTest {
     @Autowired
     private UserRepository userRepository;
 
+    /** Reference to EntityManager */
+    @Autowired
+    private EntityManager entityManager;
+
+    /** Reference to Reservation service */
+    @Autowired
+    private ReservationService reservationService;
+
+    /** Reference to User service */
+    @Autowired
+    private UserService userService;
+
+    /** Catalog cache for the reservation services built by the tests */
+    @Autowired
+    private FoodCatalogCache foodCatalogCache;
+
+    /** Stock engine for the reservation services built by the tests */
+    @Autowired
+    private StockEngine stockEngine;
+
+    /** JDBC access, used to read stock as stored */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** Transaction manager for the stock engines built by the tests */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** Event publisher for the stock engines built by the tests */
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    /** Fulfillment queue, drained by the tests */
+    @Autowired
+    private FulfillmentQueue fulfillmentQueue;
+
     /**
      * Clears all repositories before each test.
      */
@@ -71,6 +143,8 @@ class OrderServiceImplTest {
         orderRepository.deleteAll();
         inventoryRepository.deleteAll();
         userRepository.deleteAll();
+        // Run the deletes before the inserts below: food names are unique
+        foodRepository.flush();
 
         // Create test users that match @WithMockUser usernames
         final User customer = User.builder()
@@ -117,6 +191,308 @@ class OrderServiceImplTest {
                 () -> assertFalse(savedOrder.getIsFulfilled()));
     }
 
+    /**
+     * Tests that stock taken by an order is visible through the cached
+     * food lookups.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testCreateOrderInvalidatesCachedFood() {
+        final FoodDto savedFood = foodService.createFood(
+                new FoodDto("COFFEE", 10, 5, new ArrayList<>(List.of("CAFFEINE"))));
+        assertEquals(10, foodService.getFoodById(savedFood.getId()).getAmount());
+        assertEquals(10, foodService.getAllFoods().get(0).getAmount());
+
+        final Food food = FoodMapper.mapToFood(savedFood);
+        final OrderDto orderDto = new OrderDto(0L, "Order1");
+        orderDto.setFoods(new ArrayList<>(List.of(food, food, food)));
+        orderService.createOrder(orderDto);
+
+        assertEquals(7, foodService.getFoodById(savedFood.getId()).getAmount());
+        assertEquals(7, foodService.getAllFoods().get(0).getAmount());
+    }
+
+    /**
+     * Tests that an order short of one food takes no stock at all and names
+     * the food that is short.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testCreateOrderAllOrNothing() {
+        final Food coffee = FoodMapper.mapToFood(foodService.createFood(new FoodDto("COFFEE", 5, 5, new ArrayList<>())));
+        final Food milk = FoodMapper.mapToFood(foodService.createFood(new FoodDto("MILK", 1, 2, new ArrayList<>())));
+
+        final OrderDto orderDto = new OrderDto(0L, "Latte");
+        orderDto.setFoods(new ArrayList<>(List.of(coffee, milk, milk)));
+        final IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> orderService.createOrder(orderDto));
+        assertEquals("Not enough stock for MILK. Needed: 2, Available: 1", ex.getMessage());
+
+        final OrderDto missing = new OrderDto(0L, "Ghost");
+        final Food ghost = new Food();
+        ghost.setId(999999L);
+        missing.setFoods(new ArrayList<>(List.of(ghost)));
+        assertThrows(ResourceNotFoundException.class, () -> orderService.createOrder(missing));
+    }
+
+    /**
+     * Tests that an order stores one line per food with its quantity and
+     * unit price, while the foods list still repeats each food.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testCreateOrderStoresLines() {
+        final Food coffee = FoodMapper.mapToFood(foodService.createFood(new FoodDto("COFFEE", 50, 3, new ArrayList<>())));
+        final Food tea = FoodMapper.mapToFood(foodService.createFood(new FoodDto("TEA", 50, 2, new ArrayList<>())));
+
+        final OrderDto orderDto = new OrderDto(0L, "Office");
+        orderDto.setFoods(new ArrayList<>(Collections.nCopies(20, coffee)));
+        orderDto.addFood(tea);
+        final OrderDto saved = orderService.createOrder(orderDto);
+        entityManager.flush();
+        entityManager.clear();
+
+        final Order order = orderRepository.findById(saved.getId()).get();
+        assertEquals(2, order.getLines().size());
+        assertEquals(coffee.getId(), order.getLines().get(0).getFoodId());
+        assertEquals(20, order.getLines().get(0).getQuantity());
+        assertEquals(3, order.getLines().get(0).getUnitPrice());
+        assertEquals(1, order.getLines().get(1).getQuantity());
+
+        final OrderDto reloaded = orderService.getOrderById(saved.getId());
+        assertEquals(21, reloaded.getFoods().size());
+        assertEquals("TEA", reloaded.getFoods().get(20).getFoodName());
+        assertEquals(new OrderLineDto(coffee.getId(), "COFFEE", 20, 3), reloaded.getLines().get(0));
+
+        // Lines can be sent instead of foods
+        final OrderDto byLines = new OrderDto(0L, "Refill");
+        byLines.setLines(new ArrayList<>(List.of(new OrderLineDto(tea.getId(), null, 4, 0),
+                new OrderLineDto(tea.getId(), null, 1, 0))));
+        final OrderDto placed = orderService.createOrder(byLines);
+        assertEquals(1, placed.getLines().size());
+        assertEquals(5, placed.getLines().get(0).quantity());
+        assertEquals(44, foodRepository.findById(tea.getId()).get().getAmount());
+
+        byLines.setLines(new ArrayList<>(List.of(new OrderLineDto(tea.getId(), null, 0, 0))));
+        final IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> orderService.createOrder(byLines));
+        assertEquals("The quantity must be a positive integer.", ex.getMessage());
+    }
+
+    /**
+     * Tests that listing orders takes the same small number of statements
+     * however many orders and foods there are, and that placing an order
+     * only takes one more statement per extra line. The first order warms
+     * up the listeners that load lazily.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testOrderStatementCounts() {
+        final List<Food> foods = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            foods.add(FoodMapper.mapToFood(foodService.createFood(
+                    new FoodDto("FOOD " + i, 1000, i + 1, new ArrayList<>(List.of("SOY", "WHEAT"))))));
+        }
+        final OrderDto two = new OrderDto(0L, "Two");
+        two.setFoods(new ArrayList<>(List.of(foods.get(0), foods.get(1), foods.get(1))));
+        final OrderDto four = new OrderDto(0L, "Four");
+        four.setFoods(new ArrayList<>(foods.subList(0, 4)));
+        final OrderDto[] placed = new OrderDto[1];
+        orderService.createOrder(two);
+        final long createTwo = statements(() -> placed[0] = orderService.createOrder(two));
+        final long createFour = statements(() -> orderService.createOrder(four));
+        assertEquals(createTwo + 2, createFour);
+
+        final long[] few = {
+            statements(() -> orderService.getAllOrders()),
+            statements(() -> orderService.getCurrentUserOrders()),
+            statements(() -> orderService.getCurrentUserUnfulfilledOrders()),
+            statements(() -> orderService.getOrderById(placed[0].getId())),
+        };
+
+        final OrderDto all = new OrderDto(0L, "All");
+        all.setFoods(new ArrayList<>(foods));
+        for (int i = 0; i < 10; i++) {
+            orderService.createOrder(all);
+        }
+        final long[] many = {
+            statements(() -> orderService.getAllOrders()),
+            statements(() -> orderService.getCurrentUserOrders()),
+            statements(() -> orderService.getCurrentUserUnfulfilledOrders()),
+        };
+
+        for (int i = 0; i < many.length; i++) {
+            assertEquals(few[i], many[i]);
+        }
+        // One query for the orders, their lines and foods, one for the
+        // allergies, and one for the current user where it is needed
+        assertEquals(2, few[0]);
+        assertEquals(3, few[1]);
+        assertEquals(3, few[2]);
+        assertEquals(2, few[3]);
+        assertEquals(13, orderService.getAllOrders().size());
+    }
+
+    /**
+     * Tests that orders are paged oldest first with a cursor, filtered by
+     * fulfilment in the database, in the same number of statements for
+     * every page.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testGetOrdersPage() {
+        final Food food = FoodMapper.mapToFood(foodService.createFood(new FoodDto("COFFEE", 100, 3, new ArrayList<>())));
+        final List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final OrderDto orderDto = new OrderDto(0L, "Order" + i);
+            orderDto.setFoods(new ArrayList<>(List.of(food)));
+            ids.add(orderService.createOrder(orderDto).getId());
+        }
+        orderService.fulfillOrder(ids.get(1));
+        orderService.fulfillOrder(ids.get(3));
+
+        final OrderPageDto first = orderService.getOrdersPage(null, null, 2);
+        assertEquals(List.of(ids.get(0), ids.get(1)), first.orders().stream().map(OrderDto::getId).toList());
+        assertEquals(ids.get(1), first.nextCursor());
+        final OrderPageDto last = orderService.getOrdersPage(null, ids.get(3), 2);
+        assertEquals(1, last.orders().size());
+        assertNull(last.nextCursor());
+
+        final OrderPageDto unfulfilled = orderService.getOrdersPage(false, null, 10);
+        assertEquals(List.of(ids.get(0), ids.get(2), ids.get(4)),
+                unfulfilled.orders().stream().map(OrderDto::getId).toList());
+        assertTrue(unfulfilled.orders().get(0).getCreatedAt() != null);
+        assertEquals(List.of(ids.get(1), ids.get(3)), orderService.getAllFulfilledOrders().stream()
+                .map(OrderDto::getId).toList());
+        assertEquals(2, orderService.getCurrentUserOrdersPage(true, null, 10).orders().size());
+
+        // The ids of a page, its orders with lines and foods, and the allergies
+        assertEquals(3, statements(() -> orderService.getOrdersPage(false, null, 2)));
+        assertEquals(3, statements(() -> orderService.getOrdersPage(false, ids.get(0), 2)));
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrdersPage(null, null, 0));
+    }
+
+    /**
+     * Tests that fulfillment requests are queued at once and fulfilled in
+     * queue order by a batch that takes stock only for the orders it can
+     * fulfill.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testRequestFulfillment() {
+        final Food coffee = FoodMapper.mapToFood(foodService.createFood(new FoodDto("COFFEE", 10, 3, new ArrayList<>())));
+        final OrderDto orderDto = new OrderDto(0L, "Order");
+        orderDto.setFoods(new ArrayList<>(List.of(coffee, coffee, coffee)));
+        final Long first = orderService.createOrder(orderDto).getId();
+        final Long second = orderService.createOrder(orderDto).getId();
+
+        final FulfillmentStatusDto queued = orderService.requestFulfillment(first);
+        assertEquals(FulfillmentStatusDto.State.QUEUED, queued.state());
+        assertEquals(queued, orderService.requestFulfillment(first));
+        orderService.requestFulfillment(second);
+        assertEquals(FulfillmentStatusDto.State.QUEUED, orderService.getFulfillmentStatus(second).state());
+        assertFalse(orderService.isOrderFulfilled(first));
+
+        assertEquals(2, fulfillmentQueue.drain());
+        assertEquals(FulfillmentStatusDto.State.FULFILLED, orderService.getFulfillmentStatus(first).state());
+        final FulfillmentStatusDto failed = orderService.getFulfillmentStatus(second);
+        assertEquals(FulfillmentStatusDto.State.FAILED, failed.state());
+        assertEquals("Not enough stock to fulfill the order for COFFEE. Need: 3, Available: 1", failed.message());
+        assertTrue(orderService.isOrderFulfilled(first));
+        assertFalse(orderService.isOrderFulfilled(second));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT amount FROM foods WHERE id = ?", Integer.class,
+                coffee.getId()));
+
+        final IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> orderService.requestFulfillment(first));
+        assertEquals("The order has already been fulfilled.", ex.getMessage());
+        assertThrows(ResourceNotFoundException.class, () -> orderService.requestFulfillment(999999L));
+        assertThrows(ResourceNotFoundException.class, () -> orderService.getFulfillmentStatus(999999L));
+    }
+
+    /**
+     * Runs a call on an empty persistence context and counts the statements
+     * Hibernate prepares for it.
+     *
+     * @param call the call
+     * @return the number of statements
+     */
+    private long statements(final Runnable call) {
+        entityManager.flush();
+        entityManager.clear();
+        final Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Tests that 500 orders placed at once for two foods never oversell and
+     * never take one food without the other.
+     */
+    @Test
+    void testConcurrentOrdersDoNotOversell() throws Exception {
+        final Food coffee = FoodMapper.mapToFood(foodService.createFood(new FoodDto("COFFEE", 100, 5, new ArrayList<>())));
+        final Food milk = FoodMapper.mapToFood(foodService.createFood(new FoodDto("MILK", 150, 2, new ArrayList<>())));
+        final int orders = 500;
+        final AtomicInteger placed = new AtomicInteger();
+        final AtomicInteger shortOfStock = new AtomicInteger();
+        final Set<String> shortages = ConcurrentHashMap.newKeySet();
+        final List<Throwable> unexpected = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService pool = Executors.newFixedThreadPool(32);
+        try {
+            for (int i = 0; i < orders; i++) {
+                // Half the orders list the foods the other way round
+                final List<Food> foods = i % 2 == 0 ? List.of(coffee, milk) : List.of(milk, coffee);
+                pool.execute(() -> {
+                    SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                            "customer", null, List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER"))));
+                    try {
+                        start.await();
+                        final OrderDto orderDto = new OrderDto(0L, "Rush");
+                        orderDto.setFoods(new ArrayList<>(foods));
+                        orderService.createOrder(orderDto);
+                        placed.incrementAndGet();
+                    } catch (final IllegalArgumentException e) {
+                        shortOfStock.incrementAndGet();
+                        shortages.add(e.getMessage());
+                    } catch (final Throwable e) {
+                        unexpected.add(e);
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+
+            assertTrue(unexpected.isEmpty(), () -> "Unexpected failures: " + unexpected);
+            assertEquals(100, placed.get());
+            assertEquals(orders - 100, shortOfStock.get());
+            // Milk never runs out, so every rejected order is short of coffee alone
+            assertEquals(Set.of("Not enough stock for COFFEE. Needed: 1, Available: 0"), shortages);
+            assertEquals(0, amountInDatabase(coffee.getId()));
+            assertEquals(50, amountInDatabase(milk.getId()));
+            assertEquals(100, orderRepository.count());
+        } finally {
+            pool.shutdownNow();
+            orderRepository.deleteAll();
+            inventoryRepository.deleteAll();
+            foodRepository.deleteAll();
+            userRepository.deleteAll();
+        }
+    }
+
     /**
      * Tests fulfilling an order and verifying inventory updates accordingly.
      */
@@ -134,12 +510,12 @@ class OrderServiceImplTest {
         foods.add(f2);
         foods.add(f3);
 
+        // Save foods in DB, then add the saved foods to the inventory
+        foodRepository.saveAll(foods);
+
         final InventoryDto inventoryDto = new InventoryDto(1L, foods);
         inventoryService.createInventory(inventoryDto);
 
-        // Save foods in DB
-        foodRepository.saveAll(foods);
-
         // Create an order with one item
         final OrderDto orderDto = new OrderDto(0L, "Order1");
         orderDto.setFoods(new ArrayList<>(List.of(f1))); // ✅ mutable list
@@ -374,4 +750,171 @@ class OrderServiceImplTest {
         assertNotSame(orderDto.getFoods().get(1), mappedOrder.getFoods().get(1));
     }
 
+    /**
+     * Tests that the stock engine decides reservations in memory and writes
+     * them to the foods table on flush.
+     */
+    @Test
+    @Transactional
+    void testStockEngineWritesBehind(@TempDir final Path dir) {
+        final FoodDto coffee = foodService.createFood(new FoodDto("COFFEE", 5, 5, new ArrayList<>()));
+        final StockEngine engine = stockEngine(dir);
+        engine.start();
+
+        engine.reserve(Map.of(coffee.getId(), 3L));
+        assertEquals(2, engine.available(coffee.getId()));
+        assertEquals(5, amountInDatabase(coffee.getId()));
+
+        final IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> engine.reserve(Map.of(coffee.getId(), 3L)));
+        assertEquals("Not enough stock for COFFEE. Needed: 3, Available: 2", ex.getMessage());
+
+        // Stock changed elsewhere is added to what the engine holds; this
+        // engine is not a bean, so the change event is passed on by hand
+        foodService.updateFood("COFFEE", 10, 5, new ArrayList<>());
+        engine.onFoodChanged(new FoodChangedEvent(FoodChangedEvent.Type.UPDATED, coffee.getId(), "COFFEE", 10, 5, 0L));
+        assertEquals(7, engine.available(coffee.getId()));
+
+        assertEquals(1, engine.flush());
+        assertEquals(7, amountInDatabase(coffee.getId()));
+        assertEquals(0, engine.flush());
+
+        // A row taken below the unflushed reservations stops at zero, and
+        // the engine reads that back instead of keeping its own count
+        engine.reserve(Map.of(coffee.getId(), 5L));
+        foodService.updateFood("COFFEE", 1, 5, new ArrayList<>());
+        engine.onFoodChanged(new FoodChangedEvent(FoodChangedEvent.Type.UPDATED, coffee.getId(), "COFFEE", 1, 5, 0L));
+        assertEquals(-4, engine.available(coffee.getId()));
+        assertEquals(1, engine.flush());
+        assertEquals(0, amountInDatabase(coffee.getId()));
+        assertEquals(0, engine.available(coffee.getId()));
+        assertEquals(0, engine.flush());
+
+        foodService.updateFood("COFFEE", 3, 5, new ArrayList<>());
+        engine.onFoodChanged(new FoodChangedEvent(FoodChangedEvent.Type.UPDATED, coffee.getId(), "COFFEE", 3, 5, 0L));
+        assertEquals(3, engine.available(coffee.getId()));
+        engine.shutdown();
+    }
+
+    /**
+     * Tests that reservations that were never flushed are replayed from the
+     * journal on the next start.
+     */
+    @Test
+    @Transactional
+    void testStockEngineReplaysJournal(@TempDir final Path dir) {
+        final FoodDto coffee = foodService.createFood(new FoodDto("COFFEE", 10, 5, new ArrayList<>()));
+        final StockEngine crashed = stockEngine(dir);
+        crashed.start();
+        try {
+            crashed.reserve(Map.of(coffee.getId(), 4L));
+            assertEquals(10, amountInDatabase(coffee.getId()));
+
+            // Started again without the first engine ever flushing
+            final StockEngine restarted = stockEngine(dir);
+            restarted.start();
+            try {
+                assertEquals(6, amountInDatabase(coffee.getId()));
+                assertEquals(6, restarted.available(coffee.getId()));
+            } finally {
+                restarted.shutdown();
+            }
+        } finally {
+            // Stops its flush thread and closes its journal; what it flushes
+            // is rolled back with the test
+            crashed.shutdown();
+        }
+    }
+
+    /**
+     * Tests that stock an order took from the stock engine is given back
+     * when the order's transaction rolls back after the order was placed.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testStockEngineReleasesOnRollback(@TempDir final Path dir) {
+        final FoodDto coffee = foodService.createFood(new FoodDto("COFFEE", 5, 5, new ArrayList<>()));
+        final StockEngine engine = stockEngine(dir);
+        engine.start();
+        final Object target = AopTestUtils.getTargetObject(orderService);
+        ReflectionTestUtils.setField(target, "stockEngine", engine);
+        try {
+            final OrderDto orderDto = new OrderDto(0L, "Order1");
+            orderDto.setLines(List.of(new OrderLineDto(coffee.getId(), null, 2, 0)));
+            orderService.createOrder(orderDto);
+            assertEquals(3, engine.available(coffee.getId()));
+
+            // The order was placed, but its transaction does not commit
+            TestTransaction.end();
+            assertEquals(5, engine.available(coffee.getId()));
+        } finally {
+            ReflectionTestUtils.setField(target, "stockEngine", stockEngine);
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * Tests that reserved stock cannot be ordered by others and is ordered
+     * by converting the reservation.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testCreateOrderFromReservation() {
+        final FoodDto coffee = foodService.createFood(new FoodDto("COFFEE", 5, 5, new ArrayList<>()));
+        final ReservationDto reservation = reservationService.reserve(
+                List.of(new ReservationItemDto(coffee.getId(), 2), new ReservationItemDto(coffee.getId(), 1)));
+        assertEquals(3, reservationService.heldQuantity(coffee.getId()));
+
+        final Food food = FoodMapper.mapToFood(coffee);
+        final OrderDto orderDto = new OrderDto(0L, "Walk-in");
+        orderDto.setFoods(new ArrayList<>(List.of(food, food, food)));
+        final IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> orderService.createOrder(orderDto));
+        assertEquals("Not enough stock for COFFEE. Needed: 3, Available: 2", ex.getMessage());
+
+        final OrderDto order = orderService.createOrderFromReservation(reservation.id(), "Cart");
+        assertEquals(3, order.getFoods().size());
+        assertEquals(2, foodRepository.findById(coffee.getId()).get().getAmount());
+        assertThrows(ResourceNotFoundException.class, () -> reservationService.getReservation(reservation.id()));
+        assertThrows(ResourceNotFoundException.class,
+                () -> orderService.createOrderFromReservation(reservation.id(), "Again"));
+    }
+
+    /**
+     * Tests that cancelled and expired reservations release their stock.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testReservationsRelease() throws Exception {
+        final FoodDto coffee = foodService.createFood(new FoodDto("COFFEE", 5, 5, new ArrayList<>()));
+        final ReservationDto reservation = reservationService.reserve(
+                List.of(new ReservationItemDto(coffee.getId(), 5)));
+        reservationService.cancel(reservation.id());
+        assertEquals(0, reservationService.heldQuantity(coffee.getId()));
+
+        final ReservationServiceImpl shortLived = new ReservationServiceImpl(foodCatalogCache, stockEngine,
+                userService, 0, 10);
+        try {
+            final ReservationDto expiring = shortLived.reserve(List.of(new ReservationItemDto(coffee.getId(), 5)));
+            for (int i = 0; i < 100 && shortLived.heldQuantity(coffee.getId()) > 0; i++) {
+                Thread.sleep(50);
+            }
+            assertEquals(0, shortLived.heldQuantity(coffee.getId()));
+            assertThrows(ResourceNotFoundException.class, () -> shortLived.getReservation(expiring.id()));
+        } finally {
+            shortLived.shutdown();
+        }
+    }
+
+    private StockEngine stockEngine(final Path dir) {
+        return new StockEngine(jdbcTemplate, transactionManager, foodRepository, publisher, true, 3_600_000L,
+                dir.resolve("stock.journal").toString(), false);
+    }
+
+    private int amountInDatabase(final Long foodId) {
+        return jdbcTemplate.queryForObject("SELECT amount FROM foods WHERE id = ?", Integer.class, foodId);
+    }
 }
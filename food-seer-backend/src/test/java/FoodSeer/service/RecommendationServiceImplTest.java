@@ -0,0 +1,134 @@
+package FoodSeer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+import FoodSeer.dto.FoodDto;
+import FoodSeer.entity.User;
+import FoodSeer.repositories.FoodRepository;
+import FoodSeer.repositories.InventoryRepository;
+import FoodSeer.repositories.OrderRepository;
+import FoodSeer.repositories.UserRepository;
+
+/**
+ * Tests RecommendationService and RecommendationServiceImpl.
+ */
+@SpringBootTest
+@Transactional
+class RecommendationServiceImplTest {
+
+    /** Reference to Recommendation service */
+    @Autowired
+    private RecommendationService recommendationService;
+
+    /** Reference to Food service */
+    @Autowired
+    private FoodService foodService;
+
+    /** Reference to Food repository */
+    @Autowired
+    private FoodRepository foodRepository;
+
+    /** Reference to Order repository */
+    @Autowired
+    private OrderRepository orderRepository;
+
+    /** Reference to Inventory repository */
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    /** Reference to User repository */
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Clears the catalog and adds a small menu.
+     */
+    @BeforeEach
+    public void setUp() {
+        orderRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        foodRepository.deleteAll();
+
+        foodService.createFood(new FoodDto("COFFEE", 10, 3, Arrays.asList("CAFFEINE")));
+        foodService.createFood(new FoodDto("BAGEL", 10, 4, Arrays.asList("GLUTEN", "WHEAT")));
+        foodService.createFood(new FoodDto("YOGURT", 10, 4, Arrays.asList("DAIRY")));
+        foodService.createFood(new FoodDto("BANANA", 0, 1, Arrays.asList()));
+        foodService.createFood(new FoodDto("PASTA", 10, 14, Arrays.asList("GLUTEN", "EGGS")));
+        foodService.createFood(new FoodDto("STEAK", 10, 28, Arrays.asList("BEEF")));
+    }
+
+    private static List<String> names(final List<FoodDto> foods) {
+        return foods.stream().map(FoodDto::getFoodName).collect(Collectors.toList());
+    }
+
+    @Test
+    void testRecommendFiltersByBudgetAndStock() {
+        // BANANA is out of stock; STEAK and PASTA are over budget
+        assertEquals(Arrays.asList("COFFEE", "BAGEL", "YOGURT"),
+                names(recommendationService.recommend("budget", null, 10)));
+
+        assertEquals(Arrays.asList("COFFEE", "BAGEL", "YOGURT", "PASTA", "STEAK"),
+                names(recommendationService.recommend("no-limit", "", 10)));
+    }
+
+    @Test
+    void testRecommendExcludesAllergens() {
+        assertEquals(Arrays.asList("COFFEE", "PASTA"),
+                names(recommendationService.recommend("moderate", "[\"MILK\",\"WHEAT\"]", 10)));
+
+        assertEquals(Arrays.asList("YOGURT"),
+                names(recommendationService.recommend("budget", "gluten, caffeine", 10)));
+    }
+
+    @Test
+    void testRecommendHonoursLimit() {
+        assertEquals(Arrays.asList("COFFEE", "BAGEL"),
+                names(recommendationService.recommend(null, null, 2)));
+
+        assertThrows(IllegalArgumentException.class, () -> recommendationService.recommend(null, null, 0));
+    }
+
+    @Test
+    void testRecommendSeesStockChanges() {
+        assertEquals(3, recommendationService.recommend("budget", null, 10).size());
+
+        foodService.updateFood("BANANA", 5, 1, Arrays.asList());
+        foodService.updateFood("COFFEE", 0, 3, Arrays.asList("CAFFEINE"));
+
+        assertEquals(Arrays.asList("BANANA", "BAGEL", "YOGURT"),
+                names(recommendationService.recommend("budget", null, 10)));
+    }
+
+    @Test
+    @WithMockUser(username = "picky", roles = "CUSTOMER")
+    void testRecommendForCurrentUser() {
+        userRepository.save(User.builder()
+                .username("picky")
+                .email("picky@test.com")
+                .password("password")
+                .costPreference("budget")
+                .dietaryRestrictions("CAFFEINE, MILK")
+                .build());
+
+        assertEquals(Arrays.asList("BAGEL"), names(recommendationService.recommendForCurrentUser(10)));
+    }
+
+    @Test
+    void testRecommendForCurrentUserNoUser() {
+        final IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> recommendationService.recommendForCurrentUser(10));
+        assertEquals("No authenticated user found", ex.getMessage());
+    }
+}
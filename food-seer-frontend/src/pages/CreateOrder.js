@@ -1,6 +1,13 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useNavigate, useLocation } from 'react-router-dom';
-import { getAllFoods, createOrder, getCurrentUser } from '../services/api';
+import {
+  getAllFoods,
+  createOrder,
+  getCurrentUser,
+  reserveStock,
+  cancelReservation,
+  orderReservation,
+} from '../services/api';
 
 const CreateOrder = () => {
   const [foods, setFoods] = useState([]);
@@ -10,6 +17,7 @@ const CreateOrder = () => {
   const [submitting, setSubmitting] = useState(false);
   const [searchTerm, setSearchTerm] = useState('');
   const [notification, setNotification] = useState(null);
+  const reservationRef = useRef(null);
   const navigate = useNavigate();
   const location = useLocation();
 
@@ -63,6 +71,40 @@ const CreateOrder = () => {
     }
   }, [location.state, foods]);
 
+  // Hold the cart's stock on the server while the cart is being built, so
+  // the order cannot run out at checkout. The hold is replaced shortly
+  // after each cart change.
+  useEffect(() => {
+    const timer = setTimeout(async () => {
+      const previous = reservationRef.current;
+      reservationRef.current = null;
+      if (previous) {
+        await cancelReservation(previous).catch(() => {});
+      }
+
+      const items = Object.values(cart).map(item => ({ foodId: item.food.id, quantity: item.quantity }));
+      if (items.length === 0) {
+        return;
+      }
+      try {
+        const reservation = await reserveStock(items);
+        reservationRef.current = reservation.id;
+      } catch (error) {
+        setNotification(`⚠️ ${error.message}`);
+        setTimeout(() => setNotification(null), 5000);
+      }
+    }, 400);
+
+    return () => clearTimeout(timer);
+  }, [cart]);
+
+  // Release the hold when leaving the page
+  useEffect(() => () => {
+    if (reservationRef.current) {
+      cancelReservation(reservationRef.current).catch(() => {});
+    }
+  }, []);
+
   const addToCart = (food) => {
     setCart(prev => ({
       ...prev,
@@ -126,7 +168,14 @@ const CreateOrder = () => {
       };
 
       console.log('Sending order data:', orderData); // Debug log
-      await createOrder(orderData);
+      const reservationId = reservationRef.current;
+      if (reservationId) {
+        // Order exactly the stock held for this cart
+        reservationRef.current = null;
+        await orderReservation(reservationId, orderName);
+      } else {
+        await createOrder(orderData);
+      }
       alert('Order placed successfully!');
 
      // UPDATE FRONTEND STOCK AFTER ORDER IS PLACED
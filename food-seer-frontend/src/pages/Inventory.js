@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
-import { getAllFoods, getCurrentUser } from '../services/api';
+import { getAllFoods, getCurrentUser, subscribeStockLevels } from '../services/api';
 
 const Inventory = () => {
   const [foods, setFoods] = useState([]);
@@ -29,6 +29,23 @@ const Inventory = () => {
     fetchFoods();
   }, [navigate]);
 
+  // Keep stock levels current from the server's stock stream instead of polling
+  useEffect(() => {
+    const unsubscribe = subscribeStockLevels((name, data) => {
+      if (name === 'snapshot') {
+        const amounts = new Map(data.map(level => [level.id, level.amount]));
+        setFoods(prev => prev
+          .filter(food => amounts.has(food.id))
+          .map(food => ({ ...food, amount: amounts.get(food.id) })));
+      } else if (name === 'stock') {
+        setFoods(prev => prev.map(food => (food.id === data.id ? { ...food, amount: data.amount } : food)));
+      } else if (name === 'removed') {
+        setFoods(prev => prev.filter(food => food.id !== data.id));
+      }
+    });
+    return unsubscribe;
+  }, []);
+
   useEffect(() => {
     let result = [...foods];
 
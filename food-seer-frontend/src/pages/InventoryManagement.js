@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
-import { getAllFoods, createFood, updateFood, deleteFood, getCurrentUser } from '../services/api';
+import { getAllFoods, createFood, updateFood, deleteFood, getCurrentUser, subscribeStockLevels } from '../services/api';
 
 const InventoryManagement = () => {
   // Comprehensive list of allergens
@@ -48,6 +48,23 @@ const InventoryManagement = () => {
     fetchFoods();
   }, []);
 
+  // Keep stock levels current from the server's stock stream instead of polling
+  useEffect(() => {
+    const unsubscribe = subscribeStockLevels((name, data) => {
+      if (name === 'snapshot') {
+        const amounts = new Map(data.map(level => [level.id, level.amount]));
+        setFoods(prev => prev
+          .filter(food => amounts.has(food.id))
+          .map(food => ({ ...food, amount: amounts.get(food.id) })));
+      } else if (name === 'stock') {
+        setFoods(prev => prev.map(food => (food.id === data.id ? { ...food, amount: data.amount } : food)));
+      } else if (name === 'removed') {
+        setFoods(prev => prev.filter(food => food.id !== data.id));
+      }
+    });
+    return unsubscribe;
+  }, []);
+
   const handleInputChange = (e) => {
     const { name, value } = e.target;
     setFormData(prev => ({
@@ -1,10 +1,9 @@
 import React, { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
-import { getCurrentUser, logout, getAllFoods } from '../services/api';
+import { getCurrentUser, logout, getRecommendations } from '../services/api';
 
 const Recommendations = () => {
   const [user, setUser] = useState(null);
-  const [foods, setFoods] = useState([]);
   const [filteredFoods, setFilteredFoods] = useState([]);
   const [loading, setLoading] = useState(true);
   const navigate = useNavigate();
@@ -15,11 +14,9 @@ const Recommendations = () => {
         const userData = await getCurrentUser();
         setUser(userData);
         
-        const foodsData = await getAllFoods();
-        setFoods(foodsData);
-        
-        // Filter foods based on user preferences
-        filterFoodsByPreferences(foodsData, userData);
+        // Budget and dietary restriction filtering happens on the server
+        const recommended = await getRecommendations(50);
+        setFilteredFoods(recommended);
       } catch (error) {
         console.error('Error fetching data:', error);
         navigate('/');
@@ -31,49 +28,6 @@ const Recommendations = () => {
     fetchData();
   }, [navigate]);
 
-  const filterFoodsByPreferences = (foodsData, userData) => {
-    let filtered = [...foodsData];
-
-    // Filter by budget/cost preference (cumulative ranges)
-    if (userData.costPreference && userData.costPreference !== 'no-limit') {
-      const budget = userData.costPreference.toLowerCase();
-      
-      if (budget === 'budget') {
-        // Budget option: $0-$10 (most affordable)
-        filtered = filtered.filter(food => food.price <= 10);
-      } else if (budget === 'moderate') {
-        // Moderate option: $0-$20 (includes budget + mid-range)
-        filtered = filtered.filter(food => food.price <= 20);
-      } else if (budget === 'premium') {
-        // Premium option: $0-$35 (includes everything)
-        filtered = filtered.filter(food => food.price <= 35);
-      }
-      // If no-limit or unrecognized value, show all foods (no filtering)
-    }
-
-    // Filter by dietary restrictions (allergies)
-    if (userData.dietaryRestrictions) {
-      const restrictionsInput = userData.dietaryRestrictions.toLowerCase();
-      const userRestrictions = restrictionsInput.split(',').map(r => r.trim()).filter(r => r.length > 0);
-      
-      filtered = filtered.filter(food => {
-        if (!food.allergies || food.allergies.length === 0) {
-          return true; // No allergies means safe for all
-        }
-        
-        // Check if any of the food's allergies match user's restrictions
-        const foodAllergies = food.allergies.map(a => a.toLowerCase());
-        
-        // Return false if any user restriction matches any food allergen
-        return !userRestrictions.some(restriction => 
-          foodAllergies.some(allergy => allergy === restriction)
-        );
-      });
-    }
-
-    setFilteredFoods(filtered);
-  };
-
   const handleLogout = () => {
     logout();
     navigate('/');
@@ -171,7 +125,7 @@ const Recommendations = () => {
 
       <div className="recommendations-footer">
         <p>Recommendations are based on your cost preference ({user?.costPreference || 'not set'}) and dietary restrictions ({user?.dietaryRestrictions || 'none'}).</p>
-        <p>Showing {filteredFoods.length} of {foods.length} available foods.</p>
+        <p>Showing {filteredFoods.length} recommended foods.</p>
       </div>
     </div>
   );
@@ -135,6 +135,42 @@ export const getAllFoods = async () => {
   }
 };
 
+export const getRecommendations = async (limit = 50) => {
+  try {
+    const response = await fetch(`${API_BASE_URL}/api/recommendations?limit=${limit}`, {
+      method: 'GET',
+      headers: createHeaders(true),
+    });
+    
+    if (!response.ok) {
+      throw new Error('Failed to fetch recommendations');
+    }
+    
+    return await response.json();
+  } catch (error) {
+    console.error('Get recommendations error:', error);
+    throw error;
+  }
+};
+
+export const searchFoods = async (query, limit = 10) => {
+  try {
+    const response = await fetch(`${API_BASE_URL}/api/foods/search?q=${encodeURIComponent(query)}&limit=${limit}`, {
+      method: 'GET',
+      headers: createHeaders(true),
+    });
+    
+    if (!response.ok) {
+      throw new Error('Failed to search foods');
+    }
+    
+    return await response.json();
+  } catch (error) {
+    console.error('Search foods error:', error);
+    throw error;
+  }
+};
+
 export const getFoodById = async (id) => {
   try {
     const response = await fetch(`${API_BASE_URL}/api/foods/${id}`, {
@@ -252,6 +288,86 @@ export const updateInventory = async (inventoryData) => {
   }
 };
 
+export const adjustStock = async (adjustments) => {
+  try {
+    const response = await fetch(`${API_BASE_URL}/api/inventory`, {
+      method: 'PATCH',
+      headers: createHeaders(true),
+      body: JSON.stringify(adjustments),
+    });
+    
+    if (!response.ok) {
+      throw new Error('Failed to adjust stock');
+    }
+    
+    return await response.json();
+  } catch (error) {
+    console.error('Adjust stock error:', error);
+    throw error;
+  }
+};
+
+// Streams stock levels from the server. EventSource cannot send the auth
+// header, so the event stream is read with fetch. Calls onEvent(name, data)
+// for each "snapshot", "stock" and "removed" event and reconnects after a
+// dropped connection. Returns a function that closes the stream.
+export const subscribeStockLevels = (onEvent) => {
+  const controller = new AbortController();
+
+  const connect = async () => {
+    try {
+      const response = await fetch(`${API_BASE_URL}/api/inventory/stream`, {
+        method: 'GET',
+        headers: createHeaders(true),
+        signal: controller.signal,
+      });
+
+      if (!response.ok) {
+        throw new Error('Failed to open stock stream');
+      }
+
+      const reader = response.body.getReader();
+      const decoder = new TextDecoder();
+      let buffer = '';
+      for (;;) {
+        const { done, value } = await reader.read();
+        if (done) {
+          break;
+        }
+        buffer += decoder.decode(value, { stream: true });
+        let end;
+        while ((end = buffer.indexOf('\n\n')) >= 0) {
+          const block = buffer.slice(0, end);
+          buffer = buffer.slice(end + 2);
+          let name = 'message';
+          const data = [];
+          block.split('\n').forEach(line => {
+            if (line.startsWith('event:')) {
+              name = line.slice(6).trim();
+            } else if (line.startsWith('data:')) {
+              data.push(line.slice(5));
+            }
+          });
+          if (data.length > 0) {
+            onEvent(name, JSON.parse(data.join('\n')));
+          }
+        }
+      }
+    } catch (error) {
+      if (controller.signal.aborted) {
+        return;
+      }
+      console.error('Stock stream error:', error);
+    }
+    if (!controller.signal.aborted) {
+      setTimeout(connect, 5000);
+    }
+  };
+
+  connect();
+  return () => controller.abort();
+};
+
 // Order API calls
 export const getAllOrders = async () => {
   try {
@@ -362,6 +478,62 @@ export const createOrder = async (orderData) => {
   }
 };
 
+// Holds stock for a cart. items is a list of { foodId, quantity }; the
+// error message says which food ran out.
+export const reserveStock = async (items) => {
+  try {
+    const response = await fetch(`${API_BASE_URL}/api/reservations`, {
+      method: 'POST',
+      headers: createHeaders(true),
+      body: JSON.stringify(items),
+    });
+    
+    if (!response.ok) {
+      throw new Error((await response.text()) || 'Failed to reserve stock');
+    }
+    
+    return await response.json();
+  } catch (error) {
+    console.error('Reserve stock error:', error);
+    throw error;
+  }
+};
+
+export const cancelReservation = async (reservationId) => {
+  try {
+    const response = await fetch(`${API_BASE_URL}/api/reservations/${reservationId}`, {
+      method: 'DELETE',
+      headers: createHeaders(true),
+    });
+    
+    if (!response.ok && response.status !== 404) {
+      throw new Error('Failed to cancel reservation');
+    }
+  } catch (error) {
+    console.error('Cancel reservation error:', error);
+    throw error;
+  }
+};
+
+export const orderReservation = async (reservationId, name) => {
+  try {
+    const response = await fetch(
+      `${API_BASE_URL}/api/reservations/${reservationId}/order?name=${encodeURIComponent(name)}`, {
+      method: 'POST',
+      headers: createHeaders(true),
+    });
+    
+    if (!response.ok) {
+      throw new Error((await response.text()) || 'Failed to create order');
+    }
+    
+    return await response.json();
+  } catch (error) {
+    console.error('Order reservation error:', error);
+    throw error;
+  }
+};
+
 export const fulfillOrder = async (orderId) => {
   try {
     const response = await fetch(`${API_BASE_URL}/api/orders/fulfillOrder`, {